@@ -516,6 +516,20 @@ INSERT INTO `drug_brand_names` VALUES ('br0001','panadol','paracetamol','tablet'
 /*!40000 ALTER TABLE `drug_brand_names` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `id_sequence`
+--
+
+DROP TABLE IF EXISTS `id_sequence`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `id_sequence` (
+  `seq_name` varchar(40) NOT NULL,
+  `next_value` bigint(20) NOT NULL,
+  PRIMARY KEY (`seq_name`)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `lab_appointment`
 --
@@ -0,0 +1,79 @@
+package Admin;
+
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The income reports of the admin's reports screen over the last month, the
+ * last year and the whole synthetic history, plus the admin's stock summary.
+ * The dates are passed the way ReportsController passes them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdminReportBenchmark {
+
+	@Param({ "1", "12", "36" })
+	public int months;
+
+	private Admin admin;
+	private String from;
+	private String to;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		admin = new Admin("user021");
+		LocalDate today = LocalDate.now();
+		from = today.minusMonths(months).toString();
+		to = today.plusDays(1).toString();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> lastTotalIncome() {
+		return admin.lastTotalIncome(from, to);
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> pharmacyIncome() {
+		return admin.pharmacyIncome(from, to);
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> laboratoryIncome() {
+		return admin.laboratoryIncome(from, to);
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> appointmentIncome() {
+		return admin.appointmentIncome(from, to);
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getStockSummary() {
+		return admin.getStockSummary();
+	}
+}
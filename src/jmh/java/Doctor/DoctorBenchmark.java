@@ -0,0 +1,60 @@
+package Doctor;
+
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import com.hms.hms_test_2.benchmark.SyntheticData;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Opening a lab report and the patient name autocompletion, which runs on
+ * every key stroke.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoctorBenchmark {
+
+	/** what the user typed: one letter, a first name, or first and last name */
+	@Param({ "k", "kamal", "kamal p" })
+	public String typed;
+
+	private Doctor doctor;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		doctor = new Doctor("user001");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getTestResults() {
+		return doctor.getTestResults(SyntheticData.liverTestId(next++ % 1000));
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> nameSuggestor() {
+		return doctor.nameSuggestor(typed);
+	}
+}
@@ -0,0 +1,73 @@
+package LabAssistant;
+
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Back-filling lab results: the same mix of liver, renal and blood grouping
+ * results written one statement at a time through the LabAssistant writers and
+ * as a LabResultBatch. The score is results written per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LabResultBatchBenchmark {
+
+	private static final int RESULTS = 300;
+
+	private LabAssistant labAssistant;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		labAssistant = new LabAssistant("user012");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public int oneByOne() {
+		int written = 0;
+		for (int i = 0; i < RESULTS; i += 3) {
+			labAssistant.liverFunctionTest("sla0000001", "7.1", "4.2", "2.9", "0.8", "0.2", "31", "28", "96");
+			labAssistant.RenalFunctionTest("sla0000002", "0.9", "28", "0.8", "0.2", "31", "28", "96");
+			labAssistant.BloodGroupingTest("sla0000003", "O", "positive");
+			written += 3;
+		}
+		return written;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(RESULTS)
+	public int batched() throws Exception {
+		LabResultBatch batch = new LabResultBatch(labAssistant.dbOperator);
+		for (int i = 0; i < RESULTS; i += 3) {
+			batch.add(LabResultBatch.Test.LIVER_FUNCTION_TEST, "sla0000001", "7.1", "4.2", "2.9", "0.8", "0.2",
+					"31", "28", "96");
+			batch.add(LabResultBatch.Test.RENAL_FUNCTION_TEST, "sla0000002", "0.9", "28", "0.8", "0.2", "31", "28",
+					"96");
+			batch.add(LabResultBatch.Test.BLOOD_GROUPING_RH, "sla0000003", "O", "positive");
+		}
+		return batch.write();
+	}
+}
@@ -0,0 +1,53 @@
+package Pharmacist;
+
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The stock summaries of the pharmacist's start screen, per drug and per
+ * brand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PharmacistBenchmark {
+
+	private Pharmacist pharmacist;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		pharmacist = new Pharmacist("user016");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getStockSummary() {
+		return pharmacist.getStockSummary();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getStockSummary2() {
+		return pharmacist.getStockSummary2();
+	}
+}
@@ -0,0 +1,102 @@
+package Receptionist;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import com.hms.hms_test_2.benchmark.SyntheticData;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Eight receptionists booking at the same time, for random patients with one of
+ * the first {@code doctors} synthetic doctors. makeAppointment writes each
+ * booking as one transaction; autocommitted issues the same statements the way
+ * it did before, each with a commit of its own. The score is bookings per
+ * second. With few doctors the bookings compete for the same availability rows,
+ * see DatabaseOperator.getTransactionRetries() for the deadlocks retried.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ConcurrentBookingBenchmark {
+
+	@Param({ "2", "50" })
+	public int doctors;
+
+	private int patients;
+
+	@State(Scope.Thread)
+	public static class Desk {
+		Receptionist receptionist;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			receptionist = new Receptionist("user018");
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		patients = Integer.getInteger("hms.bench.patients", 20000);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		System.out.println("Transactions retried: " + DatabaseOperator.getTransactionRetries());
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public String makeAppointment(Desk desk) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		// Tuesday of next week, every synthetic doctor works then
+		return desk.receptionist.makeAppointment(SyntheticData.patientId(random.nextInt(patients)),
+				SyntheticData.doctorId(random.nextInt(doctors)), "9", "09:00-12:00");
+	}
+
+	@Benchmark
+	public String autocommitted(Desk desk) throws Exception {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String patientID = SyntheticData.patientId(random.nextInt(patients));
+		String doctorID = SyntheticData.doctorId(random.nextInt(doctors));
+		DatabaseOperator dbOperator = desk.receptionist.dbOperator;
+
+		String appointmentID = dbOperator.nextId(IdSequence.APPOINTMENT);
+		ArrayList<ArrayList<String>> bill = dbOperator
+				.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';");
+		if (bill != null && bill.size() > 1) {
+			dbOperator.customInsertion("UPDATE tmp_bill SET appointment_fee = ' 500 ' WHERE tmp_bill_id = '"
+					+ bill.get(1).get(0) + "';");
+		} else {
+			dbOperator.customInsertion("INSERT INTO tmp_bill (patient_id,appointment_fee,tmp_bill_id) VALUES ('"
+					+ patientID + "','500','" + dbOperator.nextId(IdSequence.TMP_BILL) + "');");
+		}
+		dbOperator.customInsertion("INSERT INTO appointment (appointment_id,patient_id,slmc_reg_no,date,cancelled) "
+				+ "VALUES ('" + appointmentID + "' , '" + patientID + "' , '" + doctorID
+				+ "' , NOW() + INTERVAL 7 DAY , false );");
+		dbOperator.customInsertion("UPDATE doctor_availability SET next_week_appointments = "
+				+ "next_week_appointments + 1 WHERE time_slot = '09:00-12:00' AND slmc_reg_no = '" + doctorID
+				+ "' AND day = '2';");
+		return appointmentID;
+	}
+}
@@ -0,0 +1,85 @@
+package Receptionist;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.benchmark.BenchmarkDatabase;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Booking an appointment and the doctor list of the receptionist's start
+ * screen. Every makeAppointment call inserts a real appointment, so the
+ * appointment table grows during the run as it does in the hospital.
+ * The doctor table is grown to hms.bench.doctors (500) doctors, and the
+ * grouped doctor list is compared with the former query per doctor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReceptionistBenchmark {
+
+	private Receptionist receptionist;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		BenchmarkDatabase.growDoctors(Integer.getInteger("hms.bench.doctors", 500));
+		receptionist = new Receptionist("user018");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public String makeAppointment() {
+		// Monday of next week with the sample doctor, see doctor_availability
+		return receptionist.makeAppointment("hms0001pa", "19245", "9", "14:00-18:00");
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getDoctorSummary() {
+		return receptionist.getDoctorSummary();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> getDoctorSummaryPerDoctor() throws Exception {
+		// the doctor list as it was read before the grouped query
+		DatabaseOperator dbOperator = receptionist.dbOperator;
+		ArrayList<ArrayList<String>> data = dbOperator.customSelection("SELECT "
+				+ "doctor.slmc_reg_no, doctor.experienced_areas, person.first_name, person.last_name "
+				+ "FROM doctor INNER JOIN person ON doctor.user_id = person.user_id;");
+		for (int i = 1; i < data.size(); i++) {
+			ArrayList<String> row = data.get(i);
+			ArrayList<ArrayList<String>> days = dbOperator.customSelection(
+					"SELECT day FROM doctor_availability WHERE slmc_reg_no = '" + row.get(0) + "';");
+			ArrayList<String> seen = new ArrayList<String>();
+			String dayList = "";
+			for (int j = 1; j < days.size(); j++) {
+				String day = days.get(j).get(0);
+				if (!seen.contains(day)) {
+					dayList += day + " ";
+					seen.add(day);
+				}
+			}
+			row.add(Integer.toString(seen.size()));
+			row.add(dayList);
+		}
+		return data;
+	}
+}
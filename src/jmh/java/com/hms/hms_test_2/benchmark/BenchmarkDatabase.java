@@ -0,0 +1,243 @@
+package com.hms.hms_test_2.benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfiguration;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.SystemConfiguration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded MariaDB server the benchmarks run against.
+ *
+ * The server is started once per benchmark JVM, loaded with database/hms_db.sql
+ * and grown with {@link SyntheticData}. SystemConfiguration is then pointed at
+ * it, so the role classes connect to it exactly as they would to the real
+ * database. The application reads ./config.properties; an empty one is created
+ * if it is missing, the connection settings are only changed in memory.
+ *
+ * System properties:
+ * hms.bench.dump     path of the dump (database/hms_db.sql)
+ * hms.bench.patients number of synthetic patients (20000)
+ * hms.bench.years    years of synthetic bills and appointments (3)
+ * hms.bench.seed     seed of the synthetic data (42)
+ *
+ * Benchmarks of date filters can grow the appointment tables further with
+ * {@link #growAppointments(long)}, benchmarks of the doctor list the doctors
+ * with {@link #growDoctors(int)}.
+ */
+public final class BenchmarkDatabase {
+
+	public static final String DATABASE = "hms_bench";
+
+	private static DB db;
+	private static int users;
+	private static String url;
+	// rows the appointment tables were grown to
+	private static long appointments;
+	// doctors the doctor table was grown to
+	private static int doctors;
+
+	private BenchmarkDatabase() {
+	}
+
+	/**
+	 * Starts and loads the server if this JVM has not done so yet. Every call
+	 * has to be paired with {@link #stop()}.
+	 */
+	public static synchronized void start() throws Exception {
+		users++;
+		if (db != null) {
+			return;
+		}
+
+		DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+		builder.setPort(0);
+		// the dump comes from a MariaDB 10.1 server, which was not strict yet
+		builder.addArg("--sql-mode=NO_ENGINE_SUBSTITUTION");
+		DBConfiguration configuration = builder.build();
+		db = DB.newEmbeddedDB(configuration);
+		db.start();
+		db.createDB(DATABASE);
+
+		url = "jdbc:mariadb://localhost:" + configuration.getPort() + "/" + DATABASE;
+		Class.forName("org.mariadb.jdbc.Driver");
+		Connection connection = DriverManager.getConnection(url, "root", "");
+		try {
+			loadDump(connection, new File(System.getProperty("hms.bench.dump", "database/hms_db.sql")));
+			new SyntheticData(Integer.getInteger("hms.bench.patients", 20000),
+					Integer.getInteger("hms.bench.years", 3), Long.getLong("hms.bench.seed", 42L))
+					.insert(connection);
+		} finally {
+			connection.close();
+		}
+
+		File config = new File("config.properties");
+		if (!config.exists()) {
+			config.createNewFile();
+		}
+		SystemConfiguration settings = SystemConfiguration.getInstance();
+		settings.updateConfig("dbClassName", "org.mariadb.jdbc.Driver");
+		settings.updateConfig("connection", url);
+		settings.updateConfig("user", "root");
+		settings.updateConfig("password", "");
+		settings.updateConfig("database", DATABASE);
+	}
+
+	/**
+	 * Stops the server after the last user is done with it.
+	 */
+	public static synchronized void stop() throws Exception {
+		if (--users > 0 || db == null) {
+			return;
+		}
+		DatabaseOperator.shutdownPool();
+		db.stop();
+		db = null;
+		appointments = 0;
+		doctors = 0;
+	}
+
+	/**
+	 * Copies the appointments and lab appointments until each table has at least
+	 * the given number of rows. The copies get new IDs and dates moved back by up
+	 * to four weeks, and belong to the same patients, doctors and bills.
+	 */
+	public static synchronized void growAppointments(long rows) throws SQLException {
+		if (appointments >= rows) {
+			return;
+		}
+		Connection connection = DriverManager.getConnection(url, "root", "");
+		try {
+			Statement stmt = connection.createStatement();
+			try {
+				grow(stmt, "appointment", "appointment_id", "date, info, patient_id, bill_id, slmc_reg_no, cancelled",
+						rows);
+				grow(stmt, "lab_appointment", "lab_appointment_id",
+						"test_id, date, info, patient_id, bill_id, lab_assistant_id, cancelled, doctor_id", rows);
+			} finally {
+				stmt.close();
+			}
+		} finally {
+			connection.close();
+		}
+		appointments = rows;
+	}
+
+	/**
+	 * Adds doctors until there are at least the given number, each with a
+	 * person row and two time slots on one to seven days.
+	 */
+	public static synchronized void growDoctors(int rows) throws SQLException {
+		if (doctors >= rows) {
+			return;
+		}
+		Connection connection = DriverManager.getConnection(url, "root", "");
+		try {
+			Statement stmt = connection.createStatement();
+			// the added doctors have no sys_user rows
+			stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+			try {
+				int existing = (int) count(stmt, "doctor");
+				PreparedStatement doctor = connection.prepareStatement(
+						"INSERT INTO doctor (slmc_reg_no, user_id, experienced_areas) VALUES (?, ?, ?)");
+				PreparedStatement person = connection.prepareStatement(
+						"INSERT INTO person (person_id, user_id, first_name, last_name) VALUES (?, ?, ?, ?)");
+				PreparedStatement slot = connection.prepareStatement("INSERT INTO doctor_availability "
+						+ "(time_slot_id, slmc_reg_no, day, time_slot, current_week_appointments) VALUES (?, ?, ?, ?, 0)");
+				for (int i = existing; i < rows; i++) {
+					String regNo = String.format("gd%05d", i);
+					String userId = String.format("gdu%05d", i);
+					doctor.setString(1, regNo);
+					doctor.setString(2, userId);
+					doctor.setString(3, "area" + (i % 12));
+					doctor.addBatch();
+
+					person.setString(1, String.format("gdp%05d", i));
+					person.setString(2, userId);
+					person.setString(3, "First" + i);
+					person.setString(4, "Last" + i);
+					person.addBatch();
+
+					for (int day = 1; day <= i % 7 + 1; day++) {
+						slot.setString(2, regNo);
+						slot.setInt(3, day);
+						slot.setString(1, String.format("gdt%05d%da", i, day));
+						slot.setString(4, "09:00-12:00");
+						slot.addBatch();
+						slot.setString(1, String.format("gdt%05d%db", i, day));
+						slot.setString(4, "14:00-17:00");
+						slot.addBatch();
+					}
+				}
+				doctor.executeBatch();
+				person.executeBatch();
+				slot.executeBatch();
+				doctor.close();
+				person.close();
+				slot.close();
+			} finally {
+				stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+				stmt.close();
+			}
+		} finally {
+			connection.close();
+		}
+		doctors = rows;
+	}
+
+	// doubles the table until it is large enough; the IDs are numbered on from
+	// the row count, so they stay unique and within the 15 characters of the column
+	private static void grow(Statement stmt, String table, String id, String columns, long rows)
+			throws SQLException {
+		String copied = columns.replace("date", "date - INTERVAL FLOOR(RAND() * 28) DAY");
+		long count;
+		while ((count = count(stmt, table)) < rows) {
+			stmt.execute("SET @n = " + count);
+			stmt.executeUpdate("INSERT INTO " + table + " (" + id + ", " + columns + ") "
+					+ "SELECT CONCAT('c', LPAD(@n := @n + 1, 12, '0')), " + copied + " FROM " + table + " LIMIT "
+					+ (rows - count));
+		}
+		stmt.execute("ANALYZE TABLE " + table);
+	}
+
+	private static long count(Statement stmt, String table) throws SQLException {
+		ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table);
+		rs.next();
+		long count = rs.getLong(1);
+		rs.close();
+		return count;
+	}
+
+	/**
+	 * Runs the statements of a mysqldump file one by one.
+	 */
+	private static void loadDump(Connection connection, File dump) throws IOException, SQLException {
+		StringBuilder script = new StringBuilder();
+		for (String line : Files.readAllLines(dump.toPath(), StandardCharsets.UTF_8)) {
+			if (!line.startsWith("--")) {
+				script.append(line).append('\n');
+			}
+		}
+
+		Statement stmt = connection.createStatement();
+		try {
+			for (String sql : script.toString().split(";\n")) {
+				if (!sql.trim().isEmpty()) {
+					stmt.execute(sql);
+				}
+			}
+		} finally {
+			stmt.close();
+		}
+	}
+}
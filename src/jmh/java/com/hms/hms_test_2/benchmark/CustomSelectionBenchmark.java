@@ -0,0 +1,74 @@
+package com.hms.hms_test_2.benchmark;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.ResultTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * customSelection on its own: a primary key lookup, which is mostly round
+ * trip and statement overhead, and a scan of a year of bills, which is mostly
+ * row conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomSelectionBenchmark {
+
+	private static final String PATIENT = "SELECT person.first_name, person.last_name, person.date_of_birth "
+			+ "FROM person INNER JOIN patient ON person.person_id = patient.person_id WHERE patient.patient_id = ";
+	private static final String BILLS = "SELECT bill_date, total FROM bill WHERE bill_date >= CURRENT_DATE - INTERVAL 1 YEAR";
+
+	private DatabaseOperator dbOperator;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		dbOperator = new DatabaseOperator();
+		dbOperator.connectAndUseDatabase();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public ArrayList<ArrayList<String>> patientById() throws Exception {
+		return dbOperator.customSelection(PATIENT + "'" + SyntheticData.patientId(next++ % 1000) + "';");
+	}
+
+	@Benchmark
+	public ResultTable patientByIdPrepared() throws Exception {
+		return dbOperator.customSelection(PATIENT + "?", Arrays.asList(SyntheticData.patientId(next++ % 1000)));
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ArrayList<ArrayList<String>> billsOfLastYear() throws Exception {
+		return dbOperator.customSelection(BILLS + ";");
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ResultTable billsOfLastYearTyped() throws Exception {
+		return dbOperator.customSelection(BILLS, new ArrayList<Object>());
+	}
+}
@@ -0,0 +1,103 @@
+package com.hms.hms_test_2.benchmark;
+
+import Doctor.Doctor;
+import LabAssistant.LabAssistant;
+import com.hms.hms_test_2.DatabaseOperator;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The day and month filters of the doctor and lab assistant dashboards on
+ * large appointment tables, written with functions on the date column as they
+ * were ("functions") and as ranges on the raw column ("range").
+ *
+ * Both tables are grown to hms.bench.appointments rows (5000000) before the
+ * first run, which takes a few minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateRangeBenchmark {
+
+	@Param({ "functions", "range" })
+	public String filter;
+
+	private DatabaseOperator dbOperator;
+	private Doctor doctor;
+	private LabAssistant labAssistant;
+	private boolean functions;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.start();
+		BenchmarkDatabase.growAppointments(Long.getLong("hms.bench.appointments", 5000000L));
+		dbOperator = new DatabaseOperator();
+		dbOperator.connectAndUseDatabase();
+		doctor = new Doctor("user001");
+		doctor.slmcRegNo = SyntheticData.doctorId(0);
+		labAssistant = new LabAssistant("user012");
+		functions = filter.equals("functions");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		BenchmarkDatabase.stop();
+	}
+
+	@Benchmark
+	public Object doctorToday() throws Exception {
+		if (functions) {
+			return dbOperator.customSelection("SELECT COUNT(date) AS 'Appointments' FROM appointment "
+					+ "WHERE ( day(date)=day(CURRENT_DATE) AND slmc_reg_no='" + doctor.slmcRegNo + "');");
+		}
+		return doctor.getTodayAppointments();
+	}
+
+	@Benchmark
+	public Object labToday() throws Exception {
+		if (functions) {
+			return dbOperator.customSelection("SELECT COUNT(' date ') AS count FROM lab_appointment "
+					+ "WHERE (day(curDate()) = day(date)) AND (month(curDate()) = month(date)) "
+					+ "AND (year(curDate()) = year(date))");
+		}
+		return labAssistant.getTodayAppointments();
+	}
+
+	@Benchmark
+	public Object labLastMonths() throws Exception {
+		if (functions) {
+			ArrayList<String> counts = new ArrayList<String>();
+			for (int i = 1; i < 6; i++) {
+				counts.add(dbOperator.customSelection("SELECT COUNT(' date ') AS count FROM lab_appointment "
+						+ "WHERE month(date) = month( CURRENT_DATE - INTERVAL " + (i * 30) + " DAY );").get(1).get(0));
+			}
+			return counts;
+		}
+		return labAssistant.lastMonthsAppointments();
+	}
+
+	@Benchmark
+	public Object labAppointmentsThisYear() throws Exception {
+		if (functions) {
+			return dbOperator.customSelection("SELECT date,patient_id,cancelled FROM lab_appointment "
+					+ "WHERE (month(curDate()) >= month(date)) AND (year(curDate()) = year(date));");
+		}
+		return labAssistant.getAppointments();
+	}
+}
@@ -0,0 +1,112 @@
+package com.hms.hms_test_2.benchmark;
+
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.MonthlySeries;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binning the rows of a chart into months, the way ReportsController did
+ * ("names": a formatter and a parsed date per row, the month name looked up in
+ * a list of boxed counters, or a set of boxed values per month name) and with
+ * MonthlySeries ("dense").
+ *
+ * The rows are hms.bench.chartRows (1000000) dates and amounts as
+ * customSelection returns them, spread over the last 3 years. No database is
+ * needed. Run with -prof gc to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonthlySeriesBenchmark {
+
+	@Param({ "names", "dense" })
+	public String binning;
+
+	private String[] dates;
+	private String[] amounts;
+	private DateRange window;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		int rows = Integer.getInteger("hms.bench.chartRows", 1000000);
+		Random random = new Random(Long.getLong("hms.bench.seed", 42L));
+		DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+		LocalDate today = LocalDate.now();
+		dates = new String[rows];
+		amounts = new String[rows];
+		for (int i = 0; i < rows; i++) {
+			dates[i] = format.format(today.minusDays(random.nextInt(3 * 365)).atTime(8 + random.nextInt(10), 0));
+			amounts[i] = Integer.toString(100 + random.nextInt(5000));
+		}
+		window = DateRange.lastMonths(37, YearMonth.from(today));
+	}
+
+	@Benchmark
+	public Object sum() {
+		if (binning.equals("names")) {
+			ArrayList<String> months = new ArrayList<String>();
+			ArrayList<Integer> income = new ArrayList<Integer>();
+			for (int i = 0; i < dates.length; i++) {
+				DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+				LocalDate date2 = LocalDate.parse(dates[i], fomatter1);
+				DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
+				String month = fomatter2.format(date2);
+				if (months.contains(month)) {
+					int indx = months.indexOf(month);
+					int tmp = income.remove(indx);
+					income.add(indx, (tmp + Integer.parseInt(amounts[i])));
+				} else {
+					months.add(month);
+					income.add(Integer.parseInt(amounts[i]));
+				}
+			}
+			return income;
+		}
+		MonthlySeries income = MonthlySeries.sum(window);
+		for (int i = 0; i < dates.length; i++) {
+			income.add(dates[i], Long.parseLong(amounts[i]));
+		}
+		return income;
+	}
+
+	@Benchmark
+	public Object distinctCount() {
+		if (binning.equals("names")) {
+			HashMap<String, HashSet<Integer>> months = new HashMap<String, HashSet<Integer>>();
+			DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+			DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM yy");
+			for (int i = 0; i < dates.length; i++) {
+				String month = fomatter2.format(LocalDate.parse(dates[i], fomatter1));
+				months.computeIfAbsent(month, key -> new HashSet<Integer>()).add(i % 20000);
+			}
+			return months;
+		}
+		MonthlySeries patients = MonthlySeries.distinctCount(window);
+		for (int i = 0; i < dates.length; i++) {
+			patients.add(dates[i], i % 20000);
+		}
+		return patients;
+	}
+}
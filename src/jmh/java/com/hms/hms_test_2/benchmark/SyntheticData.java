@@ -0,0 +1,327 @@
+package com.hms.hms_test_2.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Generates a hospital of configurable size on top of the sample data.
+ *
+ * All IDs use prefixes of their own ('sp', 'sd', 'sb', ...) so they never
+ * collide with the sample data or with IDs the application generates. The
+ * same size and seed always give the same rows.
+ *
+ * For every patient there are two bills, each with an appointment, spread
+ * over the given number of years up to today; one doctor per 200 patients
+ * with two time slots on three to seven days; 300 drugs with three brands and
+ * four stocks each; and one liver function test per 10 patients.
+ */
+public final class SyntheticData {
+
+	private static final String[] FIRST_NAMES = { "Amal", "Kamal", "Nimal", "Sunil", "Saman", "Ruwan", "Kasun",
+			"Chamara", "Dilshan", "Nuwan", "Kumari", "Nadeesha", "Sanduni", "Dilini", "Harsha", "Tharindu",
+			"Ishara", "Malith", "Gayan", "Pradeep", "Anushka", "Hiruni", "Chathura", "Lahiru", "Sachini",
+			"Janaka", "Upul", "Thilini", "Madhavi", "Roshan", "Asanka", "Buddhika", "Chandima", "Dinesh",
+			"Erandi", "Fathima", "Ganga", "Hashan", "Iresha", "Jagath" };
+	private static final String[] LAST_NAMES = { "Perera", "Silva", "Fernando", "Jayasinghe", "Bandara",
+			"Rathnayake", "Wijesinghe", "Gunawardena", "Dissanayake", "Herath", "Kumara", "Senanayake",
+			"Wickramasinghe", "Rajapaksha", "Ekanayake", "Abeysekara", "Amarasinghe", "Weerasinghe",
+			"Samarawickrama", "Gamage", "Liyanage", "Karunaratne", "Madushanka", "Pathirana", "Ranasinghe",
+			"Siriwardena", "Udugama", "Vithanage", "Walpola", "Yapa", "Alwis", "Basnayake", "Cooray", "De Mel",
+			"Edirisinghe", "Fonseka", "Goonetilleke", "Hettiarachchi", "Ilangakoon", "Jayawardena" };
+	private static final String[] AREAS = { "cardiology", "neurology", "pediatrics", "dermatology", "oncology",
+			"orthopedics", "psychiatry", "radiology", "urology", "gynecology", "ENT", "general surgery" };
+	private static final String[] TIME_SLOTS = { "09:00-12:00", "14:00-18:00" };
+	private static final String[] LAB_TESTS = { "t001", "t002", "t003", "t004", "t005" };
+	private static final String[] SUPPLIERS = { "sup0001", "sup0002", "sup0003", "sup0004", "sup0005", "sup0006",
+			"sup0007", "sup0008" };
+
+	private static final int DRUGS = 300;
+	private static final int BRANDS_PER_DRUG = 3;
+	private static final int STOCKS_PER_BRAND = 4;
+	private static final int BATCH = 1000;
+
+	private final int patients;
+	private final int doctors;
+	private final int years;
+	private final Random random;
+
+	/**
+	 * @param patients number of patients
+	 * @param years    years of bills and appointments
+	 * @param seed     seed of the random values
+	 */
+	public SyntheticData(int patients, int years, long seed) {
+		this.patients = patients;
+		this.doctors = Math.max(1, patients / 200);
+		this.years = years;
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Inserts the rows, committing after every table.
+	 */
+	public void insert(Connection connection) throws SQLException {
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		Statement stmt = connection.createStatement();
+		// synthetic people have no sys_user rows
+		stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+		try {
+			insertPatients(connection);
+			insertDoctors(connection);
+			insertBills(connection);
+			insertDrugs(connection);
+			insertLabTests(connection);
+		} finally {
+			stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+			stmt.close();
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	private void insertPatients(Connection connection) throws SQLException {
+		PreparedStatement person = connection.prepareStatement("INSERT INTO person (person_id, nic, gender, "
+				+ "date_of_birth, mobile, first_name, last_name) VALUES (?, ?, ?, ?, ?, ?, ?)");
+		PreparedStatement patient = connection.prepareStatement(
+				"INSERT INTO patient (patient_id, person_id) VALUES (?, ?)");
+		for (int i = 0; i < patients; i++) {
+			String personId = String.format("spp%07d", i);
+			person.setString(1, personId);
+			person.setString(2, String.format("%09dV", i));
+			person.setString(3, random.nextBoolean() ? "M" : "F");
+			person.setObject(4, LocalDate.of(1940 + random.nextInt(75), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+			person.setString(5, String.format("07%08d", i));
+			person.setString(6, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+			person.setString(7, LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+			person.addBatch();
+
+			patient.setString(1, patientId(i));
+			patient.setString(2, personId);
+			patient.addBatch();
+
+			if (i % BATCH == BATCH - 1) {
+				person.executeBatch();
+				patient.executeBatch();
+			}
+		}
+		person.executeBatch();
+		patient.executeBatch();
+		person.close();
+		patient.close();
+		connection.commit();
+	}
+
+	private void insertDoctors(Connection connection) throws SQLException {
+		PreparedStatement doctor = connection.prepareStatement("INSERT INTO doctor (slmc_reg_no, user_id, "
+				+ "experienced_areas, channelling_fee) VALUES (?, ?, ?, ?)");
+		PreparedStatement person = connection.prepareStatement(
+				"INSERT INTO person (person_id, user_id, first_name, last_name) VALUES (?, ?, ?, ?)");
+		PreparedStatement slot = connection.prepareStatement("INSERT INTO doctor_availability (time_slot_id, "
+				+ "slmc_reg_no, day, time_slot, current_week_appointments, next_week_appointments) "
+				+ "VALUES (?, ?, ?, ?, 0, 0)");
+		int slotNo = 0;
+		for (int i = 0; i < doctors; i++) {
+			String userId = String.format("sdu%05d", i);
+			doctor.setString(1, doctorId(i));
+			doctor.setString(2, userId);
+			doctor.setString(3, AREAS[i % AREAS.length]);
+			doctor.setInt(4, 500 + 100 * random.nextInt(10));
+			doctor.addBatch();
+
+			person.setString(1, String.format("spd%05d", i));
+			person.setString(2, userId);
+			person.setString(3, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+			person.setString(4, LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+			person.addBatch();
+
+			int days = 3 + random.nextInt(5);
+			for (int day = 1; day <= days; day++) {
+				for (String time : TIME_SLOTS) {
+					slot.setString(1, String.format("sa%06d", slotNo++));
+					slot.setString(2, doctorId(i));
+					slot.setInt(3, day);
+					slot.setString(4, time);
+					slot.addBatch();
+				}
+			}
+		}
+		doctor.executeBatch();
+		person.executeBatch();
+		slot.executeBatch();
+		doctor.close();
+		person.close();
+		slot.close();
+		connection.commit();
+	}
+
+	/**
+	 * Two bills per patient, each paying for an appointment; one in five also
+	 * has a lab appointment and one in twenty is refunded.
+	 */
+	private void insertBills(Connection connection) throws SQLException {
+		PreparedStatement bill = connection.prepareStatement("INSERT INTO bill (bill_id, bill_date, doctor_fee, "
+				+ "hospital_fee, pharmacy_fee, laboratory_fee, appointment_fee, vat, discount, total, "
+				+ "payment_method, consultant_id, patient_id, refund) VALUES (?, ?, ?, ?, ?, ?, ?, 0, 0, ?, 'cash', ?, ?, ?)");
+		PreparedStatement appointment = connection.prepareStatement("INSERT INTO appointment (appointment_id, "
+				+ "date, patient_id, bill_id, slmc_reg_no, cancelled) VALUES (?, ?, ?, ?, ?, ?)");
+		PreparedStatement labAppointment = connection.prepareStatement("INSERT INTO lab_appointment "
+				+ "(lab_appointment_id, test_id, date, patient_id, bill_id, lab_assistant_id, cancelled, doctor_id) "
+				+ "VALUES (?, ?, ?, ?, ?, 'hms0001l', 0, ?)");
+
+		LocalDateTime end = LocalDate.now().atStartOfDay();
+		int spanMinutes = years * 365 * 24 * 60;
+		int bills = patients * 2;
+		for (int i = 0; i < bills; i++) {
+			String billId = String.format("sb%07d", i);
+			String patientId = patientId(random.nextInt(patients));
+			String doctorId = doctorId(random.nextInt(doctors));
+			Timestamp date = Timestamp.valueOf(end.minusMinutes(random.nextInt(spanMinutes)));
+			boolean lab = random.nextInt(5) == 0;
+			int doctorFee = 500 + 100 * random.nextInt(10);
+			int hospitalFee = 200;
+			int pharmacyFee = random.nextInt(3) == 0 ? 0 : 50 * random.nextInt(40);
+			int laboratoryFee = lab ? 500 * (1 + random.nextInt(3)) : 0;
+			int appointmentFee = 500;
+
+			bill.setString(1, billId);
+			bill.setTimestamp(2, date);
+			bill.setInt(3, doctorFee);
+			bill.setInt(4, hospitalFee);
+			bill.setInt(5, pharmacyFee);
+			bill.setInt(6, laboratoryFee);
+			bill.setInt(7, appointmentFee);
+			bill.setInt(8, doctorFee + hospitalFee + pharmacyFee + laboratoryFee + appointmentFee);
+			bill.setString(9, doctorId);
+			bill.setString(10, patientId);
+			bill.setInt(11, random.nextInt(20) == 0 ? 1 : 0);
+			bill.addBatch();
+
+			appointment.setString(1, String.format("sap%07d", i));
+			appointment.setTimestamp(2, date);
+			appointment.setString(3, patientId);
+			appointment.setString(4, billId);
+			appointment.setString(5, doctorId);
+			appointment.setBoolean(6, random.nextInt(50) == 0);
+			appointment.addBatch();
+
+			if (lab) {
+				labAppointment.setString(1, String.format("sla%07d", i));
+				labAppointment.setString(2, LAB_TESTS[random.nextInt(LAB_TESTS.length)]);
+				labAppointment.setTimestamp(3, date);
+				labAppointment.setString(4, patientId);
+				labAppointment.setString(5, billId);
+				labAppointment.setString(6, doctorId);
+				labAppointment.addBatch();
+			}
+
+			if (i % BATCH == BATCH - 1) {
+				bill.executeBatch();
+				appointment.executeBatch();
+				labAppointment.executeBatch();
+			}
+		}
+		bill.executeBatch();
+		appointment.executeBatch();
+		labAppointment.executeBatch();
+		bill.close();
+		appointment.close();
+		labAppointment.close();
+		connection.commit();
+	}
+
+	private void insertDrugs(Connection connection) throws SQLException {
+		PreparedStatement drug = connection.prepareStatement(
+				"INSERT INTO drug (drug_id, drug_name, dangerous_drug) VALUES (?, ?, ?)");
+		PreparedStatement brand = connection.prepareStatement("INSERT INTO drug_brand_names (brand_id, brand_name, "
+				+ "generic_name, drug_type, drug_unit, unit_price) VALUES (?, ?, ?, 'tablet', 'mg', ?)");
+		PreparedStatement stock = connection.prepareStatement("INSERT INTO pharmacy_stock (stock_id, drug_id, "
+				+ "brand_id, stock, remaining_quantity, manufac_date, exp_date, supplier_id, date) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		LocalDate today = LocalDate.now();
+		int brandNo = 0;
+		int stockNo = 0;
+		for (int i = 0; i < DRUGS; i++) {
+			String drugId = String.format("sdr%05d", i);
+			String drugName = String.format("synthdrug%05d", i);
+			drug.setString(1, drugId);
+			drug.setString(2, drugName);
+			drug.setBoolean(3, random.nextInt(10) == 0);
+			drug.addBatch();
+
+			for (int j = 0; j < BRANDS_PER_DRUG; j++) {
+				String brandId = String.format("sbr%05d", brandNo++);
+				brand.setString(1, brandId);
+				brand.setString(2, drugName + "-" + j);
+				brand.setString(3, drugName);
+				brand.setInt(4, 1 + random.nextInt(50));
+				brand.addBatch();
+
+				for (int k = 0; k < STOCKS_PER_BRAND; k++) {
+					int amount = 100 * (1 + random.nextInt(20));
+					LocalDate received = today.minusDays(random.nextInt(365));
+					stock.setString(1, String.format("sst%06d", stockNo++));
+					stock.setString(2, drugId);
+					stock.setString(3, brandId);
+					stock.setInt(4, amount);
+					stock.setInt(5, random.nextInt(amount + 1));
+					stock.setObject(6, received.minusMonths(2));
+					stock.setObject(7, received.plusYears(2));
+					stock.setString(8, SUPPLIERS[random.nextInt(SUPPLIERS.length)]);
+					stock.setObject(9, received);
+					stock.addBatch();
+				}
+			}
+		}
+		drug.executeBatch();
+		brand.executeBatch();
+		stock.executeBatch();
+		drug.close();
+		brand.close();
+		stock.close();
+		connection.commit();
+	}
+
+	private void insertLabTests(Connection connection) throws SQLException {
+		PreparedStatement liver = connection.prepareStatement("INSERT INTO LiverFunctionTest (tst_liver_id, "
+				+ "totalProtein, albumin, globulin, totalBilirubin, directBilirubin, sgotast, sgptalt, "
+				+ "alkalinePhospates, date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+		LocalDateTime end = LocalDate.now().atStartOfDay();
+		int tests = Math.max(1, patients / 10);
+		for (int i = 0; i < tests; i++) {
+			liver.setString(1, liverTestId(i));
+			for (int column = 2; column <= 9; column++) {
+				liver.setFloat(column, 1 + random.nextInt(1000) / 10f);
+			}
+			liver.setTimestamp(10, Timestamp.valueOf(end.minusHours(random.nextInt(years * 365 * 24))));
+			liver.addBatch();
+			if (i % BATCH == BATCH - 1) {
+				liver.executeBatch();
+			}
+		}
+		liver.executeBatch();
+		liver.close();
+		connection.commit();
+	}
+
+	public static String patientId(int i) {
+		return String.format("sp%07d", i);
+	}
+
+	public static String doctorId(int i) {
+		return String.format("sd%05d", i);
+	}
+
+	public static String liverTestId(int i) {
+		return String.format("lvs%06d", i);
+	}
+
+	public static String firstName(int i) {
+		return FIRST_NAMES[i % FIRST_NAMES.length];
+	}
+}
@@ -1,5 +1,14 @@
 package Admin;
 
+import com.hms.hms_test_2.DailyRollups;
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.IncomeAnalytics;
+import com.hms.hms_test_2.LabWorkload;
+import com.hms.hms_test_2.ReferenceCache;
+import com.hms.hms_test_2.ResultTable;
+import com.hms.hms_test_2.RowHandler;
 import com.hms.hms_test_2.User;
 import java.io.File;
 import java.io.IOException;
@@ -157,23 +166,7 @@ public class Admin extends User {
                 String userName = "";
 
                 try {
-                        String sql0 = "SELECT person_id FROM person WHERE person_id = (SELECT MAX(person_id) FROM person);";
-                        String personID = super.dbOperator.customSelection(sql0).get(1).get(0);
-
-                        char[] tmpID = personID.toCharArray();
-                        int i = 3;
-                        for (i = 3; i < personID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer
-                                        .toString(Integer.parseInt(personID.substring(i, personID.length())) + 1);
-                        while (tmpID2.length() < 5) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "hms" + tmpID2;
-                        personId = tmpID2;
+                        personId = super.dbOperator.nextId(IdSequence.PERSON);
                 } catch (Exception e) {
                         e.printStackTrace();
                 }
@@ -318,6 +311,9 @@ public class Admin extends User {
                         if ((userType.equals("doctor")) || (userType.equals("pharmacist")) || (userType.equals("lab_assistant"))) {
                                 super.dbOperator.customInsertion(sql4);
                         }
+                        if (userType.equals("doctor")) {
+                                ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DOCTORS);
+                        }
 
                 } catch (Exception e) {
                         e.printStackTrace();
@@ -585,25 +581,56 @@ public class Admin extends User {
                 return size;
         }
 
-        public ArrayList<ArrayList<String>> getPatientAttendance(String doctorID) {
+        // the report queries below read the daily totals, so they fail if the
+        // migration that adds them was not run. They run on the read-only
+        // replica, if one is configured, so they do not slow down the bookings
+        // on the primary
+        private ArrayList<ArrayList<String>> report(String sql) throws ClassNotFoundException, SQLException {
+                DailyRollups.requireMigrated();
+                return DatabaseOperator.onReplica(() -> super.dbOperator.customSelection(sql));
+        }
+
+        private ResultTable report(String sql, List<?> params) throws ClassNotFoundException, SQLException {
+                DailyRollups.requireMigrated();
+                return DatabaseOperator.onReplica(() -> super.dbOperator.customSelection(sql, params));
+        }
+
+        private long report(String sql, List<?> params, RowHandler handler)
+                        throws ClassNotFoundException, SQLException {
+                DailyRollups.requireMigrated();
+                return DatabaseOperator.onReplica(() -> super.dbOperator.stream(sql, params, handler));
+        }
+
+        /**
+         * Appointments per day of the last 12 months, for all doctors or one
+         * doctor, read from the daily totals.
+         * 
+         * @param doctorID SLMC registration number of the doctor, or "All"
+         * @return a table of (date, appointments) in ascending order of date
+         */
+        public ResultTable getPatientAttendance(String doctorID) {
 
                 String sql = "";
+                List<String> params = new ArrayList<String>();
 
                 if (doctorID.equals("All")) {
 
-                        sql = "SELECT date FROM appointment WHERE date > (CURRENT_DATE - INTERVAL 12 MONTH) ORDER BY date ASC;";
+                        sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                        "FROM appointment_daily WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) " +
+                                        "GROUP BY day ORDER BY day ASC;";
 
                 } else {
 
-                        sql = "SELECT date FROM appointment " +
-                                        "WHERE ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (slmc_reg_no = '"
-                                        + doctorID + "') " +
-                                        "ORDER BY date ASC;";
+                        sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                        "FROM appointment_daily " +
+                                        "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) AND slmc_reg_no = ? " +
+                                        "GROUP BY day ORDER BY day ASC;";
+                        params.add(doctorID);
                 }
 
-                ArrayList<ArrayList<String>> data = null;
+                ResultTable data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = report(sql, params);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -612,6 +639,32 @@ public class Admin extends User {
 
         }
 
+        /**
+         * Streams the appointments per day of the last 12 months to the handler,
+         * for all doctors or one doctor, without loading them into memory.
+         * 
+         * @param doctorID SLMC registration number of the doctor, or "All"
+         * @param handler  receives one row (date, appointments) per day
+         * @return the number of rows handled, or -1 if the query failed
+         */
+        public long getPatientAttendance(String doctorID, RowHandler handler) {
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM appointment_daily WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) ";
+                List<String> params = new ArrayList<String>();
+                if (!doctorID.equals("All")) {
+                        sql += "AND slmc_reg_no = ? ";
+                        params.add(doctorID);
+                }
+                sql += "GROUP BY day ORDER BY day ASC;";
+
+                try {
+                        return report(sql, params, handler);
+                } catch (ClassNotFoundException | SQLException e) {
+                        e.printStackTrace();
+                }
+                return -1;
+        }
+
         public ArrayList<ArrayList<String>> getDoctorNames() {
                 String sql = "SELECT person.first_name,person.last_name,doctor.user_id,doctor.slmc_reg_no " +
                                 "FROM person INNER JOIN doctor ON person.user_id = doctor.user_id;";
@@ -626,51 +679,37 @@ public class Admin extends User {
                 return data;
         }
 
+        /**
+         * Number of results of each lab test in the months before today, read
+         * with one query and cached for a short time.
+         * 
+         * @param month number of months
+         * @return {test table names, counts}, see LabWorkload; null if the counts
+         *         could not be read
+         */
         public ArrayList<ArrayList<String>> lastMonthsReports(int month) {
                 ArrayList<ArrayList<String>> data = null;
-                ArrayList<String> data2 = new ArrayList<String>();
-                ArrayList<ArrayList<String>> data3 = new ArrayList<ArrayList<String>>();
-
-                String sql1 = "";
-
-                ArrayList<String> tests = new ArrayList<String>();
-                tests.add("BloodGroupingRh");
-                tests.add("LipidTest");
-                tests.add("LiverFunctionTest");
-                tests.add("RenalFunctionTest");
-                tests.add("SeriumCreatinePhosphokinase");
-                tests.add("SeriumCreatinePhosphokinaseTotal");
-                tests.add("UrineFullReport");
-                tests.add("completeBloodCount");
 
                 try {
-
-                        for (int i = 0; i < 8; i++) {
-                                sql1 = "SELECT COUNT(date) AS count FROM " + tests.get(i)
-                                                + " WHERE (date < curDate() AND date > ( CURRENT_DATE - INTERVAL "
-                                                + month + " MONTH) );";
-                                data = super.dbOperator.customSelection(sql1);
-                                data2.add(data.get(1).get(0));
-                        }
-
+                        data = DatabaseOperator.onReplica(
+                                        () -> LabWorkload.report(super.dbOperator, LabWorkload.lastMonths(month)));
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
 
-                data3.add(tests);
-                data3.add(data2);
-                return data3;
+                return data;
         }
 
         public ArrayList<ArrayList<String>> getDocAppointments() {
 
-                String sql = "SELECT date FROM appointment " +
-                                "WHERE ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) " +
-                                "ORDER BY date ASC;";
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM appointment_daily " +
+                                "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) " +
+                                "GROUP BY day ORDER BY day ASC;";
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = report(sql);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -679,15 +718,37 @@ public class Admin extends User {
 
         }
 
+        /**
+         * Streams the doctor appointments per day of the last 12 months to the
+         * handler.
+         * 
+         * @param handler receives one row (date, appointments) per day
+         * @return the number of rows handled, or -1 if the query failed
+         */
+        public long getDocAppointments(RowHandler handler) {
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM appointment_daily " +
+                                "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) " +
+                                "GROUP BY day ORDER BY day ASC;";
+
+                try {
+                        return report(sql, Collections.emptyList(), handler);
+                } catch (ClassNotFoundException | SQLException e) {
+                        e.printStackTrace();
+                }
+                return -1;
+        }
+
         public ArrayList<ArrayList<String>> getLabAppointments() {
 
-                String sql = "SELECT date FROM lab_appointment " +
-                                "WHERE ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) " +
-                                "ORDER BY date ASC;";
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM lab_appointment_daily " +
+                                "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) " +
+                                "GROUP BY day ORDER BY day ASC;";
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = report(sql);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -698,13 +759,14 @@ public class Admin extends User {
 
         public ArrayList<ArrayList<String>> getCancelledDocAppointments() {
 
-                String sql = "SELECT date FROM appointment " +
-                                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (cancelled = 1) )" +
-                                "ORDER BY date ASC;";
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM appointment_daily " +
+                                "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) AND cancelled = 1 " +
+                                "GROUP BY day ORDER BY day ASC;";
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = report(sql);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -715,13 +777,14 @@ public class Admin extends User {
 
         public ArrayList<ArrayList<String>> getCancelledLabAppointments() {
 
-                String sql = "SELECT date FROM lab_appointment " +
-                                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (cancelled = 1) )" +
-                                "ORDER BY date ASC;";
+                String sql = "SELECT CAST(day AS DATETIME) AS date, SUM(appointments) AS appointments " +
+                                "FROM lab_appointment_daily " +
+                                "WHERE day >= (CURRENT_DATE - INTERVAL 12 MONTH) AND cancelled = 1 " +
+                                "GROUP BY day ORDER BY day ASC;";
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = report(sql);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -730,48 +793,22 @@ public class Admin extends User {
 
         }
 
+        /**
+         * 
+         * @return ArrayList<ArrayList<String>> of every drug with the total
+         *         remaining quantity and the number of suppliers in stock
+         *         {drug_id, drug_name, dangerous_drug, amount, suppliers}
+         */
         public ArrayList<ArrayList<String>> getStockSummary() {
-                String sql = "SELECT * FROM drug;";
+                String sql = "SELECT drug.drug_id, drug.drug_name, drug.dangerous_drug, " +
+                                "COALESCE(SUM(pharmacy_stock.remaining_quantity), 0) AS amount, " +
+                                "COUNT(DISTINCT pharmacy_stock.supplier_id) AS suppliers " +
+                                "FROM drug LEFT JOIN pharmacy_stock ON pharmacy_stock.drug_id = drug.drug_id " +
+                                "GROUP BY drug.drug_id, drug.drug_name, drug.dangerous_drug;";
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
                         data = super.dbOperator.customSelection(sql);
-
-                        ArrayList<String> tmp = data.remove(0);
-                        tmp.add("amount");
-                        tmp.add("suppliers");
-                        data.add(0, tmp);
-
-                        int noOfDrugs = data.size() - 1;
-                        for (int i = 1; i <= noOfDrugs; i++) {
-                                String drugId = data.get(i).get(0);
-                                sql = "SELECT pharmacy_stock.remaining_quantity, pharmacy_stock.supplier_id " +
-                                                "FROM pharmacy_stock WHERE drug_id = '" + drugId + "';";
-
-                                ArrayList<ArrayList<String>> data2 = super.dbOperator.customSelection(sql);
-
-                                int tmpSize = data2.size();
-                                int totalAmount = 0;
-                                ArrayList<String> suppliers = new ArrayList<String>();
-                                for (int j = 1; j < tmpSize; j++) {
-                                        totalAmount += Integer.parseInt(data2.get(j).get(0));
-                                        String supplier = data2.get(j).get(1);
-
-                                        if (!suppliers.contains(supplier)) {
-                                                suppliers.add(supplier);
-                                        }
-
-                                }
-
-                                int noOfSuppliers = suppliers.size();
-
-                                tmp = data.remove(i);
-                                tmp.add(Integer.toString(totalAmount));
-                                tmp.add(Integer.toString(noOfSuppliers));
-                                data.add(i, tmp);
-
-                        }
-
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -785,7 +822,7 @@ public class Admin extends User {
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -839,7 +876,7 @@ public class Admin extends User {
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection(sql);
+                        data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.SUPPLIERS, sql);
 
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
@@ -897,6 +934,9 @@ public class Admin extends User {
                 return data2;
         }
 
+        // the income reports below count the bills that were not refunded,
+        // including those without a refund flag (-1 in income_daily), as
+        // IncomeAnalytics does
         public ArrayList<ArrayList<String>> lastTotalIncome(String month1, String month2) {
                 ArrayList<ArrayList<String>> data = null;
 
@@ -910,12 +950,12 @@ public class Admin extends User {
                          * "AND bill_date > ( CURRENT_DATE - INTERVAL "+month1+" MONTH) ) "+
                          * "ORDER by bill_date ASC;";
                          */
-                        sql1 = "SELECT bill_date,total FROM bill " +
-                                        "WHERE (bill_date < '" + month2 + "' " +
-                                        "AND bill_date > '" + month1 + "' AND refund=0) " +
-                                        "ORDER by bill_date ASC;";
+                        sql1 = "SELECT CAST(day AS DATETIME) AS bill_date,SUM(total) AS total FROM income_daily " +
+                                        "WHERE (day < '" + month2 + "' " +
+                                        "AND day >= '" + month1 + "' AND refund <> 1) " +
+                                        "GROUP BY day ORDER by day ASC;";
 
-                        data = super.dbOperator.customSelection(sql1);
+                        data = report(sql1);
 
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
@@ -924,6 +964,28 @@ public class Admin extends User {
                 return data;
         }
 
+        /**
+         * Streams the daily totals of the non refunded bills between the two dates
+         * to the handler.
+         * 
+         * @param month1  first day, yyyy-MM-dd
+         * @param month2  day after the last day, yyyy-MM-dd
+         * @param handler receives one row (bill_date, total) per day
+         * @return the number of rows handled, or -1 if the query failed
+         */
+        public long lastTotalIncome(String month1, String month2, RowHandler handler) {
+                String sql = "SELECT CAST(day AS DATETIME) AS bill_date,SUM(total) AS total FROM income_daily " +
+                                "WHERE (day < ? AND day >= ? AND refund <> 1) " +
+                                "GROUP BY day ORDER by day ASC;";
+
+                try {
+                        return report(sql, Arrays.asList(month2, month1), handler);
+                } catch (ClassNotFoundException | SQLException e) {
+                        e.printStackTrace();
+                }
+                return -1;
+        }
+
         public ArrayList<ArrayList<String>> pharmacyIncome(String month1, String month2) {
                 ArrayList<ArrayList<String>> data = null;
 
@@ -937,12 +999,12 @@ public class Admin extends User {
                          * "AND bill_date > ( CURRENT_DATE - INTERVAL "+month1+" MONTH) ) "+
                          * "ORDER by bill_date ASC;";
                          */
-                        sql1 = "SELECT bill_date,pharmacy_fee FROM bill " +
-                                        "WHERE (bill_date < '" + month2 + "' " +
-                                        "AND bill_date > '" + month1 + "' AND refund=0) " +
-                                        "ORDER by bill_date ASC;";
+                        sql1 = "SELECT CAST(day AS DATETIME) AS bill_date,SUM(pharmacy_fee) AS pharmacy_fee FROM income_daily " +
+                                        "WHERE (day < '" + month2 + "' " +
+                                        "AND day >= '" + month1 + "' AND refund <> 1) " +
+                                        "GROUP BY day ORDER by day ASC;";
 
-                        data = super.dbOperator.customSelection(sql1);
+                        data = report(sql1);
 
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
@@ -964,12 +1026,12 @@ public class Admin extends User {
                          * "AND bill_date > ( CURRENT_DATE - INTERVAL "+month1+" MONTH) ) "+
                          * "ORDER by bill_date ASC;";
                          */
-                        sql1 = "SELECT bill_date,laboratory_fee FROM bill " +
-                                        "WHERE (bill_date < '" + month2 + "' " +
-                                        "AND bill_date > '" + month1 + "' AND refund=0) " +
-                                        "ORDER by bill_date ASC;";
+                        sql1 = "SELECT CAST(day AS DATETIME) AS bill_date,SUM(laboratory_fee) AS laboratory_fee FROM income_daily " +
+                                        "WHERE (day < '" + month2 + "' " +
+                                        "AND day >= '" + month1 + "' AND refund <> 1) " +
+                                        "GROUP BY day ORDER by day ASC;";
 
-                        data = super.dbOperator.customSelection(sql1);
+                        data = report(sql1);
 
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
@@ -991,12 +1053,12 @@ public class Admin extends User {
                          * "AND bill_date > ( CURRENT_DATE - INTERVAL "+month1+" MONTH) ) "+
                          * "ORDER by bill_date ASC;";
                          */
-                        sql1 = "SELECT bill_date,appointment_fee FROM bill " +
-                                        "WHERE (bill_date < '" + month2 + "' " +
-                                        "AND bill_date > '" + month1 + "' AND refund=0) " +
-                                        "ORDER by bill_date ASC;";
+                        sql1 = "SELECT CAST(day AS DATETIME) AS bill_date,SUM(appointment_fee) AS appointment_fee FROM income_daily " +
+                                        "WHERE (day < '" + month2 + "' " +
+                                        "AND day >= '" + month1 + "' AND refund <> 1) " +
+                                        "GROUP BY day ORDER by day ASC;";
 
-                        data = super.dbOperator.customSelection(sql1);
+                        data = report(sql1);
 
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
@@ -1005,6 +1067,27 @@ public class Admin extends User {
                 return data;
         }
 
+        /**
+         * The total, the fees and the refunds of every month of the window, read
+         * with one query over the daily totals.
+         * 
+         * @param window the days the bills were issued on
+         * @return the sums per month, see IncomeAnalytics; null if the query failed
+         */
+        public IncomeAnalytics.Summary incomeAnalytics(DateRange window) {
+                IncomeAnalytics.Summary summary = null;
+
+                try {
+                        DailyRollups.requireMigrated();
+                        summary = DatabaseOperator.onReplica(
+                                        () -> IncomeAnalytics.getInstance().summary(super.dbOperator, window));
+                } catch (ClassNotFoundException | SQLException e) {
+                        e.printStackTrace();
+                }
+
+                return summary;
+        }
+
         public ArrayList<ArrayList<String>> getSysUser(String userid) {
                 ArrayList<ArrayList<String>> data = null;
 
@@ -1,7 +1,10 @@
 package Admin;
 
 import com.hms.hms_test_2.AllMessagesController;
+import com.hms.hms_test_2.AsyncQueries;
 import com.hms.hms_test_2.CurrentUserSummaryController;
+import com.hms.hms_test_2.DashboardWarmUp;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import com.hms.hms_test_2.SystemConfiguration;
@@ -19,12 +22,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import javafx.beans.binding.Bindings;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -75,6 +78,8 @@ public class AdminController extends AnchorPane {
      */
     public String username;
 
+    private final AsyncQueries queries;
+
     /**
      * Constructor of the class
      * 
@@ -88,6 +93,8 @@ public class AdminController extends AnchorPane {
         admin = new Admin(username);
         this.username = username;
         admin.saveLogin(username);
+        queries = FxQueries.forScreen(this);
+        ReportDatasets.schedule(admin);
 
         try {
             fxmlLoader.load();
@@ -107,6 +114,43 @@ public class AdminController extends AnchorPane {
     private Label pieChartType;
     HashMap<String, String> userLog;
 
+    private static final String[] USER_TYPES = { "doctor", "lab_assistant", "cashier", "pharmacist", "receptionist",
+            "admin" };
+
+    /**
+     * Loads the panels of the dashboard side by side, each shown as soon as its
+     * data arrives. The user chart and the account counts share one set of
+     * counts. Until they arrive the chart shows that it is loading.
+     */
+    public DashboardWarmUp warmUp() {
+        pieChartType.setText("Loading...");
+
+        DashboardWarmUp warmUp = new DashboardWarmUp("admin", queries);
+        warmUp.panel("profile", admin::getProfileInfo, this::showProfileData);
+        CompletableFuture<HashMap<String, String>> counts = warmUp.query(this::accountCounts);
+        warmUp.panel("user chart", counts, this::fillUserChart);
+        warmUp.panel("account counts", counts, this::showAccountCounts);
+        warmUp.whenFilled();
+        return warmUp;
+    }
+
+    // number of system users by user type
+    private HashMap<String, String> sysUserCounts() {
+        HashMap<String, String> counts = new HashMap<String, String>();
+        for (String userType : USER_TYPES) {
+            counts.put(userType, admin.getSysUserCount(userType));
+        }
+        return counts;
+    }
+
+    // the system users by user type, the patients and the users online
+    private HashMap<String, String> accountCounts() {
+        HashMap<String, String> counts = sysUserCounts();
+        counts.put("patient", admin.getPatientCount());
+        counts.put("online", admin.getOnlineCount());
+        return counts;
+    }
+
     @FXML
     public void filldatabaseStorageChart(String a) {
 
@@ -114,31 +158,7 @@ public class AdminController extends AnchorPane {
         pieChartData.clear();
 
         if (a.equals("u")) {
-
-            userLog = new HashMap<String, String>();
-            userLog.clear();
-            userLog.put("doctor", "Doctor");
-            userLog.put("lab_assistant", "Lab Assistant");
-            userLog.put("cashier", "Cashier");
-            userLog.put("pharmacist", "Pharmacist");
-            userLog.put("receptionist", "Receptionist");
-            userLog.put("admin", "Admin");
-
-            String userTypes[] = { "doctor", "lab_assistant", "cashier", "pharmacist", "receptionist", "admin" };
-            for (int i = 0; i < 6; i++) {
-                String count = admin.getSysUserCount(userTypes[i]);
-                String user = userLog.get(userTypes[i]);
-                pieChartData.add(new PieChart.Data(user, Integer.parseInt(count)));
-            }
-
-            pieChartData.forEach(data1 -> data1.nameProperty().bind(
-                    Bindings.concat(
-                            data1.getName(), " (", data1.pieValueProperty(), ")")));
-
-            userPieChart.setLegendSide(Side.BOTTOM);
-
-            userPieChart.setData(pieChartData);
-            pieChartType.setText("System Users");
+            fillUserChart(sysUserCounts());
 
         } else {
 
@@ -160,6 +180,35 @@ public class AdminController extends AnchorPane {
 
     }
 
+    private void fillUserChart(HashMap<String, String> counts) {
+
+        ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
+
+        userLog = new HashMap<String, String>();
+        userLog.clear();
+        userLog.put("doctor", "Doctor");
+        userLog.put("lab_assistant", "Lab Assistant");
+        userLog.put("cashier", "Cashier");
+        userLog.put("pharmacist", "Pharmacist");
+        userLog.put("receptionist", "Receptionist");
+        userLog.put("admin", "Admin");
+
+        for (int i = 0; i < 6; i++) {
+            String count = counts.get(USER_TYPES[i]);
+            String user = userLog.get(USER_TYPES[i]);
+            pieChartData.add(new PieChart.Data(user, Integer.parseInt(count)));
+        }
+
+        pieChartData.forEach(data1 -> data1.nameProperty().bind(
+                Bindings.concat(
+                        data1.getName(), " (", data1.pieValueProperty(), ")")));
+
+        userPieChart.setLegendSide(Side.BOTTOM);
+
+        userPieChart.setData(pieChartData);
+        pieChartType.setText("System Users");
+    }
+
     @FXML
     private ComboBox<String> userPropotionCombo;
 
@@ -601,20 +650,8 @@ public class AdminController extends AnchorPane {
         Stage stage = new Stage();
         ReportsController reports = new ReportsController(admin);
 
-        reports.fillPatientAttendence("All");
-        reports.fillPieChart(12);
-        reports.fillAppointmentChart("a");
-        reports.fillCancelledAppointmentChart("a");
-
-        reports.fillStockChart();
-        reports.fillSupplierChart();
-
-        LocalDate date = LocalDate.now();
-        LocalDate date2 = date.minusMonths(12);
-        DateTimeFormatter fomatter = DateTimeFormatter.ofPattern("yyyy-MMM-dd");
-
-        reports.fillTotalIncomeBarGraph(fomatter.format(date2), fomatter.format(date));
-        reports.fillIcome("a", fomatter.format(date2), fomatter.format(date));
+        // the charts open with the precomputed reports
+        reports.loadReports();
 
         Scene scene = new Scene(reports);
         stage.setScene(scene);
@@ -1089,14 +1126,18 @@ public class AdminController extends AnchorPane {
     private Label currentUsersCount;
 
     public void fillAccountCounts() {
-        String docAmount = admin.getSysUserCount("doctor");
-        String labAmount = admin.getSysUserCount("lab_assistant");
-        String pharAmount = admin.getSysUserCount("pharmacist");
-        String cashAmount = admin.getSysUserCount("cashier");
-        String recepAmount = admin.getSysUserCount("receptionist");
+        showAccountCounts(accountCounts());
+    }
 
-        String patientAmount = admin.getPatientCount();
-        String onlineAmount = admin.getOnlineCount();
+    private void showAccountCounts(HashMap<String, String> counts) {
+        String docAmount = counts.get("doctor");
+        String labAmount = counts.get("lab_assistant");
+        String pharAmount = counts.get("pharmacist");
+        String cashAmount = counts.get("cashier");
+        String recepAmount = counts.get("receptionist");
+
+        String patientAmount = counts.get("patient");
+        String onlineAmount = counts.get("online");
 
         doctorCount.setText(docAmount);
         labCount.setText(labAmount);
@@ -1336,8 +1377,10 @@ public class AdminController extends AnchorPane {
      */
     @FXML
     public void loadProfileData() {
+        showProfileData(admin.getProfileInfo());
+    }
 
-        HashMap<String, String> adminPersonalInfo = admin.getProfileInfo();
+    private void showProfileData(HashMap<String, String> adminPersonalInfo) {
 
         adminName.setText(adminPersonalInfo.get("first_name") + " " + adminPersonalInfo.get("last_name"));
         adminNIC.setText(adminPersonalInfo.get("nic"));
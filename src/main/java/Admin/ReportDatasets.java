@@ -0,0 +1,155 @@
+package Admin;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.IncomeAnalytics;
+import com.hms.hms_test_2.ReportScheduler;
+import com.hms.hms_test_2.ReportSnapshot;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The datasets the reports screen opens with, computed ahead of time by
+ * ReportScheduler: the charts of all doctors, all tests and the last 12
+ * months. A chart for another doctor, period or drug is still read when it is
+ * asked for.
+ */
+public final class ReportDatasets {
+
+        /** (date, appointments) per day, all doctors */
+        public static final String ATTENDANCE = "attendance";
+        /** see Admin.getDoctorNames */
+        public static final String DOCTOR_NAMES = "doctorNames";
+        /** {test table names, counts} of the last 12 months */
+        public static final String LAB_REPORTS = "labReports";
+        /** (date, appointments) per day */
+        public static final String DOC_APPOINTMENTS = "docAppointments";
+        public static final String LAB_APPOINTMENTS = "labAppointments";
+        public static final String CANCELLED_DOC_APPOINTMENTS = "cancelledDocAppointments";
+        public static final String CANCELLED_LAB_APPOINTMENTS = "cancelledLabAppointments";
+        /** see Admin.getStockSummary */
+        public static final String STOCK = "stock";
+        /** {supplier ids, stock} */
+        public static final String SUPPLIERS = "suppliers";
+        /**
+         * (month, total, pharmacy_fee, appointment_fee, laboratory_fee) of the
+         * bills kept, per month of {@link #incomeWindow(LocalDate)}
+         */
+        public static final String INCOME = "income";
+
+        private static final List<String> NAMES = Arrays.asList(ATTENDANCE, DOCTOR_NAMES, LAB_REPORTS,
+                        DOC_APPOINTMENTS, LAB_APPOINTMENTS, CANCELLED_DOC_APPOINTMENTS, CANCELLED_LAB_APPOINTMENTS,
+                        STOCK, SUPPLIERS, INCOME);
+
+        private ReportDatasets() {
+        }
+
+        /**
+         * Computes the datasets with the queries of the admin from now on, until
+         * the admin logs out.
+         */
+        public static void schedule(Admin admin) {
+                ReportScheduler.getInstance().start(admin, () -> DatabaseOperator.onReplica(() -> compute(admin)));
+        }
+
+        /**
+         * @return true if the snapshot has all datasets, false if it was written
+         *         by a version that computed others
+         */
+        public static boolean isComplete(ReportSnapshot snapshot) {
+                return snapshot.names().containsAll(NAMES);
+        }
+
+        /**
+         * @return the 12 months before the day, the period the income charts open
+         *         with
+         */
+        public static DateRange incomeWindow(LocalDate today) {
+                return DateRange.of(today.minusMonths(12).atStartOfDay(), today.atStartOfDay());
+        }
+
+        /**
+         * @return the income period of the day the snapshot was computed
+         */
+        public static DateRange incomeWindow(ReportSnapshot snapshot) {
+                return incomeWindow(Instant.ofEpochMilli(snapshot.getComputedAt()).atZone(ZoneId.systemDefault())
+                                .toLocalDate());
+        }
+
+        /**
+         * @return the datasets by name
+         * @throws SQLException if one of them could not be read
+         */
+        static LinkedHashMap<String, ArrayList<ArrayList<String>>> compute(Admin admin) throws SQLException {
+                LinkedHashMap<String, ArrayList<ArrayList<String>>> datasets = new LinkedHashMap<String, ArrayList<ArrayList<String>>>();
+
+                ArrayList<ArrayList<String>> attendance = new ArrayList<ArrayList<String>>();
+                attendance.add(new ArrayList<String>(Arrays.asList("date", "appointments")));
+                long rows = admin.getPatientAttendance("All", row -> attendance
+                                .add(new ArrayList<String>(Arrays.asList(row.getString(1), row.getString(2)))));
+                if (rows < 0) {
+                        throw new SQLException("Report dataset " + ATTENDANCE + " could not be read");
+                }
+                datasets.put(ATTENDANCE, attendance);
+
+                put(datasets, DOCTOR_NAMES, admin.getDoctorNames());
+                put(datasets, LAB_REPORTS, admin.lastMonthsReports(12));
+                put(datasets, DOC_APPOINTMENTS, admin.getDocAppointments());
+                put(datasets, LAB_APPOINTMENTS, admin.getLabAppointments());
+                put(datasets, CANCELLED_DOC_APPOINTMENTS, admin.getCancelledDocAppointments());
+                put(datasets, CANCELLED_LAB_APPOINTMENTS, admin.getCancelledLabAppointments());
+                put(datasets, STOCK, admin.getStockSummary());
+                // an empty summary means the stock could not be read
+                ArrayList<ArrayList<String>> suppliers = admin.getSupplierSummary();
+                put(datasets, SUPPLIERS, suppliers.isEmpty() ? null : suppliers);
+
+                IncomeAnalytics.Summary summary = admin.incomeAnalytics(incomeWindow(LocalDate.now()));
+                if (summary == null) {
+                        throw new SQLException("Report dataset " + INCOME + " could not be read");
+                }
+                datasets.put(INCOME, incomeTable(summary));
+
+                return datasets;
+        }
+
+        private static void put(LinkedHashMap<String, ArrayList<ArrayList<String>>> datasets, String name,
+                        ArrayList<ArrayList<String>> data) throws SQLException {
+                if (data == null) {
+                        throw new SQLException("Report dataset " + name + " could not be read");
+                }
+                datasets.put(name, data);
+        }
+
+        private static ArrayList<ArrayList<String>> incomeTable(IncomeAnalytics.Summary summary) {
+                IncomeAnalytics.Measure[] measures = { IncomeAnalytics.Measure.TOTAL,
+                                IncomeAnalytics.Measure.PHARMACY_FEE, IncomeAnalytics.Measure.APPOINTMENT_FEE,
+                                IncomeAnalytics.Measure.LABORATORY_FEE };
+                ArrayList<ArrayList<String>> data = new ArrayList<ArrayList<String>>();
+                ArrayList<String> header = new ArrayList<String>();
+                header.add("month");
+                for (IncomeAnalytics.Measure measure : measures) {
+                        header.add(measure.getColumn());
+                }
+                data.add(header);
+
+                LocalDate start = summary.getWindow().getStart().toLocalDate();
+                int size = summary.size();
+                for (int i = 0; i < size; i++) {
+                        // the first day of the month inside the window
+                        LocalDate day = summary.month(i).atDay(1);
+                        ArrayList<String> row = new ArrayList<String>();
+                        row.add((day.isBefore(start) ? start : day).toString());
+                        for (IncomeAnalytics.Measure measure : measures) {
+                                row.add(Long.toString(summary.net(measure, i)));
+                        }
+                        data.add(row);
+                }
+                return data;
+        }
+}
@@ -1,6 +1,13 @@
 package Admin;
 
 import Pharmacist.Drug;
+import com.hms.hms_test_2.AsyncQueries;
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.FxQueries;
+import com.hms.hms_test_2.IncomeAnalytics;
+import com.hms.hms_test_2.MonthlySeries;
+import com.hms.hms_test_2.ReportScheduler;
+import com.hms.hms_test_2.ReportSnapshot;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -12,6 +19,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
@@ -30,6 +41,7 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 
 /**
  *
@@ -39,12 +51,15 @@ public class ReportsController extends AnchorPane {
 
     private Admin admin;
 
+    private final AsyncQueries queries;
+
     public ReportsController(Admin admin) {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/Reports.fxml"));
         fxmlLoader.setRoot(this);
         fxmlLoader.setController(this);
 
         this.admin = admin;
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -63,58 +78,35 @@ public class ReportsController extends AnchorPane {
 
     public void fillPatientAttendence(String doc) {
         String doctor = "All";
-        int max1 = 1;
         if (!doc.equals("All")) {
             doctor = doc.split("\\[")[1].split("\\]")[0];
         }
-        ArrayList<ArrayList<String>> data = admin.getPatientAttendance(doctor);
-        String date = "";
-
-        ArrayList<String> months = new ArrayList<String>();
-        ArrayList<Integer> patients = new ArrayList<Integer>();
-
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            date = data.get(i).get(0);
-            DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-            DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-            String Month = fomatter2.format(date2);
-
-            if (months.contains(Month)) {
+        String doctorID = doctor;
 
-                int indx = months.indexOf(Month);
-                int tmp = patients.remove(indx);
-                patients.add(indx, (tmp + 1));
-
-            } else {
-                months.add(Month);
-                patients.add(1);
-            }
-
-        }
+        // the attendance and the doctors are read on workers, the chart is drawn
+        // once both are in
+        AsyncQueries.printErrors(queries.submit(() -> {
+            MonthlySeries patients = MonthlySeries.sum(lastYear());
+            admin.getPatientAttendance(doctorID, row -> patients.add(row.getString(1), row.getLong(2)));
+            return patients;
+        }).thenAcceptBoth(queries.submit(() -> admin.getDoctorNames()),
+                (patients, names) -> showPatientAttendence(doc, patients, names)));
+    }
 
-        XYChart.Series<String, Number> series1 = new XYChart.Series<>();
-        if (doctor.equals("All"))
+    private void showPatientAttendence(String doc, MonthlySeries patients, ArrayList<ArrayList<String>> data2) {
+        int max1 = 1;
+        XYChart.Series<String, Number> series1 = chartSeries(patients);
+        if (doc.equals("All"))
             series1.setName("All Doctors");
         else
             series1.setName(doc.split("\\[")[0]);
-        size = months.size();
-        for (int i = 0; i < size; i++) {
-            String month = months.get(i);
-            int no = patients.get(i);
-            if (max1 < no)
-                max1 = no;
-            series1.getData().add(new XYChart.Data<>(month, no));
-        }
+        max1 = Math.max(max1, (int) patients.max());
         patientAttendence.getData().clear();
         patientAttendence.getData().add(series1);
 
-        ArrayList<ArrayList<String>> data2 = admin.getDoctorNames();
         ArrayList<String> names = new ArrayList<String>();
         names.add("All");
-        size = data2.size();
+        int size = data2.size();
         for (int i = 1; i < size; i++) {
             names.add(data2.get(i).get(0) + " " + data2.get(i).get(1) + " [" + data2.get(i).get(3) + "]");
         }
@@ -148,7 +140,13 @@ public class ReportsController extends AnchorPane {
     private PieChart labReportPieChart;
 
     public void fillPieChart(int months) {
-        ArrayList<ArrayList<String>> data = admin.lastMonthsReports(months);
+        queries.load(() -> admin.lastMonthsReports(months), data -> fillPieChart(data));
+    }
+
+    private void fillPieChart(ArrayList<ArrayList<String>> data) {
+        if (data == null) {
+            return;
+        }
         String[] test = {
                 "Blood Grouping & Rh", "Lipid Profile Test", "LFT", "RFT",
                 "HIV", "CPK", "Pathalogy Test",
@@ -192,6 +190,20 @@ public class ReportsController extends AnchorPane {
 
     @FXML
     public void fillAppointmentChart(String a) {
+        AsyncQueries.printErrors(queries.submit(() -> {
+            if (!a.equals("a") && !a.equals("d")) {
+                return null;
+            }
+            MonthlySeries appointments = MonthlySeries.sum(lastYear());
+            admin.getDocAppointments(row -> appointments.add(row.getString(1), row.getLong(2)));
+            return appointments;
+        }).thenAcceptBoth(queries.submit(
+                () -> a.equals("a") || a.equals("l") ? lastYearSeries(admin.getLabAppointments()) : null),
+                (docAppointments, labAppointments) -> showAppointmentChart(a, docAppointments, labAppointments)));
+    }
+
+    // the series of the chart that is not shown is null
+    private void showAppointmentChart(String a, MonthlySeries docAppointments, MonthlySeries labAppointments) {
         appointmentChart.getData().clear();
 
         XYChart.Series<String, Number> series1 = new XYChart.Series<>();
@@ -200,84 +212,14 @@ public class ReportsController extends AnchorPane {
         int max1 = 0;
         int max2 = 0;
 
-        if (a.equals("a") || a.equals("d")) {
-            ArrayList<ArrayList<String>> docApp = admin.getDocAppointments();
-            String date = "";
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> appointments = new ArrayList<Integer>();
-
-            int size = docApp.size();
-            for (int i = 1; i < size; i++) {
-                date = docApp.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = appointments.remove(indx);
-                    appointments.add(indx, (tmp + 1));
-
-                } else {
-
-                    months.add(Month);
-                    appointments.add(1);
-                }
-            }
-
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = appointments.get(i);
-                if (max1 < no)
-                    max1 = no;
-                series1.getData().add(new XYChart.Data<>(month, no));
-            }
-
+        if (docAppointments != null) {
+            series1 = chartSeries(docAppointments);
+            max1 = (int) docAppointments.max();
         }
 
-        if (a.equals("a") || a.equals("l")) {
-            ArrayList<ArrayList<String>> labApp = admin.getLabAppointments();
-            String date = "";
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> appointments = new ArrayList<Integer>();
-
-            int size = labApp.size();
-            for (int i = 1; i < size; i++) {
-                date = labApp.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = appointments.remove(indx);
-                    appointments.add(indx, (tmp + 1));
-
-                } else {
-
-                    months.add(Month);
-                    appointments.add(1);
-                }
-            }
-
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = appointments.get(i);
-                if (max2 < no)
-                    max2 = no;
-                series2.getData().add(new XYChart.Data<>(month, no));
-            }
-
+        if (labAppointments != null) {
+            series2 = chartSeries(labAppointments);
+            max2 = (int) labAppointments.max();
         }
 
         ayaxis.setAutoRanging(false);
@@ -336,6 +278,18 @@ public class ReportsController extends AnchorPane {
 
     @FXML
     public void fillCancelledAppointmentChart(String a) {
+        AsyncQueries.printErrors(queries.submit(
+                () -> a.equals("a") || a.equals("d") ? lastYearSeries(admin.getCancelledDocAppointments()) : null)
+                .thenAcceptBoth(queries.submit(() -> a.equals("a") || a.equals("l")
+                        ? lastYearSeries(admin.getCancelledLabAppointments())
+                        : null),
+                        (docAppointments, labAppointments) -> showCancelledAppointmentChart(a, docAppointments,
+                                labAppointments)));
+    }
+
+    // the series of the chart that is not shown is null
+    private void showCancelledAppointmentChart(String a, MonthlySeries docAppointments,
+            MonthlySeries labAppointments) {
         cancelledAppointmentChart.getData().clear();
 
         XYChart.Series<String, Number> series1 = new XYChart.Series<>();
@@ -344,84 +298,14 @@ public class ReportsController extends AnchorPane {
         int max1 = 0;
         int max2 = 0;
 
-        if (a.equals("a") || a.equals("d")) {
-            ArrayList<ArrayList<String>> docApp = admin.getCancelledDocAppointments();
-            String date = "";
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> appointments = new ArrayList<Integer>();
-
-            int size = docApp.size();
-            for (int i = 1; i < size; i++) {
-                date = docApp.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = appointments.remove(indx);
-                    appointments.add(indx, (tmp + 1));
-
-                } else {
-
-                    months.add(Month);
-                    appointments.add(1);
-                }
-            }
-
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = appointments.get(i);
-                if (max1 < no)
-                    max1 = no;
-                series1.getData().add(new XYChart.Data<>(month, no));
-            }
-
+        if (docAppointments != null) {
+            series1 = chartSeries(docAppointments);
+            max1 = (int) docAppointments.max();
         }
 
-        if (a.equals("a") || a.equals("l")) {
-            ArrayList<ArrayList<String>> labApp = admin.getCancelledLabAppointments();
-            String date = "";
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> appointments = new ArrayList<Integer>();
-
-            int size = labApp.size();
-            for (int i = 1; i < size; i++) {
-                date = labApp.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = appointments.remove(indx);
-                    appointments.add(indx, (tmp + 1));
-
-                } else {
-
-                    months.add(Month);
-                    appointments.add(1);
-                }
-            }
-
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = appointments.get(i);
-                if (max2 < no)
-                    max2 = no;
-                series2.getData().add(new XYChart.Data<>(month, no));
-            }
-
+        if (labAppointments != null) {
+            series2 = chartSeries(labAppointments);
+            max2 = (int) labAppointments.max();
         }
 
         cyaxis.setAutoRanging(false);
@@ -476,8 +360,11 @@ public class ReportsController extends AnchorPane {
     private BarChart<String, Number> stockChart;
 
     public void fillStockChart() {
+        queries.load(() -> admin.getStockSummary(), drugs -> fillStockChart(drugs));
+    }
+
+    private void fillStockChart(ArrayList<ArrayList<String>> drugs) {
         try {
-            ArrayList<ArrayList<String>> drugs = admin.getStockSummary();
             int noOfSlots = (drugs.size() - 1);
 
             final ObservableList<Drug> data = FXCollections.observableArrayList();
@@ -532,34 +419,43 @@ public class ReportsController extends AnchorPane {
                 fillStockChart();
 
             } else {
-                HashMap<String, String> drugInfo = admin.getDrugGenericInfo();
-                ArrayList<ArrayList<String>> drugNames = admin.getDrugNames();
-
-                XYChart.Series<String, Number> series1 = new XYChart.Series<>();
-                int noOfDrugs = drugInfo.size();
-
-                for (int i = 1; i < noOfDrugs + 1; i++) {
-                    int brandAmount = 0;
-                    String brand = drugNames.get(i).get(1);
-                    if (selectedDrug.equals(drugInfo.get(brand))) {
-                        ArrayList<ArrayList<String>> drugBrandAmounts = admin.getDrugAmounts(drugNames.get(i).get(0));
-                        int size2 = drugBrandAmounts.size();
-                        for (int j = 1; j < size2; j++) {
-                            brandAmount += Integer.parseInt(drugBrandAmounts.get(j).get(0));
-                        }
-                        series1.getData().add(new XYChart.Data<>(brand, brandAmount));
-                    }
-                }
-
-                series1.setName(selectedDrug);
-                stockChart.getData().clear();
-                stockChart.getData().add(series1);
-                genericNameSelectCombo.setPromptText(selectedDrug);
+                queries.load(() -> brandAmounts(selectedDrug), brandAmounts -> {
+                    XYChart.Series<String, Number> series1 = new XYChart.Series<>();
+                    brandAmounts.forEach((brand, amount) -> series1.getData().add(new XYChart.Data<>(brand, amount)));
+
+                    series1.setName(selectedDrug);
+                    stockChart.getData().clear();
+                    stockChart.getData().add(series1);
+                    genericNameSelectCombo.setPromptText(selectedDrug);
+                });
             }
         } catch (Exception e) {
         }
     }
 
+    // the stock of every brand of the generic drug, read on a worker
+    private LinkedHashMap<String, Integer> brandAmounts(String genericName) {
+        HashMap<String, String> drugInfo = admin.getDrugGenericInfo();
+        ArrayList<ArrayList<String>> drugNames = admin.getDrugNames();
+
+        LinkedHashMap<String, Integer> brandAmounts = new LinkedHashMap<>();
+        int noOfDrugs = drugInfo.size();
+
+        for (int i = 1; i < noOfDrugs + 1; i++) {
+            int brandAmount = 0;
+            String brand = drugNames.get(i).get(1);
+            if (genericName.equals(drugInfo.get(brand))) {
+                ArrayList<ArrayList<String>> drugBrandAmounts = admin.getDrugAmounts(drugNames.get(i).get(0));
+                int size2 = drugBrandAmounts.size();
+                for (int j = 1; j < size2; j++) {
+                    brandAmount += Integer.parseInt(drugBrandAmounts.get(j).get(0));
+                }
+                brandAmounts.merge(brand, brandAmount, Integer::sum);
+            }
+        }
+        return brandAmounts;
+    }
+
     @FXML
     private PieChart supplierchart;
     @FXML
@@ -567,12 +463,15 @@ public class ReportsController extends AnchorPane {
 
     @FXML
     public void fillSupplierChart() {
+        AsyncQueries.printErrors(queries.submit(() -> admin.getSupplierSummary())
+                .thenAcceptBoth(queries.submit(() -> admin.getSupplierNames()),
+                        (suppliers, supplierNames) -> fillSupplierChart(suppliers, supplierNames)));
+    }
 
-        supplierchart.setVisible(true);
+    private void fillSupplierChart(ArrayList<ArrayList<String>> suppliers, HashMap<String, String> supplierNames) {
 
-        HashMap<String, String> supplierNames = admin.getSupplierNames();
+        supplierchart.setVisible(true);
 
-        ArrayList<ArrayList<String>> suppliers = admin.getSupplierSummary();
         int noOfSuppliers = suppliers.get(0).size();
 
         ObservableList<PieChart.Data> pieChartData = FXCollections.observableArrayList();
@@ -632,49 +531,25 @@ public class ReportsController extends AnchorPane {
             date01 = date01.minusMonths(12);
         }
 
-        DateTimeFormatter fomatter5 = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        String month1 = fomatter5.format(date00);
-        String month2 = fomatter5.format(date01);
-
-        ArrayList<ArrayList<String>> data = admin.lastTotalIncome(month1, month2);
-
-        ArrayList<String> months = new ArrayList<String>();
-        ArrayList<Integer> income = new ArrayList<Integer>();
-
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            String date = data.get(i).get(0);
-            DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-            LocalDate date2 = LocalDate.parse(date, fomatter1);
+        DateRange window = window(date00, date01);
 
-            DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-            String Month = fomatter2.format(date2);
-
-            if (months.contains(Month)) {
-
-                int indx = months.indexOf(Month);
-                int tmp = income.remove(indx);
-                income.add(indx, (tmp + Integer.parseInt(data.get(i).get(1))));
-
-            } else {
-
-                months.add(Month);
-                income.add(Integer.parseInt(data.get(i).get(1)));
-            }
+        // the sums of the months are read on a worker, the chart is drawn once
+        // they are in
+        queries.load(() -> admin.incomeAnalytics(window),
+                income -> showTotalIncome(incomeSeries(income, IncomeAnalytics.Measure.TOTAL, window),
+                        "From  " + fromDate + "  To  " + toDate));
 
-        }
+        fillMonthCombos(fromIncomeCombo, toIncomeCombo);
+    }
 
-        XYChart.Series<String, Number> series1 = new XYChart.Series<>();
-        series1.setName("From  " + fromDate + "  To  " + toDate);
-        size = months.size();
-        for (int i = 0; i < size; i++) {
-            String month = months.get(i);
-            int no = income.get(i);
-            series1.getData().add(new XYChart.Data<>(month, no));
-        }
+    private void showTotalIncome(XYChart.Series<String, Number> series1, String name) {
+        series1.setName(name);
         totalIncomeGraph.getData().clear();
         totalIncomeGraph.getData().add(series1);
+    }
 
+    // the first days of the last 12 months, to choose a period from
+    private static void fillMonthCombos(ComboBox<String> from, ComboBox<String> to) {
         ArrayList<String> mothyears = new ArrayList<String>();
         DateTimeFormatter fomatter3 = DateTimeFormatter.ofPattern("yyyy-MMM");
         LocalDate date = LocalDate.now();
@@ -686,11 +561,10 @@ public class ReportsController extends AnchorPane {
             date = date.minusMonths(1);
         }
 
-        Platform.runLater(() -> fromIncomeCombo.getItems().clear());
-        Platform.runLater(() -> fromIncomeCombo.getItems().addAll(mothyears));
-        Platform.runLater(() -> toIncomeCombo.getItems().clear());
-        Platform.runLater(() -> toIncomeCombo.getItems().addAll(mothyears));
-
+        Platform.runLater(() -> from.getItems().clear());
+        Platform.runLater(() -> from.getItems().addAll(mothyears));
+        Platform.runLater(() -> to.getItems().clear());
+        Platform.runLater(() -> to.getItems().addAll(mothyears));
     }
 
     @FXML
@@ -732,128 +606,19 @@ public class ReportsController extends AnchorPane {
             date01 = date01.minusMonths(12);
         }
 
-        DateTimeFormatter fomatter5 = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        String month1 = fomatter5.format(date00);
-        String month2 = fomatter5.format(date01);
-
-        XYChart.Series<String, Number> series1 = new XYChart.Series<>();
-        XYChart.Series<String, Number> series2 = new XYChart.Series<>();
-        XYChart.Series<String, Number> series3 = new XYChart.Series<>();
-
-        if (a.equals("a") || a.equals("p")) {
-            ArrayList<ArrayList<String>> data = admin.pharmacyIncome(month1, month2);
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> income = new ArrayList<Integer>();
-
-            int size = data.size();
-            for (int i = 1; i < size; i++) {
-                String date = data.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = income.remove(indx);
-                    income.add(indx, (tmp + Integer.parseInt(data.get(i).get(1))));
-
-                } else {
-
-                    months.add(Month);
-                    income.add(Integer.parseInt(data.get(i).get(1)));
-                }
-
-            }
-
-            series1 = new XYChart.Series<>();
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = income.get(i);
-                series1.getData().add(new XYChart.Data<>(month, no));
-            }
-        }
-
-        if (a.equals("a") || a.equals("d")) {
-            ArrayList<ArrayList<String>> data = admin.appointmentIncome(month1, month2);
-
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> income = new ArrayList<Integer>();
-
-            int size = data.size();
-            for (int i = 1; i < size; i++) {
-                String date = data.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = income.remove(indx);
-                    income.add(indx, (tmp + Integer.parseInt(data.get(i).get(1))));
-
-                } else {
-
-                    months.add(Month);
-                    income.add(Integer.parseInt(data.get(i).get(1)));
-                }
-
-            }
-
-            series2 = new XYChart.Series<>();
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = income.get(i);
-                series2.getData().add(new XYChart.Data<>(month, no));
-            }
-        }
-
-        if (a.equals("a") || a.equals("l")) {
-            ArrayList<ArrayList<String>> data = admin.laboratoryIncome(month1, month2);
+        DateRange window = window(date00, date01);
 
-            ArrayList<String> months = new ArrayList<String>();
-            ArrayList<Integer> income = new ArrayList<Integer>();
+        // the fees of all departments are summed in one query
+        queries.load(() -> admin.incomeAnalytics(window),
+                income -> showIncome(a, incomeSeries(income, IncomeAnalytics.Measure.PHARMACY_FEE, window),
+                        incomeSeries(income, IncomeAnalytics.Measure.APPOINTMENT_FEE, window),
+                        incomeSeries(income, IncomeAnalytics.Measure.LABORATORY_FEE, window)));
 
-            int size = data.size();
-            for (int i = 1; i < size; i++) {
-                String date = data.get(i).get(0);
-                DateTimeFormatter fomatter1 = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-                LocalDate date2 = LocalDate.parse(date, fomatter1);
-
-                DateTimeFormatter fomatter2 = DateTimeFormatter.ofPattern("MMM");
-                String Month = fomatter2.format(date2);
-
-                if (months.contains(Month)) {
-
-                    int indx = months.indexOf(Month);
-                    int tmp = income.remove(indx);
-                    income.add(indx, (tmp + Integer.parseInt(data.get(i).get(1))));
-
-                } else {
-
-                    months.add(Month);
-                    income.add(Integer.parseInt(data.get(i).get(1)));
-                }
-
-            }
-
-            series3 = new XYChart.Series<>();
-            size = months.size();
-            for (int i = 0; i < size; i++) {
-                String month = months.get(i);
-                int no = income.get(i);
-                series3.getData().add(new XYChart.Data<>(month, no));
-            }
-        }
+        fillMonthCombos(fromIncomeCombo1, toIncomeCombo1);
+    }
 
+    private void showIncome(String a, XYChart.Series<String, Number> series1, XYChart.Series<String, Number> series2,
+            XYChart.Series<String, Number> series3) {
         switch (a) {
             case "p":
                 incomeGraph.getData().clear();
@@ -879,22 +644,147 @@ public class ReportsController extends AnchorPane {
                 series2.setName("Appointments");
                 series3.setName("Laboratory");
         }
+    }
 
-        ArrayList<String> mothyears = new ArrayList<String>();
-        DateTimeFormatter fomatter3 = DateTimeFormatter.ofPattern("yyyy-MMM");
-        LocalDate date = LocalDate.now();
-        String yearMonth = "";
-        for (int i = 0; i < 12; i++) {
-            yearMonth = fomatter3.format(date);
-            yearMonth += "-01";
-            mothyears.add(0, yearMonth);
-            date = date.minusMonths(1);
+    // the income kept in every month, zero if it could not be read
+    private static XYChart.Series<String, Number> incomeSeries(IncomeAnalytics.Summary income,
+            IncomeAnalytics.Measure measure, DateRange window) {
+        return chartSeries(income != null ? income.net(measure) : MonthlySeries.sum(window));
+    }
+
+    // a point per month of the window, labelled with the month
+    private static XYChart.Series<String, Number> chartSeries(MonthlySeries months) {
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+        int size = months.size();
+        for (int i = 0; i < size; i++) {
+            series.getData().add(new XYChart.Data<>(months.label(i), months.get(i)));
         }
+        return series;
+    }
+
+    // the months the reports of the last 12 months reach into
+    private static DateRange lastYear() {
+        return DateRange.lastMonths(13);
+    }
+
+    // the (date, value) rows of the last 12 months per month
+    private static MonthlySeries lastYearSeries(ArrayList<ArrayList<String>> data) {
+        return tableSeries(data, 1, lastYear());
+    }
 
-        Platform.runLater(() -> fromIncomeCombo1.getItems().clear());
-        Platform.runLater(() -> fromIncomeCombo1.getItems().addAll(mothyears));
-        Platform.runLater(() -> toIncomeCombo1.getItems().clear());
-        Platform.runLater(() -> toIncomeCombo1.getItems().addAll(mothyears));
+    // the values of one column of (date, values...) rows per month of the window
+    private static MonthlySeries tableSeries(ArrayList<ArrayList<String>> data, int column, DateRange window) {
+        MonthlySeries series = MonthlySeries.sum(window);
+        if (data != null) {
+            int size = data.size();
+            for (int i = 1; i < size; i++) {
+                series.add(data.get(i).get(0), Long.parseLong(data.get(i).get(column)));
+            }
+        }
+        return series;
+    }
+
+    // from the first day up to the day before the second, empty if it is not
+    // after the first
+    private static DateRange window(LocalDate from, LocalDate until) {
+        return DateRange.of(from.atStartOfDay(), (until.isBefore(from) ? from : until).atStartOfDay());
+    }
+
+    @FXML
+    private Label snapshotAge;
+
+    private ReportSnapshot shown;
+    private Timeline ageTicker;
+
+    /**
+     * Shows the charts the screen opens with from the latest precomputed
+     * snapshot, or computes one in the background if there is none yet.
+     */
+    public void loadReports() {
+        ReportSnapshot snapshot = ReportScheduler.getInstance().latest();
+        if (snapshot != null && ReportDatasets.isComplete(snapshot)) {
+            showSnapshot(snapshot);
+        } else {
+            refreshReports();
+        }
+    }
+
+    /**
+     * Fills the charts with the datasets of the snapshot and shows its age.
+     */
+    public void showSnapshot(ReportSnapshot snapshot) {
+        shown = snapshot;
+
+        showPatientAttendence("All", lastYearSeries(snapshot.get(ReportDatasets.ATTENDANCE)),
+                snapshot.get(ReportDatasets.DOCTOR_NAMES));
+        fillPieChart(snapshot.get(ReportDatasets.LAB_REPORTS));
+        showAppointmentChart("a", lastYearSeries(snapshot.get(ReportDatasets.DOC_APPOINTMENTS)),
+                lastYearSeries(snapshot.get(ReportDatasets.LAB_APPOINTMENTS)));
+        showCancelledAppointmentChart("a", lastYearSeries(snapshot.get(ReportDatasets.CANCELLED_DOC_APPOINTMENTS)),
+                lastYearSeries(snapshot.get(ReportDatasets.CANCELLED_LAB_APPOINTMENTS)));
+        fillStockChart(snapshot.get(ReportDatasets.STOCK));
+        // the names are not part of the snapshot
+        ArrayList<ArrayList<String>> suppliers = snapshot.get(ReportDatasets.SUPPLIERS);
+        queries.load(() -> admin.getSupplierNames(), supplierNames -> fillSupplierChart(suppliers, supplierNames));
+
+        DateRange window = ReportDatasets.incomeWindow(snapshot);
+        ArrayList<ArrayList<String>> income = snapshot.get(ReportDatasets.INCOME);
+        DateTimeFormatter fomatter = DateTimeFormatter.ofPattern("yyyy-MMM-dd");
+        showTotalIncome(chartSeries(tableSeries(income, 1, window)), "From  "
+                + fomatter.format(window.getStart()) + "  To  " + fomatter.format(window.getEnd()));
+        showIncome("a", chartSeries(tableSeries(income, 2, window)), chartSeries(tableSeries(income, 3, window)),
+                chartSeries(tableSeries(income, 4, window)));
+        fillMonthCombos(fromIncomeCombo, toIncomeCombo);
+        fillMonthCombos(fromIncomeCombo1, toIncomeCombo1);
+
+        showSnapshotAge("");
+        if (ageTicker == null) {
+            ageTicker = new Timeline(new KeyFrame(Duration.seconds(30), event -> {
+                if (getScene() != null && getScene().getWindow() != null && !getScene().getWindow().isShowing()) {
+                    ageTicker.stop();
+                } else {
+                    showSnapshotAge("");
+                }
+            }));
+            ageTicker.setCycleCount(Animation.INDEFINITE);
+            ageTicker.play();
+        }
+    }
+
+    /**
+     * Computes the datasets again in the background and shows them once they
+     * are in. The charts keep the old snapshot meanwhile.
+     */
+    @FXML
+    private void refreshReports() {
+        snapshotAge.setText("Refreshing...");
+        AsyncQueries.printErrors(queries.submit(() -> ReportScheduler.getInstance().refresh())
+                .whenComplete((snapshot, error) -> {
+                    if (snapshot != null) {
+                        showSnapshot(snapshot);
+                    } else {
+                        showSnapshotAge("Refresh failed. ");
+                    }
+                }));
+    }
+
+    private void showSnapshotAge(String prefix) {
+        if (shown == null) {
+            snapshotAge.setText(prefix + "No reports yet");
+            return;
+        }
+        long minutes = shown.ageMillis() / 60000;
+        String age;
+        if (minutes < 1) {
+            age = "just now";
+        } else if (minutes < 60) {
+            age = minutes + " min ago";
+        } else if (minutes < 48 * 60) {
+            age = (minutes / 60) + " h ago";
+        } else {
+            age = (minutes / (24 * 60)) + " days ago";
+        }
+        snapshotAge.setText(prefix + "Updated " + age);
     }
 
     @FXML
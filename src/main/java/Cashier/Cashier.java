@@ -1,5 +1,7 @@
 package Cashier;
 
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.IncomeAnalytics;
 import com.hms.hms_test_2.User;
 import java.util.*;
 import java.sql.*;
@@ -66,21 +68,7 @@ public class Cashier extends User {
         try {
 
             /////////////////// Generating the Bill ID
-            String sql2 = "SELECT bill_id FROM bill WHERE bill_id = (SELECT MAX(bill_id) FROM bill);";
-            String billID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-            char[] tmpID = billID.toCharArray();
-            int i = 3;
-            for (i = 3; i < billID.length(); i++) {
-                if (tmpID[i] != '0')
-                    break;
-            }
-
-            String tmpID2 = Integer.toString(Integer.parseInt(billID.substring(i, billID.length() - 1)) + 1);
-            while (tmpID2.length() < 4) {
-                tmpID2 = "0" + tmpID2;
-            }
-            tmpID2 = "hms" + tmpID2 + "b";
+            String tmpID2 = super.dbOperator.nextId(IdSequence.BILL);
 
             //////////////////////////////// SQL for adding the row
             String columnNames = "";
@@ -116,8 +104,10 @@ public class Cashier extends User {
             String sql = "INSERT INTO bill (" + columnNames + ") VALUES (" + rowData + ");";
             /////////////////////////////// Adding data to database
             boolean res = super.dbOperator.customInsertion(sql);
-            if (res)
+            if (res) {
                 result = tmpID2;
+                IncomeAnalytics.getInstance().invalidate();
+            }
 
         } catch (ClassNotFoundException | SQLException e) {
             e.printStackTrace();
@@ -194,21 +184,7 @@ public class Cashier extends User {
         try {
 
             /////////////////// Generating the Refund ID
-            String sql2 = "SELECT refund_id FROM refund WHERE refund_id = (SELECT MAX(refund_id) FROM bill);";
-            String refundID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-            char[] tmpID = refundID.toCharArray();
-            int i = 1;
-            for (i = 1; i < refundID.length(); i++) {
-                if (tmpID[i] != '0')
-                    break;
-            }
-
-            String tmpID2 = Integer.toString(Integer.parseInt(refundID.substring(i, refundID.length())) + 1);
-            while (tmpID2.length() < 4) {
-                tmpID2 = "0" + tmpID2;
-            }
-            tmpID2 = "r" + tmpID2;
+            String tmpID2 = super.dbOperator.nextId(IdSequence.REFUND);
 
             //////////////////////////////// SQL for adding the row
             String columnNames = "";
@@ -432,7 +408,7 @@ public class Cashier extends User {
     public ArrayList<ArrayList<String>> getCancelledDocAppointments() {
 
         String sql = "SELECT date FROM appointment " +
-                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (cancelled = 1) )" +
+                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) AND (cancelled = 1) )" +
                 "ORDER BY date ASC;";
 
         ArrayList<ArrayList<String>> data = null;
@@ -448,7 +424,7 @@ public class Cashier extends User {
     public ArrayList<ArrayList<String>> getCancelledLabAppointments() {
 
         String sql = "SELECT date FROM lab_appointment " +
-                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (cancelled = 1) )" +
+                "WHERE ( ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) AND (cancelled = 1) )" +
                 "ORDER BY date ASC;";
 
         ArrayList<ArrayList<String>> data = null;
@@ -1,8 +1,11 @@
 package Cashier;
 
 import com.hms.hms_test_2.AllMessagesController;
+import com.hms.hms_test_2.AsyncQueries;
 import com.hms.hms_test_2.CurrentUserSummaryController;
+import com.hms.hms_test_2.DashboardWarmUp;
 import com.hms.hms_test_2.ErrorController;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import com.hms.hms_test_2.Validate;
@@ -20,10 +23,12 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.control.Button;
@@ -59,6 +64,8 @@ public class CashierController extends AnchorPane {
      */
     public String username;
 
+    private final AsyncQueries queries;
+
     /**
      *
      * @param username
@@ -71,6 +78,7 @@ public class CashierController extends AnchorPane {
         cashier = new Cashier(username);
         this.username = username;
         cashier.saveLogin(username);
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -85,7 +93,34 @@ public class CashierController extends AnchorPane {
     @FXML
     private NumberAxis yAxis;
 
+    /**
+     * Loads the panels of the dashboard side by side, each shown as soon as its
+     * data arrives. Until then the chart, the bill history and the refund
+     * count show that they are loading.
+     */
+    public DashboardWarmUp warmUp() {
+        lineChart.setTitle("Loading...");
+        billHistory.setPlaceholder(new Label("Loading..."));
+        refundDetails.setText("...");
+
+        DashboardWarmUp warmUp = new DashboardWarmUp("cashier", queries);
+        warmUp.panel("profile", cashier::getProfileInfo, this::showProfileData);
+        warmUp.panel("history", () -> cashier.getPaymentHistory(150), this::showHistoryTable)
+                .whenComplete((done, error) -> billHistory.setPlaceholder(null));
+        warmUp.panel("refund chart",
+                () -> Arrays.asList(cashier.getCancelledDocAppointments(), cashier.getCancelledLabAppointments()),
+                data -> fillLineChart(data.get(0), data.get(1)))
+                .whenComplete((done, error) -> lineChart.setTitle("Refunds"));
+        warmUp.panel("refunds", cashier::getNoOfRefunds, refundDetails::setText);
+        warmUp.whenFilled();
+        return warmUp;
+    }
+
     public void fillLineChart() {
+        fillLineChart(cashier.getCancelledDocAppointments(), cashier.getCancelledLabAppointments());
+    }
+
+    private void fillLineChart(ArrayList<ArrayList<String>> docApp, ArrayList<ArrayList<String>> labApp) {
 
         lineChart.getData().clear();
         lineChart.setTitle("Refunds");
@@ -97,7 +132,6 @@ public class CashierController extends AnchorPane {
         int max2 = 0;
 
         try {
-            ArrayList<ArrayList<String>> docApp = cashier.getCancelledDocAppointments();
             String date = "";
 
             ArrayList<String> months = new ArrayList<String>();
@@ -138,7 +172,6 @@ public class CashierController extends AnchorPane {
         }
 
         try {
-            ArrayList<ArrayList<String>> labApp = cashier.getCancelledLabAppointments();
             String date = "";
 
             ArrayList<String> months = new ArrayList<String>();
@@ -258,36 +291,43 @@ public class CashierController extends AnchorPane {
     @FXML
     private ComboBox<String> patientSearchType;
 
-    HashMap<String, String> patientLog = new HashMap<String, String>();
+    // filled from the suggestion thread, read when a suggestion is picked
+    ConcurrentHashMap<String, String> patientLog = new ConcurrentHashMap<String, String>();
 
     public void loadNameList() {
-        ObservableList<String> possibleSuggestions = FXCollections.observableArrayList();
+        // suggestions come from the shared patient name index as the user types,
+        // instead of binding every patient to the field up front
+        TextFields.bindAutoCompletion(patientID, request -> {
+            ArrayList<String> possibleSuggestions = new ArrayList<String>();
+
+            ArrayList<ArrayList<String>> data = cashier.getPatientSuggestions(request.getUserText(), 10);
+            if (data == null) {
+                return possibleSuggestions;
+            }
+            int size = data.size();
+            for (int i = 1; i < size; i++) {
+                String firstName = data.get(i).get(1);
+                String lastName = data.get(i).get(2);
+                String age = "";
+                String id = data.get(i).get(0);
 
-        ArrayList<ArrayList<String>> data = cashier.getAllNames();
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            String firstName = data.get(i).get(1);
-            String lastName = data.get(i).get(2);
-            String age = "";
-            String id = data.get(i).get(0);
+                try {
+                    SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                    Date birth = tmpdataformat.parse(data.get(i).get(3));
+                    Calendar calendarBirth = Calendar.getInstance();
+                    calendarBirth.setTime(birth);
+                    Calendar calendarToday = Calendar.getInstance();
+                    age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
 
-            try {
-                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                Date birth = tmpdataformat.parse(data.get(i).get(3));
-                Calendar calendarBirth = Calendar.getInstance();
-                calendarBirth.setTime(birth);
-                Calendar calendarToday = Calendar.getInstance();
-                age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            } catch (Exception e) {
-                e.printStackTrace();
+                possibleSuggestions.add(age + " " + firstName + " " + lastName);
+                patientLog.put(age + " " + firstName + " " + lastName, id);
             }
-
-            possibleSuggestions.add(age + " " + firstName + " " + lastName);
-            patientLog.put(age + " " + firstName + " " + lastName, id);
-
-        }
-        TextFields.bindAutoCompletion(patientID, possibleSuggestions);
+            return possibleSuggestions;
+        });
     }
 
     @FXML
@@ -310,17 +350,16 @@ public class CashierController extends AnchorPane {
         if (patientSearchType.getSelectionModel().getSelectedItem() != null) {
             String selectedValue = patientSearchType.getSelectionModel().getSelectedItem().toString();
             String searchValue = patientID.getText();
-            ArrayList<ArrayList<String>> data = null;
+            String patientid = null;
             if (!searchValue.equals("")) {
                 patientSearchType.setStyle("-fx-border-color: #999 #999 #999 #999;");
                 patientID.setStyle("-fx-border-color: #999 #999 #999 #999;");
                 switch (selectedValue) {
                     case "Patient ID":
-                        data = cashier.getPatientDetails(searchID);
+                        patientid = searchID;
                         break;
                     case "Name":
-                        String patientid = patientLog.get(searchID);
-                        data = cashier.getPatientDetails(patientid);
+                        patientid = patientLog.get(searchID);
                         patientSearchType.setValue("Patient ID");
                         patientID.setText(patientid);
                         break;
@@ -333,71 +372,79 @@ public class CashierController extends AnchorPane {
 
             }
 
-            if (data != null && data.size() > 1) {
-
-                String app = data.get(1).get(5);
-                String pha = data.get(1).get(3);
-                String lab = data.get(1).get(4);
-                String doc = data.get(1).get(1);
-                String hos = data.get(1).get(2);
+            if (patientid != null) {
+                // the bill and the doctor's name are read in parallel
+                String id = patientid;
+                AsyncQueries.printErrors(queries.submit(() -> cashier.getPatientDetails(id))
+                        .thenAcceptBoth(queries.submit(() -> cashier.getDoctorName(id)), this::showBill));
+            } else {
+                showErrorPopup("Not Available", patientID);
+            }
 
-                String doctorFee = "0";
-                String hosFee = "0";
-                if (app == null) {
-                    doctorFee = "200";
-                    hosFee = "150";
-                }
+        } else {
+            showPopup("hmsxxxxpa", patientID);
+        }
 
-                if (app == null)
-                    app = "0";
-                if (pha == null)
-                    pha = "0";
-                if (lab == null)
-                    lab = "0";
-                if (doc == null)
-                    doc = "0";
-                if (hos == null)
-                    hos = "0";
+    }
 
-                appointmentTot.setText(app);
-                pharmacyTot.setText(pha);
-                laboratoryTot.setText(lab);
+    private void showBill(ArrayList<ArrayList<String>> data, ArrayList<ArrayList<String>> doctorData) {
+        if (data != null && data.size() > 1) {
+            String app = data.get(1).get(5);
+            String pha = data.get(1).get(3);
+            String lab = data.get(1).get(4);
+            String doc = data.get(1).get(1);
+            String hos = data.get(1).get(2);
+
+            String doctorFee = "0";
+            String hosFee = "0";
+            if (app == null) {
+                doctorFee = "200";
+                hosFee = "150";
+            }
 
-                patientName.setText(data.get(1).get(10) + " " + data.get(1).get(11));
-                docFee.setText(doctorFee);
-                hospitalFee.setText(hosFee);
+            if (app == null)
+                app = "0";
+            if (pha == null)
+                pha = "0";
+            if (lab == null)
+                lab = "0";
+            if (doc == null)
+                doc = "0";
+            if (hos == null)
+                hos = "0";
 
-                docID.setText(data.get(1).get(8));
+            appointmentTot.setText(app);
+            pharmacyTot.setText(pha);
+            laboratoryTot.setText(lab);
 
-                DateFormat dateFormat = new SimpleDateFormat("yyyy-MMM-dd HH:mm:ss");
-                Date date = new Date();
+            patientName.setText(data.get(1).get(10) + " " + data.get(1).get(11));
+            docFee.setText(doctorFee);
+            hospitalFee.setText(hosFee);
 
-                int service = (Integer.parseInt(app) + Integer.parseInt(pha) + Integer.parseInt(lab) +
-                        Integer.parseInt(doctorFee) + Integer.parseInt(hosFee));
+            docID.setText(data.get(1).get(8));
 
-                int vatamnt = (service / 100) * 5;
+            DateFormat dateFormat = new SimpleDateFormat("yyyy-MMM-dd HH:mm:ss");
+            Date date = new Date();
 
-                billDate.setText(dateFormat.format(date));
-                patientTotal.setText(Integer.toString(service + vatamnt));
-                serviceFees.setText(Integer.toString(service));
-                vat.setText(Integer.toString(vatamnt));
+            int service = (Integer.parseInt(app) + Integer.parseInt(pha) + Integer.parseInt(lab) +
+                    Integer.parseInt(doctorFee) + Integer.parseInt(hosFee));
 
-                data = cashier.getDoctorName(searchID);
+            int vatamnt = (service / 100) * 5;
 
-                try {
-                    docName.setText(data.get(1).get(0) + " " + data.get(1).get(1));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+            billDate.setText(dateFormat.format(date));
+            patientTotal.setText(Integer.toString(service + vatamnt));
+            serviceFees.setText(Integer.toString(service));
+            vat.setText(Integer.toString(vatamnt));
 
-            } else {
-                showErrorPopup("Not Available", patientID);
+            try {
+                docName.setText(doctorData.get(1).get(0) + " " + doctorData.get(1).get(1));
+            } catch (Exception e) {
+                e.printStackTrace();
             }
 
         } else {
-            showPopup("hmsxxxxpa", patientID);
+            showErrorPopup("Not Available", patientID);
         }
-
     }
 
     public void clearBill() {
@@ -537,10 +584,12 @@ public class CashierController extends AnchorPane {
         stage.show();
     }
 
+    // loaded by makeHistoryTable, the pages only slice it
+    private ArrayList<ArrayList<String>> billHistoryData;
+
     @FXML
     private Node createPage(int pageIndex) {
 
-        ArrayList<ArrayList<String>> billHistoryData = cashier.getPaymentHistory(150);
         int noOfSlots = (billHistoryData.size() - 1);
 
         final ObservableList<Bill> data = FXCollections.observableArrayList();
@@ -575,8 +624,12 @@ public class CashierController extends AnchorPane {
 
     @FXML
     public void makeHistoryTable() {
-        ArrayList<ArrayList<String>> billHistoryData = cashier.getPaymentHistory(150);
-        createPagination(billHistoryData.size() - 1);
+        showHistoryTable(cashier.getPaymentHistory(150));
+    }
+
+    private void showHistoryTable(ArrayList<ArrayList<String>> data) {
+        billHistoryData = data;
+        createPagination(data.size() - 1);
     }
 
     // Changing the profile picture
@@ -731,8 +784,10 @@ public class CashierController extends AnchorPane {
 
     @FXML
     public void loadProfileData() {
+        showProfileData(cashier.getProfileInfo());
+    }
 
-        HashMap<String, String> cashierPersonalInfo = cashier.getProfileInfo();
+    private void showProfileData(HashMap<String, String> cashierPersonalInfo) {
 
         cashierName.setText(cashierPersonalInfo.get("first_name") + " " + cashierPersonalInfo.get("last_name"));
         cashierNIC.setText(cashierPersonalInfo.get("nic"));
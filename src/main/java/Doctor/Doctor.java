@@ -1,5 +1,9 @@
 package Doctor;
 
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.ReferenceCache;
 import com.hms.hms_test_2.User;
 import java.util.*;
 import java.sql.*;
@@ -97,6 +101,7 @@ public class Doctor extends User {
 
 		try {
 			super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DOCTORS);
 		} catch (ClassNotFoundException | SQLException e) {
 			result = false;
 		}
@@ -130,6 +135,7 @@ public class Doctor extends User {
 		try {
 
 			super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DOCTORS);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -487,15 +493,14 @@ public class Doctor extends User {
 					break;
 
 				case "id":
-					personalData = super.dbOperator.customSelection(
-							"SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = '"
-									+ searchWord + "')");
-					medicalData = super.dbOperator.customSelection(
-							"SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = '" + searchWord
-									+ "'");
-					historyData = super.dbOperator.customSelection(
-							"SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = '"
-									+ searchWord + "' ORDER BY date DESC");
+					personalData = super.dbOperator.select(
+							"SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = ?)",
+							searchWord);
+					medicalData = super.dbOperator.select(
+							"SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = ?", searchWord);
+					historyData = super.dbOperator.select(
+							"SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = ? ORDER BY date DESC",
+							searchWord);
 					break;
 			}
 
@@ -510,37 +515,19 @@ public class Doctor extends User {
 		return data;
 	}
 
+	/**
+	 * 
+	 * @param namePart the beginning of the first name, optionally followed by
+	 *                 the beginning of the last name
+	 * @return ArrayList<ArrayList<String>> of at most 10 matching patients
+	 *         {patient_id, first_name, last_name, date_of_birth}, null if nothing
+	 *         was typed
+	 */
 	public ArrayList<ArrayList<String>> searchByName(String namePart) {
-		ArrayList<ArrayList<String>> data = null;
-
-		String nameParts[] = namePart.split(" ");
-		String sql = "";
-		if (nameParts.length == 1) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + nameParts[0] + "%' " +
-					" LIMIT 10;";
-		} else if (nameParts.length == 2) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + nameParts[0] + "%' AND person.last_name LIKE '" + nameParts[1]
-					+ "%' " +
-					" LIMIT 10;";
-		} else if (nameParts.length > 2) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + nameParts[0] + "%' AND person.last_name LIKE '" + nameParts[1]
-					+ "%' " +
-					" LIMIT 10;";
+		if (namePart.trim().isEmpty()) {
+			return null;
 		}
-
-		try {
-			data = super.dbOperator.customSelection(sql);
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
-		}
-
-		return data;
+		return getPatientSuggestions(namePart, 10);
 	}
 
 	public ArrayList<ArrayList<String>> getAllNames() {
@@ -606,73 +593,62 @@ public class Doctor extends User {
 		boolean result = true;
 
 		try {
+			DatabaseOperator.inTransaction(() -> {
+				////////////////////// Generating the Bill ID //////////////////////
 
-			////////////////////// Generating the Bill ID //////////////////////
-
-			String sql3 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
-			String tmpID2;
-			try {
+				String sql3 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
+				String tmpID2;
+				try {
 
-				tmpID2 = super.dbOperator.customSelection(sql3).get(1).get(0);
+					tmpID2 = super.dbOperator.customSelection(sql3).get(1).get(0);
 
-				String sql = "UPDATE tmp_bill SET laboratory_fee = '" + labFee + "' WHERE tmp_bill_id = '" + tmpID2
-						+ "';";
-				////////////////////// Adding data to database //////////////////////
-				super.dbOperator.customInsertion(sql);
+					String sql = "UPDATE tmp_bill SET laboratory_fee = '" + labFee + "' WHERE tmp_bill_id = '" + tmpID2
+							+ "';";
+					////////////////////// Adding data to database //////////////////////
+					super.dbOperator.customInsertion(sql);
 
-			} catch (Exception e) {
+				} catch (Exception e) {
 
-				String sql2 = "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);";
-				String billID = super.dbOperator.customSelection(sql2).get(1).get(0);
+					tmpID2 = super.dbOperator.nextId(IdSequence.TMP_BILL);
 
-				char[] tmpID = billID.toCharArray();
-				int i = 3;
-				for (i = 3; i < billID.length(); i++) {
-					if (tmpID[i] != '0')
-						break;
-				}
+					////////////////////// SQL for adding the row //////////////////////
+					String columnNames = "";
+					String rowData = "";
 
-				tmpID2 = Integer.toString(Integer.parseInt(billID.substring(i, billID.length() - 2)) + 1);
-				while (tmpID2.length() < 4) {
-					tmpID2 = "0" + tmpID2;
-				}
-				tmpID2 = "hms" + tmpID2 + "tb";
+					String[] field = billInfo.split(",");
 
-				////////////////////// SQL for adding the row //////////////////////
-				String columnNames = "";
-				String rowData = "";
+					int index = 0;
+					for (String val : field) {
+						if (index > 0) {
+							columnNames += ",";
+							rowData += ",";
+						}
 
-				String[] field = billInfo.split(",");
+						columnNames += val.split(" ")[0];
+						if (index < 3) {
+							rowData = rowData + "'";
+						}
+						rowData += val.split(" ")[1];
+						if (index < 3) {
+							rowData += "'";
+						}
 
-				int index = 0;
-				for (String val : field) {
-					if (index > 0) {
-						columnNames += ",";
-						rowData += ",";
+						index++;
 					}
 
-					columnNames += val.split(" ")[0];
-					if (index < 3) {
-						rowData = rowData + "'";
-					}
-					rowData += val.split(" ")[1];
-					if (index < 3) {
-						rowData += "'";
-					}
+					columnNames += ",tmp_bill_id";
+					rowData += ",'" + tmpID2 + "'";
 
-					index++;
+					String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
+					////////////////////// Adding data to database //////////////////////
+					super.dbOperator.customInsertion(sql);
 				}
-
-				columnNames += ",tmp_bill_id";
-				rowData += ",'" + tmpID2 + "'";
-
-				String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
-				////////////////////// Adding data to database //////////////////////
-				super.dbOperator.customInsertion(sql);
-			}
+				return null;
+			});
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
+			result = false;
 		}
 
 		return result;
@@ -685,7 +661,7 @@ public class Doctor extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.LAB_TESTS, sql);
 			fee = data.get(1).get(0);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -783,7 +759,7 @@ public class Doctor extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -799,7 +775,7 @@ public class Doctor extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -827,7 +803,7 @@ public class Doctor extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -855,7 +831,7 @@ public class Doctor extends User {
 		} else {
 
 			sql = "SELECT date FROM appointment " +
-					"WHERE ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) & (slmc_reg_no = '" + doctorID + "') " +
+					"WHERE ( date > (CURRENT_DATE - INTERVAL 12 MONTH) ) AND (slmc_reg_no = '" + doctorID + "') " +
 					"ORDER BY date ASC;";
 		}
 
@@ -870,8 +846,8 @@ public class Doctor extends User {
 	}
 
 	public String getTodayAppointments() {
-		String sql = "SELECT COUNT(date) AS 'Appointments' FROM appointment WHERE ( day(date)=day(CURRENT_DATE) AND slmc_reg_no='"
-				+ this.slmcRegNo + "');";
+		String sql = "SELECT COUNT(date) AS 'Appointments' FROM appointment WHERE ( " + DateRange.today().where("date")
+				+ " AND slmc_reg_no='" + this.slmcRegNo + "');";
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
@@ -887,39 +863,18 @@ public class Doctor extends User {
 
 	}
 
+	/**
+	 * 
+	 * @param word what was typed so far
+	 * @return ArrayList<ArrayList<String>> of at most 10 matching patients
+	 *         {patient_id, first_name, last_name, date_of_birth}, null if nothing
+	 *         was typed
+	 */
 	public ArrayList<ArrayList<String>> nameSuggestor(String word) {
-		String sql = "";
-		String[] wordList = word.split(" ");
-
-		if (wordList.length == 1) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + wordList[0] + "%' " +
-					" LIMIT 10;";
-		} else if (wordList.length == 2) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + wordList[0] + "%' AND person.last_name LIKE '" + wordList[1]
-					+ "%' " +
-					" LIMIT 10;";
-		} else if (wordList.length > 2) {
-			sql = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth " +
-					"FROM person INNER JOIN patient ON person.person_id = patient.person_id  " +
-					"WHERE person.first_name LIKE '" + wordList[0] + "%' AND person.last_name LIKE '" + wordList[1]
-					+ "%' " +
-					" LIMIT 10;";
+		if (word.trim().isEmpty()) {
+			return null;
 		}
-
-		ArrayList<ArrayList<String>> data = null;
-		try {
-			if (word.length() >= 1) {
-				data = super.dbOperator.customSelection(sql);
-			}
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
-		}
-		return data;
-
+		return getPatientSuggestions(word, 10);
 	}
 
 	public ArrayList<ArrayList<String>> getTestInfo() {
@@ -931,7 +886,7 @@ public class Doctor extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.LAB_TESTS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
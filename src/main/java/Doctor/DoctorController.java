@@ -2,6 +2,8 @@ package Doctor;
 
 import LabAssistant.LabReport;
 import com.hms.hms_test_2.AllMessagesController;
+import com.hms.hms_test_2.AsyncQueries;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.CurrentUserSummaryController;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.WarningController;
@@ -10,6 +12,8 @@ import com.hms.hms_test_2.Validate;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import org.controlsfx.control.textfield.TextFields;
 import javafx.scene.control.TextField;
 import javafx.fxml.FXML;
@@ -60,6 +64,8 @@ public class DoctorController extends AnchorPane {
     public Doctor doc;
     public String username;
 
+    private final AsyncQueries queries;
+
     /**
      *
      * @param username
@@ -72,6 +78,7 @@ public class DoctorController extends AnchorPane {
         doc = new Doctor(username);
         this.username = username;
         doc.saveLogin(username);
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -232,91 +239,100 @@ public class DoctorController extends AnchorPane {
     @FXML
     private Label patientIdLabel;
 
+    // the patient found by the last search, shown page by page in the history
+    // and allergy paginations
+    private ArrayList<ArrayList<ArrayList<String>>> searchedPatient = new ArrayList<>();
+
     @FXML
     private void searchNewPatientDoc(ActionEvent event) throws IOException {
         if (searchTypePatientDoctor.getSelectionModel().getSelectedItem() != null) {
             String selectedValue = searchTypePatientDoctor.getSelectionModel().getSelectedItem().toString();
-            ArrayList<ArrayList<String>> personalData;
-            ArrayList<ArrayList<String>> medicalData;
-            ArrayList<ArrayList<String>> historyData;
 
-            ArrayList<ArrayList<ArrayList<String>>> patientData = new ArrayList<>();
             String searchValue = patientSearchValue.getText();
             if (!searchValue.equals("")) {
-                try {
+                searchTypePatientDoctor.setStyle("-fx-border-color: #999 #999 #999 #999;");
+                patientSearchValue.setStyle("-fx-border-color: #999 #999 #999 #999;");
 
-                    searchTypePatientDoctor.setStyle("-fx-border-color: #999 #999 #999 #999;");
-                    patientSearchValue.setStyle("-fx-border-color: #999 #999 #999 #999;");
-                    switch (selectedValue) {
-                        case "Patient ID":
-                            patientData = doc.getPatientInfo("id", searchValue);
-                            break;
-                        case "Name":
-                            String patientid = patientLog.get(searchValue);
-                            patientData = doc.getPatientInfo("id", patientid);
-                            patientSearchValue.setText(patientid);
-                            searchTypePatientDoctor.setValue("Patient ID");
-                            break;
-                        case "NIC":
-                            patientData = doc.getPatientInfo("nic", searchValue);
+                Callable<ArrayList<ArrayList<ArrayList<String>>>> search;
+                switch (selectedValue) {
+                    case "Patient ID":
+                        search = () -> doc.getPatientInfo("id", searchValue);
+                        break;
+                    case "Name":
+                        String patientid = patientLog.get(searchValue);
+                        search = () -> doc.getPatientInfo("id", patientid);
+                        patientSearchValue.setText(patientid);
+                        searchTypePatientDoctor.setValue("Patient ID");
+                        break;
+                    case "NIC":
+                        search = () -> doc.getPatientInfo("nic", searchValue);
+                        break;
+                    default:
+                        return;
+                }
+
+                queries.submit(search).thenAccept(patientData -> {
+                    try {
+                        if (selectedValue.equals("NIC")) {
                             patientSearchValue.setText(patientData.get(1).get(1).get(1));
                             searchTypePatientDoctor.setValue("Patient ID");
-
-                            break;
-                        default:
-                            break;
-                    }
-                    personalData = patientData.get(0);
-                    medicalData = patientData.get(1);
-                    historyData = patientData.get(2);
-
-                    if (personalData.size() > 1) {
-
-                        patientFirstName.setText(personalData.get(1).get(7));
-                        patientLastName.setText(personalData.get(1).get(8));
-
-                        try {
-                            SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                            Date birth = tmpdataformat.parse(personalData.get(1).get(4));
-                            Calendar calendarBirth = Calendar.getInstance();
-                            calendarBirth.setTime(birth);
-                            Calendar calendarToday = Calendar.getInstance();
-                            int age = calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR);
-                            patientAge.setText(Integer.toString(age));
-                        } catch (ParseException e) {
                         }
+                        showPatient(patientData);
+                    } catch (Exception e) {
+                    }
+                });
 
-                        if (personalData.get(1).get(3).equals("m"))
-                            patientGender.setText("Male");
-                        else
-                            patientGender.setText("Female");
+            } else {
+                patientSearchValue.setStyle("-fx-border-color: red;");
+            }
+        } else {
+            searchTypePatientDoctor.setStyle("-fx-border-color: red;");
+        }
 
-                        patientEmail.setText(personalData.get(1).get(9));
+    }
 
-                        // filling the medical history
-                        fillPatientHistory(historyData);
-                        fillPatientAllergies(medicalData);
+    private void showPatient(ArrayList<ArrayList<ArrayList<String>>> patientData) {
+        searchedPatient = patientData;
+        ArrayList<ArrayList<String>> personalData = patientData.get(0);
+        ArrayList<ArrayList<String>> medicalData = patientData.get(1);
+        ArrayList<ArrayList<String>> historyData = patientData.get(2);
 
-                    } else {
+        if (personalData.size() > 1) {
 
-                        patientFirstName.setText("");
-                        patientLastName.setText("");
-                        patientGender.setText("");
-                        patientAge.setText("");
-                        patientEmail.setText("");
+            patientFirstName.setText(personalData.get(1).get(7));
+            patientLastName.setText(personalData.get(1).get(8));
 
-                    }
+            try {
+                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                Date birth = tmpdataformat.parse(personalData.get(1).get(4));
+                Calendar calendarBirth = Calendar.getInstance();
+                calendarBirth.setTime(birth);
+                Calendar calendarToday = Calendar.getInstance();
+                int age = calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR);
+                patientAge.setText(Integer.toString(age));
+            } catch (ParseException e) {
+            }
 
-                } catch (Exception e) {
-                }
+            if (personalData.get(1).get(3).equals("m"))
+                patientGender.setText("Male");
+            else
+                patientGender.setText("Female");
+
+            patientEmail.setText(personalData.get(1).get(9));
+
+            // filling the medical history
+            fillPatientHistory(historyData);
+            fillPatientAllergies(medicalData);
 
-            } else {
-                patientSearchValue.setStyle("-fx-border-color: red;");
-            }
         } else {
-            searchTypePatientDoctor.setStyle("-fx-border-color: red;");
-        }
 
+            patientFirstName.setText("");
+            patientLastName.setText("");
+            patientGender.setText("");
+            patientAge.setText("");
+            patientEmail.setText("");
+
+        }
     }
 
     @FXML
@@ -344,62 +360,35 @@ public class DoctorController extends AnchorPane {
 
     @FXML
     private BorderPane patientHistory(int pageIndex) {
-        if (searchTypePatientDoctor.getSelectionModel().getSelectedItem() != null) {
-            String selectedValue = searchTypePatientDoctor.getSelectionModel().getSelectedItem().toString();
-
-            ArrayList<ArrayList<String>> historyData;
-            ArrayList<ArrayList<ArrayList<String>>> patientData = new ArrayList<>();
-            String searchValue = patientSearchValue.getText();
-            if (!searchValue.equals("")) {
-                switch (selectedValue) {
-                    case "Patient ID":
-                        patientData = doc.getPatientInfo("id", searchValue);
-                        break;
-                    case "Name":
-                        patientData = doc.getPatientInfo("name", searchValue);
-                        break;
-                    case "NIC":
-                        patientData = doc.getPatientInfo("nic", searchValue);
-                        break;
-                    default:
-                        break;
-                }
-                historyData = patientData.get(2);
+        if (searchedPatient.size() > 2) {
+            ArrayList<ArrayList<String>> historyData = searchedPatient.get(2);
 
-                if (historyData.size() > 1) {
+            if (historyData.size() > 1) {
 
-                    int fromIndex = (pageIndex * 3) + 1;
+                int fromIndex = (pageIndex * 3) + 1;
 
-                    try {
-                        hisTime1.setText(historyData.get(fromIndex).get(0));
-                        hisDetail1.setText(historyData.get(fromIndex).get(1));
-                    } catch (Exception ex) {
-                        hisTime1.setText("");
-                        hisDetail1.setText("");
-                    }
-                    try {
-                        hisTime2.setText(historyData.get(fromIndex + 1).get(0));
-                        hisDetail2.setText(historyData.get(fromIndex + 1).get(1));
-                    } catch (Exception ex) {
-                        hisTime2.setText("");
-                        hisDetail2.setText("");
-                    }
-                    try {
-                        hisTime3.setText(historyData.get(fromIndex + 2).get(0));
-                        hisDetail3.setText(historyData.get(fromIndex + 2).get(1));
-                    } catch (Exception ex) {
-                        hisTime3.setText("");
-                        hisDetail3.setText("");
-                    }
-
-                    return new BorderPane(historyPane);
-
-                } else {
+                try {
+                    hisTime1.setText(historyData.get(fromIndex).get(0));
+                    hisDetail1.setText(historyData.get(fromIndex).get(1));
+                } catch (Exception ex) {
+                    hisTime1.setText("");
+                    hisDetail1.setText("");
+                }
+                try {
+                    hisTime2.setText(historyData.get(fromIndex + 1).get(0));
+                    hisDetail2.setText(historyData.get(fromIndex + 1).get(1));
+                } catch (Exception ex) {
+                    hisTime2.setText("");
+                    hisDetail2.setText("");
+                }
+                try {
+                    hisTime3.setText(historyData.get(fromIndex + 2).get(0));
+                    hisDetail3.setText(historyData.get(fromIndex + 2).get(1));
+                } catch (Exception ex) {
+                    hisTime3.setText("");
+                    hisDetail3.setText("");
                 }
-
-            } else {
             }
-        } else {
         }
         return new BorderPane(historyPane);
     }
@@ -430,49 +419,21 @@ public class DoctorController extends AnchorPane {
 
     @FXML
     private BorderPane patientAllergies(int pageIndex) {
-        if (searchTypePatientDoctor.getSelectionModel().getSelectedItem() != null) {
-            String selectedValue = searchTypePatientDoctor.getSelectionModel().getSelectedItem().toString();
-
-            ArrayList<ArrayList<String>> medicalData;
-
-            ArrayList<ArrayList<ArrayList<String>>> patientData = new ArrayList<>();
-            String searchValue = patientSearchValue.getText();
-            if (!searchValue.equals("")) {
-                switch (selectedValue) {
-                    case "Patient ID":
-                        patientData = doc.getPatientInfo("id", searchValue);
-                        break;
-                    case "Name":
-                        patientData = doc.getPatientInfo("name", searchValue);
-                        break;
-                    case "NIC":
-                        patientData = doc.getPatientInfo("nic", searchValue);
-                        break;
-                    default:
-                        break;
+        if (searchedPatient.size() > 1) {
+            ArrayList<ArrayList<String>> medicalData = searchedPatient.get(1);
+            if (medicalData.size() > 1) {
+
+                String[] DrugReactions = medicalData.get(1).get(0).split(",");
+                int noOfSlots = DrugReactions.length;
+                ObservableList<String> items = FXCollections.observableArrayList();
+                for (int i = 0; i < noOfSlots; i++) {
+                    items.add(DrugReactions[i]);
                 }
-                medicalData = patientData.get(1);
-                if (medicalData.size() > 1) {
-
-                    String[] DrugReactions = medicalData.get(1).get(0).split(",");
-                    int noOfSlots = DrugReactions.length;
-                    ObservableList<String> items = FXCollections.observableArrayList();
-                    for (int i = 0; i < noOfSlots; i++) {
-                        items.add(DrugReactions[i]);
-                    }
 
-                    int fromIndex = pageIndex * 10;
-                    int toIndex = Math.min(fromIndex + 10, noOfSlots);
-                    allergyView.setItems(FXCollections.observableArrayList(items.subList(fromIndex, toIndex)));
-
-                    return new BorderPane(allergyView);
-
-                } else {
-                }
-
-            } else {
+                int fromIndex = pageIndex * 10;
+                int toIndex = Math.min(fromIndex + 10, noOfSlots);
+                allergyView.setItems(FXCollections.observableArrayList(items.subList(fromIndex, toIndex)));
             }
-        } else {
         }
         return new BorderPane(allergyView);
     }
@@ -695,35 +656,43 @@ public class DoctorController extends AnchorPane {
         TextFields.bindAutoCompletion(txtAuto1, possibleSuggestions);
     }
 
-    HashMap<String, String> patientLog = new HashMap<String, String>();
+    // filled from the suggestion thread, read when a suggestion is picked
+    ConcurrentHashMap<String, String> patientLog = new ConcurrentHashMap<String, String>();
 
     public void loadNameList() {
-        ObservableList<String> possibleSuggestions = FXCollections.observableArrayList();
+        // suggestions come from the shared patient name index as the user types,
+        // instead of binding every patient to the field up front
+        TextFields.bindAutoCompletion(patientSearchValue, request -> {
+            ArrayList<String> possibleSuggestions = new ArrayList<String>();
+
+            ArrayList<ArrayList<String>> data = doc.getPatientSuggestions(request.getUserText(), 10);
+            if (data == null) {
+                return possibleSuggestions;
+            }
+            int size = data.size();
+            for (int i = 1; i < size; i++) {
+                String firstName = data.get(i).get(1);
+                String lastName = data.get(i).get(2);
+                String age = "";
+                String id = data.get(i).get(0);
 
-        ArrayList<ArrayList<String>> data = doc.getAllNames();
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            String firstName = data.get(i).get(1);
-            String lastName = data.get(i).get(2);
-            String age = "";
-            String id = data.get(i).get(0);
+                try {
+                    SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                    Date birth = tmpdataformat.parse(data.get(i).get(3));
+                    Calendar calendarBirth = Calendar.getInstance();
+                    calendarBirth.setTime(birth);
+                    Calendar calendarToday = Calendar.getInstance();
+                    age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
 
-            try {
-                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                Date birth = tmpdataformat.parse(data.get(i).get(3));
-                Calendar calendarBirth = Calendar.getInstance();
-                calendarBirth.setTime(birth);
-                Calendar calendarToday = Calendar.getInstance();
-                age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            } catch (Exception e) {
-                e.printStackTrace();
+                possibleSuggestions.add(age + " " + firstName + " " + lastName);
+                patientLog.put(age + " " + firstName + " " + lastName, id);
             }
-
-            possibleSuggestions.add(age + " " + firstName + " " + lastName);
-            patientLog.put(age + " " + firstName + " " + lastName, id);
-        }
-        TextFields.bindAutoCompletion(patientSearchValue, possibleSuggestions);
+            return possibleSuggestions;
+        });
     }
 
     @FXML
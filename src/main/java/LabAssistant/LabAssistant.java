@@ -1,7 +1,11 @@
 package LabAssistant;
 
+import com.hms.hms_test_2.DateRange;
+import com.hms.hms_test_2.LabWorkload;
+import com.hms.hms_test_2.ReferenceCache;
 import com.hms.hms_test_2.User;
 import java.sql.SQLException;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
 
@@ -149,7 +153,7 @@ public class LabAssistant extends User {
 
                 ArrayList<ArrayList<String>> data = null;
                 try {
-                        data = super.dbOperator.customSelection("SELECT test_name FROM lab_test;");
+                        data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.LAB_TESTS, "SELECT test_name FROM lab_test;");
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -240,10 +244,10 @@ public class LabAssistant extends User {
 
                 try {
 
+                        YearMonth thisMonth = YearMonth.now();
                         for (int i = 1; i < 6; i++) {
-                                int tmp = i * 30;
-                                sql1 = "SELECT COUNT(' date ') AS count FROM lab_appointment WHERE month(date) = month( CURRENT_DATE - INTERVAL "
-                                                + tmp + " DAY );";
+                                sql1 = "SELECT COUNT(' date ') AS count FROM lab_appointment WHERE "
+                                                + DateRange.month(thisMonth.minusMonths(i)).where("date") + ";";
 
                                 data = super.dbOperator.customSelection(sql1);
                                 data2.add(data.get(1).get(0));
@@ -256,41 +260,23 @@ public class LabAssistant extends User {
                 return data2;
         }
 
+        /**
+         * Number of results of each lab test in the months before today.
+         * 
+         * @param month number of months
+         * @return {test table names, counts}, see LabWorkload; null if the counts
+         *         could not be read
+         */
         public ArrayList<ArrayList<String>> lastMonthsReports(int month) {
                 ArrayList<ArrayList<String>> data = null;
-                ArrayList<String> data2 = new ArrayList<String>();
-                ArrayList<ArrayList<String>> data3 = new ArrayList<ArrayList<String>>();
-
-                String sql1 = "";
-
-                ArrayList<String> tests = new ArrayList<String>();
-                tests.add("BloodGroupingRh");
-                tests.add("LipidTest");
-                tests.add("LiverFunctionTest");
-                tests.add("RenalFunctionTest");
-                tests.add("SeriumCreatinePhosphokinase");
-                tests.add("SeriumCreatinePhosphokinaseTotal");
-                tests.add("UrineFullReport");
-                tests.add("completeBloodCount");
-
-                month = month * 30;
 
                 try {
-
-                        for (int i = 0; i < 8; i++) {
-                                sql1 = "SELECT COUNT(date) AS count FROM " + tests.get(i)
-                                                + " WHERE (date < curDate() AND date > ( CURRENT_DATE - INTERVAL 40 DAY) );";
-                                data = super.dbOperator.customSelection(sql1);
-                                data2.add(data.get(1).get(0));
-                        }
-
+                        data = LabWorkload.report(super.dbOperator, LabWorkload.lastMonths(month));
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
 
-                data3.add(tests);
-                data3.add(data2);
-                return data3;
+                return data;
         }
 
         public ArrayList<ArrayList<String>> getAppointments() {
@@ -298,7 +284,10 @@ public class LabAssistant extends User {
 
                 try {
 
-                        String sql1 = "SELECT date,patient_id,cancelled FROM lab_appointment WHERE (month(curDate()) >= month(date)) AND (year(curDate()) = year(date));";
+                        // this year up to the end of this month
+                        YearMonth thisMonth = YearMonth.now();
+                        String sql1 = "SELECT date,patient_id,cancelled FROM lab_appointment WHERE "
+                                        + DateRange.months(thisMonth.withMonth(1), thisMonth).where("date") + ";";
                         data = super.dbOperator.customSelection(sql1);
 
                 } catch (ClassNotFoundException | SQLException e) {
@@ -313,7 +302,8 @@ public class LabAssistant extends User {
                 String result = "";
                 try {
 
-                        String sql1 = "SELECT COUNT(' date ') AS count FROM lab_appointment WHERE (day(curDate()) = day(date)) AND (month(curDate()) = month(date)) AND (year(curDate()) = year(date))";
+                        String sql1 = "SELECT COUNT(' date ') AS count FROM lab_appointment WHERE "
+                                        + DateRange.today().where("date");
                         data = super.dbOperator.customSelection(sql1);
                         result = data.get(1).get(0);
 
@@ -348,50 +338,10 @@ public class LabAssistant extends User {
                         String protein, String glucose, String ketoneBodies, String bilirubin, String urobilirubin,
                         String contrifugedDepositsphaseContrastMicroscopy, String pusCells, String redCells,
                         String epithelialCells, String casts, String cristals) {
-
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_ur_id FROM UrineFullReport WHERE tst_ur_id = (SELECT MAX(tst_ur_id) FROM UrineFullReport);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 2; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "ur" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "ur0001";
-                }
-
-                String sql2 = "INSERT INTO UrineFullReport(tst_ur_id, appointment_id, appearance,sgRefractometer,ph,protein,glucose,ketoneBodies,bilirubin,urobilirubin,contrifugedDepositsphaseContrastMicroscopy,pusCells,redCells,epithelialCells,casts,cristals,date) "
-                                +
-                                "VALUES('" + id + "','" + appointment_id + "','" + appearance + "','" + sgRefractometer
-                                + "','" + ph + "','" + protein + "','" + glucose + "','" + ketoneBodies + "','"
-                                + bilirubin + "','" + urobilirubin + "','" + contrifugedDepositsphaseContrastMicroscopy
-                                + "','" + pusCells + "','" + redCells + "','" + epithelialCells + "','" + casts + "','"
-                                + cristals + "',NOW())";
-
-                try {
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.URINE_FULL_REPORT, appointment_id, appearance, sgRefractometer,
+                                ph, protein, glucose, ketoneBodies, bilirubin, urobilirubin,
+                                contrifugedDepositsphaseContrastMicroscopy, pusCells, redCells, epithelialCells,
+                                casts, cristals);
         }
 
         /**
@@ -406,49 +356,8 @@ public class LabAssistant extends User {
          */
         public String LipidTest(String appointment_id, String cholestrolHDL, String cholestrolLDL, String triglycerides,
                         String totalCholestrolLDLHDLratio) {
-
-                boolean t = true;
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_li_id FROM LipidTest WHERE tst_li_id = (SELECT MAX(tst_li_id) FROM LipidTest);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 2; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "li" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "li0001";
-                }
-
-                String sql2 = "INSERT INTO LipidTest(tst_li_id , appointment_id, cholestrolHDL,cholestrolLDL,triglycerides,totalCholestrolLDLHDLratio,date) "
-                                +
-                                "VALUE('" + id + "','" + appointment_id + "','" + cholestrolHDL + "','" + cholestrolLDL
-                                + "','" + triglycerides + "','" + totalCholestrolLDLHDLratio + "',NOW())";
-
-                try {
-                        System.out.println(t);
-                        t = super.dbOperator.customInsertion(sql2);
-                        System.out.println(t);
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.LIPID_TEST, appointment_id, cholestrolHDL, cholestrolLDL,
+                                triglycerides, totalCholestrolLDLHDLratio);
         }
 
         /**
@@ -460,45 +369,7 @@ public class LabAssistant extends User {
          * @return boolean
          */
         public String BloodGroupingTest(String app_id, String bloodG, String rhD) {
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_bloodG_id FROM BloodGroupingRh WHERE tst_bloodG_id = (SELECT MAX(tst_bloodG_id) FROM BloodGroupingRh);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 2; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "bg" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "bg0001";
-                }
-
-                String sql2 = "INSERT INTO BloodGroupingRh(tst_bloodG_id, appointment_id, BloodGroup, rhesusD,date) " +
-                                "VALUE('" + id + "','" + app_id + "','" + bloodG + "','" + rhD + "',NOW())";
-
-                try {
-
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.BLOOD_GROUPING_RH, app_id, bloodG, rhD);
         }
 
         /**
@@ -528,52 +399,10 @@ public class LabAssistant extends User {
                         String haemoglobin, String redBloodCells, String meanCellVolume, String haematocrit,
                         String meanCellHaemoglobin,
                         String mchConcentration, String redCellsDistributionWidth, String plateletCount) {
-
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_CBC_id FROM completeBloodCount WHERE tst_CBC_id = (SELECT MAX(tst_CBC_id) FROM completeBloodCount);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 3; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "cbc" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "cbc0001";
-                }
-
-                String sql2 = "INSERT INTO completeBloodCount(tst_CBC_id , appointment_id, totalWhiteCellCount,differentialCount,neutrophils,lymphocytes,monocytes,eosonophils,basophils,haemoglobin,redBloodCells,meanCellVolume,haematocrit,meanCellHaemoglobin, mchConcentration,redCellsDistributionWidth,plateletCount,date) "
-                                +
-                                "VALUE('" + id + "','" + appointment_id + "','" + totalWhiteCellCount + "','"
-                                + differentialCount + "','" + neutrophils + "','" + lymphocytes + "','" + monocytes
-                                + "','" + eosonophils + "','" + basophils + "','" + haemoglobin + "','" + redBloodCells
-                                + "','" + meanCellVolume + "','" + haematocrit + "','" + meanCellHaemoglobin + "','"
-                                + mchConcentration + "','" + redCellsDistributionWidth + "','" + plateletCount
-                                + "',NOW())";
-
-                try {
-
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.COMPLETE_BLOOD_COUNT, appointment_id, totalWhiteCellCount,
+                                differentialCount, neutrophils, lymphocytes, monocytes, eosonophils, basophils,
+                                haemoglobin, redBloodCells, meanCellVolume, haematocrit, meanCellHaemoglobin,
+                                mchConcentration, redCellsDistributionWidth, plateletCount);
         }
 
         /**
@@ -591,49 +420,8 @@ public class LabAssistant extends User {
          */
         public String RenalFunctionTest(String appointment_id, String creatinine, String urea, String totalBilirubin,
                         String directBilirubin, String sgotast, String sgptalt, String alkalinePhospates) {
-
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_renal_id FROM RenalFunctionTest WHERE tst_renal_id = (SELECT MAX(tst_renal_id) FROM RenalFunctionTest);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 2; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "re" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "re0001";
-                }
-
-                String sql2 = "INSERT INTO RenalFunctionTest(tst_renal_id, appointment_id, creatinine,urea,totalBilirubin,directBilirubin,sgotast,sgptalt,alkalinePhospates,date) "
-                                +
-                                "VALUE('" + id + "','" + appointment_id + "','" + creatinine + "','" + urea + "','"
-                                + totalBilirubin + "','" + directBilirubin + "','" + sgotast + "','" + sgptalt + "','"
-                                + alkalinePhospates + "',NOW())";
-
-                try {
-
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.RENAL_FUNCTION_TEST, appointment_id, creatinine, urea,
+                                totalBilirubin, directBilirubin, sgotast, sgptalt, alkalinePhospates);
         }
 
         /**
@@ -644,47 +432,7 @@ public class LabAssistant extends User {
          * @return boolean
          */
         public String SeriumCreatinePhosphokinaseTotal(String appointment_id, String cpkTotal) {
-
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_SCPT_id FROM SeriumCreatinePhosphokinaseTotal WHERE tst_SCPT_id = (SELECT MAX(tst_SCPT_id) FROM SeriumCreatinePhosphokinaseTotal);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 4; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "scpt" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "scpt0001";
-                }
-
-                String sql2 = "INSERT INTO SeriumCreatinePhosphokinaseTotal(tst_SCPT_id, appointment_id, cpkTotal,date) "
-                                +
-                                "VALUE('" + id + "','" + appointment_id + "','" + cpkTotal + "',NOW())";
-
-                try {
-
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.SCP_TOTAL, appointment_id, cpkTotal);
         }
 
         /**
@@ -695,46 +443,7 @@ public class LabAssistant extends User {
          * @return
          */
         public String SeriumCreatinePhosphokinase(String appointment_id, String hiv12ELISA) {
-
-                String id = "";
-
-                try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_SCP_id FROM SeriumCreatinePhosphokinase WHERE tst_SCP_id = (SELECT MAX(tst_SCP_id) FROM SeriumCreatinePhosphokinase);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 3; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "scp" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "scp0001";
-                }
-
-                String sql2 = "INSERT INTO SeriumCreatinePhosphokinase(tst_SCP_id, appointment_id, hiv12ELISA,date) " +
-                                "VALUE('" + id + "','" + appointment_id + "','" + hiv12ELISA + "',NOW())";
-
-                try {
-
-                        super.dbOperator.customInsertion(sql2);
-
-                } catch (ClassNotFoundException | SQLException e) {
-                        e.printStackTrace();
-                }
-
-                return id;
+                return writeResult(LabResultBatch.Test.SCP, appointment_id, hiv12ELISA);
         }
 
         /**
@@ -754,44 +463,29 @@ public class LabAssistant extends User {
         public String liverFunctionTest(String appointment_id, String totalProtein, String albumin, String globulin,
                         String totalBilirubin,
                         String directBilirubin, String sgotast, String sgptalt, String alkalinePhospates) {
+                return writeResult(LabResultBatch.Test.LIVER_FUNCTION_TEST, appointment_id, totalProtein, albumin,
+                                globulin, totalBilirubin, directBilirubin, sgotast, sgptalt, alkalinePhospates);
+        }
 
+        /**
+         * Stores a single lab result.
+         * 
+         * @return the ID of the result, or an empty string if no ID could be
+         *         generated
+         */
+        private String writeResult(LabResultBatch.Test test, String appointmentId, String... values) {
+                LabResultBatch batch = new LabResultBatch(super.dbOperator);
                 String id = "";
 
                 try {
-
-                        ///////////////// Generating the Result ID /////////////////
-                        String sql2 = "SELECT tst_liver_id FROM LiverFunctionTest WHERE tst_liver_id = (SELECT MAX(tst_liver_id) FROM LiverFunctionTest);";
-                        String repID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = repID.toCharArray();
-                        int i = 0;
-                        for (i = 2; i < repID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer.toString(Integer.parseInt(repID.substring(i, repID.length())) + 1);
-                        while (tmpID2.length() < 4) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        tmpID2 = "lv" + tmpID2;
-                        id = tmpID2;
-
-                } catch (Exception e) {
-
-                        id = "lv0001";
+                        id = batch.add(test, appointmentId, values);
+                } catch (SQLException e) {
+                        e.printStackTrace();
+                        return id;
                 }
 
-                String sql2 = "INSERT INTO LiverFunctionTest(tst_liver_id, appointment_id, totalProtein,albumin,globulin,totalBilirubin,directBilirubin,sgotast,sgptalt,alkalinePhospates,date) "
-                                +
-                                "VALUE('" + id + "','" + appointment_id + "','" + totalProtein + "','" + albumin + "','"
-                                + globulin + "','" + totalBilirubin + "','" + directBilirubin + "','" + sgotast + "','"
-                                + sgptalt + "','" + alkalinePhospates + "',NOW())";
-
                 try {
-
-                        super.dbOperator.customInsertion(sql2);
-
+                        batch.write();
                 } catch (ClassNotFoundException | SQLException e) {
                         e.printStackTrace();
                 }
@@ -1,8 +1,11 @@
 package LabAssistant;
 
 import com.hms.hms_test_2.AllMessagesController;
+import com.hms.hms_test_2.AsyncQueries;
 import com.hms.hms_test_2.CurrentUserSummaryController;
+import com.hms.hms_test_2.DashboardWarmUp;
 import com.hms.hms_test_2.ErrorController;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import java.io.File;
@@ -22,6 +25,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Callable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -65,6 +69,8 @@ public class LabAssistantController extends AnchorPane {
     public String username;
     FXMLLoader fxmlLoader;
 
+    private final AsyncQueries queries;
+
     public LabAssistantController(String username) {
         fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/LabAssistant.fxml"));
         fxmlLoader.setRoot(this);
@@ -73,6 +79,7 @@ public class LabAssistantController extends AnchorPane {
         lab = new LabAssistant(username);
         this.username = username;
         lab.saveLogin(username);
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -84,10 +91,39 @@ public class LabAssistantController extends AnchorPane {
     @FXML
     private PieChart piechart;
 
+    /**
+     * Loads the panels of the dashboard side by side, each shown as soon as its
+     * data arrives. Until then the charts and the number of appointments today
+     * show that they are loading.
+     */
+    public DashboardWarmUp warmUp() {
+        String reportsTitle = piechart.getTitle();
+        String appointmentsTitle = labAppointments.getTitle();
+        piechart.setTitle("Loading...");
+        labAppointments.setTitle("Loading...");
+        todayAppointments.setText("...");
+
+        DashboardWarmUp warmUp = new DashboardWarmUp("lab assistant", queries);
+        warmUp.panel("profile", lab::getProfileInfo, this::showProfileData);
+        warmUp.panel("report chart", () -> lab.lastMonthsReports(12), this::fillPieChart)
+                .whenComplete((done, error) -> piechart.setTitle(reportsTitle));
+        warmUp.panel("appointments", lab::getAppointments, this::showAppointments);
+        warmUp.panel("appointment chart", lab::lastMonthsAppointments, this::fillLabAppiontments)
+                .whenComplete((done, error) -> labAppointments.setTitle(appointmentsTitle));
+        warmUp.panel("today", lab::getTodayAppointments, todayAppointments::setText);
+        warmUp.whenFilled();
+        return warmUp;
+    }
+
     @FXML
     public void fillPieChart() {
+        fillPieChart(lab.lastMonthsReports(12));
+    }
 
-        ArrayList<ArrayList<String>> data = lab.lastMonthsReports(12);
+    private void fillPieChart(ArrayList<ArrayList<String>> data) {
+        if (data == null) {
+            return;
+        }
 
         String[] test = {
                 "Blood Grouping & Rh", "Lipid Profile Test", "LFT", "RFT",
@@ -235,84 +271,84 @@ public class LabAssistantController extends AnchorPane {
         if ("Appointment ID".equals(serachType.getValue().toString())) {
             String appID = appointmentIDtext.getText();
 
-            ArrayList<ArrayList<String>> data = lab.getPatientDetails(appID);
-
-            String test = "";
-            try {
-                test = data.get(1).get(4);
-            } catch (Exception e) {
-                test = "false";
-            }
+            queries.load(() -> lab.getPatientDetails(appID), data -> {
+                String test = "";
+                try {
+                    test = data.get(1).get(4);
+                } catch (Exception e) {
+                    test = "false";
+                }
 
-            switch (test) {
-                case "t001":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(0);
-                    pt.setDisable(false);
-                    break;
-                case "t002":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(1);
-                    lpt.setDisable(false);
-                    break;
-                case "t003":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(2);
-                    bg.setDisable(false);
-                    break;
-                case "t004":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(3);
-                    cbc.setDisable(false);
-                    break;
-                case "t005":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(4);
-                    lft.setDisable(false);
-                    break;
-                case "t006":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(5);
-                    rft.setDisable(false);
-                    break;
-                case "t007":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(6);
-                    cpk.setDisable(false);
-                    break;
-                case "t008":
-                    setTabsDisabled();
-                    reportTabs.getSelectionModel().select(7);
-                    hiv.setDisable(false);
-                    break;
-                default:
-                    showErrorPopup("No Appointment", appointmentIDtext);
-                    break;
-            }
+                switch (test) {
+                    case "t001":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(0);
+                        pt.setDisable(false);
+                        break;
+                    case "t002":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(1);
+                        lpt.setDisable(false);
+                        break;
+                    case "t003":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(2);
+                        bg.setDisable(false);
+                        break;
+                    case "t004":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(3);
+                        cbc.setDisable(false);
+                        break;
+                    case "t005":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(4);
+                        lft.setDisable(false);
+                        break;
+                    case "t006":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(5);
+                        rft.setDisable(false);
+                        break;
+                    case "t007":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(6);
+                        cpk.setDisable(false);
+                        break;
+                    case "t008":
+                        setTabsDisabled();
+                        reportTabs.getSelectionModel().select(7);
+                        hiv.setDisable(false);
+                        break;
+                    default:
+                        showErrorPopup("No Appointment", appointmentIDtext);
+                        break;
+                }
 
-            patientNametext.setText(data.get(1).get(0) + " " + data.get(1).get(1));
-
-            try {
-                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                Date birth = tmpdataformat.parse(data.get(1).get(3));
-                Calendar calendarBirth = Calendar.getInstance();
-                calendarBirth.setTime(birth);
-                Calendar calendarToday = Calendar.getInstance();
-                String tmpage = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
-                patientAgetext.setText(tmpage);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+                patientNametext.setText(data.get(1).get(0) + " " + data.get(1).get(1));
+
+                try {
+                    SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                    Date birth = tmpdataformat.parse(data.get(1).get(3));
+                    Calendar calendarBirth = Calendar.getInstance();
+                    calendarBirth.setTime(birth);
+                    Calendar calendarToday = Calendar.getInstance();
+                    String tmpage = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+                    patientAgetext.setText(tmpage);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            String tmpGen = data.get(1).get(2);
-            if (tmpGen.equals("m")) {
-                patientGendertext.setText("Male");
-            } else {
-                patientGendertext.setText("Female");
-            }
+                String tmpGen = data.get(1).get(2);
+                if (tmpGen.equals("m")) {
+                    patientGendertext.setText("Male");
+                } else {
+                    patientGendertext.setText("Female");
+                }
 
-            Date date = new Date();
-            precrptionDate.setText(date.toString());
+                Date date = new Date();
+                precrptionDate.setText(date.toString());
+            });
 
         } else {
 
@@ -323,68 +359,53 @@ public class LabAssistantController extends AnchorPane {
 
             String reportID = appointmentIDtext.getText();
             String type = "";
-            ArrayList<ArrayList<String>> data = null;
+            Callable<ArrayList<ArrayList<String>>> report = null;
 
             if (reportID.substring(0, 2).equals("ur")) {
 
-                data = lab.getUrineFullReport(reportID);
+                report = () -> lab.getUrineFullReport(reportID);
                 type = "ur";
 
             } else if (reportID.substring(0, 2).equals("li")) {
 
-                data = lab.getLipidTestReport(reportID);
+                report = () -> lab.getLipidTestReport(reportID);
                 type = "li";
 
             } else if (reportID.substring(0, 2).equals("bg")) {
 
-                data = lab.getBloodGroupingRh(reportID);
+                report = () -> lab.getBloodGroupingRh(reportID);
                 type = "bg";
 
             } else if (reportID.substring(0, 3).equals("cbc")) {
 
-                data = lab.getCompleteBloodCount(reportID);
+                report = () -> lab.getCompleteBloodCount(reportID);
                 type = "cbc";
 
             } else if (reportID.substring(0, 2).equals("lv")) {
 
-                data = lab.getLiverFunctionTest(reportID);
+                report = () -> lab.getLiverFunctionTest(reportID);
                 type = "lv";
 
             } else if (reportID.substring(0, 2).equals("re")) {
 
-                data = lab.getRenalFunctionTest(reportID);
+                report = () -> lab.getRenalFunctionTest(reportID);
                 type = "re";
 
             } else if (reportID.substring(0, 4).equals("scpt")) {
 
-                data = lab.getSeriumCreatinePhosphokinaseTotal(reportID);
+                report = () -> lab.getSeriumCreatinePhosphokinaseTotal(reportID);
                 type = "scpt";
 
             } else if (reportID.substring(0, 3).equals("scp")) {
 
-                data = lab.getSeriumCreatinePhosphokinase(reportID);
+                report = () -> lab.getSeriumCreatinePhosphokinase(reportID);
                 type = "scp";
 
             }
 
-            if (data != null && data.size() > 1) {
-                LabReportPreviewController preview = new LabReportPreviewController(lab);
-                preview.setData(data, type);
-
-                Stage stage = new Stage();
-                Scene scene = new Scene(preview);
-                stage.setScene(scene);
-
-                Rectangle2D primaryScreenBounds = Screen.getPrimary().getVisualBounds();
-                // set Stage boundaries to visible bounds of the main screen
-                stage.setX(primaryScreenBounds.getMinX());
-                stage.setY(primaryScreenBounds.getMinY());
-                stage.setWidth(primaryScreenBounds.getWidth());
-                stage.setHeight(primaryScreenBounds.getHeight());
-                stage.initStyle(StageStyle.UNDECORATED);
-                scene.setFill(null);
-                stage.initStyle(StageStyle.TRANSPARENT);
-                stage.show();
+            if (report != null) {
+                String reportType = type;
+                queries.load(report, data -> showReport(data, reportType));
             } else {
 
                 showErrorPopup("No Report", appointmentIDtext);
@@ -392,6 +413,31 @@ public class LabAssistantController extends AnchorPane {
         }
     }
 
+    private void showReport(ArrayList<ArrayList<String>> data, String type) {
+        if (data != null && data.size() > 1) {
+            LabReportPreviewController preview = new LabReportPreviewController(lab);
+            preview.setData(data, type);
+
+            Stage stage = new Stage();
+            Scene scene = new Scene(preview);
+            stage.setScene(scene);
+
+            Rectangle2D primaryScreenBounds = Screen.getPrimary().getVisualBounds();
+            // set Stage boundaries to visible bounds of the main screen
+            stage.setX(primaryScreenBounds.getMinX());
+            stage.setY(primaryScreenBounds.getMinY());
+            stage.setWidth(primaryScreenBounds.getWidth());
+            stage.setHeight(primaryScreenBounds.getHeight());
+            stage.initStyle(StageStyle.UNDECORATED);
+            scene.setFill(null);
+            stage.initStyle(StageStyle.TRANSPARENT);
+            stage.show();
+        } else {
+
+            showErrorPopup("No Report", appointmentIDtext);
+        }
+    }
+
     @FXML
     private void serachTypeChanged() {
         clear();
@@ -432,6 +478,10 @@ public class LabAssistantController extends AnchorPane {
     private AreaChart<String, Number> labAppointments;
 
     public void fillLabAppiontments() {
+        fillLabAppiontments(lab.lastMonthsAppointments());
+    }
+
+    private void fillLabAppiontments(ArrayList<String> data) {
 
         HashMap<Integer, String> months = new HashMap<Integer, String>();
         months.put(1, "January");
@@ -447,7 +497,6 @@ public class LabAssistantController extends AnchorPane {
         months.put(11, "November");
         months.put(12, "December");
 
-        ArrayList<String> data = lab.lastMonthsAppointments();
         int months2 = data.size();
 
         Calendar cal = Calendar.getInstance();
@@ -479,10 +528,13 @@ public class LabAssistantController extends AnchorPane {
     Agenda labAppointmentTable;
 
     public void setAppointments() {
+        showAppointments(lab.getAppointments());
+    }
+
+    private void showAppointments(ArrayList<ArrayList<String>> tableData0) {
 
         labAppointmentTable.setDisable(false);
 
-        ArrayList<ArrayList<String>> tableData0 = lab.getAppointments();
         int noOfApp = (tableData0.size());
 
         final List<Agenda.AppointmentImplLocal> Appointments = FXCollections.observableArrayList();
@@ -1194,8 +1246,10 @@ public class LabAssistantController extends AnchorPane {
 
     @FXML
     public void loadProfileData() {
+        showProfileData(lab.getProfileInfo());
+    }
 
-        HashMap<String, String> docPersonalInfo = lab.getProfileInfo();
+    private void showProfileData(HashMap<String, String> docPersonalInfo) {
 
         labName.setText(docPersonalInfo.get("first_name") + " " + docPersonalInfo.get("last_name"));
         labNIC.setText(docPersonalInfo.get("nic"));
@@ -0,0 +1,148 @@
+package LabAssistant;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.LabWorkload;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects lab test results of any type and writes them together, e.g. when a
+ * day of analyser output is entered at once.
+ *
+ * Every result gets its ID when it is added. {@link #write()} then inserts the
+ * results of each test table with one JDBC batch in a transaction of its own,
+ * so a table is either written completely or not at all.
+ */
+public class LabResultBatch {
+
+        /**
+         * The result tables and their value columns, in the order the values are
+         * passed to {@link LabResultBatch#add}.
+         */
+        public enum Test {
+                URINE_FULL_REPORT(IdSequence.URINE_FULL_REPORT, "appearance", "sgRefractometer", "ph", "protein",
+                                "glucose", "ketoneBodies", "bilirubin", "urobilirubin",
+                                "contrifugedDepositsphaseContrastMicroscopy", "pusCells", "redCells", "epithelialCells",
+                                "casts", "cristals"),
+                LIPID_TEST(IdSequence.LIPID_TEST, "cholestrolHDL", "cholestrolLDL", "triglycerides",
+                                "totalCholestrolLDLHDLratio"),
+                BLOOD_GROUPING_RH(IdSequence.BLOOD_GROUPING_RH, "bloodGroup", "rhesusD"),
+                COMPLETE_BLOOD_COUNT(IdSequence.COMPLETE_BLOOD_COUNT, "totalWhiteCellCount", "differentialCount",
+                                "neutrophils", "lymphocytes", "monocytes", "eosonophils", "basophils", "haemoglobin",
+                                "redBloodCells", "meanCellVolume", "haematocrit", "meanCellHaemoglobin",
+                                "mchConcentration", "redCellsDistributionWidth", "plateletCount"),
+                RENAL_FUNCTION_TEST(IdSequence.RENAL_FUNCTION_TEST, "creatinine", "urea", "totalBilirubin",
+                                "directBilirubin", "sgotast", "sgptalt", "alkalinePhospates"),
+                SCP_TOTAL(IdSequence.SCP_TOTAL, "cpkTotal"),
+                SCP(IdSequence.SCP, "hiv12ELISA"),
+                LIVER_FUNCTION_TEST(IdSequence.LIVER_FUNCTION_TEST, "totalProtein", "albumin", "globulin",
+                                "totalBilirubin", "directBilirubin", "sgotast", "sgptalt", "alkalinePhospates");
+
+                private final IdSequence sequence;
+                private final String[] columns;
+                private final String insertSql;
+
+                Test(IdSequence sequence, String... columns) {
+                        this.sequence = sequence;
+                        this.columns = columns;
+
+                        String names = sequence.getColumn() + ", appointment_id";
+                        String values = "?, ?";
+                        for (String column : columns) {
+                                names += ", " + column;
+                                values += ", ?";
+                        }
+                        this.insertSql = "INSERT INTO " + sequence.getTable() + " (" + names + ", date) VALUES ("
+                                        + values + ", NOW())";
+                }
+
+                public IdSequence getSequence() {
+                        return sequence;
+                }
+
+                /**
+                 * @return the value columns, without the ID, appointment and date
+                 */
+                public List<String> getColumns() {
+                        return Arrays.asList(columns);
+                }
+
+                String getInsertSql() {
+                        return insertSql;
+                }
+        }
+
+        private final DatabaseOperator dbOperator;
+        private final EnumMap<Test, List<List<String>>> pending = new EnumMap<Test, List<List<String>>>(Test.class);
+        private int size;
+
+        public LabResultBatch(DatabaseOperator dbOperator) {
+                this.dbOperator = dbOperator;
+        }
+
+        /**
+         * Adds a result to the batch. Nothing is written before {@link #write()}.
+         *
+         * @param test          the kind of test
+         * @param appointmentId the lab appointment the result belongs to
+         * @param values        one value per column of the test, see
+         *                      {@link Test#getColumns()}
+         * @return the ID the result will be stored with
+         */
+        public String add(Test test, String appointmentId, String... values) throws SQLException {
+                if (values.length != test.columns.length) {
+                        throw new IllegalArgumentException(test + " needs " + test.columns.length + " values, got "
+                                        + values.length);
+                }
+
+                String id = dbOperator.nextId(test.sequence);
+                List<String> row = new ArrayList<String>(values.length + 2);
+                row.add(id);
+                row.add(appointmentId);
+                row.addAll(Arrays.asList(values));
+
+                List<List<String>> rows = pending.get(test);
+                if (rows == null) {
+                        rows = new ArrayList<List<String>>();
+                        pending.put(test, rows);
+                }
+                rows.add(row);
+                size++;
+                return id;
+        }
+
+        /**
+         * @return number of results not written yet
+         */
+        public int size() {
+                return size;
+        }
+
+        /**
+         * Writes the collected results, one transaction per test table. If a table
+         * fails the exception is thrown and its results stay in the batch together
+         * with those of the tables not written yet, so write can be called again;
+         * tables written before are kept.
+         *
+         * @return number of results written
+         */
+        public int write() throws ClassNotFoundException, SQLException {
+                int written = 0;
+                Iterator<Map.Entry<Test, List<List<String>>>> tables = pending.entrySet().iterator();
+                while (tables.hasNext()) {
+                        Map.Entry<Test, List<List<String>>> table = tables.next();
+                        dbOperator.batchUpdate(table.getKey().getInsertSql(), table.getValue());
+                        LabWorkload.getInstance().invalidate();
+                        written += table.getValue().size();
+                        size -= table.getValue().size();
+                        tables.remove();
+                }
+                return written;
+        }
+}
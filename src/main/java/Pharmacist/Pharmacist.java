@@ -1,6 +1,8 @@
 package Pharmacist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.ReferenceCache;
 import com.hms.hms_test_2.User;
 import java.util.*;
 import java.sql.*;
@@ -154,14 +156,14 @@ public class Pharmacist extends User {
 				"pharmacy_stock.stock_id, pharmacy_stock.manufac_name, pharmacy_stock.manufac_date, pharmacy_stock.exp_date, pharmacy_stock.supplier_id "
 				+
 				"FROM drug INNER JOIN pharmacy_stock ON drug.drug_id = pharmacy_stock.drug_id " +
-				"WHERE drug.drug_id = '" + drugID + "';";
+				"WHERE drug.drug_id = ?;";
 
 		ArrayList<ArrayList<String>> data = null;
 		ArrayList<ArrayList<String>> remainingQuantity = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
-			remainingQuantity = super.dbOperator.showTableData("pharmacy_stock", "remaining_quantity",
-					"drug_id = '" + drugID + "'");
+			data = super.dbOperator.select(sql, drugID);
+			remainingQuantity = super.dbOperator.select(
+					"SELECT remaining_quantity FROM pharmacy_stock WHERE drug_id = ?;", drugID);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -170,7 +172,7 @@ public class Pharmacist extends User {
 		if (remainingQuantity != null && data != null) {
 			int noOfStocks = remainingQuantity.size();
 			int total = 0;
-			for (int i = 0; i < noOfStocks; i++) {
+			for (int i = 1; i < noOfStocks; i++) {
 				total += Integer.parseInt(remainingQuantity.get(i).get(0));
 			}
 
@@ -257,6 +259,7 @@ public class Pharmacist extends User {
 			String sql = "INSERT INTO drug (" + columnNames + ") VALUES (" + rowData + ");";
 			///////////////////// Adding data to database /////////////////////
 			result = super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DRUGS);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -361,48 +364,23 @@ public class Pharmacist extends User {
 		return data;
 	}
 
+	/**
+	 * 
+	 * @return ArrayList<ArrayList<String>> of every drug with the total remaining
+	 *         quantity and the number of suppliers in stock
+	 *         {drug_id, drug_name, dangerous_drug, amount, suppliers}
+	 */
 	public ArrayList<ArrayList<String>> getStockSummary() {
-		String sql = "SELECT * FROM drug;";
+		// summed by the database in one pass instead of a stock query per drug
+		String sql = "SELECT drug.drug_id, drug.drug_name, drug.dangerous_drug, " +
+				"COALESCE(SUM(pharmacy_stock.remaining_quantity), 0) AS amount, " +
+				"COUNT(DISTINCT pharmacy_stock.supplier_id) AS suppliers " +
+				"FROM drug LEFT JOIN pharmacy_stock ON pharmacy_stock.drug_id = drug.drug_id " +
+				"GROUP BY drug.drug_id, drug.drug_name, drug.dangerous_drug;";
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
 			data = super.dbOperator.customSelection(sql);
-
-			ArrayList<String> tmp = data.remove(0);
-			tmp.add("amount");
-			tmp.add("suppliers");
-			data.add(0, tmp);
-
-			int noOfDrugs = data.size() - 1;
-			for (int i = 1; i <= noOfDrugs; i++) {
-				String drugId = data.get(i).get(0);
-				sql = "SELECT pharmacy_stock.remaining_quantity, pharmacy_stock.supplier_id " +
-						"FROM pharmacy_stock WHERE drug_id = '" + drugId + "';";
-
-				ArrayList<ArrayList<String>> data2 = super.dbOperator.customSelection(sql);
-
-				int tmpSize = data2.size();
-				int totalAmount = 0;
-				ArrayList<String> suppliers = new ArrayList<String>();
-				for (int j = 1; j < tmpSize; j++) {
-					totalAmount += Integer.parseInt(data2.get(j).get(0));
-					String supplier = data2.get(j).get(1);
-
-					if (!suppliers.contains(supplier)) {
-						suppliers.add(supplier);
-					}
-
-				}
-
-				int noOfSuppliers = suppliers.size();
-
-				tmp = data.remove(i);
-				tmp.add(Integer.toString(totalAmount));
-				tmp.add(Integer.toString(noOfSuppliers));
-				data.add(i, tmp);
-
-			}
-
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -410,48 +388,25 @@ public class Pharmacist extends User {
 		return data;
 	}
 
+	/**
+	 * 
+	 * @return ArrayList<ArrayList<String>> of every brand with the total remaining
+	 *         quantity and the number of suppliers in stock
+	 *         {brand_id, brand_name, drug_type, drug_unit, unit_price, amount,
+	 *         suppliers}
+	 */
 	public ArrayList<ArrayList<String>> getStockSummary2() {
-		String sql = "SELECT brand_id, brand_name, drug_type,drug_unit, unit_price FROM drug_brand_names;";
+		String sql = "SELECT drug_brand_names.brand_id, drug_brand_names.brand_name, drug_brand_names.drug_type, " +
+				"drug_brand_names.drug_unit, drug_brand_names.unit_price, " +
+				"COALESCE(SUM(pharmacy_stock.remaining_quantity), 0) AS amount, " +
+				"COUNT(DISTINCT pharmacy_stock.supplier_id) AS suppliers " +
+				"FROM drug_brand_names LEFT JOIN pharmacy_stock ON pharmacy_stock.brand_id = drug_brand_names.brand_id " +
+				"GROUP BY drug_brand_names.brand_id, drug_brand_names.brand_name, drug_brand_names.drug_type, " +
+				"drug_brand_names.drug_unit, drug_brand_names.unit_price;";
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
 			data = super.dbOperator.customSelection(sql);
-
-			ArrayList<String> tmp = data.remove(0);
-			tmp.add("amount");
-			tmp.add("suppliers");
-			data.add(0, tmp);
-
-			int noOfDrugs = data.size() - 1;
-			for (int i = 1; i <= noOfDrugs; i++) {
-				String brandId = data.get(i).get(0);
-				sql = "SELECT pharmacy_stock.remaining_quantity, pharmacy_stock.supplier_id " +
-						"FROM pharmacy_stock WHERE brand_id = '" + brandId + "';";
-
-				ArrayList<ArrayList<String>> data2 = super.dbOperator.customSelection(sql);
-
-				int tmpSize = data2.size();
-				int totalAmount = 0;
-				ArrayList<String> suppliers = new ArrayList<String>();
-				for (int j = 1; j < tmpSize; j++) {
-					totalAmount += Integer.parseInt(data2.get(j).get(0));
-					String supplier = data2.get(j).get(1);
-
-					if (!suppliers.contains(supplier)) {
-						suppliers.add(supplier);
-					}
-
-				}
-
-				int noOfSuppliers = suppliers.size();
-
-				tmp = data.remove(i);
-				tmp.add(Integer.toString(totalAmount));
-				tmp.add(Integer.toString(noOfSuppliers));
-				data.add(i, tmp);
-
-			}
-
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -515,7 +470,7 @@ public class Pharmacist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.SUPPLIERS, sql);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -540,7 +495,7 @@ public class Pharmacist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.SUPPLIERS, sql);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -556,7 +511,7 @@ public class Pharmacist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -611,7 +566,7 @@ public class Pharmacist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DRUGS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -738,6 +693,7 @@ public class Pharmacist extends User {
 
 		try {
 			super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DRUGS);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -792,6 +748,7 @@ public class Pharmacist extends User {
 
 		try {
 			super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.DRUGS);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -845,6 +802,7 @@ public class Pharmacist extends User {
 
 		try {
 			super.dbOperator.customInsertion(sql);
+			ReferenceCache.getInstance().invalidate(ReferenceCache.Catalogue.SUPPLIERS);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -983,80 +941,63 @@ public class Pharmacist extends User {
 		boolean result = true;
 
 		try {
+			DatabaseOperator.inTransaction(() -> {
+				///////////////////// Generating the Bill ID /////////////////////
 
-			///////////////////// Generating the Bill ID /////////////////////
-
-			String sql3 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
-			String tmpID2;
-			try {
-
-				tmpID2 = super.dbOperator.customSelection(sql3).get(1).get(0);
-
-				String sql = "UPDATE tmp_bill SET pharmacy_fee = '" + pharmacyFee + "' WHERE tmp_bill_id = '" + tmpID2
-						+ "';";
-				///////////////////// Adding data to database /////////////////////
-				super.dbOperator.customInsertion(sql);
+				String sql3 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
+				String tmpID2;
+				try {
 
-			} catch (Exception e) {
+					tmpID2 = super.dbOperator.customSelection(sql3).get(1).get(0);
 
-				try {
+					String sql = "UPDATE tmp_bill SET pharmacy_fee = '" + pharmacyFee + "' WHERE tmp_bill_id = '" + tmpID2
+							+ "';";
+					///////////////////// Adding data to database /////////////////////
+					super.dbOperator.customInsertion(sql);
 
-					String sql2 = "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);";
-					String billID = super.dbOperator.customSelection(sql2).get(1).get(0);
+				} catch (Exception e) {
 
-					char[] tmpID = billID.toCharArray();
-					int i = 3;
-					for (i = 3; i < billID.length(); i++) {
-						if (tmpID[i] != '0')
-							break;
-					}
+					tmpID2 = super.dbOperator.nextId(IdSequence.TMP_BILL);
 
-					tmpID2 = Integer.toString(Integer.parseInt(billID.substring(i, billID.length() - 2)) + 1);
-					while (tmpID2.length() < 4) {
-						tmpID2 = "0" + tmpID2;
-					}
-					tmpID2 = "hms" + tmpID2 + "tb";
+					///////////////////// SQL for adding the row /////////////////////
+					String columnNames = "";
+					String rowData = "";
 
-				} catch (Exception ex) {
-					tmpID2 = "hms0001tb";
-				}
+					String[] field = billInfo.split(",");
 
-				///////////////////// SQL for adding the row /////////////////////
-				String columnNames = "";
-				String rowData = "";
+					int index = 0;
+					for (String val : field) {
+						if (index > 0) {
+							columnNames += ",";
+							rowData += ",";
+						}
 
-				String[] field = billInfo.split(",");
+						//// Order of column fields in the input string!!!
+						columnNames += val.split(" ")[0];
+						if (index < 3) {
+							rowData = rowData + "'";
+						}
+						rowData += val.split(" ")[1];
+						if (index < 3) {
+							rowData += "'";
+						}
 
-				int index = 0;
-				for (String val : field) {
-					if (index > 0) {
-						columnNames += ",";
-						rowData += ",";
+						index++;
 					}
 
-					//// Order of column fields in the input string!!!
-					columnNames += val.split(" ")[0];
-					if (index < 3) {
-						rowData = rowData + "'";
-					}
-					rowData += val.split(" ")[1];
-					if (index < 3) {
-						rowData += "'";
-					}
+					columnNames += ",tmp_bill_id";
+					rowData += ",'" + tmpID2 + "'";
 
-					index++;
+					String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
+					///////////////////// Adding data to database /////////////////////
+					super.dbOperator.customInsertion(sql);
 				}
-
-				columnNames += ",tmp_bill_id";
-				rowData += ",'" + tmpID2 + "'";
-
-				String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
-				///////////////////// Adding data to database /////////////////////
-				super.dbOperator.customInsertion(sql);
-			}
+				return null;
+			});
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
+			result = false;
 		}
 
 		return result;
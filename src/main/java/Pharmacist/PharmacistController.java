@@ -1,7 +1,9 @@
 package Pharmacist;
 
 import com.hms.hms_test_2.AllMessagesController;
+import com.hms.hms_test_2.AsyncQueries;
 import com.hms.hms_test_2.CurrentUserSummaryController;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import com.hms.hms_test_2.Validate;
@@ -58,6 +60,8 @@ public class PharmacistController extends AnchorPane {
 
     public String username;
 
+    private final AsyncQueries queries;
+
     public PharmacistController(String username) {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/fxml/Pharmacist.fxml"));
         fxmlLoader.setRoot(this);
@@ -66,6 +70,7 @@ public class PharmacistController extends AnchorPane {
         pharmacist = new Pharmacist(username);
         this.username = username;
         pharmacist.saveLogin(username);
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -86,14 +91,17 @@ public class PharmacistController extends AnchorPane {
         if (searchTypePatientPharmacist.getSelectionModel().getSelectedItem() != null) {
             String selectedValue = searchTypePatientPharmacist.getSelectionModel().getSelectedItem().toString();
 
-            ArrayList<ArrayList<String>> prescriptionData = new ArrayList<>();
             String searchValue = patientSearchValue.getText();
             if (!searchValue.equals("")) {
                 searchTypePatientPharmacist.setStyle("-fx-border-color: #999 #999 #999 #999;");
                 patientSearchValue.setStyle("-fx-border-color: #999 #999 #999 #999;");
                 switch (selectedValue) {
                     case "Patient ID":
-                        prescriptionData = pharmacist.getPrescriptionInfo(searchValue);
+                        queries.load(() -> pharmacist.getPrescriptionInfo(searchValue), prescriptionData -> {
+                            if (prescriptionData.size() > 1) {
+                                fillListSelection(prescriptionData);
+                            }
+                        });
                         break;
                     case "Name":
                         // patientData = pharmacist.getPrescriptionInfo(searchValue);
@@ -105,13 +113,6 @@ public class PharmacistController extends AnchorPane {
                         break;
                 }
 
-                if (prescriptionData.size() > 1) {
-                    fillListSelection(prescriptionData);
-
-                } else {
-
-                }
-
             } else {
                 patientSearchValue.setStyle("-fx-border-color: red;");
             }
@@ -277,31 +278,38 @@ public class PharmacistController extends AnchorPane {
     }
 
     public void loadNameList() {
-        ObservableList<String> possibleSuggestions = FXCollections.observableArrayList();
-
-        ArrayList<ArrayList<String>> data = pharmacist.getAllNames();
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            String firstName = data.get(i).get(1);
-            String lastName = data.get(i).get(2);
-            String age = "";
-            String id = data.get(i).get(0);
+        // suggestions come from the shared patient name index as the user types,
+        // instead of binding every patient to the field up front
+        TextFields.bindAutoCompletion(patientSearchValue, request -> {
+            ArrayList<String> possibleSuggestions = new ArrayList<String>();
+
+            ArrayList<ArrayList<String>> data = pharmacist.getPatientSuggestions(request.getUserText(), 10);
+            if (data == null) {
+                return possibleSuggestions;
+            }
+            int size = data.size();
+            for (int i = 1; i < size; i++) {
+                String firstName = data.get(i).get(1);
+                String lastName = data.get(i).get(2);
+                String age = "";
+                String id = data.get(i).get(0);
 
-            try {
-                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                Date birth = tmpdataformat.parse(data.get(i).get(3));
-                Calendar calendarBirth = Calendar.getInstance();
-                calendarBirth.setTime(birth);
-                Calendar calendarToday = Calendar.getInstance();
-                age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+                try {
+                    SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                    Date birth = tmpdataformat.parse(data.get(i).get(3));
+                    Calendar calendarBirth = Calendar.getInstance();
+                    calendarBirth.setTime(birth);
+                    Calendar calendarToday = Calendar.getInstance();
+                    age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            } catch (Exception e) {
-                e.printStackTrace();
+                possibleSuggestions.add(age + " " + firstName + " " + lastName + " " + id);
             }
-
-            possibleSuggestions.add(age + " " + firstName + " " + lastName + " " + id);
-        }
-        TextFields.bindAutoCompletion(patientSearchValue, possibleSuggestions);
+            return possibleSuggestions;
+        });
     }
 
     @FXML
@@ -1,5 +1,10 @@
 package Receptionist;
 
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.IncomeAnalytics;
+import com.hms.hms_test_2.PatientNameIndex;
+import com.hms.hms_test_2.ReferenceCache;
 import com.hms.hms_test_2.User;
 import java.util.*;
 import java.sql.*;
@@ -161,11 +166,11 @@ public class Receptionist extends User {
 				"person.*, " +
 				"patient.* " +
 				"FROM person INNER JOIN patient ON patient.person_id = person.person_id " +
-				"WHERE patient_id = '" + patientID + "';";
+				"WHERE patient_id = ?;";
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = super.dbOperator.select(sql, patientID);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -189,37 +194,9 @@ public class Receptionist extends User {
 		try {
 
 			///////////// Generating the Patient ID /////////////
-			String sql2 = "SELECT patient_id FROM patient WHERE patient_id = (SELECT MAX(patient_id) FROM patient);";
-			String patientID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-			char[] tmpID = patientID.toCharArray();
-			int i = 3;
-			for (i = 3; i < patientID.length(); i++) {
-				if (tmpID[i] != '0')
-					break;
-			}
-
-			String tmpID2 = Integer.toString(Integer.parseInt(patientID.substring(i, patientID.length() - 2)) + 1);
-			while (tmpID2.length() < 4) {
-				tmpID2 = "0" + tmpID2;
-			}
-			tmpID2 = "hms" + tmpID2 + "pa";
+			String tmpID2 = super.dbOperator.nextId(IdSequence.PATIENT);
 			///////////// Generating the Person ID /////////////
-			sql2 = "SELECT person_id FROM person WHERE person_id = (SELECT MAX(person_id) FROM person);";
-			String personID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-			tmpID = personID.toCharArray();
-			i = 3;
-			for (i = 3; i < personID.length(); i++) {
-				if (tmpID[i] != '0')
-					break;
-			}
-
-			String tmpID3 = Integer.toString(Integer.parseInt(personID.substring(i, personID.length())) + 1);
-			while (tmpID3.length() < 5) {
-				tmpID3 = "0" + tmpID3;
-			}
-			tmpID3 = "hms" + tmpID3;
+			String tmpID3 = super.dbOperator.nextId(IdSequence.PERSON);
 			value = tmpID3;
 
 			///////////// SQL for adding the row /////////////
@@ -227,12 +204,14 @@ public class Receptionist extends User {
 			String rowData = "", rowData2 = "";
 
 			String[] field = patientInfo.split(",");
+			HashMap<String, String> values = new HashMap<String, String>();
 			int index = 0;
 			for (String val : field) {
 				if (index > 0) {
 					columnNames += ",";
 					rowData += ",";
 				}
+				values.put(val.split(" ")[0], val.split(" ")[1]);
 				columnNames += val.split(" ")[0];
 				if (index != 2) {
 					rowData = rowData + "'";
@@ -253,8 +232,16 @@ public class Receptionist extends User {
 			String sql = "INSERT INTO person (" + columnNames + ") VALUES (" + rowData + ");";
 			String sql3 = "INSERT INTO patient (" + columnNames2 + ") VALUES (" + rowData2 + ");";
 			///////////// Adding data to database /////////////
-			super.dbOperator.customInsertion(sql);
-			super.dbOperator.customInsertion(sql3);
+			if (super.dbOperator.customInsertion(sql) && super.dbOperator.customInsertion(sql3)) {
+				///////////// Making the patient searchable by name /////////////
+				String birth = values.get("date_of_birth");
+				if (birth != null && birth.length() == 8) {
+					birth = birth.substring(0, 4) + "-" + birth.substring(4, 6) + "-" + birth.substring(6);
+				}
+				PatientNameIndex.getInstance().add(tmpID2, values.get("first_name"), values.get("last_name"), birth);
+			} else {
+				value = "false";
+			}
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -271,6 +258,8 @@ public class Receptionist extends User {
 		boolean result = true;
 		try {
 			result = super.dbOperator.customInsertion(sql);
+			// the name may have changed
+			PatientNameIndex.getInstance().reset();
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -287,7 +276,7 @@ public class Receptionist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.LAB_TESTS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -341,21 +330,7 @@ public class Receptionist extends User {
 		try {
 
 			/////////////////// Generating the Appointment ID ///////////////////
-			String sql2 = "SELECT appointment_id FROM appointment WHERE appointment_id = (SELECT MAX(appointment_id) FROM appointment);";
-			String appointmentID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-			char[] tmpID = appointmentID.toCharArray();
-			int i = 3;
-			for (i = 3; i < appointmentID.length(); i++) {
-				if (tmpID[i] != '0')
-					break;
-			}
-
-			String tmpID2 = Integer.toString(Integer.parseInt(appointmentID.substring(i, appointmentID.length())) + 1);
-			while (tmpID2.length() < 3) {
-				tmpID2 = "0" + tmpID2;
-			}
-			tmpID2 = "app" + tmpID2;
+			String tmpID2 = super.dbOperator.nextId(IdSequence.APPOINTMENT);
 			value = tmpID2;
 
 			int daysToAppointment = 0;
@@ -406,79 +381,81 @@ public class Receptionist extends User {
 			String appointmentFee = "500";
 			String billInfo = "patient_id " + patientID + ",appointment_fee " + appointmentFee;
 
-			String sql4 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
-			try {
-
-				tmpID2 = super.dbOperator.customSelection(sql4).get(1).get(0);
-
-				String sql5 = "UPDATE tmp_bill SET appointment_fee = ' " + appointmentFee + " ' WHERE tmp_bill_id = '"
-						+ tmpID2 + "';";
-				///////////// Adding data to database /////////////
-				super.dbOperator.customInsertion(sql5);
+			// the bill ID is reserved before the transaction pins a connection,
+			// reserving takes another one from the pool
+			String openBillID = openBillID(patientID);
+			String billID = openBillID != null ? openBillID : super.dbOperator.nextId(IdSequence.TMP_BILL);
 
-			} catch (Exception e) {
+			///////////// Adding data to database in one transaction /////////////
+			DatabaseOperator.inTransaction(() -> {
+				chargeAppointmentFee(billID, openBillID == null, billInfo, appointmentFee);
+				super.dbOperator.customInsertion(sql7);
+				super.dbOperator.customInsertion(sql8);
+				return null;
+			});
 
-				sql2 = "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);";
-				try {
-					String billID = super.dbOperator.customSelection(sql2).get(1).get(0);
+		} catch (ClassNotFoundException | SQLException e) {
+			e.printStackTrace();
+			value = "false";
+		}
+		return value;
+	}
 
-					tmpID = billID.toCharArray();
-					for (i = 3; i < billID.length(); i++) {
-						if (tmpID[i] != '0')
-							break;
-					}
+	// the open bill of the patient, null if the patient has none
+	private String openBillID(String patientID) {
+		String sql4 = "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = '" + patientID + "';";
+		try {
+			return super.dbOperator.customSelection(sql4).get(1).get(0);
+		} catch (Exception e) {
+			return null;
+		}
+	}
 
-					tmpID2 = Integer.toString(Integer.parseInt(billID.substring(i, billID.length() - 2)) + 1);
-					while (tmpID2.length() < 4) {
-						tmpID2 = "0" + tmpID2;
-					}
-					tmpID2 = "hms" + tmpID2 + "tb";
-				} catch (Exception ex) {
-					tmpID2 = "hms0001tb";
-				}
+	// puts the appointment fee on the bill, opening it first if it is new
+	private void chargeAppointmentFee(String tmpID2, boolean newBill, String billInfo, String appointmentFee)
+			throws ClassNotFoundException, SQLException {
+		if (!newBill) {
 
-				///////////// SQL for adding the row /////////////
-				columnNames = "";
-				rowData = "";
+			String sql5 = "UPDATE tmp_bill SET appointment_fee = ' " + appointmentFee + " ' WHERE tmp_bill_id = '"
+					+ tmpID2 + "';";
+			///////////// Adding data to database /////////////
+			super.dbOperator.customInsertion(sql5);
 
-				String[] field = billInfo.split(",");
+		} else {
 
-				int index = 0;
-				for (String val : field) {
-					if (index > 0) {
-						columnNames += ",";
-						rowData += ",";
-					}
+			///////////// SQL for adding the row /////////////
+			String columnNames = "";
+			String rowData = "";
 
-					//// Order of column fields in the input string!!! ////
-					columnNames += val.split(" ")[0];
-					if (index < 3) {
-						rowData = rowData + "'";
-					}
-					rowData += val.split(" ")[1];
-					if (index < 3) {
-						rowData += "'";
-					}
+			String[] field = billInfo.split(",");
 
-					index++;
+			int index = 0;
+			for (String val : field) {
+				if (index > 0) {
+					columnNames += ",";
+					rowData += ",";
 				}
 
-				columnNames += ",tmp_bill_id";
-				rowData += ",'" + tmpID2 + "'";
+				//// Order of column fields in the input string!!! ////
+				columnNames += val.split(" ")[0];
+				if (index < 3) {
+					rowData = rowData + "'";
+				}
+				rowData += val.split(" ")[1];
+				if (index < 3) {
+					rowData += "'";
+				}
 
-				String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
-				///////////// Adding data to database /////////////
-				super.dbOperator.customInsertion(sql);
+				index++;
 			}
 
-			///////////// Adding data to database /////////////
-			super.dbOperator.customInsertion(sql7);
-			super.dbOperator.customInsertion(sql8);
+			columnNames += ",tmp_bill_id";
+			rowData += ",'" + tmpID2 + "'";
 
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
+			String sql = "INSERT INTO tmp_bill (" + columnNames + ") VALUES (" + rowData + ");";
+			///////////// Adding data to database /////////////
+			super.dbOperator.customInsertion(sql);
 		}
-		return value;
 	}
 
 	/**
@@ -496,29 +473,8 @@ public class Receptionist extends User {
 		try {
 
 			///////////// Generating the Appointment ID /////////////
-			try {
-				String sql2 = "SELECT lab_appointment_id FROM lab_appointment WHERE lab_appointment_id = (SELECT MAX(lab_appointment_id) FROM lab_appointment);";
-				String appointmentID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-				char[] tmpID = appointmentID.toCharArray();
-				int i = 4;
-				for (i = 4; i < appointmentID.length(); i++) {
-					if (tmpID[i] != '0')
-						break;
-				}
-
-				tmpID2 = Integer.toString(Integer.parseInt(appointmentID.substring(i, appointmentID.length())) + 1);
-				while (tmpID2.length() < 3) {
-					tmpID2 = "0" + tmpID2;
-				}
-				tmpID2 = "lapp" + tmpID2;
-				value = tmpID2;
-			} catch (Exception e) {
-
-				value = "lapp001";
-				tmpID2 = value;
-
-			}
+			tmpID2 = super.dbOperator.nextId(IdSequence.LAB_APPOINTMENT);
+			value = tmpID2;
 
 			int daysToAppointment = 0;
 			int tmpDay = Integer.parseInt(day);
@@ -574,25 +530,7 @@ public class Receptionist extends User {
 
 			} catch (Exception e) {
 
-				String sql2 = "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);";
-				try {
-					String billID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-					char[] tmpID = billID.toCharArray();
-					int i;
-					for (i = 3; i < billID.length(); i++) {
-						if (tmpID[i] != '0')
-							break;
-					}
-
-					tmpID2 = Integer.toString(Integer.parseInt(billID.substring(i, billID.length() - 2)) + 1);
-					while (tmpID2.length() < 4) {
-						tmpID2 = "0" + tmpID2;
-					}
-					tmpID2 = "hms" + tmpID2 + "tb";
-				} catch (Exception ex) {
-					tmpID2 = "hms0001tb";
-				}
+				tmpID2 = super.dbOperator.nextId(IdSequence.TMP_BILL);
 
 				///////////// SQL for adding the row /////////////
 				columnNames = "";
@@ -635,6 +573,7 @@ public class Receptionist extends User {
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
+			value = "false";
 		}
 		return value;
 	}
@@ -652,7 +591,7 @@ public class Receptionist extends User {
 				"doctor_availability.day, doctor_availability.time_slot, doctor_availability.current_week_appointments "
 				+
 				"FROM doctor_availability " +
-				"WHERE slmc_reg_no = '" + doctorID + "' " +
+				"WHERE slmc_reg_no = ? " +
 				"ORDER BY day;";
 
 		int dayOfWeek = Calendar.getInstance().get(Calendar.DAY_OF_WEEK);
@@ -660,7 +599,7 @@ public class Receptionist extends User {
 		ArrayList<ArrayList<String>> data = null;
 		try {
 
-			data = super.dbOperator.customSelection(sql);
+			data = super.dbOperator.select(sql, doctorID);
 
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
@@ -731,45 +670,21 @@ public class Receptionist extends User {
 	 */
 	public ArrayList<ArrayList<String>> getDoctorSummary() {
 
+		// one row per doctor; the distinct days are counted and listed by the
+		// database instead of querying the availability of every doctor
 		String sql = "SELECT " +
 				"doctor.slmc_reg_no, doctor.experienced_areas, " +
-				"person.first_name, person.last_name " +
-				"FROM doctor INNER JOIN person ON doctor.user_id = person.user_id;";
+				"person.first_name, person.last_name, " +
+				"COUNT(DISTINCT doctor_availability.day) AS available_days, " +
+				"COALESCE(CONCAT(GROUP_CONCAT(DISTINCT doctor_availability.day " +
+				"ORDER BY doctor_availability.day SEPARATOR ' '), ' '), '') AS days " +
+				"FROM doctor INNER JOIN person ON doctor.user_id = person.user_id " +
+				"LEFT JOIN doctor_availability ON doctor_availability.slmc_reg_no = doctor.slmc_reg_no " +
+				"GROUP BY doctor.slmc_reg_no, doctor.experienced_areas, person.first_name, person.last_name;";
 
 		ArrayList<ArrayList<String>> data = null;
-		ArrayList<ArrayList<String>> data2 = null;
-		ArrayList<String> tmpData = null;
-		ArrayList<String> tmpData2 = new ArrayList<String>();
 		try {
-
 			data = super.dbOperator.customSelection(sql);
-			int size = data.size();
-
-			for (int i = 1; i < size; i++) {
-				tmpData = data.remove(i);
-
-				String sql2 = "SELECT day FROM doctor_availability " +
-						"WHERE slmc_reg_no = '" + tmpData.get(0) + "';";
-
-				data2 = super.dbOperator.customSelection(sql2);
-				int size2 = data2.size();
-				String tmpString = "";
-				int count = 0;
-				for (int j = 1; j < size2; j++) {
-					String tmp = data2.get(j).get(0);
-					if (!tmpData2.contains(tmp)) {
-						tmpString += tmp + " ";
-						tmpData2.add(tmp);
-						count++;
-					}
-
-				}
-				tmpData.add(Integer.toString(count));
-				tmpData.add(tmpString);
-				data.add(i, tmpData);
-				tmpData2 = new ArrayList<String>();
-			}
-
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -813,7 +728,7 @@ public class Receptionist extends User {
 		ArrayList<String> data2 = new ArrayList<String>();
 		try {
 
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DOCTORS, sql);
 
 			int size = data.size();
 			for (int i = 1; i < size; i++) {
@@ -865,7 +780,7 @@ public class Receptionist extends User {
 
 		ArrayList<ArrayList<String>> data = null;
 		try {
-			data = super.dbOperator.customSelection(sql);
+			data = ReferenceCache.select(super.dbOperator, ReferenceCache.Catalogue.DOCTORS, sql);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -881,13 +796,13 @@ public class Receptionist extends User {
 	public ArrayList<String> getAvailableDays(String registrationNo) {
 
 		String sql2 = "SELECT day FROM doctor_availability " +
-				"WHERE slmc_reg_no = '" + registrationNo + "'" +
+				"WHERE slmc_reg_no = ? " +
 				"ORDER BY day ASC;";
 
 		ArrayList<ArrayList<String>> data2 = null;
 		ArrayList<String> data = new ArrayList<String>();
 		try {
-			data2 = super.dbOperator.customSelection(sql2);
+			data2 = super.dbOperator.select(sql2, registrationNo);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -1020,13 +935,13 @@ public class Receptionist extends User {
 	public ArrayList<String> getAvailableTime(String registrationNo, String day) {
 
 		String sql2 = "SELECT time_slot FROM doctor_availability " +
-				"WHERE slmc_reg_no = '" + registrationNo + "' AND day = '" + day + "' " +
+				"WHERE slmc_reg_no = ? AND day = ? " +
 				"ORDER BY time_slot;";
 
 		ArrayList<ArrayList<String>> data2 = null;
 		ArrayList<String> data = new ArrayList<String>();
 		try {
-			data2 = super.dbOperator.customSelection(sql2);
+			data2 = super.dbOperator.select(sql2, registrationNo, day);
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -1049,43 +964,52 @@ public class Receptionist extends User {
 	 */
 	public boolean cancelAppointment(String appointmentID) {
 		boolean result = false;
+		try {
+			result = DatabaseOperator.inTransaction(() -> cancelAndRefund(appointmentID));
+			if (result) {
+				// only once the refund is committed, or a reload could cache the old income
+				IncomeAnalytics.getInstance().invalidate();
+			}
+		} catch (ClassNotFoundException | SQLException e) {
+			e.printStackTrace();
+		}
+		return result;
+	}
+
+	// cancels the appointment and refunds its bill if it was already paid
+	private boolean cancelAndRefund(String appointmentID) throws ClassNotFoundException, SQLException {
 		String sql = "UPDATE appointment " +
 				"SET cancelled = true WHERE " +
 				"appointment.appointment_id = '" + appointmentID + "';";
 
-		try {
-			result = super.dbOperator.customInsertion(sql);
-			if (result) {
-				ArrayList<ArrayList<String>> data = null;
-				sql = "SELECT appointment.bill_id, bill.total FROM appointment INNER JOIN bill ON " +
-						"appointment.bill_id = bill.bill_id WHERE appointment_id = '" + appointmentID + "'";
-				try {
-					data = super.dbOperator.customSelection(sql);
+		boolean result = super.dbOperator.customInsertion(sql);
+		if (result) {
+			ArrayList<ArrayList<String>> data = null;
+			sql = "SELECT appointment.bill_id, bill.total FROM appointment INNER JOIN bill ON " +
+					"appointment.bill_id = bill.bill_id WHERE appointment_id = '" + appointmentID + "'";
+			try {
+				data = super.dbOperator.customSelection(sql);
 
-					if (!data.get(1).get(0).equals("NULL")) {
-						String billID = data.get(1).get(0);
-						String amount = data.get(1).get(1);
+				if (!data.get(1).get(0).equals("NULL")) {
+					String billID = data.get(1).get(0);
+					String amount = data.get(1).get(1);
 
-						String refundInfo = "bill_id " + billID + ",payment_type docApp,reason no_reason,amount "
-								+ amount;
-						result = refund(refundInfo);
+					String refundInfo = "bill_id " + billID + ",payment_type docApp,reason no_reason,amount "
+							+ amount;
+					result = refund(refundInfo);
 
-						sql = "UPDATE bill SET refund = 1 WHERE bill_id = '" + billID + "'";
-						try {
-							result = super.dbOperator.customInsertion(sql);
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
+					sql = "UPDATE bill SET refund = 1 WHERE bill_id = '" + billID + "'";
+					try {
+						result = super.dbOperator.customInsertion(sql);
+					} catch (Exception e) {
+						e.printStackTrace();
 					}
-
-				} catch (Exception e) {
-					e.printStackTrace();
 				}
 
+			} catch (Exception e) {
+				e.printStackTrace();
 			}
 
-		} catch (ClassNotFoundException | SQLException e) {
-			e.printStackTrace();
 		}
 		return result;
 	}
@@ -1139,21 +1063,7 @@ public class Receptionist extends User {
 		try {
 
 			///////////// Generating the Refund ID /////////////
-			String sql2 = "SELECT refund_id FROM refund WHERE refund_id = (SELECT MAX(refund_id) FROM bill);";
-			String refundID = super.dbOperator.customSelection(sql2).get(1).get(0);
-
-			char[] tmpID = refundID.toCharArray();
-			int i = 1;
-			for (i = 1; i < refundID.length(); i++) {
-				if (tmpID[i] != '0')
-					break;
-			}
-
-			String tmpID2 = Integer.toString(Integer.parseInt(refundID.substring(i, refundID.length())) + 1);
-			while (tmpID2.length() < 4) {
-				tmpID2 = "0" + tmpID2;
-			}
-			tmpID2 = "r" + tmpID2;
+			String tmpID2 = super.dbOperator.nextId(IdSequence.REFUND);
 
 			///////////// SQL for adding the row /////////////
 			String columnNames = "";
@@ -1240,6 +1150,11 @@ public class Receptionist extends User {
 
 			}
 
+			if (result) {
+				// after the last write, once the refund is stored
+				IncomeAnalytics.getInstance().invalidate();
+			}
+
 		} catch (ClassNotFoundException | SQLException e) {
 			e.printStackTrace();
 		}
@@ -1,5 +1,8 @@
 package Receptionist;
 
+import com.hms.hms_test_2.AsyncQueries;
+import com.hms.hms_test_2.DashboardWarmUp;
+import com.hms.hms_test_2.FxQueries;
 import com.hms.hms_test_2.LogoutController;
 import com.hms.hms_test_2.SuccessIndicatorController;
 import com.hms.hms_test_2.Validate;
@@ -18,10 +21,12 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Button;
@@ -53,6 +58,8 @@ public class ReceptionistController extends AnchorPane {
     public Receptionist receptionist;
     public String username;
 
+    private final AsyncQueries queries;
+
     /**
      *
      * @param username
@@ -65,6 +72,7 @@ public class ReceptionistController extends AnchorPane {
         receptionist = new Receptionist(username);
         this.username = username;
         receptionist.saveLogin(username);
+        queries = FxQueries.forScreen(this);
 
         try {
             fxmlLoader.load();
@@ -79,7 +87,35 @@ public class ReceptionistController extends AnchorPane {
     @FXML
     private NumberAxis yAxis;
 
+    /**
+     * Loads the panels of the dashboard side by side, each shown as soon as its
+     * data arrives. Until then the chart, the doctor summary and the list of
+     * available doctors show that they are loading.
+     */
+    public DashboardWarmUp warmUp() {
+        lineChart.setTitle("Loading...");
+        doctorSummary.setPlaceholder(new Label("Loading..."));
+        currentlyAvailableList.setPlaceholder(new Label("Loading..."));
+
+        DashboardWarmUp warmUp = new DashboardWarmUp("receptionist", queries);
+        warmUp.panel("profile", receptionist::getProfileInfo, this::showProfileData);
+        warmUp.panel("doctor summary", receptionist::getDoctorSummary, this::showSummaryTable)
+                .whenComplete((done, error) -> doctorSummary.setPlaceholder(null));
+        warmUp.panel("appointment chart",
+                () -> Arrays.asList(receptionist.getDocAppointments(), receptionist.getLabAppointments()),
+                data -> fillLineChart(data.get(0), data.get(1)))
+                .whenComplete((done, error) -> lineChart.setTitle(null));
+        warmUp.panel("available doctors", receptionist::getCurrentlyAvailableDoctors, this::showCurrentDoctors)
+                .whenComplete((done, error) -> currentlyAvailableList.setPlaceholder(null));
+        warmUp.whenFilled();
+        return warmUp;
+    }
+
     public void fillLineChart() {
+        fillLineChart(receptionist.getDocAppointments(), receptionist.getLabAppointments());
+    }
+
+    private void fillLineChart(ArrayList<ArrayList<String>> docApp, ArrayList<ArrayList<String>> labApp) {
 
         lineChart.getData().clear();
 
@@ -90,7 +126,6 @@ public class ReceptionistController extends AnchorPane {
         int max2 = 0;
 
         try {
-            ArrayList<ArrayList<String>> docApp = receptionist.getDocAppointments();
             String date = "";
 
             ArrayList<String> months = new ArrayList<String>();
@@ -132,7 +167,6 @@ public class ReceptionistController extends AnchorPane {
         }
 
         try {
-            ArrayList<ArrayList<String>> labApp = receptionist.getLabAppointments();
             String date = "";
 
             ArrayList<String> months = new ArrayList<String>();
@@ -193,10 +227,12 @@ public class ReceptionistController extends AnchorPane {
     @FXML
     private TableView<DoctorDetail> doctorSummary;
 
+    // loaded once by makeSummaryTable, the pages only slice it
+    private ArrayList<ArrayList<String>> doctorData;
+
     @FXML
     private Node createPage(int pageIndex) {
 
-        ArrayList<ArrayList<String>> doctorData = receptionist.getDoctorSummary();
         int noOfSlots = (doctorData.size() - 1);
 
         final ObservableList<DoctorDetail> data = FXCollections.observableArrayList();
@@ -229,18 +265,25 @@ public class ReceptionistController extends AnchorPane {
 
     @FXML
     public void makeSummaryTable() {
-        ArrayList<ArrayList<String>> billHistoryData = receptionist.getDoctorSummary();
-        createPagination(billHistoryData.size() - 1);
+        queries.load(receptionist::getDoctorSummary, this::showSummaryTable);
+    }
+
+    private void showSummaryTable(ArrayList<ArrayList<String>> data) {
+        doctorData = data;
+        createPagination(data.size() - 1);
     }
 
     @FXML
     private ListView<String> currentlyAvailableList;
 
     public void fillCurrentDoctors() {
+        showCurrentDoctors(receptionist.getCurrentlyAvailableDoctors());
+    }
+
+    private void showCurrentDoctors(ArrayList<ArrayList<String>> data) {
 
         ObservableList<String> items = FXCollections.observableArrayList();
 
-        ArrayList<ArrayList<String>> data = receptionist.getCurrentlyAvailableDoctors();
         int size = data.size();
         for (int i = 1; i < size; i++) {
             String name = data.get(i).get(0) + " " + data.get(i).get(1);
@@ -285,40 +328,10 @@ public class ReceptionistController extends AnchorPane {
             if (selectedValue.equals("Patient ID")) {
                 String result = Validate.patientID(searchValue);
                 if (result.equals("1")) {
-                    ArrayList<ArrayList<String>> data = receptionist.getPatientInfo(searchValue);
-                    patientFirstName.setText(data.get(1).get(7));
-                    patientLastName.setText(data.get(1).get(8));
-
-                    String gender = data.get(1).get(3);
-                    if (gender.equals("m")) {
-                        gender = "Male";
-                    } else {
-                        gender = "Female";
-                    }
-
-                    patientGender.setValue(gender);
-
-                    patientNIC.setText(data.get(1).get(2));
-
-                    patientMobile.setText(data.get(1).get(6));
-                    patientEmail.setText(data.get(1).get(9));
-
-                    String tmp[] = data.get(1).get(5).split("\\|");
-                    String ad = "";
-                    for (int i = 0; i < tmp.length; i++) {
-                        ad += (" " + tmp[i]);
-                    }
-                    patientAddress.setText(ad);
-
-                    String tmpDOB = data.get(1).get(4);
-                    int year = Integer.parseInt(tmpDOB.substring(0, 4));
-                    int month = Integer.parseInt(tmpDOB.substring(5, 7));
-                    int date = Integer.parseInt(tmpDOB.substring(8, 10));
-                    patientDOB.setValue(LocalDate.of(year, month, date));
-
-                    patientAddButton.setText("Update");
-
-                    patientIDText.setText(patientSearchBox.getText());
+                    queries.load(() -> receptionist.getPatientInfo(searchValue), data -> {
+                        showPatientInfo(data);
+                        patientIDText.setText(searchValue);
+                    });
 
                 } else {
                     showPopup("hmsxxxxpa", patientSearchBox);
@@ -330,41 +343,12 @@ public class ReceptionistController extends AnchorPane {
 
                 String result = Validate.patientID(patientId);
                 if (result.equals("1")) {
-                    ArrayList<ArrayList<String>> data = receptionist.getPatientInfo(patientId);
-                    patientFirstName.setText(data.get(1).get(7));
-                    patientLastName.setText(data.get(1).get(8));
-
-                    String gender = data.get(1).get(3);
-                    if (gender.equals("m")) {
-                        gender = "Male";
-                    } else {
-                        gender = "Female";
-                    }
-
-                    patientGender.setValue(gender);
-
-                    patientNIC.setText(data.get(1).get(2));
-
-                    patientMobile.setText(data.get(1).get(6));
-                    patientEmail.setText(data.get(1).get(9));
-
-                    String tmp[] = data.get(1).get(5).split("\\|");
-                    String ad = "";
-                    for (int i = 0; i < tmp.length; i++) {
-                        ad += (" " + tmp[i]);
-                    }
-                    patientAddress.setText(ad);
-
-                    String tmpDOB = data.get(1).get(4);
-                    int year = Integer.parseInt(tmpDOB.substring(0, 4));
-                    int month = Integer.parseInt(tmpDOB.substring(5, 7));
-                    int date = Integer.parseInt(tmpDOB.substring(8, 10));
-                    patientDOB.setValue(LocalDate.of(year, month, date));
-
-                    patientAddButton.setText("Update");
-                    patientSearchBox.setText(patientId);
-                    patientSearchCombo.setValue("Patient ID");
-                    patientIDText.setText(patientSearchBox.getText());
+                    queries.load(() -> receptionist.getPatientInfo(patientId), data -> {
+                        showPatientInfo(data);
+                        patientSearchBox.setText(patientId);
+                        patientSearchCombo.setValue("Patient ID");
+                        patientIDText.setText(patientId);
+                    });
 
                 } else {
                     showPopup("hmsxxxxpa", patientSearchBox);
@@ -377,6 +361,40 @@ public class ReceptionistController extends AnchorPane {
         }
     }
 
+    private void showPatientInfo(ArrayList<ArrayList<String>> data) {
+        patientFirstName.setText(data.get(1).get(7));
+        patientLastName.setText(data.get(1).get(8));
+
+        String gender = data.get(1).get(3);
+        if (gender.equals("m")) {
+            gender = "Male";
+        } else {
+            gender = "Female";
+        }
+
+        patientGender.setValue(gender);
+
+        patientNIC.setText(data.get(1).get(2));
+
+        patientMobile.setText(data.get(1).get(6));
+        patientEmail.setText(data.get(1).get(9));
+
+        String tmp[] = data.get(1).get(5).split("\\|");
+        String ad = "";
+        for (int i = 0; i < tmp.length; i++) {
+            ad += (" " + tmp[i]);
+        }
+        patientAddress.setText(ad);
+
+        String tmpDOB = data.get(1).get(4);
+        int year = Integer.parseInt(tmpDOB.substring(0, 4));
+        int month = Integer.parseInt(tmpDOB.substring(5, 7));
+        int date = Integer.parseInt(tmpDOB.substring(8, 10));
+        patientDOB.setValue(LocalDate.of(year, month, date));
+
+        patientAddButton.setText("Update");
+    }
+
     private PopOver popOver;
 
     private void showPopup(ObservableList<String> items) {
@@ -572,36 +590,43 @@ public class ReceptionistController extends AnchorPane {
 
     }
 
-    HashMap<String, String> patientLog = new HashMap<String, String>();
+    // filled from the suggestion thread, read when a suggestion is picked
+    ConcurrentHashMap<String, String> patientLog = new ConcurrentHashMap<String, String>();
 
     public void loadNameList() {
-        ObservableList<String> possibleSuggestions = FXCollections.observableArrayList();
+        // suggestions come from the shared patient name index as the user types,
+        // instead of binding every patient to the field up front
+        TextFields.bindAutoCompletion(patientSearchBox, request -> {
+            ArrayList<String> possibleSuggestions = new ArrayList<String>();
+
+            ArrayList<ArrayList<String>> data = receptionist.getPatientSuggestions(request.getUserText(), 10);
+            if (data == null) {
+                return possibleSuggestions;
+            }
+            int size = data.size();
+            for (int i = 1; i < size; i++) {
+                String firstName = data.get(i).get(1);
+                String lastName = data.get(i).get(2);
+                String age = "";
+                String id = data.get(i).get(0);
 
-        ArrayList<ArrayList<String>> data = receptionist.getAllNames();
-        int size = data.size();
-        for (int i = 1; i < size; i++) {
-            String firstName = data.get(i).get(1);
-            String lastName = data.get(i).get(2);
-            String age = "";
-            String id = data.get(i).get(0);
+                try {
+                    SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
+                    Date birth = tmpdataformat.parse(data.get(i).get(3));
+                    Calendar calendarBirth = Calendar.getInstance();
+                    calendarBirth.setTime(birth);
+                    Calendar calendarToday = Calendar.getInstance();
+                    age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
 
-            try {
-                SimpleDateFormat tmpdataformat = new SimpleDateFormat("yyyy-MM-dd");
-                Date birth = tmpdataformat.parse(data.get(i).get(3));
-                Calendar calendarBirth = Calendar.getInstance();
-                calendarBirth.setTime(birth);
-                Calendar calendarToday = Calendar.getInstance();
-                age = Integer.toString(calendarToday.get(Calendar.YEAR) - calendarBirth.get(Calendar.YEAR));
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
 
-            } catch (Exception e) {
-                e.printStackTrace();
+                possibleSuggestions.add(age + " " + firstName + " " + lastName);
+                patientLog.put(age + " " + firstName + " " + lastName, id);
             }
-
-            possibleSuggestions.add(age + " " + firstName + " " + lastName);
-            patientLog.put(age + " " + firstName + " " + lastName, id);
-
-        }
-        TextFields.bindAutoCompletion(patientSearchBox, possibleSuggestions);
+            return possibleSuggestions;
+        });
     }
 
     @FXML
@@ -1083,8 +1108,10 @@ public class ReceptionistController extends AnchorPane {
 
     @FXML
     public void loadProfileData() {
+        showProfileData(receptionist.getProfileInfo());
+    }
 
-        HashMap<String, String> receptionistPersonalInfo = receptionist.getProfileInfo();
+    private void showProfileData(HashMap<String, String> receptionistPersonalInfo) {
 
         receptionistName
                 .setText(receptionistPersonalInfo.get("first_name") + " " + receptionistPersonalInfo.get("last_name"));
@@ -0,0 +1,162 @@
+package com.hms.hms_test_2;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs role-class queries in the background so a screen does not freeze while
+ * waiting for the database.
+ *
+ * Queries of all screens share one bounded pool of asyncThreads threads (the
+ * connection pool size by default, since every running query holds a
+ * connection) with room for asyncQueueSize waiting queries. Results are
+ * handed to the callback executor, normally Platform::runLater, so the
+ * returned futures complete on the JavaFX thread and their callbacks may
+ * touch the scene graph. Queries submitted one after the other run in
+ * parallel; combine them with CompletableFuture.allOf or thenCombine.
+ *
+ * Each screen has its own instance. {@link #cancelAll()} drops the results
+ * of everything that screen still waits for, e.g. when it is closed.
+ */
+public class AsyncQueries {
+
+	private static final AtomicInteger threadNo = new AtomicInteger();
+	private static ThreadPoolExecutor executor;
+
+	private final Executor callbacks;
+	private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param callbacks runs the completion of every query, e.g. Platform::runLater
+	 */
+	public AsyncQueries(Executor callbacks) {
+		this.callbacks = callbacks;
+	}
+
+	/**
+	 * Runs the query on the shared pool.
+	 *
+	 * @param query e.g. {@code () -> doctor.getPatientInfo("id", id)}
+	 * @return completed through the callback executor with the result, or
+	 *         exceptionally with what the query threw. Cancelling it interrupts
+	 *         the query if it is still running.
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> query) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		FutureTask<T> task = new FutureTask<T>(query) {
+			@Override
+			protected void done() {
+				if (isCancelled()) {
+					return;
+				}
+				callbacks.execute(() -> {
+					try {
+						result.complete(get());
+					} catch (ExecutionException e) {
+						result.completeExceptionally(e.getCause());
+					} catch (InterruptedException | CancellationException e) {
+						result.cancel(false);
+					}
+				});
+			}
+		};
+
+		pending.add(result);
+		result.whenComplete((value, error) -> {
+			pending.remove(result);
+			if (result.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+
+		try {
+			executor().execute(task);
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	/**
+	 * Runs the query and passes its result to the handler through the callback
+	 * executor. Exceptions of the query or the handler are printed; nothing is
+	 * passed on if the query is cancelled.
+	 */
+	public <T> CompletableFuture<Void> load(Callable<T> query, Consumer<T> handler) {
+		return printErrors(submit(query).thenAccept(handler));
+	}
+
+	/**
+	 * Prints the exception the future completes with, unless it was cancelled.
+	 * For results combined from several queries.
+	 *
+	 * @return the future
+	 */
+	public static <T> CompletableFuture<T> printErrors(CompletableFuture<T> future) {
+		future.whenComplete((value, error) -> {
+			Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+			if (cause != null && !(cause instanceof CancellationException)) {
+				cause.printStackTrace();
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Cancels every query of this instance that has not delivered its result
+	 * yet. Their futures complete with a CancellationException and no handler
+	 * runs. Queries already sent to the database still finish there.
+	 */
+	public void cancelAll() {
+		for (CompletableFuture<?> future : pending) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * @return number of queries of this instance still waiting for a result
+	 */
+	public int pendingCount() {
+		return pending.size();
+	}
+
+	/**
+	 * Stops the shared threads. Called once when the application exits.
+	 */
+	public static synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private static synchronized ThreadPoolExecutor executor() {
+		if (executor == null) {
+			int threads = Math.max(1,
+					DatabaseOperator.intSetting("asyncThreads", DatabaseOperator.intSetting("poolMaxSize", 10)));
+			int queueSize = Math.max(1, DatabaseOperator.intSetting("asyncQueueSize", 100));
+			executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(queueSize), runnable -> {
+						Thread thread = new Thread(runnable, "hms-query-" + threadNo.incrementAndGet());
+						// never keeps the application from exiting
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return executor;
+	}
+}
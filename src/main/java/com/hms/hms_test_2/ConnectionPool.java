@@ -0,0 +1,249 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of JDBC connections shared by every {@link DatabaseOperator} in
+ * the JVM.
+ *
+ * At most {@code maxSize} connections are handed out at once; a caller that
+ * cannot get one within {@code acquireTimeoutMillis} receives an
+ * {@link SQLTimeoutException}. Idle connections are validated before they are
+ * handed out again, and connections idle for longer than
+ * {@code idleTimeoutMillis} are closed as long as at least {@code minSize}
+ * remain open.
+ */
+public class ConnectionPool {
+
+	private final String url;
+	private final String user;
+	private final String password;
+
+	private final int minSize;
+	private final int maxSize;
+	private final long acquireTimeoutMillis;
+	private final long idleTimeoutMillis;
+	private final int validationTimeoutSeconds;
+	private final int statementCacheSize;
+
+	// most recently used connections are kept at the head so they are reused first
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+	private final Semaphore permits;
+	private final AtomicInteger open = new AtomicInteger();
+	private final ScheduledExecutorService evictor;
+
+	private volatile String catalog;
+	private volatile boolean closed;
+
+	/**
+	 * Creates a pool and opens {@code minSize} connections up front.
+	 *
+	 * @param url                      JDBC connection string
+	 * @param user                     database user name
+	 * @param password                 database password
+	 * @param minSize                  connections kept open even when idle
+	 * @param maxSize                  upper bound on open connections
+	 * @param acquireTimeoutMillis     how long a borrower waits for a free
+	 *                                 connection
+	 * @param idleTimeoutMillis        idle time after which surplus connections
+	 *                                 are closed
+	 * @param validationTimeoutSeconds timeout of the liveness check run on borrow
+	 * @param statementCacheSize       prepared statements cached per connection,
+	 *                                 0 to disable the cache
+	 */
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long acquireTimeoutMillis, long idleTimeoutMillis, int validationTimeoutSeconds,
+			int statementCacheSize) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxSize = Math.max(1, maxSize);
+		this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+		this.acquireTimeoutMillis = acquireTimeoutMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.statementCacheSize = statementCacheSize;
+		this.permits = new Semaphore(this.maxSize, true);
+
+		this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "hms-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1000, idleTimeoutMillis / 2);
+		evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+		try {
+			for (int i = 0; i < this.minSize; i++) {
+				idle.offerLast(newConnection());
+			}
+		} catch (SQLException e) {
+			System.out.println("Could not pre-open database connections...");
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * @return true if this pool connects to the given database with the given
+	 *         credentials
+	 */
+	public boolean matches(String url, String user, String password) {
+		return equal(this.url, url) && equal(this.user, user) && equal(this.password, password);
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Sets the database every borrowed connection is switched to.
+	 *
+	 * @param catalog the database name
+	 */
+	public void setCatalog(String catalog) {
+		this.catalog = catalog;
+	}
+
+	/**
+	 * Borrows a connection, waiting up to the acquire timeout for one to become
+	 * free. Every borrowed connection must be given back with
+	 * {@link #release(PooledConnection)}.
+	 */
+	PooledConnection acquire() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is shut down");
+		}
+
+		boolean permitted;
+		try {
+			permitted = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+		if (!permitted) {
+			throw new SQLTimeoutException(
+					"Timed out after " + acquireTimeoutMillis + "ms waiting for a database connection");
+		}
+
+		try {
+			PooledConnection pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				if (isValid(pooled)) {
+					break;
+				}
+				discard(pooled);
+			}
+			if (pooled == null) {
+				pooled = newConnection();
+			}
+			pooled.useCatalog(catalog);
+			return pooled;
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gives a borrowed connection back to the pool. Connections left inside a
+	 * transaction are rolled back first so the next borrower starts clean.
+	 */
+	void release(PooledConnection pooled) {
+		if (pooled == null) {
+			return;
+		}
+		try {
+			Connection connection = pooled.connection();
+			if (closed || connection.isClosed()) {
+				discard(pooled);
+				return;
+			}
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			pooled.touch();
+			idle.offerFirst(pooled);
+		} catch (SQLException e) {
+			discard(pooled);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Closes every idle connection and refuses further borrowers. Connections
+	 * still borrowed are closed when they are released.
+	 */
+	public void shutdown() {
+		closed = true;
+		evictor.shutdownNow();
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			discard(pooled);
+		}
+	}
+
+	/**
+	 * @return number of physical connections currently open
+	 */
+	public int getOpenConnections() {
+		return open.get();
+	}
+
+	/**
+	 * @return number of open connections waiting to be borrowed
+	 */
+	public int getIdleConnections() {
+		return idle.size();
+	}
+
+	void evictIdle() {
+		long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+		Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+		while (oldestFirst.hasNext() && open.get() > minSize) {
+			PooledConnection pooled = oldestFirst.next();
+			if (pooled.lastUsed() < cutoff && idle.removeLastOccurrence(pooled)) {
+				discard(pooled);
+			}
+		}
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		try {
+			return pooled.connection().isValid(validationTimeoutSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private PooledConnection newConnection() throws SQLException {
+		Properties p = new Properties();
+		p.put("user", user);
+		p.put("password", password);
+		Connection connection = DriverManager.getConnection(url, p);
+		open.incrementAndGet();
+		return new PooledConnection(this, connection, statementCacheSize);
+	}
+
+	private void discard(PooledConnection pooled) {
+		open.decrementAndGet();
+		pooled.closeQuietly();
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+}
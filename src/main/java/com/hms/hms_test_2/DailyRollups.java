@@ -0,0 +1,114 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The daily totals the admin reports read instead of the raw appointment,
+ * lab_appointment and bill rows: appointments per day, doctor and cancelled
+ * flag, lab appointments per day, test and cancelled flag, and the bills and
+ * their fees per day and refund flag.
+ *
+ * The tables and the triggers that keep them up to date are created by the
+ * V2__daily_rollups migration; the reports check with {@link #requireMigrated()}
+ * that it was run. Each trigger counts a booking, cancellation,
+ * payment or refund in the transaction that writes it, so a report never sees
+ * one without the other. The migration computes the totals of the rows already
+ * there once the triggers exist; {@link #rebuild()} computes them again from
+ * the raw tables, e.g. after rows were loaded with the triggers disabled.
+ */
+public final class DailyRollups {
+
+	/** the schema version of the V2__daily_rollups migration */
+	public static final int VERSION = 2;
+
+	private static final String[] REBUILD = {
+			"DELETE FROM appointment_daily",
+			"INSERT INTO appointment_daily (day, slmc_reg_no, cancelled, appointments) "
+					+ "SELECT COALESCE(DATE(date), '1000-01-01'), COALESCE(slmc_reg_no, ''), COALESCE(cancelled, 0), "
+					+ "COUNT(*) FROM appointment GROUP BY 1, 2, 3",
+			"DELETE FROM lab_appointment_daily",
+			"INSERT INTO lab_appointment_daily (day, test_id, cancelled, appointments) "
+					+ "SELECT COALESCE(DATE(date), '1000-01-01'), COALESCE(test_id, ''), COALESCE(cancelled, 0), "
+					+ "COUNT(*) FROM lab_appointment GROUP BY 1, 2, 3",
+			"DELETE FROM income_daily",
+			"INSERT INTO income_daily (day, refund, bills, total, doctor_fee, hospital_fee, pharmacy_fee, "
+					+ "laboratory_fee, appointment_fee) "
+					+ "SELECT COALESCE(DATE(bill_date), '1000-01-01'), COALESCE(refund, -1), COUNT(*), "
+					+ "COALESCE(SUM(total), 0), COALESCE(SUM(doctor_fee), 0), COALESCE(SUM(hospital_fee), 0), "
+					+ "COALESCE(SUM(pharmacy_fee), 0), COALESCE(SUM(laboratory_fee), 0), "
+					+ "COALESCE(SUM(appointment_fee), 0) FROM bill GROUP BY 1, 2" };
+
+	private DailyRollups() {
+	}
+
+	/**
+	 * Checks that the tables and triggers were created on the current database,
+	 * so a report fails instead of reading totals that are missing or not kept
+	 * up to date.
+	 *
+	 * @throws SQLException if the migration was not run
+	 */
+	public static void requireMigrated() throws SQLException {
+		DatabaseOperator.requireSchemaVersion(VERSION);
+	}
+
+	/**
+	 * Replaces the daily totals with the ones of the raw tables, in one
+	 * transaction. The raw rows it reads are locked until it commits, so a
+	 * booking or payment made meanwhile waits and is counted on top of the new
+	 * totals.
+	 *
+	 * @throws SQLException if a statement fails; the old totals are kept
+	 */
+	public static void rebuild() throws ClassNotFoundException, SQLException {
+		DatabaseOperator.inTransaction(() -> {
+			replaceTotals(DatabaseOperator.pinConnection());
+			return null;
+		});
+		IncomeAnalytics.getInstance().invalidate();
+	}
+
+	// the same on a connection in auto-commit mode, in a transaction of its own;
+	// run by the migration after it created the triggers
+	static void rebuild(Connection connection) throws SQLException {
+		connection.setAutoCommit(false);
+		try {
+			replaceTotals(connection);
+			connection.commit();
+		} catch (SQLException | RuntimeException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+		IncomeAnalytics.getInstance().invalidate();
+	}
+
+	private static void replaceTotals(Connection connection) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			for (String sql : REBUILD) {
+				stmt.executeUpdate(sql);
+			}
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Rebuilds the daily totals of the database of config.properties.
+	 */
+	public static void main(String[] args) throws Exception {
+		DatabaseOperator dbOperator = new DatabaseOperator();
+		dbOperator.connectAndUseDatabase();
+		try {
+			long start = System.nanoTime();
+			rebuild();
+			System.out.println("Daily rollups rebuilt in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} finally {
+			DatabaseOperator.shutdownPool();
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.hms.hms_test_2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Fills the panels of a dashboard after login.
+ *
+ * The queries of all panels are submitted at once and run side by side on the
+ * {@link AsyncQueries} pool, so the window can be shown with placeholders right
+ * away instead of after every loader has run on the JavaFX thread. Each panel
+ * is filled as soon as its own data arrives; a panel whose query fails keeps
+ * its placeholder and does not hold up the others.
+ *
+ * The time from the start of the warm-up until a panel was filled is recorded
+ * per dashboard and panel. The times of one login are printed once all its
+ * panels are filled, the percentiles over all logins by {@link #getSummary()}.
+ */
+public final class DashboardWarmUp {
+
+	// time until filled, by dashboard and panel
+	private static final ConcurrentSkipListMap<String, LatencyHistogram> panelLatency = new ConcurrentSkipListMap<String, LatencyHistogram>();
+
+	private final String dashboard;
+	private final AsyncQueries queries;
+	private final long started = System.nanoTime();
+	private final List<CompletableFuture<Void>> panels = new ArrayList<CompletableFuture<Void>>();
+	private final Map<String, Long> readyMillis = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
+	/**
+	 * @param dashboard name of the dashboard in the timings, e.g. "cashier"
+	 * @param queries   the queries of the dashboard's screen
+	 */
+	public DashboardWarmUp(String dashboard, AsyncQueries queries) {
+		this.dashboard = dashboard;
+		this.queries = queries;
+	}
+
+	/**
+	 * Starts a query whose result fills more than one panel.
+	 */
+	public <T> CompletableFuture<T> query(Callable<T> query) {
+		return queries.submit(query);
+	}
+
+	/**
+	 * Starts the query of a panel.
+	 *
+	 * @param panel name of the panel in the timings
+	 * @param query reads the data of the panel
+	 * @param fill  shows the data, run through the callback executor of the
+	 *              queries
+	 * @return completed once the panel is filled
+	 */
+	public <T> CompletableFuture<Void> panel(String panel, Callable<T> query, Consumer<T> fill) {
+		return panel(panel, query(query), fill);
+	}
+
+	/**
+	 * Fills a panel with the result of a query started by
+	 * {@link #query(Callable)}.
+	 */
+	public <T> CompletableFuture<Void> panel(String panel, CompletableFuture<T> data, Consumer<T> fill) {
+		CompletableFuture<Void> filled = AsyncQueries.printErrors(data.thenAccept(value -> {
+			fill.accept(value);
+			filled(panel);
+		}));
+		panels.add(filled);
+		return filled;
+	}
+
+	private void filled(String panel) {
+		long micros = (System.nanoTime() - started) / 1000;
+		readyMillis.put(panel, micros / 1000);
+		panelLatency.computeIfAbsent(dashboard + "/" + panel, key -> new LatencyHistogram()).record(micros);
+	}
+
+	/**
+	 * Call after the last panel was added.
+	 *
+	 * @return completed when every panel was filled, failed or cancelled; the
+	 *         times of the filled panels are printed then
+	 */
+	public CompletableFuture<Void> whenFilled() {
+		CompletableFuture<?>[] all = new CompletableFuture<?>[panels.size()];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = panels.get(i).exceptionally(e -> null);
+		}
+		return CompletableFuture.allOf(all).thenRun(() -> System.out.println(this));
+	}
+
+	/**
+	 * @return milliseconds from the start of the warm-up until each filled panel
+	 *         was filled, in the order they were filled
+	 */
+	public Map<String, Long> getTimings() {
+		synchronized (readyMillis) {
+			return new LinkedHashMap<String, Long>(readyMillis);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder(dashboard).append(" dashboard:");
+		String separator = " ";
+		for (Map.Entry<String, Long> timing : getTimings().entrySet()) {
+			text.append(separator).append(timing.getKey()).append(' ').append(timing.getValue()).append(" ms");
+			separator = ", ";
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @param percentile e.g. 99.0 for the 99th percentile
+	 * @return milliseconds until the panel was filled over all logins since
+	 *         the start, 0 if it never was
+	 */
+	public static long getPanelPercentileMillis(String dashboard, String panel, double percentile) {
+		LatencyHistogram histogram = panelLatency.get(dashboard + "/" + panel);
+		return histogram == null ? 0 : histogram.getPercentile(percentile) / 1000;
+	}
+
+	/**
+	 * @return one line per dashboard and panel with the number of times it was
+	 *         filled and the median and 99th percentile time until then, empty
+	 *         if no dashboard was warmed up
+	 */
+	public static String getSummary() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, LatencyHistogram> entry : panelLatency.entrySet()) {
+			LatencyHistogram histogram = entry.getValue();
+			text.append(String.format("%-32s %6d logins  p50 %7d ms  p99 %7d ms%n", entry.getKey(),
+					histogram.getCount(), histogram.getPercentile(50) / 1000, histogram.getPercentile(99) / 1000));
+		}
+		return text.toString();
+	}
+}
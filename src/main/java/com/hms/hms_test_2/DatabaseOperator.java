@@ -1,9 +1,25 @@
 package com.hms.hms_test_2;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.*;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DatabaseOperator {
+
+	/**
+	 * Where a query was run: on the primary database, or on the read-only
+	 * replica configured with readConnection.
+	 */
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
 	private HashMap<String, String> metaDataHash = new HashMap<String, String>() {
 		{
 			put("2003", "ARRAY");
@@ -53,20 +69,63 @@ public class DatabaseOperator {
 	public static String password = "";
 	public static String database = "";
 
-	public static Connection c;
+	private static volatile ConnectionPool pool;
+	// connection a thread has pinned with pinConnection(), used instead of the pool
+	private static final ThreadLocal<PooledConnection> pinned = new ThreadLocal<PooledConnection>();
+
+	// unit of work the calling thread is running in inTransaction(), if any
+	private static final ThreadLocal<Unit> currentUnit = new ThreadLocal<Unit>();
+	private static final LongAdder transactionCommits = new LongAdder();
+	private static final LongAdder transactionRollbacks = new LongAdder();
+	private static final LongAdder transactionRetries = new LongAdder();
+
+	// read-only copy of the database for the queries run in onReplica()
+	private static volatile ConnectionPool replicaPool;
+	// until then the replica is not tried again after it could not be reached
+	private static volatile long replicaDownUntil;
+	private static final ThreadLocal<Boolean> replicaReads = new ThreadLocal<Boolean>();
+	private static final LatencyHistogram[] routeLatency = { new LatencyHistogram(), new LatencyHistogram() };
+	private static final LongAdder replicaFallbacks = new LongAdder();
 
 	private static String currentDatabaseName;
 
+	// rows fetched per round trip by stream(), 0 to stream them one at a time
+	private static volatile int streamFetchSize = 0;
+
+	private static final QueryStats queryStats = new QueryStats();
+
+	// columns and keys of the tables used so far, by database and table name
+	private static final ConcurrentHashMap<String, TableSchema> tableSchemas = new ConcurrentHashMap<String, TableSchema>();
+	// databases whose schema was migrated on the current server
+	private static final Set<String> migratedDatabases = ConcurrentHashMap.newKeySet();
+	// schema versions found by requireSchemaVersion, by database name
+	private static final ConcurrentHashMap<String, Integer> schemaVersions = new ConcurrentHashMap<String, Integer>();
+
+	private static final SystemConfiguration.Snapshot NO_SETTINGS = new SystemConfiguration.Snapshot(
+			Collections.<String, String>emptyMap());
+	// settings that need a new pool when they change while the application runs
+	private static final String[] POOL_SETTINGS = { "poolMinSize", "poolMaxSize", "poolAcquireTimeout",
+			"poolIdleTimeout", "poolValidationTimeout", "statementCacheSize" };
+	// settings that are applied to the running pools and caches
+	private static final String[] LIVE_SETTINGS = { "streamFetchSize", "queryStats", "slowQueryMillis",
+			"slowQueryLog", "slowQueryLogLimit", "slowQueryLogCount", "readConnection", "readUser",
+			"readPassword", "readPoolMaxSize", "readAcquireTimeout", "referenceCacheTtl", "patientIndexTtl",
+			"labWorkloadTtl", "incomeAnalyticsTtl", "reportRefreshInterval", "reportNightlyAt" };
+	// guarded by DatabaseOperator.class
+	private static boolean subscribed;
+	private static String poolUser;
+	private static String poolPassword;
+
 	/**
 	 * Constructor to initialize DatabaseOperator object.
 	 */
 	public DatabaseOperator() {
-		SystemConfiguration config = SystemConfiguration.getInstance();
-		DatabaseOperator.dbClassName = config.getConfig("dbClassName");
-		DatabaseOperator.CONNECTION = config.getConfig("connection");
-		DatabaseOperator.username = config.getConfig("user");
-		DatabaseOperator.password = config.getConfig("password");
-		DatabaseOperator.database = config.getConfig("database");
+		SystemConfiguration.Snapshot config = SystemConfiguration.getInstance().snapshot();
+		DatabaseOperator.dbClassName = config.get("dbClassName");
+		DatabaseOperator.CONNECTION = config.get("connection");
+		DatabaseOperator.username = config.get("user");
+		DatabaseOperator.password = config.get("password");
+		DatabaseOperator.database = config.get("database");
 	}
 
 	/**
@@ -90,10 +149,94 @@ public class DatabaseOperator {
 	 */
 	public void connect(String userName, String password) throws ClassNotFoundException, SQLException {
 		Class.forName(dbClassName);
-		Properties p = new Properties();
-		p.put("user", userName);
-		p.put("password", password);
-		c = DriverManager.getConnection(CONNECTION, p);
+		synchronized (DatabaseOperator.class) {
+			if (pool == null || !pool.matches(CONNECTION, userName, password)) {
+				ConnectionPool old = openPool(CONNECTION, userName, password);
+				if (old != null) {
+					IdGenerator.getInstance().reset();
+					PatientNameIndex.getInstance().reset();
+					ReferenceCache.getInstance().reset();
+					tableSchemas.clear();
+					migratedDatabases.clear();
+					schemaVersions.clear();
+				}
+				applySettings();
+			}
+			configureReplica(userName, password);
+			if (!subscribed) {
+				subscribe();
+				subscribed = true;
+			}
+		}
+		// fail here, as before, if the database cannot be reached
+		release(borrow());
+	}
+
+	// replaces the pool with one made from the current settings; the connections
+	// still in use go back to the old pool, which closes them
+	private static ConnectionPool openPool(String url, String userName, String password) {
+		ConnectionPool old = pool;
+		SystemConfiguration.Snapshot config = settings();
+		pool = new ConnectionPool(url, userName, password, config.getInt("poolMinSize", 1),
+				config.getInt("poolMaxSize", 10), config.getInt("poolAcquireTimeout", 5000),
+				config.getInt("poolIdleTimeout", 300000), config.getInt("poolValidationTimeout", 2),
+				config.getInt("statementCacheSize", 50));
+		if (currentDatabaseName != null) {
+			pool.setCatalog(currentDatabaseName);
+		}
+		if (old != null) {
+			old.shutdown();
+		}
+		poolUser = userName;
+		poolPassword = password;
+		return old;
+	}
+
+	private static void applySettings() {
+		SystemConfiguration.Snapshot config = settings();
+		streamFetchSize = config.getInt("streamFetchSize", 0);
+		queryStats.configure(config.getBoolean("queryStats", true), config.getInt("slowQueryMillis", 1000),
+				config.get("slowQueryLog", "slow-queries%g.log"), config.getInt("slowQueryLogLimit", 1048576),
+				config.getInt("slowQueryLogCount", 5));
+	}
+
+	// applies changes of config.properties made while the application runs
+	private static void subscribe() {
+		String[] keys = Arrays.copyOf(POOL_SETTINGS, POOL_SETTINGS.length + LIVE_SETTINGS.length);
+		System.arraycopy(LIVE_SETTINGS, 0, keys, POOL_SETTINGS.length, LIVE_SETTINGS.length);
+		try {
+			SystemConfiguration.getInstance().subscribe((changed, config) -> settingsChanged(changed), keys);
+		} catch (RuntimeException e) {
+			// no configuration file, nothing can change
+		}
+	}
+
+	private static void settingsChanged(Set<String> changed) {
+		synchronized (DatabaseOperator.class) {
+			ConnectionPool current = pool;
+			if (current != null && !Collections.disjoint(changed, Arrays.asList(POOL_SETTINGS))) {
+				openPool(current.getUrl(), poolUser, poolPassword);
+			}
+			applySettings();
+			if (current != null) {
+				configureReplica(poolUser, poolPassword);
+			}
+		}
+		if (changed.contains("referenceCacheTtl")) {
+			ReferenceCache.getInstance().reset();
+		}
+		if (changed.contains("patientIndexTtl")) {
+			PatientNameIndex.getInstance().reset();
+		}
+		if (changed.contains("labWorkloadTtl")) {
+			LabWorkload.getInstance().invalidate();
+		}
+		if (changed.contains("incomeAnalyticsTtl")) {
+			IncomeAnalytics.getInstance().invalidate();
+		}
+		if (changed.contains("reportRefreshInterval") || changed.contains("reportNightlyAt")) {
+			ReportScheduler.getInstance().reschedule();
+		}
 	}
 
 	/**
@@ -104,10 +247,394 @@ public class DatabaseOperator {
 	}
 
 	/**
-	 * Closes the current database connection.
+	 * Gives back the connection pinned by the calling thread, if any. Pooled
+	 * connections stay open for the next caller; use {@link #shutdownPool()} to
+	 * close them.
 	 */
 	public void close() throws ClassNotFoundException, SQLException {
-		c.close();
+		unpinConnection();
+	}
+
+	/**
+	 * Pins a pooled connection to the calling thread. Every operation the thread
+	 * performs afterwards runs on this connection until
+	 * {@link #unpinConnection()} is called, so they can share one transaction.
+	 * 
+	 * @return the pinned connection
+	 */
+	public static Connection pinConnection() throws SQLException {
+		PooledConnection pc = pinned.get();
+		if (pc == null) {
+			pc = activePool().acquire();
+			pinned.set(pc);
+		}
+		return pc.connection();
+	}
+
+	/**
+	 * Returns the connection pinned by the calling thread to the pool. Any
+	 * uncommitted work on it is rolled back.
+	 */
+	public static void unpinConnection() {
+		PooledConnection pc = pinned.get();
+		if (pc != null) {
+			pinned.remove();
+			pc.owner().release(pc);
+		}
+	}
+
+	/**
+	 * Closes every pooled connection. Called once when the application exits.
+	 */
+	public static void shutdownPool() {
+		synchronized (DatabaseOperator.class) {
+			if (pool != null) {
+				pool.shutdown();
+				pool = null;
+			}
+			if (replicaPool != null) {
+				replicaPool.shutdown();
+				replicaPool = null;
+			}
+		}
+	}
+
+	private static ConnectionPool activePool() throws SQLException {
+		ConnectionPool p = pool;
+		if (p == null) {
+			throw new SQLException("Not connected to the database");
+		}
+		return p;
+	}
+
+	private static PooledConnection borrow() throws SQLException {
+		PooledConnection pc = pinned.get();
+		return pc != null ? pc : activePool().acquire();
+	}
+
+	private static void release(PooledConnection pc) {
+		if (pc != null && pc != pinned.get()) {
+			pc.owner().release(pc);
+		}
+	}
+
+	/**
+	 * Runs the work as one transaction on a connection pinned to the calling
+	 * thread, so its statements are committed together with a single commit, or
+	 * not at all. The statements report their errors as usual, but any error
+	 * rolls the whole unit back and is thrown once the work returns. A unit
+	 * picked as a deadlock victim, or timing out on a lock, is run again up to
+	 * transactionRetries times (3 by default).
+	 *
+	 * Work started inside another unit, or while the thread's pinned connection
+	 * is already in a transaction, becomes part of that transaction and is
+	 * committed by its owner.
+	 *
+	 * @param work the statements to run
+	 * @return the result of the work
+	 * @throws SQLException the error that rolled the unit back
+	 */
+	public static <T> T inTransaction(UnitOfWork<T> work) throws ClassNotFoundException, SQLException {
+		if (currentUnit.get() != null || (pool == null && pinned.get() == null)) {
+			// nested, or not connected, which the statements of the work report
+			return work.run();
+		}
+
+		boolean ownPin = pinned.get() == null;
+		Connection connection = pinConnection();
+		try {
+			if (!connection.getAutoCommit()) {
+				return work.run();
+			}
+
+			int retries = Math.max(0, intSetting("transactionRetries", 3));
+			for (int attempt = 0;; attempt++) {
+				Unit unit = new Unit();
+				currentUnit.set(unit);
+				connection.setAutoCommit(false);
+				try {
+					T result = work.run();
+					if (unit.failure != null) {
+						throw unit.failure;
+					}
+					connection.commit();
+					transactionCommits.increment();
+					return result;
+				} catch (Throwable e) {
+					rollback(connection);
+					if (e instanceof SQLException && isDeadlock((SQLException) e) && attempt < retries) {
+						transactionRetries.increment();
+						backOff(attempt);
+						continue;
+					}
+					throw e;
+				} finally {
+					currentUnit.remove();
+					connection.setAutoCommit(true);
+				}
+			}
+		} finally {
+			if (ownPin) {
+				unpinConnection();
+			}
+		}
+	}
+
+	/**
+	 * @return number of units of work committed by inTransaction
+	 */
+	public static long getTransactionCommits() {
+		return transactionCommits.sum();
+	}
+
+	/**
+	 * @return number of units of work rolled back, including the retried ones
+	 */
+	public static long getTransactionRollbacks() {
+		return transactionRollbacks.sum();
+	}
+
+	/**
+	 * @return number of units of work run again after a deadlock or lock wait
+	 *         timeout
+	 */
+	public static long getTransactionRetries() {
+		return transactionRetries.sum();
+	}
+
+	private static void rollback(Connection connection) {
+		transactionRollbacks.increment();
+		try {
+			connection.rollback();
+		} catch (SQLException e) {
+			// the pool validates the connection before it is used again
+			e.printStackTrace();
+		}
+	}
+
+	// deadlock (1213) or lock wait timeout (1205), in the exception or its causes
+	static boolean isDeadlock(SQLException e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLTransactionRollbackException) {
+				return true;
+			}
+			if (t instanceof SQLException) {
+				SQLException sqlException = (SQLException) t;
+				if ("40001".equals(sqlException.getSQLState()) || sqlException.getErrorCode() == 1213
+						|| sqlException.getErrorCode() == 1205) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	// random wait growing with the attempt, so the retried units do not collide
+	// again
+	private static void backOff(int attempt) throws SQLException {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L << Math.min(attempt, 6)));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted before retrying the transaction", e);
+		}
+	}
+
+	// remembers an error a statement of the current unit of work only reported,
+	// so inTransaction rolls the unit back
+	private static void failUnit(Exception e) {
+		Unit unit = currentUnit.get();
+		if (unit != null && unit.failure == null) {
+			unit.failure = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+		}
+	}
+
+	private static final class Unit {
+		SQLException failure;
+	}
+
+	/**
+	 * Runs the queries of the work on the read-only replica configured with
+	 * readConnection, so long report queries do not compete with the bookings
+	 * on the primary. Meant for reports, which can live with data a few seconds
+	 * old; writes of the work, and everything on a pinned connection, still go to
+	 * the primary. Without a replica, or while it cannot be reached, the queries
+	 * run on the primary.
+	 *
+	 * @param work the queries to run
+	 * @return the result of the work
+	 */
+	public static <T> T onReplica(UnitOfWork<T> work) throws ClassNotFoundException, SQLException {
+		if (replicaReads.get() != null) {
+			return work.run();
+		}
+		replicaReads.set(Boolean.TRUE);
+		try {
+			return work.run();
+		} finally {
+			replicaReads.remove();
+		}
+	}
+
+	/**
+	 * @return true if a replica is configured with readConnection
+	 */
+	public static boolean hasReplica() {
+		return replicaPool != null;
+	}
+
+	/**
+	 * @return number of queries run on the route
+	 */
+	public static long getRouteQueries(Route route) {
+		return routeLatency[route.ordinal()].getCount();
+	}
+
+	/**
+	 * @return time in microseconds within which the given percentage of the
+	 *         queries on the route completed, fetching included
+	 */
+	public static long getRoutePercentileMicros(Route route, double percentile) {
+		return routeLatency[route.ordinal()].getPercentile(percentile);
+	}
+
+	/**
+	 * @return number of queries meant for the replica that ran on the primary
+	 *         because the replica could not be reached
+	 */
+	public static long getReplicaFallbacks() {
+		return replicaFallbacks.sum();
+	}
+
+	/**
+	 * @return the connection URL without its parameters, which may hold a
+	 *         password, and the database in use, e.g. to tell which database
+	 *         data read earlier came from
+	 */
+	public static String getDatabaseIdentity() {
+		int parameters = CONNECTION.indexOf('?');
+		String url = parameters < 0 ? CONNECTION : CONNECTION.substring(0, parameters);
+		return url + " " + currentDatabaseName;
+	}
+
+	/**
+	 * @return the query count and latency of each route, one line per route
+	 */
+	public static String getRouteSummary() {
+		StringBuilder text = new StringBuilder();
+		for (Route route : Route.values()) {
+			text.append(String.format("%-8s %10d queries  p50 %9d us  p99 %9d us%n", route,
+					getRouteQueries(route), getRoutePercentileMicros(route, 50),
+					getRoutePercentileMicros(route, 99)));
+		}
+		text.append(String.format("replica fallbacks %d%n", getReplicaFallbacks()));
+		return text.toString();
+	}
+
+	// (re)creates the replica pool when readConnection, readUser or readPassword
+	// changed; the replica uses the login of the primary unless readUser is set
+	private static void configureReplica(String userName, String password) {
+		String url = setting("readConnection", null);
+		String user = setting("readUser", userName);
+		String pass = setting("readPassword", Objects.equals(user, userName) ? password : "");
+		ConnectionPool replica = replicaPool;
+		if (replica != null && (url == null || !replica.matches(url, user, pass))) {
+			replicaPool = null;
+			replica.shutdown();
+			replica = null;
+		}
+		if (url != null && replica == null) {
+			// no connections up front, an unreachable replica must not stop the
+			// login
+			replica = new ConnectionPool(url, user, pass, 0, intSetting("readPoolMaxSize", 4),
+					intSetting("readAcquireTimeout", 2000), intSetting("poolIdleTimeout", 300000),
+					intSetting("poolValidationTimeout", 2), intSetting("statementCacheSize", 50));
+			if (currentDatabaseName != null) {
+				replica.setCatalog(currentDatabaseName);
+			}
+			replicaDownUntil = 0;
+			replicaPool = replica;
+		}
+	}
+
+	// a connection for a query: from the replica inside onReplica(), unless the
+	// thread has pinned a connection or the replica cannot be reached
+	private static PooledConnection borrowRead() throws SQLException {
+		ConnectionPool replica = replicaPool;
+		if (replica != null && replicaReads.get() != null && pinned.get() == null) {
+			if (System.currentTimeMillis() >= replicaDownUntil) {
+				try {
+					return replica.acquire();
+				} catch (SQLTimeoutException e) {
+					// every replica connection is busy, the replica itself is fine
+				} catch (SQLException e) {
+					replicaDownUntil = System.currentTimeMillis() + intSetting("readRetryMillis", 30000);
+					System.out.println("Replica not available, reading from the primary: " + e.getMessage());
+				}
+			}
+			replicaFallbacks.increment();
+		}
+		return borrow();
+	}
+
+	private static void recordRoute(PooledConnection pc, long start) {
+		if (pc != null) {
+			Route route = pc.owner() == replicaPool ? Route.REPLICA : Route.PRIMARY;
+			routeLatency[route.ordinal()].record((System.nanoTime() - start) / 1000);
+		}
+	}
+
+	// a connection of the pool even if the thread has pinned one, for work that
+	// must commit on its own
+	static PooledConnection borrowUnpinned() throws SQLException {
+		return activePool().acquire();
+	}
+
+	static void releaseUnpinned(PooledConnection pc) {
+		if (pc != null) {
+			pc.owner().release(pc);
+		}
+	}
+
+	// the current settings, none if there is no configuration file
+	static SystemConfiguration.Snapshot settings() {
+		try {
+			return SystemConfiguration.getInstance().snapshot();
+		} catch (RuntimeException e) {
+			return NO_SETTINGS;
+		}
+	}
+
+	static String setting(String key, String defaultValue) {
+		return settings().get(key, defaultValue);
+	}
+
+	static int intSetting(String key, int defaultValue) {
+		return settings().getInt(key, defaultValue);
+	}
+
+	static Duration durationSetting(String key, ChronoUnit plainUnit, Duration defaultValue) {
+		return settings().getDuration(key, plainUnit, defaultValue);
+	}
+
+	// the columns and keys of the table in the current database, read on first use
+	private static TableSchema tableSchema(String tableName) throws SQLException {
+		String key = currentDatabaseName + "." + tableName;
+		TableSchema schema = tableSchemas.get(key);
+		if (schema == null) {
+			PooledConnection pc = borrow();
+			try {
+				schema = TableSchema.load(pc.connection(), tableName);
+			} finally {
+				release(pc);
+			}
+			tableSchemas.put(key, schema);
+		}
+		return schema;
+	}
+
+	private static void forgetTableSchema(String tableName) {
+		tableSchemas.remove(currentDatabaseName + "." + tableName);
 	}
 
 	/**
@@ -118,16 +645,21 @@ public class DatabaseOperator {
 	public void createDatabase(String databaseName) throws ClassNotFoundException, SQLException {
 
 		String sql = "CREATE DATABASE " + databaseName + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
+		PooledConnection pc = borrow();
 		try {
-			stmt.executeUpdate();
-			System.out.println("Creating Database...\n");
-		} catch (SQLException e) {
-			e.printStackTrace();
-			System.out.println("Error in creating Database");
-		}
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			try {
+				stmt.executeUpdate();
+				System.out.println("Creating Database...\n");
+			} catch (SQLException e) {
+				e.printStackTrace();
+				System.out.println("Error in creating Database");
+			}
 
-		stmt.close();
+			stmt.close();
+		} finally {
+			release(pc);
+		}
 	}
 
 	/**
@@ -140,43 +672,117 @@ public class DatabaseOperator {
 
 		int i = 1;
 		String sql = "SHOW DATABASES;";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
 		ArrayList<String> dbNames = new ArrayList<String>();
+		PooledConnection pc = borrow();
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			ResultSet rs = stmt.executeQuery(sql);
 
-		while (rs.next()) {
-			// Retrieve by column name
-			String dbName = rs.getString("Database");
-			dbNames.add(dbName);
-			// Display values
-			System.out.print(i + " " + dbName + "\n");
-			i++;
-		}
+			while (rs.next()) {
+				// Retrieve by column name
+				String dbName = rs.getString("Database");
+				dbNames.add(dbName);
+				// Display values
+				System.out.print(i + " " + dbName + "\n");
+				i++;
+			}
 
-		rs.close();
-		stmt.close();
+			rs.close();
+			stmt.close();
+		} finally {
+			release(pc);
+		}
 		return dbNames;
 	}
 
 	/**
-	 * Selects the specified database to use.
+	 * Selects the specified database to use. Every pooled connection is switched
+	 * to it when it is borrowed.
 	 * 
 	 * @param databaseName the name of the database to select
 	 */
 	public void useDatabase(String databaseName) throws ClassNotFoundException, SQLException {
 		String sql = "USE " + databaseName + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = null;
+		PooledConnection pc = borrow();
 		try {
-			rs = stmt.executeQuery(sql);
-			System.out.println("\n### Database Changed to " + databaseName + "###\n");
-			currentDatabaseName = databaseName;
-			rs.close();
-		} catch (Exception e) {
-			System.out.println("No Such Database exist!!!");
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			ResultSet rs = null;
+			try {
+				rs = stmt.executeQuery(sql);
+				System.out.println("\n### Database Changed to " + databaseName + "###\n");
+				if (!databaseName.equals(currentDatabaseName)) {
+					IdGenerator.getInstance().reset();
+					PatientNameIndex.getInstance().reset();
+					ReferenceCache.getInstance().reset();
+					tableSchemas.clear();
+				}
+				currentDatabaseName = databaseName;
+				pc.owner().setCatalog(databaseName);
+				ConnectionPool replica = replicaPool;
+				if (replica != null) {
+					replica.setCatalog(databaseName);
+				}
+				rs.close();
+			} catch (Exception e) {
+				System.out.println("No Such Database exist!!!");
+			} finally {
+
+				stmt.close();
+			}
 		} finally {
+			release(pc);
+		}
+		if (databaseName.equals(currentDatabaseName)) {
+			migrateSchema(databaseName);
+		}
+	}
 
-			stmt.close();
+	// runs the schema migrations the first time a database is used if
+	// migrateSchema is true; otherwise they are left to SchemaMigrator. A
+	// failure is thrown, and tried again the next time the database is used
+	private static void migrateSchema(String databaseName) throws SQLException {
+		if (!settings().getBoolean("migrateSchema", false) || !migratedDatabases.add(databaseName)) {
+			return;
+		}
+		PooledConnection pc = null;
+		try {
+			pc = borrowUnpinned();
+			SchemaMigrator.migrate(pc.connection());
+		} catch (SQLException e) {
+			migratedDatabases.remove(databaseName);
+			throw e;
+		} finally {
+			releaseUnpinned(pc);
+		}
+	}
+
+	/**
+	 * Checks that the migrations up to the version were run on the current
+	 * database, e.g. before reading the tables they add. Once a database is
+	 * found to be at the version it is not checked again.
+	 * 
+	 * @param version the version of the migration, see SchemaMigrator
+	 * @throws SQLException if the database is at an older version
+	 */
+	public static void requireSchemaVersion(int version) throws SQLException {
+		String databaseName = currentDatabaseName;
+		Integer known = databaseName != null ? schemaVersions.get(databaseName) : null;
+		if (known != null && known >= version) {
+			return;
+		}
+		int current;
+		PooledConnection pc = borrow();
+		try {
+			current = SchemaMigrator.currentVersion(pc.connection());
+		} finally {
+			release(pc);
+		}
+		if (current < version) {
+			throw new SQLException("The schema of " + databaseName + " is at version " + current + ", not "
+					+ version + "; run com.hms.hms_test_2.SchemaMigrator first");
+		}
+		if (databaseName != null) {
+			schemaVersions.put(databaseName, current);
 		}
 	}
 
@@ -197,14 +803,18 @@ public class DatabaseOperator {
 	 */
 	public void createTable(String tableName, String columnHeaders) throws ClassNotFoundException, SQLException {
 
+		PooledConnection pc = borrow();
 		try {
 			String sql = "CREATE TABLE " + tableName + " " + columnHeaders + ";";
-			PreparedStatement stmt = c.prepareStatement(sql);
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
 			stmt.executeUpdate();
 			System.out.println("Created the table...");
 			stmt.close();
 		} catch (Exception e) {
 			System.out.println("Error in creating the table...");
+		} finally {
+			forgetTableSchema(tableName);
+			release(pc);
 		}
 
 	}
@@ -217,22 +827,27 @@ public class DatabaseOperator {
 	public ArrayList<String> showTables() throws ClassNotFoundException, SQLException {
 
 		String sql = "SHOW TABLES;";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
 		ArrayList<String> tables = new ArrayList<String>();
+		PooledConnection pc = borrow();
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			ResultSet rs = stmt.executeQuery(sql);
 
-		System.out.println("Tables of " + currentDatabaseName + "...\n");
-		int tableIndex = 0;
-		while (rs.next()) {
-			// Retrieve by column name
-			String table = rs.getString("Tables_in_" + currentDatabaseName);
-			// Display values
-			tables.add(table);
-			System.out.println(tableIndex + " " + table);
-			tableIndex++;
-		}
-		rs.close();
-		stmt.close();
+			System.out.println("Tables of " + currentDatabaseName + "...\n");
+			int tableIndex = 0;
+			while (rs.next()) {
+				// Retrieve by column name
+				String table = rs.getString("Tables_in_" + currentDatabaseName);
+				// Display values
+				tables.add(table);
+				System.out.println(tableIndex + " " + table);
+				tableIndex++;
+			}
+			rs.close();
+			stmt.close();
+		} finally {
+			release(pc);
+		}
 		return tables;
 	}
 
@@ -245,54 +860,23 @@ public class DatabaseOperator {
 	 */
 	public ArrayList<ArrayList<String>> showTableMetaData(String tableName)
 			throws ClassNotFoundException, SQLException {
-		String sql = "SELECT * FROM " + tableName + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int noOfColumns = rsmd.getColumnCount();
-
-		ArrayList<String> TableColumnKeys = new ArrayList<String>();
-		ResultSet rss;
-
-		DatabaseMetaData meta = c.getMetaData();
-		try {
-			rss = meta.getPrimaryKeys(null, null, tableName);
-			while (rss.next()) {
-				TableColumnKeys.add(rss.getString(4));
-			}
-
-			rss = meta.getExportedKeys(null, null, tableName);
-			while (rss.next()) {
-				TableColumnKeys.add(rss.getString(4));
-			}
+		TableSchema schema = tableSchema(tableName);
 
-		} catch (Exception e) {
-		}
-
-		int nullable;
-		int type;
-
-		ArrayList<String> TableColumnNames = new ArrayList<String>();
+		ArrayList<String> TableColumnNames = new ArrayList<String>(schema.getColumnNames());
 		ArrayList<String> TableDataTypes = new ArrayList<String>();
 		ArrayList<String> TableColumnNull = new ArrayList<String>();
+		ArrayList<String> TableColumnKeys = new ArrayList<String>(schema.getKeys());
 
-		for (int i = 0; i < noOfColumns; i++) {
-			String name = rsmd.getColumnName(i + 1);
-			TableColumnNames.add(name);
-
-			type = rsmd.getColumnType(i + 1);
-
-			String typeName = metaDataHash.get(Integer.toString(type));
+		for (int i = 0; i < schema.getColumnCount(); i++) {
+			String typeName = metaDataHash.get(Integer.toString(schema.getColumnType(i)));
 			TableDataTypes.add(typeName);
-			// System.out.println(typeName);
 
-			nullable = rsmd.isNullable(i + 1);
-			if (nullable == ResultSetMetaData.columnNullable) {
+			if (schema.isNullable(i)) {
 				TableColumnNull.add("Null");
 			} else
 				TableColumnNull.add("Not Null");
-
 		}
+
 		ArrayList<ArrayList<String>> metaData = new ArrayList<ArrayList<String>>();
 		metaData.add(TableColumnNames);
 		metaData.add(TableDataTypes);
@@ -310,11 +894,7 @@ public class DatabaseOperator {
 	 */
 	public boolean addTableRow(String table, String tableData) throws ClassNotFoundException, SQLException {
 		boolean result = true;
-		String sql = "SELECT * FROM " + table + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int noOfColumns = rsmd.getColumnCount();
+		int noOfColumns = tableSchema(table).getColumnCount();
 		String columnHeaders = "";
 		for (int i = 0; i < noOfColumns; i++) {
 			columnHeaders += "?";
@@ -324,25 +904,35 @@ public class DatabaseOperator {
 
 		String[] tableDataSplit = tableData.split(",");
 
-		sql = "INSERT INTO " + table + " VALUES (" + columnHeaders + ")";
-		stmt = c.prepareStatement(sql);
-
-		for (int i = 0; i < noOfColumns; i++) {
-			// System.out.println(tableDataSplit[i]);
-			stmt.setString(i + 1, tableDataSplit[i]);
-		}
-
+		String sql = "INSERT INTO " + table + " VALUES (" + columnHeaders + ")";
+		PooledConnection pc = borrow();
 		try {
-			stmt.executeUpdate();
-			System.out.println("Inserted records into the table...");
-		} catch (SQLException e) {
-			System.out.println("Error when inserting records into the table...");
-			result = false;
-			e.printStackTrace();
-		}
+			StatementCache cache = pc.statements();
+			PreparedStatement stmt = cache.prepare(pc.connection(), sql);
+			try {
+				for (int i = 0; i < noOfColumns; i++) {
+					stmt.setString(i + 1, tableDataSplit[i]);
+				}
 
-		rs.close();
-		stmt.close();
+				long start = System.nanoTime();
+				try {
+					int rows = stmt.executeUpdate();
+					recordQuery(sql, start, 0, rows, 0, false);
+					System.out.println("Inserted records into the table...");
+				} catch (SQLException e) {
+					recordQuery(sql, start, 0, 0, 0, true);
+					System.out.println("Error when inserting records into the table...");
+					result = false;
+					e.printStackTrace();
+				}
+			} finally {
+				if (!cache.isEnabled()) {
+					stmt.close();
+				}
+			}
+		} finally {
+			release(pc);
+		}
 		return result;
 	}
 
@@ -357,17 +947,23 @@ public class DatabaseOperator {
 	public void deleteTableRow(String tableName, String ColumnName, String fieldValue)
 			throws ClassNotFoundException, SQLException {
 		String sql = "DELETE FROM " + tableName + " WHERE " + ColumnName + "=?";
-		PreparedStatement stmt = c.prepareStatement(sql);
+		PooledConnection pc = borrow();
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
 
-		stmt.setString(1, fieldValue);
+			stmt.setString(1, fieldValue);
 
-		try {
-			stmt.executeUpdate();
-			System.out.println("Deleted records from the table...");
-		} catch (SQLException e) {
-			System.out.println("Error in Deleting records from the table...");
+			try {
+				stmt.executeUpdate();
+				System.out.println("Deleted records from the table...");
+			} catch (SQLException e) {
+				System.out.println("Error in Deleting records from the table...");
+				failUnit(e);
+			}
+			stmt.close();
+		} finally {
+			release(pc);
 		}
-		stmt.close();
 	}
 
 	/**
@@ -381,17 +977,23 @@ public class DatabaseOperator {
 	public void deleteTableRow(String tableName, String ColumnName, int fieldValue)
 			throws ClassNotFoundException, SQLException {
 		String sql = "DELETE FROM " + tableName + " WHERE " + ColumnName + "=?";
-		PreparedStatement stmt = c.prepareStatement(sql);
+		PooledConnection pc = borrow();
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
 
-		stmt.setInt(1, fieldValue);
+			stmt.setInt(1, fieldValue);
 
-		try {
-			stmt.executeUpdate();
-			System.out.println("Deleted records from the table...");
-		} catch (SQLException e) {
-			System.out.println("Error in Deleting records from the table...");
+			try {
+				stmt.executeUpdate();
+				System.out.println("Deleted records from the table...");
+			} catch (SQLException e) {
+				System.out.println("Error in Deleting records from the table...");
+				failUnit(e);
+			}
+			stmt.close();
+		} finally {
+			release(pc);
 		}
-		stmt.close();
 	}
 
 	/**
@@ -402,10 +1004,18 @@ public class DatabaseOperator {
 	 */
 	public ArrayList<ArrayList<String>> showTableData(String tableName) throws ClassNotFoundException, SQLException {
 		ArrayList<ArrayList<String>> main = null;
+		PooledConnection pc = null;
+		String sql = "SELECT * FROM " + tableName + ";";
+		long start = System.nanoTime();
+		long executed = 0;
+		long chars = 0;
+		boolean failed = true;
 		try {
-			String sql = "SELECT * FROM " + tableName + ";";
-			PreparedStatement stmt = c.prepareStatement(sql);
+			pc = borrow();
+			start = System.nanoTime();
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
 			ResultSet rs = stmt.executeQuery(sql);
+			executed = System.nanoTime();
 			ResultSetMetaData rsmd = rs.getMetaData();
 			int noOfColumns = rsmd.getColumnCount();
 
@@ -414,13 +1024,6 @@ public class DatabaseOperator {
 				columnNames[i] = rsmd.getColumnName(i + 1);
 			}
 
-			System.out.println("\n\nRetrieving records from the table...\n");
-
-			for (String cName : columnNames) {
-				System.out.print(cName + " | ");
-			}
-			System.out.print("\n\n");
-
 			main = new ArrayList<ArrayList<String>>();
 			String fieldValue;
 			while (rs.next()) {
@@ -429,15 +1032,21 @@ public class DatabaseOperator {
 				for (int i = 0; i < noOfColumns; i++) {
 					fieldValue = rs.getString(columnNames[i]);
 					tmpRow.add(fieldValue);
+					if (fieldValue != null) {
+						chars += fieldValue.length();
+					}
 				}
 				main.add(tmpRow);
-				System.out.println();
 			}
 
 			rs.close();
 			stmt.close();
+			failed = false;
 		} catch (Exception e) {
-			System.out.println("\n\nTable Doesn't Exist!");
+			queryStats.logError(sql, e);
+		} finally {
+			release(pc);
+			recordQuery(sql, start, executed, main == null ? 0 : main.size(), chars, failed);
 		}
 		return main;
 	}
@@ -455,22 +1064,37 @@ public class DatabaseOperator {
 		int length = splittedColumns.length;
 
 		String sql = "SELECT " + columNames + " FROM " + tableName + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
-
-		System.out.println("\n\nRetrieving records from the table...\n");
+		PooledConnection pc = borrow();
+		long start = System.nanoTime();
+		long executed = 0;
+		long rows = 0;
+		long chars = 0;
+		boolean failed = true;
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			ResultSet rs = stmt.executeQuery(sql);
+			executed = System.nanoTime();
 
-		String fieldValue;
-		while (rs.next()) {
-			// Retrieve by column name
-			for (int i = 0; i < length; i++) {
-				fieldValue = rs.getString(splittedColumns[i]);
-				System.out.print(fieldValue + "\t");
+			String fieldValue;
+			while (rs.next()) {
+				// Retrieve by column name
+				for (int i = 0; i < length; i++) {
+					fieldValue = rs.getString(splittedColumns[i]);
+					System.out.print(fieldValue + "\t");
+					if (fieldValue != null) {
+						chars += fieldValue.length();
+					}
+				}
+				System.out.println();
+				rows++;
 			}
-			System.out.println();
+			rs.close();
+			stmt.close();
+			failed = false;
+		} finally {
+			release(pc);
+			recordQuery(sql, start, executed, rows, chars, failed);
 		}
-		rs.close();
-		stmt.close();
 
 	}
 
@@ -490,23 +1114,37 @@ public class DatabaseOperator {
 		int length = splittedColumns.length;
 
 		String sql = "SELECT " + columNames + " FROM " + tableName + " WHERE " + rowsAttributes + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
-		ResultSet rs = stmt.executeQuery(sql);
-
 		ArrayList<ArrayList<String>> table = new ArrayList<ArrayList<String>>();
+		PooledConnection pc = borrow();
+		long start = System.nanoTime();
+		long executed = 0;
+		long chars = 0;
+		boolean failed = true;
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			ResultSet rs = stmt.executeQuery(sql);
+			executed = System.nanoTime();
 
-		String fieldValue;
-		while (rs.next()) {
-			ArrayList<String> row = new ArrayList<String>();
-			// Retrieve by column name
-			for (int i = 0; i < length; i++) {
-				fieldValue = rs.getString(splittedColumns[i]);
-				row.add(fieldValue);
+			String fieldValue;
+			while (rs.next()) {
+				ArrayList<String> row = new ArrayList<String>();
+				// Retrieve by column name
+				for (int i = 0; i < length; i++) {
+					fieldValue = rs.getString(splittedColumns[i]);
+					row.add(fieldValue);
+					if (fieldValue != null) {
+						chars += fieldValue.length();
+					}
+				}
+				table.add(row);
 			}
-			table.add(row);
+			rs.close();
+			stmt.close();
+			failed = false;
+		} finally {
+			release(pc);
+			recordQuery(sql, start, executed, table.size(), chars, failed);
 		}
-		rs.close();
-		stmt.close();
 		return table;
 	}
 
@@ -519,9 +1157,17 @@ public class DatabaseOperator {
 	 */
 	public ArrayList<ArrayList<String>> customSelection(String sql) throws ClassNotFoundException, SQLException {
 		ArrayList<ArrayList<String>> main = null;
+		PooledConnection pc = null;
+		long start = System.nanoTime();
+		long executed = 0;
+		long chars = 0;
+		boolean failed = true;
 		try {
-			PreparedStatement stmt = c.prepareStatement(sql);
+			pc = borrowRead();
+			start = System.nanoTime();
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
 			ResultSet rs = stmt.executeQuery(sql);
+			executed = System.nanoTime();
 			ResultSetMetaData rsmd = rs.getMetaData();
 			int noOfColumns = rsmd.getColumnCount();
 
@@ -539,57 +1185,436 @@ public class DatabaseOperator {
 				for (int i = 0; i < noOfColumns; i++) {
 					fieldValue = rs.getString(columnNames[i]);
 					tmpRow.add(fieldValue);
+					if (fieldValue != null) {
+						chars += fieldValue.length();
+					}
 				}
 				main.add(tmpRow);
-				System.out.println();
 			}
 
 			rs.close();
 			stmt.close();
+			failed = false;
 		} catch (Exception e) {
-			System.out.println("\n\nError: " + sql);
-			e.printStackTrace();
+			queryStats.logError(sql, e);
+			failUnit(e);
+		} finally {
+			release(pc);
+			recordRoute(pc, start);
+			recordQuery(sql, start, executed, main == null ? 0 : main.size() - 1, chars, failed);
 		}
 		return main;
 	}
 
+	/**
+	 * Performs a parameterised selection. The template is prepared once per
+	 * pooled connection and reused from the statement cache afterwards, so
+	 * repeated lookups only send the parameters.
+	 *
+	 * @param sqlTemplate the SQL query with a ? placeholder for every parameter
+	 * @param params      the values bound to the placeholders, in order
+	 * @return a list of lists containing the selected data, with the column
+	 *         names as the first row
+	 */
+	public ArrayList<ArrayList<String>> select(String sqlTemplate, Object... params)
+			throws ClassNotFoundException, SQLException {
+		ArrayList<ArrayList<String>> main = null;
+		PooledConnection pc = null;
+		long start = System.nanoTime();
+		long executed = 0;
+		long chars = 0;
+		boolean failed = true;
+		try {
+			pc = borrowRead();
+			start = System.nanoTime();
+			StatementCache cache = pc.statements();
+			PreparedStatement stmt = cache.prepare(pc.connection(), sqlTemplate);
+			try {
+				for (int i = 0; i < params.length; i++) {
+					stmt.setObject(i + 1, params[i]);
+				}
+				ResultSet rs = stmt.executeQuery();
+				executed = System.nanoTime();
+				ResultSetMetaData rsmd = rs.getMetaData();
+				int noOfColumns = rsmd.getColumnCount();
+
+				ArrayList<String> columnNames = new ArrayList<String>(noOfColumns);
+				for (int i = 0; i < noOfColumns; i++) {
+					columnNames.add(rsmd.getColumnLabel(i + 1));
+				}
+
+				main = new ArrayList<ArrayList<String>>();
+				main.add(columnNames);
+				while (rs.next()) {
+					ArrayList<String> tmpRow = new ArrayList<String>(noOfColumns);
+					for (int i = 0; i < noOfColumns; i++) {
+						String fieldValue = rs.getString(i + 1);
+						tmpRow.add(fieldValue);
+						if (fieldValue != null) {
+							chars += fieldValue.length();
+						}
+					}
+					main.add(tmpRow);
+				}
+				rs.close();
+				failed = false;
+			} finally {
+				if (!cache.isEnabled()) {
+					stmt.close();
+				}
+			}
+		} catch (Exception e) {
+			queryStats.logError(sqlTemplate, e);
+			failUnit(e);
+		} finally {
+			release(pc);
+			recordRoute(pc, start);
+			recordQuery(sqlTemplate, start, executed, main == null ? 0 : main.size() - 1, chars, failed);
+		}
+		return main;
+	}
+
+	/**
+	 * Performs a parameterised selection and returns the rows as a typed,
+	 * column oriented table instead of a list of strings. Meant for large report
+	 * queries whose numbers and dates would otherwise be parsed back from text.
+	 *
+	 * @param sqlTemplate the SQL query with a ? placeholder for every parameter
+	 * @param params      the values bound to the placeholders, in order
+	 * @return the selected data, or null if the query failed
+	 */
+	public ResultTable customSelection(String sqlTemplate, List<?> params)
+			throws ClassNotFoundException, SQLException {
+		ResultTable table = null;
+		PooledConnection pc = null;
+		long start = System.nanoTime();
+		long executed = 0;
+		try {
+			pc = borrowRead();
+			start = System.nanoTime();
+			StatementCache cache = pc.statements();
+			PreparedStatement stmt = cache.prepare(pc.connection(), sqlTemplate);
+			try {
+				for (int i = 0; i < params.size(); i++) {
+					stmt.setObject(i + 1, params.get(i));
+				}
+				ResultSet rs = stmt.executeQuery();
+				executed = System.nanoTime();
+				table = ResultTable.from(rs);
+				rs.close();
+			} finally {
+				if (!cache.isEnabled()) {
+					stmt.close();
+				}
+			}
+		} catch (Exception e) {
+			queryStats.logError(sqlTemplate, e);
+			failUnit(e);
+		} finally {
+			release(pc);
+			recordRoute(pc, start);
+			recordQuery(sqlTemplate, start, executed, table == null ? 0 : table.getRowCount(), 0, table == null);
+		}
+		return table;
+	}
+
+	/**
+	 * Runs a parameterised selection on a forward-only, read-only cursor and hands
+	 * each row to the handler as it is fetched, so the result is never held in
+	 * memory as a whole.
+	 *
+	 * By default the driver streams the rows one at a time (fetch size
+	 * Integer.MIN_VALUE). A positive streamFetchSize fetches that many rows per
+	 * round trip instead, which MySQL Connector/J only does with
+	 * useCursorFetch=true in the connection URL; without it the driver would
+	 * read the whole result into memory. Until the last row is read the
+	 * connection cannot run other statements, so the handler must not query the
+	 * database on a connection pinned by the calling thread.
+	 *
+	 * @param sqlTemplate the SQL query with a ? placeholder for every parameter
+	 * @param params      the values bound to the placeholders, in order
+	 * @param handler     called once before the first row and once for every row;
+	 *                    an exception it throws stops the stream and is thrown
+	 * @return the number of rows handled
+	 */
+	public long stream(String sqlTemplate, List<?> params, RowHandler handler)
+			throws ClassNotFoundException, SQLException {
+		long rows = 0;
+		PooledConnection pc = borrowRead();
+		long start = System.nanoTime();
+		long executed = 0;
+		boolean failed = true;
+		try {
+			PreparedStatement stmt = pc.connection().prepareStatement(sqlTemplate, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			try {
+				int fetchSize = streamFetchSize;
+				stmt.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+				for (int i = 0; i < params.size(); i++) {
+					stmt.setObject(i + 1, params.get(i));
+				}
+				ResultSet rs = stmt.executeQuery();
+				executed = System.nanoTime();
+				try {
+					handler.start(rs.getMetaData());
+					while (rs.next()) {
+						handler.handleRow(rs);
+						rows++;
+					}
+				} finally {
+					rs.close();
+				}
+				failed = false;
+			} finally {
+				stmt.close();
+			}
+		} finally {
+			release(pc);
+			recordRoute(pc, start);
+			// the fetch time includes the time spent in the handler
+			recordQuery(sqlTemplate, start, executed, rows, 0, failed);
+		}
+		return rows;
+	}
+
+	/**
+	 * Streams the result of a parameterised selection to the writer as CSV, with
+	 * the column names as the first line, so an empty result gives the header
+	 * only. The query is stopped at the first write that fails.
+	 *
+	 * @param sqlTemplate the SQL query with a ? placeholder for every parameter
+	 * @param params      the values bound to the placeholders, in order
+	 * @param out         where the CSV text is written; it is not closed
+	 * @return the number of data rows written
+	 * @throws IOException the first write that failed
+	 */
+	public long exportCsv(String sqlTemplate, List<?> params, Writer out)
+			throws ClassNotFoundException, SQLException, IOException {
+		final StringBuilder line = new StringBuilder();
+		final IOException[] failure = new IOException[1];
+		try {
+			return stream(sqlTemplate, params, new RowHandler() {
+				private int noOfColumns;
+
+				@Override
+				public void start(ResultSetMetaData columns) throws SQLException {
+					noOfColumns = columns.getColumnCount();
+					for (int i = 1; i <= noOfColumns; i++) {
+						appendCsvField(line, columns.getColumnLabel(i), i == noOfColumns);
+					}
+					write();
+				}
+
+				@Override
+				public void handleRow(ResultSet row) throws SQLException {
+					for (int i = 1; i <= noOfColumns; i++) {
+						appendCsvField(line, row.getString(i), i == noOfColumns);
+					}
+					write();
+				}
+
+				// an exception stops the stream, the IOException is thrown below
+				private void write() throws SQLException {
+					try {
+						out.write(line.toString());
+					} catch (IOException e) {
+						failure[0] = e;
+						throw new SQLException("CSV export failed", e);
+					}
+					line.setLength(0);
+				}
+			});
+		} catch (SQLException e) {
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			throw e;
+		}
+	}
+
+	private static void appendCsvField(StringBuilder line, String value, boolean last) {
+		if (value != null) {
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+					|| value.indexOf('\r') >= 0) {
+				line.append('"').append(value.replace("\"", "\"\"")).append('"');
+			} else {
+				line.append(value);
+			}
+		}
+		line.append(last ? "\r\n" : ",");
+	}
+
+	/**
+	 * Returns a new ID for a record, e.g. "app0042" for an appointment. IDs are
+	 * never handed out twice, even to concurrent callers.
+	 * 
+	 * @param sequence the kind of record the ID is for
+	 * @return the new ID
+	 */
+	public String nextId(IdSequence sequence) throws SQLException {
+		return IdGenerator.getInstance().next(sequence);
+	}
+
+	/**
+	 * @return number of parameterised queries served from the statement cache
+	 */
+	public static long getStatementCacheHits() {
+		return StatementCache.hits();
+	}
+
+	/**
+	 * @return number of parameterised queries that had to be prepared
+	 */
+	public static long getStatementCacheMisses() {
+		return StatementCache.misses();
+	}
+
+	/**
+	 * @return the cache of hospital reference data shared by every user, or
+	 *         null if it is turned off with referenceCacheTtl = 0
+	 */
+	public ReferenceCache referenceCache() {
+		return durationSetting("referenceCacheTtl", ChronoUnit.SECONDS, ReferenceCache.DEFAULT_TTL).toMillis() > 0
+				? ReferenceCache.getInstance()
+				: null;
+	}
+
+	/**
+	 * @return execution statistics of the statements run so far, e.g.
+	 *         {@code getQueryStats().dump(20)} for the 20 statements that took
+	 *         the most time
+	 */
+	public static QueryStats getQueryStats() {
+		return queryStats;
+	}
+
+	// executed is the time the statement returned its first rows, 0 if the
+	// whole time was spent executing it
+	private static void recordQuery(String sql, long start, long executed, long rows, long chars, boolean failed) {
+		long end = System.nanoTime();
+		if (executed == 0) {
+			executed = end;
+		}
+		queryStats.record(sql, executed - start, end - executed, rows, chars, failed);
+	}
+
 	/**
 	 * Performs a custom insertion operation on a table using the provided SQL
 	 * query.
-	 *
+	 * 
 	 * @param sql the SQL query for insertion
 	 * @return true if the insertion was successful, false otherwise
 	 */
 	public boolean customInsertion(String sql) throws ClassNotFoundException, SQLException {
 		boolean result = true;
+		PooledConnection pc = null;
+		long start = System.nanoTime();
+		int rows = 0;
 		try {
-			PreparedStatement stmt = c.prepareStatement(sql);
-			ResultSet rs = stmt.executeQuery(sql);
-			rs.close();
-			stmt.close();
+			pc = borrow();
+			start = System.nanoTime();
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			try {
+				rows = stmt.executeUpdate();
+			} finally {
+				stmt.close();
+			}
 		} catch (Exception e) {
-			System.out.println("Error in selecting the data...");
+			System.out.println("Error in inserting the data...");
 			e.printStackTrace();
 			result = false;
+			failUnit(e);
+		} finally {
+			release(pc);
+			recordQuery(sql, start, 0, rows, 0, !result);
 		}
 		return result;
 	}
 
+	/**
+	 * Runs one parameterised statement for many rows as a JDBC batch in a single
+	 * transaction: either every row is written or, if one fails, none. If the
+	 * calling thread has pinned a connection the rows become part of its
+	 * transaction instead, and committing is left to the caller.
+	 * 
+	 * @param sqlTemplate the SQL statement with a ? placeholder for every value
+	 * @param rows        the values of each row, in placeholder order
+	 * @return the update count of every row
+	 */
+	public int[] batchUpdate(String sqlTemplate, List<? extends List<?>> rows)
+			throws ClassNotFoundException, SQLException {
+		if (rows.isEmpty()) {
+			return new int[0];
+		}
+		PooledConnection pc = borrow();
+		boolean ownTransaction = pc != pinned.get();
+		Connection connection = pc.connection();
+		try {
+			boolean autoCommit = connection.getAutoCommit();
+			if (ownTransaction) {
+				connection.setAutoCommit(false);
+			}
+			try {
+				int[] counts = null;
+				long start = System.nanoTime();
+				PreparedStatement stmt = connection.prepareStatement(sqlTemplate);
+				try {
+					for (List<?> row : rows) {
+						for (int i = 0; i < row.size(); i++) {
+							stmt.setObject(i + 1, row.get(i));
+						}
+						stmt.addBatch();
+					}
+					counts = stmt.executeBatch();
+				} finally {
+					stmt.close();
+					recordQuery(sqlTemplate, start, 0, counts == null ? 0 : rows.size(), 0, counts == null);
+				}
+				if (ownTransaction) {
+					connection.commit();
+				}
+				return counts;
+			} catch (SQLException e) {
+				if (ownTransaction) {
+					connection.rollback();
+				}
+				throw e;
+			} finally {
+				if (ownTransaction) {
+					connection.setAutoCommit(autoCommit);
+				}
+			}
+		} finally {
+			release(pc);
+		}
+	}
+
 	/**
 	 * Performs a custom deletion operation on a table using the provided SQL query.
 	 * 
 	 * @param sql the SQL query for deletion
 	 */
 	public void customDeletion(String sql) throws ClassNotFoundException, SQLException {
-		PreparedStatement stmt = c.prepareStatement(sql);
-
+		PooledConnection pc = borrow();
 		try {
-			stmt.executeUpdate();
-			System.out.println("Deleted records from the table...");
-		} catch (SQLException e) {
-			System.out.println("Error in Deleting records from the table...");
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+
+			long start = System.nanoTime();
+			int rows = 0;
+			boolean failed = true;
+			try {
+				rows = stmt.executeUpdate();
+				failed = false;
+				System.out.println("Deleted records from the table...");
+			} catch (SQLException e) {
+				System.out.println("Error in Deleting records from the table...");
+				failUnit(e);
+			}
+			recordQuery(sql, start, 0, rows, 0, failed);
+			stmt.close();
+		} finally {
+			release(pc);
 		}
-		stmt.close();
 	}
 
 	/**
@@ -601,15 +1626,21 @@ public class DatabaseOperator {
 	public void deleteTable(String tableName) throws ClassNotFoundException, SQLException {
 
 		String sql = "DROP TABLE " + tableName + ";";
-		PreparedStatement stmt = c.prepareStatement(sql);
+		PooledConnection pc = borrow();
 		try {
-			stmt.executeUpdate();
-			System.out.println("Table Deleted...");
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.out.println("Error in deleting the table...");
+			PreparedStatement stmt = pc.connection().prepareStatement(sql);
+			try {
+				stmt.executeUpdate();
+				System.out.println("Table Deleted...");
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.out.println("Error in deleting the table...");
+			} finally {
+				stmt.close();
+			}
 		} finally {
-			stmt.close();
+			forgetTableSchema(tableName);
+			release(pc);
 		}
 	}
 }
@@ -0,0 +1,143 @@
+package com.hms.hms_test_2;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A period of time from its start, inclusive, to its end, exclusive, for
+ * filtering a date or datetime column.
+ *
+ * A filter such as day(date) = day(CURRENT_DATE) wraps the column in a
+ * function, so the server has to compute it for every row instead of using an
+ * index on the column. Comparing the raw column with the two bounds of a range,
+ * date &gt;= start AND date &lt; end, can use the index, and the half-open end
+ * also takes in the last second of the day without any rounding.
+ *
+ * The no-argument factories use the date of this computer, which is the date
+ * CURRENT_DATE gives as long as the database server runs in the same time zone.
+ */
+public final class DateRange {
+
+	private static final DateTimeFormatter SQL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final LocalDateTime start;
+	private final LocalDateTime end;
+
+	private DateRange(LocalDateTime start, LocalDateTime end) {
+		if (end.isBefore(start)) {
+			throw new IllegalArgumentException("Range ends before it starts: " + start + " - " + end);
+		}
+		this.start = start;
+		this.end = end;
+	}
+
+	/**
+	 * @param start first moment in the range
+	 * @param end   first moment after the range
+	 */
+	public static DateRange of(LocalDateTime start, LocalDateTime end) {
+		return new DateRange(start, end);
+	}
+
+	public static DateRange day(LocalDate day) {
+		return new DateRange(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+	}
+
+	public static DateRange today() {
+		return day(LocalDate.now());
+	}
+
+	public static DateRange month(YearMonth month) {
+		return months(month, month);
+	}
+
+	public static DateRange thisMonth() {
+		return month(YearMonth.now());
+	}
+
+	/**
+	 * @return the whole months from the first to the last, both included
+	 */
+	public static DateRange months(YearMonth first, YearMonth last) {
+		return new DateRange(first.atDay(1).atStartOfDay(), last.plusMonths(1).atDay(1).atStartOfDay());
+	}
+
+	/**
+	 * @param count   number of months, at least 1
+	 * @param current the last month of the range
+	 * @return the current month and the count - 1 whole months before it
+	 */
+	public static DateRange lastMonths(int count, YearMonth current) {
+		if (count < 1) {
+			throw new IllegalArgumentException("At least one month, not " + count);
+		}
+		return months(current.minusMonths(count - 1), current);
+	}
+
+	public static DateRange lastMonths(int count) {
+		return lastMonths(count, YearMonth.now());
+	}
+
+	public LocalDateTime getStart() {
+		return start;
+	}
+
+	public LocalDateTime getEnd() {
+		return end;
+	}
+
+	public boolean contains(LocalDateTime time) {
+		return !time.isBefore(start) && time.isBefore(end);
+	}
+
+	/**
+	 * @param column the date or datetime column, e.g. "appointment.date"
+	 * @return the condition with the bounds written in, e.g.
+	 *         "(date &gt;= '2018-07-01 00:00:00' AND date &lt; '2018-08-01 00:00:00')"
+	 */
+	public String where(String column) {
+		return "(" + column + " >= '" + start.format(SQL_FORMAT) + "' AND " + column + " < '" + end.format(SQL_FORMAT)
+				+ "')";
+	}
+
+	/**
+	 * @param column the date or datetime column
+	 * @return the condition with a ? for each bound, to be bound with
+	 *         {@link #params()}
+	 */
+	public String whereParams(String column) {
+		return "(" + column + " >= ? AND " + column + " < ?)";
+	}
+
+	/**
+	 * @return the start and the end, for the placeholders of
+	 *         {@link #whereParams(String)}
+	 */
+	public List<Object> params() {
+		return Arrays.<Object>asList(Timestamp.valueOf(start), Timestamp.valueOf(end));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof DateRange)) {
+			return false;
+		}
+		DateRange range = (DateRange) other;
+		return start.equals(range.start) && end.equals(range.end);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * start.hashCode() + end.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "[" + start.format(SQL_FORMAT) + ", " + end.format(SQL_FORMAT) + ")";
+	}
+}
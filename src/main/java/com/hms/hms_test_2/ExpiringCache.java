@@ -0,0 +1,144 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Query results kept in memory for a ttl read from the configuration, or until
+ * {@link #invalidate()} is called after the data behind them was written.
+ *
+ * A value loaded while the cache was invalidated may miss the write, so it is
+ * returned but not kept. Beyond maxEntries the entry loaded first is dropped.
+ * A ttl of 0 turns the cache off.
+ *
+ * @param <K> what the values are looked up by, e.g. the period of a report
+ * @param <V> the cached values, shared by every caller, so immutable or copied
+ */
+final class ExpiringCache<K, V> {
+
+	/**
+	 * Reads the value that is not cached.
+	 */
+	@FunctionalInterface
+	interface Loader<V> {
+		V load() throws ClassNotFoundException, SQLException;
+	}
+
+	private final String ttlSetting;
+	private final Duration defaultTtl;
+	private final int maxEntries;
+	private final LongSupplier clock;
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<K, Entry<V>>();
+	private final AtomicLong generation = new AtomicLong();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param ttlSetting key of the ttl in the configuration, a plain number is in
+	 *                   seconds
+	 * @param defaultTtl ttl if the key is not set
+	 * @param maxEntries values kept at most
+	 */
+	ExpiringCache(String ttlSetting, Duration defaultTtl, int maxEntries) {
+		this(ttlSetting, defaultTtl, maxEntries, System::currentTimeMillis);
+	}
+
+	// clock in milliseconds
+	ExpiringCache(String ttlSetting, Duration defaultTtl, int maxEntries, LongSupplier clock) {
+		this.ttlSetting = ttlSetting;
+		this.defaultTtl = defaultTtl;
+		this.maxEntries = Math.max(1, maxEntries);
+		this.clock = clock;
+	}
+
+	/**
+	 * @param key    what the value is looked up by
+	 * @param loader reads the value if it is not cached or expired
+	 * @return the cached value, or the one just loaded
+	 */
+	V get(K key, Loader<V> loader) throws ClassNotFoundException, SQLException {
+		long maxAge = DatabaseOperator.durationSetting(ttlSetting, ChronoUnit.SECONDS, defaultTtl).toMillis();
+
+		Entry<V> entry = entries.get(key);
+		if (entry != null && clock.getAsLong() - entry.loadedAt < maxAge) {
+			hits.increment();
+			return entry.value;
+		}
+
+		misses.increment();
+		long loadedGeneration = generation.get();
+		V value = loader.load();
+
+		// data written during the load may be missing, keep the value only if
+		// nothing was invalidated meanwhile
+		if (maxAge > 0 && generation.get() == loadedGeneration) {
+			if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+				evictOldest();
+			}
+			entry = new Entry<V>(value, clock.getAsLong());
+			entries.put(key, entry);
+			if (generation.get() != loadedGeneration) {
+				entries.remove(key, entry);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Drops every value, called after the data behind them was written.
+	 */
+	void invalidate() {
+		generation.incrementAndGet();
+		entries.clear();
+	}
+
+	/**
+	 * @return lookups answered from memory
+	 */
+	long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return lookups that had to be loaded
+	 */
+	long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of values kept
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	private void evictOldest() {
+		Map.Entry<K, Entry<V>> oldest = null;
+		for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+			if (oldest == null || candidate.getValue().loadedAt < oldest.getValue().loadedAt) {
+				oldest = candidate;
+			}
+		}
+		if (oldest != null) {
+			entries.remove(oldest.getKey(), oldest.getValue());
+		}
+	}
+
+	private static final class Entry<V> {
+		final V value;
+		final long loadedAt;
+
+		Entry(V value, long loadedAt) {
+			this.value = value;
+			this.loadedAt = loadedAt;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.hms.hms_test_2;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+/**
+ * Creates the {@link AsyncQueries} of a screen.
+ */
+public final class FxQueries {
+
+    private FxQueries() {
+    }
+
+    /**
+     * @param screen the root node of the screen
+     * @return queries completing on the JavaFX thread, cancelled when the window
+     *         showing the screen is closed, e.g. on logout
+     */
+    public static AsyncQueries forScreen(Node screen) {
+        AsyncQueries queries = new AsyncQueries(Platform::runLater);
+        if (screen.getScene() != null) {
+            cancelOnHide(screen.getScene(), queries);
+        }
+        screen.sceneProperty().addListener((observable, oldScene, scene) -> {
+            if (scene != null) {
+                cancelOnHide(scene, queries);
+            }
+        });
+        return queries;
+    }
+
+    private static void cancelOnHide(Scene scene, AsyncQueries queries) {
+        if (scene.getWindow() != null) {
+            cancelOnHide(scene.getWindow(), queries);
+        }
+        scene.windowProperty().addListener((observable, oldWindow, window) -> {
+            if (window != null) {
+                cancelOnHide(window, queries);
+            }
+        });
+    }
+
+    private static void cancelOnHide(Window window, AsyncQueries queries) {
+        window.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> queries.cancelAll());
+    }
+}
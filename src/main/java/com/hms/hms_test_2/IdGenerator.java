@@ -0,0 +1,205 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hands out record IDs without looking up the current maximum of the table on
+ * every insert.
+ *
+ * Numbers are reserved from the id_sequence table in blocks of idBlockSize
+ * (20 by default) with one UPDATE, so two clients never receive the same
+ * number. The numbers of a block are then handed out from memory with an
+ * atomic increment; only the thread that finds a block used up goes back to
+ * the database. Numbers left in a block when the application exits are never
+ * used, so IDs can have gaps.
+ *
+ * The first time a sequence is used its row is created from the highest ID
+ * already in the table, so existing data keeps working.
+ */
+public final class IdGenerator {
+
+	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS id_sequence "
+			+ "(seq_name varchar(40) NOT NULL, next_value bigint NOT NULL, PRIMARY KEY (seq_name))";
+	private static final String RESERVE = "UPDATE id_sequence SET next_value = LAST_INSERT_ID(next_value + ?) "
+			+ "WHERE seq_name = ?";
+
+	private static final IdGenerator instance = new IdGenerator();
+
+	private final AtomicReferenceArray<Block> blocks;
+	private final Object[] refillLocks;
+	private volatile boolean tableChecked;
+
+	private IdGenerator() {
+		int count = IdSequence.values().length;
+		blocks = new AtomicReferenceArray<Block>(count);
+		refillLocks = new Object[count];
+		for (int i = 0; i < count; i++) {
+			refillLocks[i] = new Object();
+		}
+	}
+
+	public static IdGenerator getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param sequence the kind of record the ID is for
+	 * @return a new, unused ID
+	 */
+	public String next(IdSequence sequence) throws SQLException {
+		return sequence.format(nextNumber(sequence));
+	}
+
+	/**
+	 * @param sequence the kind of record
+	 * @return a new, unused sequence number
+	 */
+	public long nextNumber(IdSequence sequence) throws SQLException {
+		int slot = sequence.ordinal();
+		while (true) {
+			Block block = blocks.get(slot);
+			if (block != null) {
+				long number = block.next.getAndIncrement();
+				if (number < block.end) {
+					return number;
+				}
+			}
+			synchronized (refillLocks[slot]) {
+				// another thread may have refilled it while this one waited
+				if (blocks.get(slot) == block) {
+					blocks.set(slot, reserve(sequence));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops the reserved blocks, e.g. after switching to another database.
+	 */
+	public void reset() {
+		for (int i = 0; i < blocks.length(); i++) {
+			blocks.set(i, null);
+		}
+		tableChecked = false;
+	}
+
+	private Block reserve(IdSequence sequence) throws SQLException {
+		int size = Math.max(1, DatabaseOperator.intSetting("idBlockSize", 20));
+
+		// reserved on a connection of its own, so the numbers stay taken even if
+		// the caller's transaction is rolled back
+		PooledConnection pc = DatabaseOperator.borrowUnpinned();
+		try {
+			Connection connection = pc.connection();
+			if (!tableChecked) {
+				Statement stmt = connection.createStatement();
+				try {
+					stmt.executeUpdate(CREATE_TABLE);
+				} finally {
+					stmt.close();
+				}
+				tableChecked = true;
+			}
+
+			long end = reserve(connection, sequence, size);
+			if (end < 0) {
+				seed(connection, sequence);
+				end = reserve(connection, sequence, size);
+			}
+			if (end < 0) {
+				throw new SQLException("Could not reserve IDs for " + sequence);
+			}
+			return new Block(end - size, end);
+		} finally {
+			DatabaseOperator.releaseUnpinned(pc);
+		}
+	}
+
+	/**
+	 * @return the number after the reserved block, or -1 if the sequence has no
+	 *         row yet
+	 */
+	private static long reserve(Connection connection, IdSequence sequence, int size) throws SQLException {
+		PreparedStatement stmt = connection.prepareStatement(RESERVE);
+		try {
+			stmt.setInt(1, size);
+			stmt.setString(2, sequence.name());
+			if (stmt.executeUpdate() == 0) {
+				return -1;
+			}
+		} finally {
+			stmt.close();
+		}
+
+		Statement query = connection.createStatement();
+		try {
+			ResultSet rs = query.executeQuery("SELECT LAST_INSERT_ID()");
+			rs.next();
+			long end = rs.getLong(1);
+			rs.close();
+			return end;
+		} finally {
+			query.close();
+		}
+	}
+
+	/**
+	 * Creates the row of a sequence, starting after the highest ID in its table.
+	 * The maximum is read without locks and including rows of transactions that
+	 * are still open, so an insert in progress elsewhere is neither waited for
+	 * nor handed out again. Old IDs may carry trailing spaces, hence the TRIM.
+	 */
+	private static void seed(Connection connection, IdSequence sequence) throws SQLException {
+		String column = "TRIM(" + sequence.getColumn() + ")";
+		int prefixLength = sequence.getPrefix().length();
+		int affixLength = prefixLength + sequence.getSuffix().length();
+		String sql = "SELECT COALESCE(MAX(CAST(SUBSTRING(" + column + ", " + (prefixLength + 1) + ", CHAR_LENGTH("
+				+ column + ") - " + affixLength + ") AS UNSIGNED)), 0) FROM " + sequence.getTable() + " WHERE "
+				+ column + " LIKE ?";
+
+		long last;
+		int isolation = connection.getTransactionIsolation();
+		connection.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
+		try {
+			PreparedStatement stmt = connection.prepareStatement(sql);
+			try {
+				stmt.setString(1, sequence.getPrefix() + "%" + sequence.getSuffix());
+				ResultSet rs = stmt.executeQuery();
+				rs.next();
+				last = rs.getLong(1);
+				rs.close();
+			} finally {
+				stmt.close();
+			}
+		} finally {
+			connection.setTransactionIsolation(isolation);
+		}
+
+		// another client may have created the row in the meantime; keep theirs
+		PreparedStatement stmt = connection.prepareStatement(
+				"INSERT IGNORE INTO id_sequence (seq_name, next_value) VALUES (?, ?)");
+		try {
+			stmt.setString(1, sequence.name());
+			stmt.setLong(2, last + 1);
+			stmt.executeUpdate();
+		} finally {
+			stmt.close();
+		}
+	}
+
+	private static final class Block {
+		final AtomicLong next;
+		final long end;
+
+		Block(long start, long end) {
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+	}
+}
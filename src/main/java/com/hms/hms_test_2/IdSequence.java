@@ -0,0 +1,77 @@
+package com.hms.hms_test_2;
+
+/**
+ * The record IDs handed out by {@link IdGenerator}. Every ID is a prefix, a
+ * zero padded number and an optional suffix, e.g. "hms0042pa" for a patient.
+ * Numbers that no longer fit the padding simply get longer ("app1000").
+ */
+public enum IdSequence {
+	PATIENT("patient", "patient_id", "hms", "pa", 4),
+	PERSON("person", "person_id", "hms", "", 5),
+	APPOINTMENT("appointment", "appointment_id", "app", "", 3),
+	LAB_APPOINTMENT("lab_appointment", "lab_appointment_id", "lapp", "", 3),
+	TMP_BILL("tmp_bill", "tmp_bill_id", "hms", "tb", 4),
+	BILL("bill", "bill_id", "hms", "b", 4),
+	REFUND("refund", "refund_id", "r", "", 4),
+	MESSAGE("user_message", "message_id", "msg", "", 5),
+	URINE_FULL_REPORT("UrineFullReport", "tst_ur_id", "ur", "", 4),
+	LIPID_TEST("LipidTest", "tst_li_id", "li", "", 4),
+	BLOOD_GROUPING_RH("BloodGroupingRh", "tst_bloodG_id", "bg", "", 4),
+	COMPLETE_BLOOD_COUNT("completeBloodCount", "tst_CBC_id", "cbc", "", 4),
+	RENAL_FUNCTION_TEST("RenalFunctionTest", "tst_renal_id", "re", "", 4),
+	SCP_TOTAL("SeriumCreatinePhosphokinaseTotal", "tst_SCPT_id", "scpt", "", 4),
+	SCP("SeriumCreatinePhosphokinase", "tst_SCP_id", "scp", "", 4),
+	LIVER_FUNCTION_TEST("LiverFunctionTest", "tst_liver_id", "lv", "", 4);
+
+	private final String table;
+	private final String column;
+	private final String prefix;
+	private final String suffix;
+	private final int width;
+
+	IdSequence(String table, String column, String prefix, String suffix, int width) {
+		this.table = table;
+		this.column = column;
+		this.prefix = prefix;
+		this.suffix = suffix;
+		this.width = width;
+	}
+
+	/**
+	 * @return the table whose IDs this sequence generates
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	/**
+	 * @return the ID column of the table
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public String getSuffix() {
+		return suffix;
+	}
+
+	/**
+	 * Formats a sequence number as an ID, e.g. 42 as "app042".
+	 *
+	 * @param number the sequence number
+	 * @return the ID
+	 */
+	public String format(long number) {
+		String digits = Long.toString(number);
+		StringBuilder id = new StringBuilder(prefix.length() + Math.max(width, digits.length()) + suffix.length());
+		id.append(prefix);
+		for (int i = digits.length(); i < width; i++) {
+			id.append('0');
+		}
+		return id.append(digits).append(suffix).toString();
+	}
+}
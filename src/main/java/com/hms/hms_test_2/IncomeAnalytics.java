@@ -0,0 +1,217 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+
+/**
+ * The income of each month of a period, for the income charts of the admin.
+ *
+ * The total, the fees of every department and the number of bills are summed
+ * per month in one GROUP BY query over the daily totals of income_daily,
+ * instead of a query per fee and a row per day. A month has two rows, one of
+ * the refunded bills and one of the others, so the income kept, the amount
+ * refunded and the amount billed are all answered from the same result. A bill
+ * is refunded if its refund flag is 1; bills issued without the flag count as
+ * kept.
+ *
+ * The result is a few numbers per month, so the summary of a period is kept in
+ * memory for incomeAnalyticsTtl (30 seconds by default, other units as in
+ * "2m"); a ttl of 0 turns the cache off. Issuing or refunding a bill drops the
+ * cached summaries.
+ */
+public final class IncomeAnalytics {
+
+	/** what is summed per month, a column of income_daily */
+	public enum Measure {
+		BILLS("bills"), TOTAL("total"), DOCTOR_FEE("doctor_fee"), HOSPITAL_FEE("hospital_fee"),
+		PHARMACY_FEE("pharmacy_fee"), LABORATORY_FEE("laboratory_fee"), APPOINTMENT_FEE("appointment_fee");
+
+		private final String column;
+
+		Measure(String column) {
+			this.column = column;
+		}
+
+		public String getColumn() {
+			return column;
+		}
+	}
+
+	static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+	// periods cached, the one loaded first is dropped beyond that
+	private static final int MAX_PERIODS = 64;
+
+	private static final Measure[] MEASURES = Measure.values();
+
+	private static final IncomeAnalytics instance = new IncomeAnalytics();
+
+	private final ExpiringCache<DateRange, Summary> cache = new ExpiringCache<DateRange, Summary>(
+			"incomeAnalyticsTtl", DEFAULT_TTL, MAX_PERIODS);
+
+	IncomeAnalytics() {
+	}
+
+	public static IncomeAnalytics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param dbOperator used to run the query if the period is not cached
+	 * @param window     the days the bills were issued on
+	 * @return the sums of every month of the window
+	 * @throws SQLException if the query failed
+	 */
+	public Summary summary(DatabaseOperator dbOperator, DateRange window) throws ClassNotFoundException, SQLException {
+		return cache.get(window, () -> {
+			ArrayList<ArrayList<String>> data = dbOperator.customSelection(sql(window));
+			if (data == null) {
+				throw new SQLException("Income could not be read");
+			}
+			return new Summary(window, data);
+		});
+	}
+
+	/**
+	 * Drops the cached summaries, called after a bill was issued or refunded.
+	 */
+	public void invalidate() {
+		cache.invalidate();
+	}
+
+	/**
+	 * @return periods answered from memory
+	 */
+	public long getHits() {
+		return cache.getHits();
+	}
+
+	/**
+	 * @return periods that had to be queried
+	 */
+	public long getMisses() {
+		return cache.getMisses();
+	}
+
+	/**
+	 * @return one row (year, month, refunded, sum of every measure) per month
+	 *         and refund flag
+	 */
+	static String sql(DateRange window) {
+		StringBuilder sql = new StringBuilder("SELECT YEAR(day) AS year, MONTH(day) AS month, refund = 1 AS refunded");
+		for (Measure measure : MEASURES) {
+			sql.append(", SUM(").append(measure.getColumn()).append(") AS ").append(measure.getColumn());
+		}
+		return sql.append(" FROM income_daily WHERE ").append(window.where("day"))
+				.append(" GROUP BY YEAR(day), MONTH(day), refund = 1;").toString();
+	}
+
+	/**
+	 * The sums of the months of a period. Immutable, so one summary can be
+	 * shared by the charts that read it.
+	 */
+	public static final class Summary {
+		private final DateRange window;
+		private final YearMonth first;
+		private final int months;
+		// [measure][month]
+		private final long[][] kept;
+		private final long[][] refunded;
+
+		Summary(DateRange window, ArrayList<ArrayList<String>> data) {
+			this.window = window;
+			first = YearMonth.from(window.getStart());
+			months = MonthlySeries.sum(window).size();
+			kept = new long[MEASURES.length][months];
+			refunded = new long[MEASURES.length][months];
+
+			for (int i = 1; i < data.size(); i++) {
+				ArrayList<String> row = data.get(i);
+				int month = Integer.parseInt(row.get(0)) * 12 + Integer.parseInt(row.get(1)) - 1
+						- (first.getYear() * 12 + first.getMonthValue() - 1);
+				if (month < 0 || month >= months) {
+					continue;
+				}
+				long[][] sums = row.get(2).equals("1") ? refunded : kept;
+				for (int m = 0; m < MEASURES.length; m++) {
+					sums[m][month] = Long.parseLong(row.get(3 + m));
+				}
+			}
+		}
+
+		public DateRange getWindow() {
+			return window;
+		}
+
+		/**
+		 * @return the number of months of the window
+		 */
+		public int size() {
+			return months;
+		}
+
+		public YearMonth month(int index) {
+			return first.plusMonths(index);
+		}
+
+		/**
+		 * @return the amount of the bills of the month that were not refunded
+		 */
+		public long net(Measure measure, int month) {
+			return kept[measure.ordinal()][month];
+		}
+
+		/**
+		 * @return the amount of the bills of the month that were refunded
+		 */
+		public long refunded(Measure measure, int month) {
+			return refunded[measure.ordinal()][month];
+		}
+
+		/**
+		 * @return the amount of all bills of the month, refunded or not
+		 */
+		public long gross(Measure measure, int month) {
+			return net(measure, month) + refunded(measure, month);
+		}
+
+		/**
+		 * @return the income kept of every month, for a chart
+		 */
+		public MonthlySeries net(Measure measure) {
+			return series(kept[measure.ordinal()]);
+		}
+
+		/**
+		 * @return the amount refunded of every month, for a chart
+		 */
+		public MonthlySeries refunded(Measure measure) {
+			return series(refunded[measure.ordinal()]);
+		}
+
+		/**
+		 * @return the income kept over the whole window
+		 */
+		public long totalNet(Measure measure) {
+			long total = 0;
+			for (long value : kept[measure.ordinal()]) {
+				total += value;
+			}
+			return total;
+		}
+
+		private MonthlySeries series(long[] values) {
+			MonthlySeries series = MonthlySeries.sum(window);
+			LocalDate start = window.getStart().toLocalDate();
+			for (int i = 0; i < months; i++) {
+				// the first month may start in its middle
+				LocalDate day = month(i).atDay(1);
+				series.add(day.isBefore(start) ? start : day, values[i]);
+			}
+			return series;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The number of results of each lab test in a period, for the lab report pie
+ * charts of the lab assistant and the admin.
+ *
+ * The results are kept in one table per test, so the counts of all eight are
+ * read with a single UNION ALL query instead of a query per table. The counts
+ * of a period are kept in memory for labWorkloadTtl (30 seconds by default,
+ * other units as in "2m"), so refreshing a dashboard again and again reads
+ * them once; a ttl of 0 turns the cache off. Writing results through
+ * LabResultBatch drops the cached counts.
+ */
+public final class LabWorkload {
+
+	/** the result tables, in the order of the counts */
+	public static final List<IdSequence> TESTS = Collections.unmodifiableList(Arrays.asList(
+			IdSequence.BLOOD_GROUPING_RH, IdSequence.LIPID_TEST, IdSequence.LIVER_FUNCTION_TEST,
+			IdSequence.RENAL_FUNCTION_TEST, IdSequence.SCP, IdSequence.SCP_TOTAL, IdSequence.URINE_FULL_REPORT,
+			IdSequence.COMPLETE_BLOOD_COUNT));
+
+	static final Duration DEFAULT_TTL = Duration.ofSeconds(30);
+
+	// periods cached, the one loaded first is dropped beyond that
+	private static final int MAX_PERIODS = 64;
+
+	private static final LabWorkload instance = new LabWorkload();
+
+	private final ExpiringCache<DateRange, long[]> cache = new ExpiringCache<DateRange, long[]>("labWorkloadTtl",
+			DEFAULT_TTL, MAX_PERIODS);
+
+	LabWorkload() {
+	}
+
+	public static LabWorkload getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @param months number of months
+	 * @return the months before today, without today, as the reports count them
+	 */
+	public static DateRange lastMonths(int months) {
+		LocalDate today = LocalDate.now();
+		return DateRange.of(today.minusMonths(months).atStartOfDay(), today.atStartOfDay());
+	}
+
+	/**
+	 * The counts in the shape the pie charts read.
+	 *
+	 * @param dbOperator used to run the query if the counts are not cached
+	 * @param window     the period the results were entered in
+	 * @return {table names of the tests, counts of the tests}, in the order of
+	 *         {@link #TESTS}
+	 */
+	public static ArrayList<ArrayList<String>> report(DatabaseOperator dbOperator, DateRange window)
+			throws ClassNotFoundException, SQLException {
+		long[] counts = getInstance().counts(dbOperator, window);
+		ArrayList<String> tests = new ArrayList<String>();
+		ArrayList<String> values = new ArrayList<String>();
+		for (int i = 0; i < TESTS.size(); i++) {
+			tests.add(TESTS.get(i).getTable());
+			values.add(Long.toString(counts[i]));
+		}
+		ArrayList<ArrayList<String>> data = new ArrayList<ArrayList<String>>();
+		data.add(tests);
+		data.add(values);
+		return data;
+	}
+
+	/**
+	 * @param dbOperator used to run the query if the counts are not cached
+	 * @param window     the period the results were entered in
+	 * @return the number of results of each test, in the order of
+	 *         {@link #TESTS}
+	 * @throws SQLException if the query failed
+	 */
+	public long[] counts(DatabaseOperator dbOperator, DateRange window) throws ClassNotFoundException, SQLException {
+		// the cached array is shared, callers get a copy
+		return cache.get(window, () -> load(dbOperator, window)).clone();
+	}
+
+	private static long[] load(DatabaseOperator dbOperator, DateRange window)
+			throws ClassNotFoundException, SQLException {
+		ArrayList<ArrayList<String>> data = dbOperator.customSelection(sql(window));
+		if (data == null) {
+			throw new SQLException("Lab workload could not be read");
+		}
+
+		long[] counts = new long[TESTS.size()];
+		for (int i = 1; i < data.size(); i++) {
+			counts[indexOf(data.get(i).get(0))] = Long.parseLong(data.get(i).get(1));
+		}
+		return counts;
+	}
+
+	/**
+	 * Drops the cached counts, called after results were written.
+	 */
+	public void invalidate() {
+		cache.invalidate();
+	}
+
+	/**
+	 * @return periods answered from memory
+	 */
+	public long getHits() {
+		return cache.getHits();
+	}
+
+	/**
+	 * @return periods that had to be queried
+	 */
+	public long getMisses() {
+		return cache.getMisses();
+	}
+
+	/**
+	 * @return one row (test, count) per result table
+	 */
+	static String sql(DateRange window) {
+		String where = window.where("date");
+		StringBuilder sql = new StringBuilder();
+		for (IdSequence test : TESTS) {
+			if (sql.length() > 0) {
+				sql.append(" UNION ALL ");
+			}
+			sql.append("SELECT '").append(test.getTable()).append("' AS test, COUNT(date) AS count FROM ")
+					.append(test.getTable()).append(" WHERE ").append(where);
+		}
+		return sql.append(";").toString();
+	}
+
+	private static int indexOf(String table) throws SQLException {
+		for (int i = 0; i < TESTS.size(); i++) {
+			if (TESTS.get(i).getTable().equals(table)) {
+				return i;
+			}
+		}
+		throw new SQLException("Unknown lab test " + table);
+	}
+}
@@ -0,0 +1,104 @@
+package com.hms.hms_test_2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in microseconds with log-linear buckets, in the style
+ * of HdrHistogram: every power of two is split into 16 buckets, so a recorded
+ * value is reported within 1/16 (6.25%) of its real value. Values from 0 up to
+ * about 12 days fit into 592 buckets.
+ *
+ * Recording only increments counters and never allocates or locks, so it can
+ * be called for every statement by many threads at once.
+ */
+final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 39;
+	private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+	private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param micros the duration; negative values count as 0 and values beyond
+	 *               the largest bucket as the largest bucket
+	 */
+	void record(long micros) {
+		long value = Math.max(0, micros);
+		counts.incrementAndGet(bucketOf(Math.min(value, MAX_VALUE)));
+		count.increment();
+		total.add(value);
+		max.accumulate(value);
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return sum of the recorded values in microseconds
+	 */
+	long getTotal() {
+		return total.sum();
+	}
+
+	long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @param percentile e.g. 99.0 for the 99th percentile
+	 * @return the largest value in the bucket that holds the percentile, but
+	 *         never more than the largest value recorded; 0 if nothing was
+	 *         recorded
+	 */
+	long getPercentile(double percentile) {
+		long n = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			n += snapshot[i];
+		}
+		if (n == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(n * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long lowerBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	static long upperBoundOf(int bucket) {
+		return bucket + 1 < BUCKETS ? lowerBoundOf(bucket + 1) - 1 : MAX_VALUE;
+	}
+}
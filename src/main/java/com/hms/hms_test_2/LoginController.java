@@ -151,10 +151,8 @@ public class LoginController extends AnchorPane {
         Stage stage = new Stage();
         ReceptionistController receptionist = new ReceptionistController(username);
 
-        receptionist.loadProfileData();
-        receptionist.makeSummaryTable();
-        receptionist.fillLineChart();
-        receptionist.fillCurrentDoctors();
+        // the panels are filled as their data arrives, after the stage is shown
+        receptionist.warmUp();
         // receptionist.fillConsultationAreas();
         receptionist.setPaceholders();
         stage.setScene(new Scene(receptionist));
@@ -173,13 +171,11 @@ public class LoginController extends AnchorPane {
         Stage stage = new Stage();
         CashierController cashier = new CashierController(username);
 
-        cashier.loadProfileData();
-        cashier.makeHistoryTable();
-        cashier.fillLineChart();
+        // the panels are filled as their data arrives, after the stage is shown
+        cashier.warmUp();
         cashier.setPaceholders();
         cashier.loadNameList();
         cashier.addFocusListener();
-        cashier.loadRefunds();
 
         stage.setScene(new Scene(cashier));
 
@@ -197,12 +193,10 @@ public class LoginController extends AnchorPane {
         Stage stage = new Stage();
         AdminController admin = new AdminController(username);
 
-        admin.loadProfileData();
-
-        admin.filldatabaseStorageChart("u");
+        // the panels are filled as their data arrives, after the stage is shown
+        admin.warmUp();
         admin.addFocusListener();
         admin.loadDatabaseInfo();
-        admin.fillAccountCounts();
         admin.setPaceholders();
 
         stage.setScene(new Scene(admin));
@@ -220,13 +214,11 @@ public class LoginController extends AnchorPane {
     public void loadLabAssistant(String username) {
         Stage stage = new Stage();
         LabAssistantController lab = new LabAssistantController(username);
-        lab.loadProfileData();
-        lab.fillPieChart();
-        lab.setAppointments();
-        lab.fillLabAppiontments();
+
+        // the panels are filled as their data arrives, after the stage is shown
+        lab.warmUp();
         lab.addFocusListener();
         lab.setPaceholders();
-        lab.fillTodayAppointments();
 
         stage.setScene(new Scene(lab));
 
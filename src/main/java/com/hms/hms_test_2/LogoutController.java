@@ -42,6 +42,7 @@ public class LogoutController extends AnchorPane {
     private void logout() {
 
         user.saveLogout(user.username);
+        ReportScheduler.getInstance().stop(user);
 
         Stage stage = (Stage) mainLogoutButton.getScene().getWindow();
         stage.close();
@@ -11,6 +11,9 @@ public class MainApp extends Application {
 
     @Override
     public void start(Stage stage) throws Exception {
+        if (DatabaseOperator.settings().getBoolean("watchConfig", true)) {
+            SystemConfiguration.getInstance().startWatching();
+        }
         LoginController login = new LoginController();
         stage.setScene(new Scene(login));
         Rectangle2D primaryScreenBounds = Screen.getPrimary().getVisualBounds();
@@ -23,6 +26,27 @@ public class MainApp extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() throws Exception {
+        SystemConfiguration.getInstance().stopWatching();
+        AsyncQueries.shutdown();
+        ReportScheduler.getInstance().stop();
+        int top = DatabaseOperator.intSetting("queryStatsTop", 20);
+        if (top > 0 && DatabaseOperator.getQueryStats().size() > 0) {
+            // the statements that took the most time in this session
+            System.out.print(DatabaseOperator.getQueryStats().dump(top));
+        }
+        String warmUps = DashboardWarmUp.getSummary();
+        if (!warmUps.isEmpty()) {
+            System.out.print(warmUps);
+        }
+        if (DatabaseOperator.hasReplica()) {
+            System.out.print(DatabaseOperator.getRouteSummary());
+        }
+        DatabaseOperator.shutdownPool();
+        super.stop();
+    }
+
     /**
      * The main() method is ignored in correctly deployed JavaFX application.
      * main() serves only as fallback in case the application can not be
@@ -0,0 +1,261 @@
+package com.hms.hms_test_2;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Values of a date window added up per calendar month, for the charts of the
+ * reports.
+ *
+ * The months are the slots of a long array, so a value is binned by computing
+ * its month from its epoch day, without a formatter, a string key or a boxed
+ * counter per row. Every month of the window has a slot, also one without
+ * values, and the same month of two years has two, where keying by the month
+ * name would merge them. A value outside the window is ignored.
+ *
+ * Not thread safe; fill it on one thread and hand it over when it is complete.
+ */
+public final class MonthlySeries {
+
+	/** what the value of a month is */
+	public enum Measure {
+		/** the sum of the values added to the month */
+		SUM,
+		/** the number of values added to the month */
+		COUNT,
+		/** the number of different values added to the month */
+		DISTINCT_COUNT
+	}
+
+	private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("MMM");
+	private static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MMM yy");
+
+	private final Measure measure;
+	private final YearMonth first;
+	private final long firstMonth;
+	private final long startDay;
+	private final long endDay;
+	private final long[] values;
+	private final LongSet[] distinct;
+
+	private MonthlySeries(Measure measure, DateRange window) {
+		this.measure = measure;
+		LocalDate start = window.getStart().toLocalDate();
+		LocalDate end = window.getEnd().toLocalDate();
+		startDay = start.toEpochDay();
+		// a day the window ends in the middle of is still in it
+		endDay = window.getEnd().toLocalTime().equals(LocalTime.MIDNIGHT) ? end.toEpochDay() : end.toEpochDay() + 1;
+		first = YearMonth.from(start);
+		firstMonth = monthIndex(startDay);
+		int months = endDay > startDay ? (int) (monthIndex(endDay - 1) - firstMonth + 1) : 0;
+		values = new long[months];
+		distinct = measure == Measure.DISTINCT_COUNT ? new LongSet[months] : null;
+	}
+
+	public static MonthlySeries sum(DateRange window) {
+		return new MonthlySeries(Measure.SUM, window);
+	}
+
+	public static MonthlySeries count(DateRange window) {
+		return new MonthlySeries(Measure.COUNT, window);
+	}
+
+	public static MonthlySeries distinctCount(DateRange window) {
+		return new MonthlySeries(Measure.DISTINCT_COUNT, window);
+	}
+
+	/**
+	 * @param epochDay the day of the value, as LocalDate.toEpochDay()
+	 * @param value    the amount to sum, the key to count distinct values of, or
+	 *                 anything to count
+	 * @return false if the day is outside the window
+	 */
+	public boolean add(long epochDay, long value) {
+		if (epochDay < startDay || epochDay >= endDay) {
+			return false;
+		}
+		int month = (int) (monthIndex(epochDay) - firstMonth);
+		switch (measure) {
+		case SUM:
+			values[month] += value;
+			break;
+		case COUNT:
+			values[month]++;
+			break;
+		default:
+			if (distinct[month] == null) {
+				distinct[month] = new LongSet();
+			}
+			if (distinct[month].add(value)) {
+				values[month]++;
+			}
+		}
+		return true;
+	}
+
+	public boolean add(LocalDate day, long value) {
+		return add(day.toEpochDay(), value);
+	}
+
+	/**
+	 * @param date a date or datetime as customSelection returns it, e.g.
+	 *             "2018-07-01 10:30:00"
+	 */
+	public boolean add(CharSequence date, long value) {
+		return add(epochDay(date), value);
+	}
+
+	public Measure getMeasure() {
+		return measure;
+	}
+
+	/**
+	 * @return the number of months of the window
+	 */
+	public int size() {
+		return values.length;
+	}
+
+	public YearMonth month(int index) {
+		return first.plusMonths(index);
+	}
+
+	/**
+	 * @return the month name, with the year if the window is longer than a
+	 *         year, so no two months have the same label
+	 */
+	public String label(int index) {
+		return (values.length > 12 ? MONTH_YEAR : MONTH).format(month(index));
+	}
+
+	public long get(int index) {
+		return values[index];
+	}
+
+	/**
+	 * @return the values of the months, oldest first
+	 */
+	public long[] values() {
+		return values.clone();
+	}
+
+	public long max() {
+		long max = 0;
+		for (long value : values) {
+			max = Math.max(max, value);
+		}
+		return max;
+	}
+
+	public long total() {
+		long total = 0;
+		for (long value : values) {
+			total += value;
+		}
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		return measure + " from " + first + " " + Arrays.toString(values);
+	}
+
+	/**
+	 * Reads the day of a date written as yyyy-MM-dd, followed by anything, e.g.
+	 * a time.
+	 *
+	 * @return the epoch day of the date
+	 * @throws IllegalArgumentException if the text does not start with a date
+	 */
+	public static long epochDay(CharSequence date) {
+		if (date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+			throw new IllegalArgumentException("Not a date: " + date);
+		}
+		return epochDay(digits(date, 0, 4), digits(date, 5, 7), digits(date, 8, 10));
+	}
+
+	/**
+	 * @return the epoch day of the date, as LocalDate.of(year, month,
+	 *         day).toEpochDay() without creating the LocalDate
+	 */
+	public static long epochDay(long year, int month, int day) {
+		// days from civil, proleptic Gregorian calendar, eras of 400 years
+		long y = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(y, 400);
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+
+	// year * 12 + month - 1 of the epoch day, the inverse of epochDay
+	static long monthIndex(long epochDay) {
+		long z = epochDay + 719468;
+		long era = Math.floorDiv(z, 146097);
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long shiftedMonth = (5 * dayOfYear + 2) / 153;
+		long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 12 + month - 1;
+	}
+
+	private static int digits(CharSequence text, int from, int to) {
+		int value = 0;
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				throw new IllegalArgumentException("Not a date: " + text);
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	// the distinct values of a month, open addressing on a long array
+	private static final class LongSet {
+		private long[] keys = new long[16];
+		private boolean[] used = new boolean[16];
+		private int size;
+
+		boolean add(long key) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while (used[slot]) {
+				if (keys[slot] == key) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			used[slot] = true;
+			keys[slot] = key;
+			size++;
+			return true;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			boolean[] oldUsed = used;
+			keys = new long[oldKeys.length * 2];
+			used = new boolean[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i]) {
+					add(oldKeys[i]);
+				}
+			}
+		}
+
+		private static int hash(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Patient names of the whole hospital, kept in memory for autocompletion.
+ *
+ * First and last names are stored lower-cased in two sorted arrays, so the
+ * patients whose name starts with what was typed form one contiguous range
+ * found with two binary searches. The index is shared by every user of the
+ * application and loaded with one query the first time it is needed. New
+ * patients are added as they are registered; changes made by other clients
+ * show up when the index is reloaded after patientIndexTtl (300 seconds by
+ * default, other units as in "5m").
+ */
+public final class PatientNameIndex {
+
+	private static final String LOAD = "SELECT patient.patient_id,person.first_name,person.last_name,person.date_of_birth "
+			+ "FROM person INNER JOIN patient ON person.person_id = patient.person_id;";
+
+	private static final PatientNameIndex instance = new PatientNameIndex();
+
+	private volatile Snapshot snapshot;
+
+	private PatientNameIndex() {
+	}
+
+	public static PatientNameIndex getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Finds the patients whose name starts with the given text. A single word is
+	 * matched against first and last names, first name matches coming first. With
+	 * two or more words the first word has to match the first name and the second
+	 * the last name. Case is ignored.
+	 *
+	 * @param dbOperator used to load the index if it is not loaded yet
+	 * @param text       what the user typed so far
+	 * @param limit      maximum number of patients returned
+	 * @return {patient_id, first_name, last_name, date_of_birth} followed by at
+	 *         most limit matching patients in name order
+	 */
+	public ArrayList<ArrayList<String>> suggest(DatabaseOperator dbOperator, String text, int limit)
+			throws SQLException, ClassNotFoundException {
+		Snapshot current = load(dbOperator);
+
+		ArrayList<ArrayList<String>> data = new ArrayList<ArrayList<String>>();
+		data.add(new ArrayList<String>(Arrays.asList("patient_id", "first_name", "last_name", "date_of_birth")));
+
+		String[] words = text.trim().toLowerCase(Locale.ROOT).split("\\s+");
+		if (words[0].isEmpty()) {
+			return data;
+		}
+
+		boolean[] added = new boolean[current.ids.length];
+		int from = lowerBound(current.firstKeys, words[0]);
+		int to = upperBound(current.firstKeys, words[0]);
+		for (int i = from; i < to && data.size() <= limit; i++) {
+			int patient = current.byFirst[i];
+			if (words.length == 1 || current.lastKeys[current.lastPosition[patient]].startsWith(words[1])) {
+				added[patient] = true;
+				data.add(current.row(patient));
+			}
+		}
+
+		if (words.length == 1) {
+			from = lowerBound(current.lastKeys, words[0]);
+			to = upperBound(current.lastKeys, words[0]);
+			for (int i = from; i < to && data.size() <= limit; i++) {
+				int patient = current.byLast[i];
+				if (!added[patient]) {
+					data.add(current.row(patient));
+				}
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Adds a newly registered patient without reloading the index. Does nothing
+	 * if the index is not loaded yet, the patient will be part of the first load.
+	 */
+	public synchronized void add(String patientId, String firstName, String lastName, String dateOfBirth) {
+		Snapshot current = snapshot;
+		if (current != null) {
+			snapshot = current.with(patientId, firstName, lastName, dateOfBirth);
+		}
+	}
+
+	/**
+	 * Forgets the loaded names, e.g. after a patient was renamed or after
+	 * switching to another database. The next lookup loads them again.
+	 */
+	public void reset() {
+		snapshot = null;
+	}
+
+	private Snapshot load(DatabaseOperator dbOperator) throws SQLException, ClassNotFoundException {
+		Snapshot current = snapshot;
+		long maxAge = DatabaseOperator.durationSetting("patientIndexTtl", ChronoUnit.SECONDS, Duration.ofSeconds(300))
+				.toMillis();
+		if (current != null && System.currentTimeMillis() - current.loadedAt < maxAge) {
+			return current;
+		}
+
+		synchronized (this) {
+			current = snapshot;
+			if (current == null || System.currentTimeMillis() - current.loadedAt >= maxAge) {
+				ArrayList<ArrayList<String>> rows = dbOperator.customSelection(LOAD);
+				if (rows == null) {
+					throw new SQLException("Could not load the patient names");
+				}
+				current = Snapshot.of(rows);
+				snapshot = current;
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * @return position of the first key that is not smaller than the prefix
+	 */
+	private static int lowerBound(String[] keys, String prefix) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return position after the last key starting with the prefix
+	 */
+	private static int upperBound(String[] keys, String prefix) {
+		int low = lowerBound(keys, prefix);
+		int high = keys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (keys[mid].startsWith(prefix)) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static String key(String name) {
+		return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * One immutable state of the index. Patients are numbered in load order; the
+	 * key arrays hold the names sorted and byFirst/byLast the patient of each
+	 * key.
+	 */
+	private static final class Snapshot {
+		final String[] ids;
+		final String[] firstNames;
+		final String[] lastNames;
+		final String[] birthDates;
+		final String[] firstKeys;
+		final int[] byFirst;
+		final String[] lastKeys;
+		final int[] byLast;
+		final int[] lastPosition;
+		final long loadedAt;
+
+		private Snapshot(String[] ids, String[] firstNames, String[] lastNames, String[] birthDates,
+				String[] firstKeys, int[] byFirst, String[] lastKeys, int[] byLast, long loadedAt) {
+			this.ids = ids;
+			this.firstNames = firstNames;
+			this.lastNames = lastNames;
+			this.birthDates = birthDates;
+			this.firstKeys = firstKeys;
+			this.byFirst = byFirst;
+			this.lastKeys = lastKeys;
+			this.byLast = byLast;
+			this.loadedAt = loadedAt;
+			this.lastPosition = new int[ids.length];
+			for (int i = 0; i < byLast.length; i++) {
+				lastPosition[byLast[i]] = i;
+			}
+		}
+
+		static Snapshot of(ArrayList<ArrayList<String>> rows) {
+			int size = rows.size() - 1;
+			String[] ids = new String[size];
+			String[] firstNames = new String[size];
+			String[] lastNames = new String[size];
+			String[] birthDates = new String[size];
+			for (int i = 0; i < size; i++) {
+				ArrayList<String> row = rows.get(i + 1);
+				ids[i] = row.get(0);
+				firstNames[i] = row.get(1);
+				lastNames[i] = row.get(2);
+				birthDates[i] = row.get(3);
+			}
+
+			int[] byFirst = sortedBy(firstNames);
+			int[] byLast = sortedBy(lastNames);
+			return new Snapshot(ids, firstNames, lastNames, birthDates, keys(firstNames, byFirst), byFirst,
+					keys(lastNames, byLast), byLast, System.currentTimeMillis());
+		}
+
+		/**
+		 * @return a copy with one more patient, inserted at its place in both
+		 *         name orders
+		 */
+		Snapshot with(String id, String firstName, String lastName, String birthDate) {
+			int patient = ids.length;
+			String firstKey = key(firstName);
+			String lastKey = key(lastName);
+			int firstAt = lowerBound(firstKeys, firstKey);
+			int lastAt = lowerBound(lastKeys, lastKey);
+
+			return new Snapshot(append(ids, id), append(firstNames, firstName), append(lastNames, lastName),
+					append(birthDates, birthDate), insert(firstKeys, firstAt, firstKey), insert(byFirst, firstAt, patient),
+					insert(lastKeys, lastAt, lastKey), insert(byLast, lastAt, patient), loadedAt);
+		}
+
+		ArrayList<String> row(int patient) {
+			return new ArrayList<String>(
+					Arrays.asList(ids[patient], firstNames[patient], lastNames[patient], birthDates[patient]));
+		}
+
+		private static int[] sortedBy(String[] names) {
+			final String[] keys = new String[names.length];
+			Integer[] order = new Integer[names.length];
+			for (int i = 0; i < names.length; i++) {
+				keys[i] = key(names[i]);
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+
+			int[] sorted = new int[order.length];
+			for (int i = 0; i < order.length; i++) {
+				sorted[i] = order[i];
+			}
+			return sorted;
+		}
+
+		private static String[] keys(String[] names, int[] order) {
+			String[] keys = new String[order.length];
+			for (int i = 0; i < order.length; i++) {
+				keys[i] = key(names[order[i]]);
+			}
+			return keys;
+		}
+
+		private static String[] append(String[] values, String value) {
+			String[] copy = Arrays.copyOf(values, values.length + 1);
+			copy[values.length] = value;
+			return copy;
+		}
+
+		private static String[] insert(String[] values, int at, String value) {
+			String[] copy = new String[values.length + 1];
+			System.arraycopy(values, 0, copy, 0, at);
+			copy[at] = value;
+			System.arraycopy(values, at, copy, at + 1, values.length - at);
+			return copy;
+		}
+
+		private static int[] insert(int[] values, int at, int value) {
+			int[] copy = new int[values.length + 1];
+			System.arraycopy(values, 0, copy, 0, at);
+			copy[at] = value;
+			System.arraycopy(values, at, copy, at + 1, values.length - at);
+			return copy;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A physical JDBC connection owned by a {@link ConnectionPool}, together with
+ * the bookkeeping the pool needs to validate, evict and reuse it.
+ */
+final class PooledConnection {
+	private final ConnectionPool owner;
+	private final Connection connection;
+	private final StatementCache statements;
+	private volatile long lastUsed;
+	private String catalog;
+
+	PooledConnection(ConnectionPool owner, Connection connection, int statementCacheSize) {
+		this.owner = owner;
+		this.connection = connection;
+		this.statements = new StatementCache(statementCacheSize);
+		this.lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the pool this connection has to be released to
+	 */
+	ConnectionPool owner() {
+		return owner;
+	}
+
+	Connection connection() {
+		return connection;
+	}
+
+	/**
+	 * @return the prepared-statement cache of this connection
+	 */
+	StatementCache statements() {
+		return statements;
+	}
+
+	long lastUsed() {
+		return lastUsed;
+	}
+
+	void touch() {
+		lastUsed = System.currentTimeMillis();
+	}
+
+	/**
+	 * Switches the connection to the given database, skipping the round trip if
+	 * it is already there.
+	 */
+	void useCatalog(String catalog) throws SQLException {
+		if (catalog != null && !catalog.equals(this.catalog)) {
+			// statements prepared against the old database must not be reused
+			statements.clear();
+			connection.setCatalog(catalog);
+			this.catalog = catalog;
+		}
+	}
+
+	void closeQuietly() {
+		statements.clear();
+		try {
+			connection.close();
+		} catch (SQLException e) {
+		}
+	}
+}
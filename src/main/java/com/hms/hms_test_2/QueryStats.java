@@ -0,0 +1,364 @@
+package com.hms.hms_test_2;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Execution statistics of the statements run through DatabaseOperator.
+ *
+ * Statements are grouped by their shape: the SQL with every string and number
+ * literal replaced by ?, so "... WHERE patient_id = 'hms0001pa'" and "...
+ * WHERE patient_id = 'hms0002pa'" count as the same statement. For every shape
+ * the execution time (until the first row is available), the fetch time
+ * (reading the rows), the rows and the characters of the values read as text
+ * are recorded.
+ *
+ * Statements taking longer than the slow query threshold are also written to
+ * a rolling log file. Only their shape is logged, never the literals, so the
+ * log holds no patient data.
+ */
+public final class QueryStats {
+
+	private static final Pattern IN_LIST = Pattern.compile("\\(\\?(?:\\s*,\\s*\\?)+\\)");
+	private static final DateTimeFormatter LOG_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final ConcurrentHashMap<String, StatementStats> statements = new ConcurrentHashMap<String, StatementStats>();
+
+	private volatile boolean enabled = true;
+	private volatile long slowQueryMicros = 1000000;
+	private volatile Logger slowLog;
+	private FileHandler slowLogHandler;
+
+	/**
+	 * Applies the settings read from the configuration.
+	 *
+	 * @param enabled         false to stop recording
+	 * @param slowQueryMillis statements taking at least this long are logged; 0
+	 *                        or less to log none
+	 * @param logPattern      file name pattern of the slow query log, see
+	 *                        FileHandler
+	 * @param logLimit        bytes written to one log file before rolling over
+	 * @param logCount        number of log files kept
+	 */
+	public synchronized void configure(boolean enabled, long slowQueryMillis, String logPattern, int logLimit,
+			int logCount) {
+		this.enabled = enabled;
+		this.slowQueryMicros = slowQueryMillis > 0 ? slowQueryMillis * 1000 : Long.MAX_VALUE;
+
+		if (slowLogHandler != null) {
+			slowLogHandler.close();
+			slowLogHandler = null;
+			slowLog = null;
+		}
+		if (!enabled || slowQueryMillis <= 0) {
+			return;
+		}
+
+		try {
+			FileHandler handler = new FileHandler(logPattern, Math.max(0, logLimit), Math.max(1, logCount), true);
+			handler.setFormatter(new Formatter() {
+				@Override
+				public String format(LogRecord record) {
+					return record.getMessage() + System.lineSeparator();
+				}
+			});
+			Logger logger = Logger.getAnonymousLogger();
+			logger.setUseParentHandlers(false);
+			logger.addHandler(handler);
+			slowLogHandler = handler;
+			slowLog = logger;
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Cannot open the slow query log " + logPattern);
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Records one run of a statement.
+	 *
+	 * @param sql        the statement as sent, with or without literals
+	 * @param execNanos  time until the statement was executed
+	 * @param fetchNanos time spent reading the rows
+	 * @param rows       rows read or updated
+	 * @param chars      characters of the values read as text, 0 if not known
+	 * @param failed     true if the statement threw
+	 */
+	public void record(String sql, long execNanos, long fetchNanos, long rows, long chars, boolean failed) {
+		if (!enabled || sql == null) {
+			return;
+		}
+		String shape = shapeOf(sql);
+		StatementStats stats = statements.get(shape);
+		if (stats == null) {
+			stats = statements.computeIfAbsent(shape, StatementStats::new);
+		}
+
+		long execMicros = execNanos / 1000;
+		long fetchMicros = fetchNanos / 1000;
+		stats.exec.record(execMicros);
+		stats.fetch.record(fetchMicros);
+		stats.rows.add(rows);
+		stats.chars.add(chars);
+		if (failed) {
+			stats.errors.increment();
+		}
+
+		Logger log = slowLog;
+		if (log != null && execMicros + fetchMicros >= slowQueryMicros) {
+			log.log(Level.INFO,
+					LOG_TIME.format(LocalDateTime.now()) + " " + (execMicros + fetchMicros) / 1000 + " ms (exec "
+							+ execMicros / 1000 + " ms, fetch " + fetchMicros / 1000 + " ms, " + rows + " rows"
+							+ (failed ? ", failed" : "") + ") " + shape);
+		}
+	}
+
+	/**
+	 * Reports a statement that threw. Like the slow query log only its shape is
+	 * printed, so the literals, e.g. patient names, stay out of the console.
+	 *
+	 * @param sql   the statement as sent, with or without literals
+	 * @param error what the statement threw
+	 */
+	public void logError(String sql, Throwable error) {
+		System.out.println("\n\nError: " + (sql == null ? "" : shapeOf(sql)));
+		error.printStackTrace();
+	}
+
+	/**
+	 * @param n number of statements to return
+	 * @return the n statements with the largest total time, largest first
+	 */
+	public List<Entry> top(int n) {
+		List<Entry> entries = new ArrayList<Entry>();
+		for (StatementStats stats : statements.values()) {
+			entries.add(new Entry(stats));
+		}
+		Collections.sort(entries, Comparator.comparingLong(Entry::getTotalMicros).reversed());
+		return entries.subList(0, Math.max(0, Math.min(n, entries.size())));
+	}
+
+	/**
+	 * @param n number of statements to list
+	 * @return the n statements with the largest total time as a text table, one
+	 *         line per statement, times in milliseconds
+	 */
+	public String dump(int n) {
+		StringBuilder out = new StringBuilder();
+		out.append(String.format("%8s %10s %8s %8s %8s %8s %8s %8s %10s %12s %6s  %s%n", "calls", "total", "mean",
+				"exec p50", "exec p95", "exec p99", "exec max", "fetch p99", "rows", "chars", "errors", "statement"));
+		for (Entry entry : top(n)) {
+			out.append(String.format("%8d %10.1f %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f %10d %12d %6d  %s%n",
+					entry.getCalls(), entry.getTotalMicros() / 1000.0, entry.getMeanMicros() / 1000.0,
+					entry.getP50Micros() / 1000.0, entry.getP95Micros() / 1000.0, entry.getP99Micros() / 1000.0,
+					entry.getMaxMicros() / 1000.0, entry.getFetchP99Micros() / 1000.0, entry.getRows(),
+					entry.getChars(), entry.getErrors(), entry.getShape()));
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Forgets everything recorded so far.
+	 */
+	public void reset() {
+		statements.clear();
+	}
+
+	/**
+	 * @return number of distinct statement shapes recorded
+	 */
+	public int size() {
+		return statements.size();
+	}
+
+	/**
+	 * Replaces the literals of a statement by ?, collapses white space and
+	 * lists of placeholders, e.g. "IN ('a', 'b')" becomes "IN (?+)".
+	 */
+	static String shapeOf(String sql) {
+		StringBuilder shape = new StringBuilder(sql.length());
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (c == '\'' || c == '"') {
+				// string literal, '' and \' do not end it
+				i++;
+				while (i < length) {
+					char d = sql.charAt(i);
+					if (d == '\\') {
+						i += 2;
+					} else if (d == c) {
+						if (i + 1 < length && sql.charAt(i + 1) == c) {
+							i += 2;
+						} else {
+							i++;
+							break;
+						}
+					} else {
+						i++;
+					}
+				}
+				shape.append('?');
+			} else if (c == '`') {
+				// quoted identifier, kept
+				int end = sql.indexOf('`', i + 1);
+				end = end < 0 ? length : end + 1;
+				shape.append(sql, i, end);
+				i = end;
+			} else if (Character.isDigit(c) && !partOfName(shape)) {
+				while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+					i++;
+				}
+				shape.append('?');
+			} else if (Character.isWhitespace(c)) {
+				while (i < length && Character.isWhitespace(sql.charAt(i))) {
+					i++;
+				}
+				if (shape.length() > 0) {
+					shape.append(' ');
+				}
+			} else {
+				shape.append(c);
+				i++;
+			}
+		}
+
+		int end = shape.length();
+		while (end > 0 && (shape.charAt(end - 1) == ' ' || shape.charAt(end - 1) == ';')) {
+			end--;
+		}
+		shape.setLength(end);
+		return shape.indexOf("?,") >= 0 || shape.indexOf("? ,") >= 0
+				? IN_LIST.matcher(shape).replaceAll("(?+)")
+				: shape.toString();
+	}
+
+	// true if the last character written belongs to a name, e.g. the 1 of "t001"
+	private static boolean partOfName(StringBuilder shape) {
+		if (shape.length() == 0) {
+			return false;
+		}
+		char last = shape.charAt(shape.length() - 1);
+		return Character.isLetterOrDigit(last) || last == '_' || last == '$';
+	}
+
+	private static final class StatementStats {
+		final String shape;
+		final LatencyHistogram exec = new LatencyHistogram();
+		final LatencyHistogram fetch = new LatencyHistogram();
+		final LongAdder rows = new LongAdder();
+		final LongAdder chars = new LongAdder();
+		final LongAdder errors = new LongAdder();
+
+		StatementStats(String shape) {
+			this.shape = shape;
+		}
+	}
+
+	/**
+	 * Statistics of one statement shape at the time {@link QueryStats#top(int)}
+	 * was called. Times are in microseconds. The percentiles and the maximum are
+	 * of the execution time, except {@link #getFetchP99Micros()}.
+	 */
+	public static final class Entry {
+		private final String shape;
+		private final long calls;
+		private final long errors;
+		private final long rows;
+		private final long chars;
+		private final long execMicros;
+		private final long fetchMicros;
+		private final long p50Micros;
+		private final long p95Micros;
+		private final long p99Micros;
+		private final long maxMicros;
+		private final long fetchP99Micros;
+
+		private Entry(StatementStats stats) {
+			this.shape = stats.shape;
+			this.calls = stats.exec.getCount();
+			this.errors = stats.errors.sum();
+			this.rows = stats.rows.sum();
+			this.chars = stats.chars.sum();
+			this.execMicros = stats.exec.getTotal();
+			this.fetchMicros = stats.fetch.getTotal();
+			this.p50Micros = stats.exec.getPercentile(50);
+			this.p95Micros = stats.exec.getPercentile(95);
+			this.p99Micros = stats.exec.getPercentile(99);
+			this.maxMicros = stats.exec.getMax();
+			this.fetchP99Micros = stats.fetch.getPercentile(99);
+		}
+
+		public String getShape() {
+			return shape;
+		}
+
+		public long getCalls() {
+			return calls;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public long getRows() {
+			return rows;
+		}
+
+		public long getChars() {
+			return chars;
+		}
+
+		/**
+		 * @return execution plus fetch time of all calls
+		 */
+		public long getTotalMicros() {
+			return execMicros + fetchMicros;
+		}
+
+		public long getMeanMicros() {
+			return calls == 0 ? 0 : getTotalMicros() / calls;
+		}
+
+		public long getExecMicros() {
+			return execMicros;
+		}
+
+		public long getFetchMicros() {
+			return fetchMicros;
+		}
+
+		public long getP50Micros() {
+			return p50Micros;
+		}
+
+		public long getP95Micros() {
+			return p95Micros;
+		}
+
+		public long getP99Micros() {
+			return p99Micros;
+		}
+
+		public long getMaxMicros() {
+			return maxMicros;
+		}
+
+		public long getFetchP99Micros() {
+			return fetchP99Micros;
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of the hospital's reference data: lab tests, drugs and
+ * brands, suppliers and doctors. These catalogues are read on almost every
+ * screen but change rarely, so the result of each catalogue query is kept in
+ * memory, shared by every user of the application, as an immutable snapshot.
+ *
+ * The methods writing to a catalogue call {@link #invalidate(Catalogue)}, which
+ * drops every cached query of that catalogue and nothing else. Changes made by
+ * other clients show up when a snapshot is older than referenceCacheTtl (600
+ * seconds by default, other units as in "10m"); a ttl of 0 turns the cache
+ * off.
+ */
+public final class ReferenceCache {
+
+	/**
+	 * The cached catalogues and the tables they are read from.
+	 */
+	public enum Catalogue {
+		/** lab_test */
+		LAB_TESTS,
+		/** drug and drug_brand_names */
+		DRUGS,
+		/** suppliers */
+		SUPPLIERS,
+		/** doctor and the names of the doctors */
+		DOCTORS
+	}
+
+	static final Duration DEFAULT_TTL = Duration.ofSeconds(600);
+
+	// queries cached per catalogue, more are run uncached
+	private static final int MAX_QUERIES = 256;
+
+	private static final ReferenceCache instance = new ReferenceCache();
+
+	private final Map<Catalogue, ConcurrentHashMap<String, Snapshot>> snapshots = new EnumMap<Catalogue, ConcurrentHashMap<String, Snapshot>>(
+			Catalogue.class);
+	private final Map<Catalogue, AtomicLong> generations = new EnumMap<Catalogue, AtomicLong>(Catalogue.class);
+	private final Map<Catalogue, LongAdder> hits = new EnumMap<Catalogue, LongAdder>(Catalogue.class);
+	private final Map<Catalogue, LongAdder> misses = new EnumMap<Catalogue, LongAdder>(Catalogue.class);
+	private final LongAdder invalidations = new LongAdder();
+
+	ReferenceCache() {
+		for (Catalogue catalogue : Catalogue.values()) {
+			snapshots.put(catalogue, new ConcurrentHashMap<String, Snapshot>());
+			generations.put(catalogue, new AtomicLong());
+			hits.put(catalogue, new LongAdder());
+			misses.put(catalogue, new LongAdder());
+		}
+	}
+
+	public static ReferenceCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Runs a catalogue query through the cache of the given operator, or
+	 * directly if it has none. Meant for the role classes, whose methods return
+	 * mutable lists.
+	 *
+	 * @param dbOperator the operator of the calling user
+	 * @param catalogue  the catalogue the query reads
+	 * @param sql        the query
+	 * @return a copy of the rows, the column names first, that the caller may
+	 *         change; null if the query failed
+	 */
+	public static ArrayList<ArrayList<String>> select(DatabaseOperator dbOperator, Catalogue catalogue, String sql)
+			throws ClassNotFoundException, SQLException {
+		ReferenceCache cache = dbOperator.referenceCache();
+		if (cache == null) {
+			return dbOperator.customSelection(sql);
+		}
+
+		List<List<String>> rows = cache.get(catalogue, dbOperator, sql);
+		if (rows == null) {
+			return null;
+		}
+		ArrayList<ArrayList<String>> data = new ArrayList<ArrayList<String>>(rows.size());
+		for (List<String> row : rows) {
+			data.add(new ArrayList<String>(row));
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the cached result of a catalogue query, running the query if it is
+	 * not cached or older than referenceCacheTtl.
+	 *
+	 * @param catalogue  the catalogue the query reads
+	 * @param dbOperator used to run the query on a miss
+	 * @param sql        the query
+	 * @return the rows, the column names first, as an unmodifiable snapshot;
+	 *         null if the query failed
+	 */
+	public List<List<String>> get(Catalogue catalogue, DatabaseOperator dbOperator, String sql)
+			throws ClassNotFoundException, SQLException {
+		ConcurrentHashMap<String, Snapshot> cached = snapshots.get(catalogue);
+		AtomicLong generation = generations.get(catalogue);
+		long maxAge = DatabaseOperator.durationSetting("referenceCacheTtl", ChronoUnit.SECONDS, DEFAULT_TTL).toMillis();
+
+		Snapshot snapshot = cached.get(sql);
+		if (snapshot != null && System.currentTimeMillis() - snapshot.loadedAt < maxAge) {
+			hits.get(catalogue).increment();
+			return snapshot.rows;
+		}
+
+		misses.get(catalogue).increment();
+		long loadedGeneration = generation.get();
+		ArrayList<ArrayList<String>> data = dbOperator.customSelection(sql);
+		if (data == null) {
+			return null;
+		}
+
+		snapshot = new Snapshot(data);
+		// a write during the query may not be part of the result, keep it only if
+		// the catalogue was not invalidated meanwhile
+		if (generation.get() == loadedGeneration && (cached.size() < MAX_QUERIES || cached.containsKey(sql))) {
+			cached.put(sql, snapshot);
+			if (generation.get() != loadedGeneration) {
+				cached.remove(sql, snapshot);
+			}
+		}
+		return snapshot.rows;
+	}
+
+	/**
+	 * Drops every cached query of the catalogue, called after writing to one of
+	 * its tables.
+	 */
+	public void invalidate(Catalogue catalogue) {
+		generations.get(catalogue).incrementAndGet();
+		snapshots.get(catalogue).clear();
+		invalidations.increment();
+	}
+
+	/**
+	 * Drops everything, e.g. after switching to another database.
+	 */
+	public void reset() {
+		for (Catalogue catalogue : Catalogue.values()) {
+			generations.get(catalogue).incrementAndGet();
+			snapshots.get(catalogue).clear();
+		}
+	}
+
+	/**
+	 * @return lookups of the catalogue answered from memory
+	 */
+	public long getHits(Catalogue catalogue) {
+		return hits.get(catalogue).sum();
+	}
+
+	/**
+	 * @return lookups of the catalogue that had to query the database
+	 */
+	public long getMisses(Catalogue catalogue) {
+		return misses.get(catalogue).sum();
+	}
+
+	public long getHits() {
+		long sum = 0;
+		for (LongAdder adder : hits.values()) {
+			sum += adder.sum();
+		}
+		return sum;
+	}
+
+	public long getMisses() {
+		long sum = 0;
+		for (LongAdder adder : misses.values()) {
+			sum += adder.sum();
+		}
+		return sum;
+	}
+
+	/**
+	 * @return share of the lookups of all catalogues answered from memory, 0 if
+	 *         there were none
+	 */
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	/**
+	 * @return number of times a catalogue was invalidated by a write
+	 */
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	private static final class Snapshot {
+		final List<List<String>> rows;
+		final long loadedAt = System.currentTimeMillis();
+
+		Snapshot(ArrayList<ArrayList<String>> data) {
+			List<List<String>> copy = new ArrayList<List<String>>(data.size());
+			for (ArrayList<String> row : data) {
+				copy.add(Collections.unmodifiableList(new ArrayList<String>(row)));
+			}
+			this.rows = Collections.unmodifiableList(copy);
+		}
+	}
+}
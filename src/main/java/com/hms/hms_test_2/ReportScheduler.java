@@ -0,0 +1,338 @@
+package com.hms.hms_test_2;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Computes the report datasets ahead of time, so the reports screen can show
+ * them the moment it opens instead of running every report query again.
+ *
+ * Once started, the datasets are computed every reportRefreshInterval (10
+ * minutes by default, other units as in "1h"; 0 turns this off) and every
+ * night at reportNightlyAt (02:00 by default, empty turns this off), on a
+ * thread of its own. The latest snapshot is kept in memory and in
+ * reportSnapshotFile (report-snapshot.bin), so after a restart the reports
+ * show the snapshot of the last session until the first refresh is done. A
+ * snapshot of another database than the one in use is ignored. A refresh that
+ * fails keeps the previous snapshot.
+ *
+ * Refreshes asked for while one is running wait for it instead of computing
+ * the datasets again.
+ */
+public final class ReportScheduler {
+
+	static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(10);
+	static final LocalTime DEFAULT_NIGHTLY = LocalTime.of(2, 0);
+	static final String DEFAULT_FILE = "report-snapshot.bin";
+
+	private static final ReportScheduler instance = new ReportScheduler();
+
+	// null for reportSnapshotFile
+	private final Path file;
+	// the database in use, see DatabaseOperator.getDatabaseIdentity
+	private final Supplier<String> database;
+	private UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work;
+	private volatile ReportSnapshot latest;
+	private boolean loaded;
+	// the user whose session started the refreshes, null if none did
+	private User owner;
+	private CompletableFuture<ReportSnapshot> running;
+	private ScheduledExecutorService timer;
+	private ScheduledFuture<?> periodic;
+	private ScheduledFuture<?> nightly;
+	// raised whenever the refreshes are scheduled again, so a nightly refresh
+	// of an older schedule does not schedule the next night
+	private long schedule;
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+
+	ReportScheduler() {
+		this(null, null);
+	}
+
+	/**
+	 * A scheduler that refreshes only when asked to, until it is started.
+	 */
+	ReportScheduler(Path file, UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work) {
+		this(file, work, DatabaseOperator::getDatabaseIdentity);
+	}
+
+	ReportScheduler(Path file, UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work,
+			Supplier<String> database) {
+		this.file = file;
+		this.work = work;
+		this.database = database;
+	}
+
+	public static ReportScheduler getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Schedules the refreshes. Calling it again replaces the work and keeps the
+	 * snapshot.
+	 *
+	 * @param work reads the datasets, by name
+	 */
+	public synchronized void start(UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work) {
+		this.work = work;
+		if (timer == null) {
+			timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "hms-report-scheduler");
+				// never keeps the application from exiting
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		reschedule();
+	}
+
+	/**
+	 * Schedules the refreshes for the session of the user, see
+	 * {@link #stop(User)}.
+	 *
+	 * @param owner the user whose session needs the datasets
+	 * @param work  reads the datasets, by name
+	 */
+	public synchronized void start(User owner, UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work) {
+		start(work);
+		this.owner = owner;
+	}
+
+	/**
+	 * Stops the refreshes. Called when the application exits.
+	 */
+	public synchronized void stop() {
+		if (timer != null) {
+			timer.shutdownNow();
+			timer = null;
+		}
+		periodic = null;
+		nightly = null;
+		owner = null;
+		schedule++;
+	}
+
+	/**
+	 * Stops the refreshes if the session of the user started them, called when
+	 * the user logs out. The snapshot is kept.
+	 */
+	public synchronized void stop(User user) {
+		if (owner != null && owner == user) {
+			stop();
+		}
+	}
+
+	/**
+	 * Applies changed reportRefreshInterval and reportNightlyAt settings.
+	 */
+	public synchronized void reschedule() {
+		if (timer == null) {
+			return;
+		}
+		if (periodic != null) {
+			periodic.cancel(false);
+			periodic = null;
+		}
+		if (nightly != null) {
+			nightly.cancel(false);
+			nightly = null;
+		}
+		schedule++;
+
+		long interval = DatabaseOperator.durationSetting("reportRefreshInterval", ChronoUnit.MINUTES, DEFAULT_INTERVAL)
+				.toMillis();
+		if (interval > 0) {
+			// a snapshot of the last session that is still fresh is not computed
+			// again at once
+			ReportSnapshot snapshot = latest();
+			long delay = snapshot == null ? 0 : Math.max(0, interval - snapshot.ageMillis());
+			periodic = timer.scheduleWithFixedDelay(this::refreshQuietly, delay, interval, TimeUnit.MILLISECONDS);
+		}
+		scheduleNightly(schedule);
+	}
+
+	/**
+	 * @return the latest snapshot, read from reportSnapshotFile the first time,
+	 *         or null if there is none yet or it is of another database
+	 */
+	public ReportSnapshot latest() {
+		ReportSnapshot snapshot = latest;
+		if (snapshot == null) {
+			synchronized (this) {
+				if (!loaded) {
+					loaded = true;
+					try {
+						latest = ReportSnapshot.read(file());
+					} catch (IOException | RuntimeException e) {
+						// a damaged file is replaced by the next refresh
+						e.printStackTrace();
+					}
+				}
+				snapshot = latest;
+			}
+		}
+		return snapshot != null && snapshot.getDatabase().equals(database.get()) ? snapshot : null;
+	}
+
+	/**
+	 * Computes the datasets now, or waits for the refresh already running.
+	 * Blocks; call it on a worker thread.
+	 *
+	 * @return the new snapshot
+	 * @throws SQLException if the datasets could not be read
+	 */
+	public ReportSnapshot refresh() throws ClassNotFoundException, SQLException {
+		CompletableFuture<ReportSnapshot> future;
+		boolean owner = false;
+		UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> current;
+		synchronized (this) {
+			if (work == null) {
+				throw new IllegalStateException("Report scheduler not started");
+			}
+			if (running == null) {
+				running = new CompletableFuture<ReportSnapshot>();
+				owner = true;
+			}
+			future = running;
+			current = work;
+		}
+
+		if (owner) {
+			try {
+				future.complete(compute(current));
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			} finally {
+				synchronized (this) {
+					running = null;
+				}
+			}
+		}
+
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Report refresh interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException) {
+				throw (SQLException) cause;
+			}
+			if (cause instanceof ClassNotFoundException) {
+				throw (ClassNotFoundException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (RuntimeException) cause;
+		}
+	}
+
+	/**
+	 * @return refreshes that gave a new snapshot
+	 */
+	public long getRefreshes() {
+		return refreshes.sum();
+	}
+
+	/**
+	 * @return refreshes that failed
+	 */
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	private ReportSnapshot compute(UnitOfWork<Map<String, ArrayList<ArrayList<String>>>> work)
+			throws ClassNotFoundException, SQLException {
+		long start = System.currentTimeMillis();
+		String source = database.get();
+		Map<String, ArrayList<ArrayList<String>>> datasets;
+		try {
+			datasets = work.run();
+		} catch (ClassNotFoundException | SQLException | RuntimeException e) {
+			failures.increment();
+			throw e;
+		}
+
+		ReportSnapshot previous = latest();
+		ReportSnapshot snapshot = new ReportSnapshot(previous == null ? 1 : previous.getVersion() + 1, start, source,
+				datasets);
+		latest = snapshot;
+		refreshes.increment();
+		try {
+			snapshot.write(file());
+		} catch (IOException e) {
+			// the snapshot is still served from memory
+			e.printStackTrace();
+		}
+		return snapshot;
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (ClassNotFoundException | SQLException | RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// runs at the next reportNightlyAt and schedules the night after, so the
+	// time of day is kept over daylight saving changes
+	private synchronized void scheduleNightly(long schedule) {
+		if (timer == null || schedule != this.schedule) {
+			return;
+		}
+		LocalTime at = nightlyAt();
+		if (at == null) {
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime next = now.toLocalDate().atTime(at);
+		if (!next.isAfter(now)) {
+			next = next.plusDays(1);
+		}
+		nightly = timer.schedule(() -> {
+			refreshQuietly();
+			scheduleNightly(schedule);
+		}, ChronoUnit.MILLIS.between(now, next), TimeUnit.MILLISECONDS);
+	}
+
+	private static LocalTime nightlyAt() {
+		String value = DatabaseOperator.settings().get("reportNightlyAt");
+		if (value == null) {
+			return DEFAULT_NIGHTLY;
+		}
+		if (value.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			return LocalTime.parse(value.trim());
+		} catch (DateTimeParseException e) {
+			System.out.println("Invalid value for reportNightlyAt: " + value);
+			return DEFAULT_NIGHTLY;
+		}
+	}
+
+	private Path file() {
+		return file != null ? file : Paths.get(DatabaseOperator.setting("reportSnapshotFile", DEFAULT_FILE));
+	}
+}
@@ -0,0 +1,170 @@
+package com.hms.hms_test_2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The report datasets computed at one moment, each a table in the shape
+ * customSelection returns, the column names in row 0.
+ *
+ * Every snapshot has a version one above the one it replaces, so a screen can
+ * tell whether it already shows the latest, and names the database it was read
+ * from, so one of another database is not shown. A snapshot is written to disk in a
+ * small binary format of its own, to a temporary file first that then replaces
+ * the old one, so a crash while writing never leaves half a snapshot behind. A
+ * file of another format is ignored.
+ *
+ * The tables are shared by everybody reading the snapshot and must not be
+ * changed.
+ */
+public final class ReportSnapshot {
+
+	// "HMSR"
+	private static final int MAGIC = 0x484d5352;
+	// raised when the layout of the file changes
+	static final int FORMAT = 2;
+
+	private final long version;
+	private final long computedAt;
+	private final String database;
+	private final Map<String, ArrayList<ArrayList<String>>> datasets;
+
+	/**
+	 * @param version    one above the version of the snapshot it replaces
+	 * @param computedAt when the datasets were read, as currentTimeMillis
+	 * @param database   the database the datasets were read from, see
+	 *                   DatabaseOperator.getDatabaseIdentity
+	 * @param datasets   the tables by name, in the order they are written
+	 */
+	public ReportSnapshot(long version, long computedAt, String database,
+			Map<String, ArrayList<ArrayList<String>>> datasets) {
+		this.version = version;
+		this.computedAt = computedAt;
+		this.database = database;
+		this.datasets = Collections.unmodifiableMap(new LinkedHashMap<String, ArrayList<ArrayList<String>>>(datasets));
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public long getComputedAt() {
+		return computedAt;
+	}
+
+	public String getDatabase() {
+		return database;
+	}
+
+	/**
+	 * @return milliseconds since the datasets were read
+	 */
+	public long ageMillis() {
+		return Math.max(0, System.currentTimeMillis() - computedAt);
+	}
+
+	/**
+	 * @return the table, or null if the snapshot has none of that name
+	 */
+	public ArrayList<ArrayList<String>> get(String name) {
+		return datasets.get(name);
+	}
+
+	public Set<String> names() {
+		return datasets.keySet();
+	}
+
+	/**
+	 * Writes the snapshot to the file, replacing it.
+	 */
+	public void write(Path file) throws IOException {
+		Path dir = file.toAbsolutePath().getParent();
+		Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				out.writeLong(version);
+				out.writeLong(computedAt);
+				out.writeUTF(database);
+				out.writeInt(datasets.size());
+				for (Map.Entry<String, ArrayList<ArrayList<String>>> dataset : datasets.entrySet()) {
+					out.writeUTF(dataset.getKey());
+					out.writeInt(dataset.getValue().size());
+					for (ArrayList<String> row : dataset.getValue()) {
+						out.writeInt(row.size());
+						for (String value : row) {
+							out.writeBoolean(value != null);
+							if (value != null) {
+								out.writeUTF(value);
+							}
+						}
+					}
+				}
+			} finally {
+				out.close();
+			}
+			try {
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * @return the snapshot written to the file, or null if there is none or it
+	 *         was written in another format
+	 */
+	public static ReportSnapshot read(Path file) throws IOException {
+		DataInputStream in;
+		try {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+				return null;
+			}
+			long version = in.readLong();
+			long computedAt = in.readLong();
+			String database = in.readUTF();
+			int count = in.readInt();
+			LinkedHashMap<String, ArrayList<ArrayList<String>>> datasets = new LinkedHashMap<String, ArrayList<ArrayList<String>>>();
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				int rows = in.readInt();
+				ArrayList<ArrayList<String>> table = new ArrayList<ArrayList<String>>();
+				for (int r = 0; r < rows; r++) {
+					int columns = in.readInt();
+					ArrayList<String> row = new ArrayList<String>();
+					for (int c = 0; c < columns; c++) {
+						row.add(in.readBoolean() ? in.readUTF() : null);
+					}
+					table.add(row);
+				}
+				datasets.put(name, table);
+			}
+			return new ReportSnapshot(version, computedAt, database, datasets);
+		} finally {
+			in.close();
+		}
+	}
+}
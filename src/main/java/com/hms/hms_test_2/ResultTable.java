@@ -0,0 +1,380 @@
+package com.hms.hms_test_2;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Column oriented, typed result of a query.
+ *
+ * Integer columns are kept in {@code int[]}, big integer, date and timestamp
+ * columns in {@code long[]} (dates as epoch days, timestamps as epoch seconds
+ * of the local date-time) and everything else as {@code String[]}. The column
+ * names are stored once instead of as a header row, and values are read by
+ * row and column position.
+ */
+public final class ResultTable {
+
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int DATE = 2;
+	private static final int TIMESTAMP = 3;
+	private static final int STRING = 4;
+
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final String[] columnNames;
+	private final int[] kinds;
+	private final Object[] columns;
+	private final BitSet[] nulls;
+	private int rowCount;
+
+	private ResultTable(String[] columnNames, int[] kinds, int capacity) {
+		this.columnNames = columnNames;
+		this.kinds = kinds;
+		this.columns = new Object[columnNames.length];
+		this.nulls = new BitSet[columnNames.length];
+		for (int i = 0; i < columnNames.length; i++) {
+			columns[i] = newColumn(kinds[i], capacity);
+			nulls[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * Reads every remaining row of the result set. The result set is not closed.
+	 *
+	 * @param rs the result set positioned before its first row
+	 * @return the rows of the result set
+	 */
+	public static ResultTable from(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int noOfColumns = rsmd.getColumnCount();
+		String[] names = new String[noOfColumns];
+		int[] kinds = new int[noOfColumns];
+		for (int i = 0; i < noOfColumns; i++) {
+			names[i] = rsmd.getColumnLabel(i + 1);
+			kinds[i] = kindOf(rsmd.getColumnType(i + 1), rsmd.getScale(i + 1), rsmd.isSigned(i + 1));
+		}
+
+		ResultTable table = new ResultTable(names, kinds, 16);
+		while (rs.next()) {
+			table.ensureCapacity(table.rowCount + 1);
+			int row = table.rowCount;
+			for (int i = 0; i < noOfColumns; i++) {
+				table.read(rs, row, i);
+			}
+			table.rowCount++;
+		}
+		return table;
+	}
+
+	/**
+	 * Builds a table from rows in the {@code customSelection} layout, with the
+	 * column names in the first row. All columns are kept as text and converted
+	 * when read with a typed getter.
+	 *
+	 * @param rows the header row followed by the data rows
+	 * @return the same data as a table
+	 */
+	public static ResultTable fromRows(List<? extends List<String>> rows) {
+		String[] names = rows.get(0).toArray(new String[0]);
+		int[] kinds = new int[names.length];
+		Arrays.fill(kinds, STRING);
+
+		int size = rows.size() - 1;
+		ResultTable table = new ResultTable(names, kinds, Math.max(size, 1));
+		for (int r = 0; r < size; r++) {
+			List<String> row = rows.get(r + 1);
+			for (int i = 0; i < names.length; i++) {
+				String value = row.get(i);
+				((String[]) table.columns[i])[r] = value;
+				if (value == null) {
+					table.nulls[i].set(r);
+				}
+			}
+		}
+		table.rowCount = size;
+		return table;
+	}
+
+	/**
+	 * @return number of data rows
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	/**
+	 * @param column column position, starting at 0
+	 * @return name (or alias) of the column
+	 */
+	public String getColumnName(int column) {
+		return columnNames[column];
+	}
+
+	/**
+	 * @param name column name or alias
+	 * @return position of the column, or -1 if there is no such column
+	 */
+	public int getColumnIndex(String name) {
+		for (int i = 0; i < columnNames.length; i++) {
+			if (columnNames[i].equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		return nulls[column].get(row);
+	}
+
+	/**
+	 * @return the value as an int, 0 for SQL NULL
+	 */
+	public int getInt(int row, int column) {
+		checkRow(row);
+		switch (kinds[column]) {
+			case INT:
+				return ((int[]) columns[column])[row];
+			case STRING:
+				String value = ((String[]) columns[column])[row];
+				return value == null ? 0 : Integer.parseInt(value.trim());
+			default:
+				return (int) getLong(row, column);
+		}
+	}
+
+	/**
+	 * @return the value as a long, 0 for SQL NULL. Dates are returned as epoch
+	 *         days and timestamps as epoch seconds.
+	 */
+	public long getLong(int row, int column) {
+		checkRow(row);
+		switch (kinds[column]) {
+			case INT:
+				return ((int[]) columns[column])[row];
+			case STRING:
+				String value = ((String[]) columns[column])[row];
+				return value == null ? 0 : Long.parseLong(value.trim());
+			default:
+				return ((long[]) columns[column])[row];
+		}
+	}
+
+	/**
+	 * @return the value as a double, 0 for SQL NULL
+	 */
+	public double getDouble(int row, int column) {
+		checkRow(row);
+		if (kinds[column] == STRING) {
+			String value = ((String[]) columns[column])[row];
+			return value == null ? 0 : Double.parseDouble(value.trim());
+		}
+		return getLong(row, column);
+	}
+
+	/**
+	 * @return the date of a date or timestamp column as days since 1970-01-01
+	 */
+	public long getEpochDay(int row, int column) {
+		checkRow(row);
+		switch (kinds[column]) {
+			case DATE:
+				return ((long[]) columns[column])[row];
+			case TIMESTAMP:
+				return Math.floorDiv(((long[]) columns[column])[row], 86400L);
+			default:
+				LocalDate date = getDate(row, column);
+				return date == null ? 0 : date.toEpochDay();
+		}
+	}
+
+	/**
+	 * @return the date part of a date or timestamp column, null for SQL NULL
+	 */
+	public LocalDate getDate(int row, int column) {
+		checkRow(row);
+		if (nulls[column].get(row)) {
+			return null;
+		}
+		switch (kinds[column]) {
+			case DATE:
+			case TIMESTAMP:
+				return LocalDate.ofEpochDay(getEpochDay(row, column));
+			case STRING:
+				String value = ((String[]) columns[column])[row];
+				return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+			default:
+				throw new IllegalStateException("Column " + columnNames[column] + " is not a date");
+		}
+	}
+
+	/**
+	 * @return the value of a timestamp or date column, null for SQL NULL
+	 */
+	public LocalDateTime getTimestamp(int row, int column) {
+		checkRow(row);
+		if (nulls[column].get(row)) {
+			return null;
+		}
+		switch (kinds[column]) {
+			case TIMESTAMP:
+				return LocalDateTime.ofEpochSecond(((long[]) columns[column])[row], 0, ZoneOffset.UTC);
+			case DATE:
+				return getDate(row, column).atStartOfDay();
+			case STRING:
+				String value = ((String[]) columns[column])[row];
+				return value.length() > 10 ? LocalDateTime.parse(value.substring(0, 19), TIMESTAMP_FORMAT)
+						: LocalDate.parse(value).atStartOfDay();
+			default:
+				throw new IllegalStateException("Column " + columnNames[column] + " is not a timestamp");
+		}
+	}
+
+	/**
+	 * @return the value as text, in the same format {@code customSelection} uses,
+	 *         or null for SQL NULL
+	 */
+	public String getString(int row, int column) {
+		checkRow(row);
+		if (nulls[column].get(row)) {
+			return null;
+		}
+		switch (kinds[column]) {
+			case INT:
+				return Integer.toString(((int[]) columns[column])[row]);
+			case LONG:
+				return Long.toString(((long[]) columns[column])[row]);
+			case DATE:
+				return getDate(row, column).toString();
+			case TIMESTAMP:
+				return TIMESTAMP_FORMAT.format(getTimestamp(row, column));
+			default:
+				return ((String[]) columns[column])[row];
+		}
+	}
+
+	/**
+	 * Converts the table back to the {@code customSelection} layout, for callers
+	 * that still expect it.
+	 *
+	 * @return the column names followed by one list per row
+	 */
+	public ArrayList<ArrayList<String>> toRows() {
+		ArrayList<ArrayList<String>> rows = new ArrayList<ArrayList<String>>(rowCount + 1);
+		rows.add(new ArrayList<String>(Arrays.asList(columnNames)));
+		for (int r = 0; r < rowCount; r++) {
+			ArrayList<String> row = new ArrayList<String>(columnNames.length);
+			for (int i = 0; i < columnNames.length; i++) {
+				row.add(getString(r, i));
+			}
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	private void read(ResultSet rs, int row, int column) throws SQLException {
+		int index = column + 1;
+		switch (kinds[column]) {
+			case INT:
+				((int[]) columns[column])[row] = rs.getInt(index);
+				break;
+			case LONG:
+				((long[]) columns[column])[row] = rs.getLong(index);
+				break;
+			case DATE:
+				java.sql.Date date = rs.getDate(index);
+				if (date != null) {
+					((long[]) columns[column])[row] = date.toLocalDate().toEpochDay();
+				}
+				break;
+			case TIMESTAMP:
+				java.sql.Timestamp timestamp = rs.getTimestamp(index);
+				if (timestamp != null) {
+					((long[]) columns[column])[row] = timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+				}
+				break;
+			default:
+				((String[]) columns[column])[row] = rs.getString(index);
+				break;
+		}
+		if (rs.wasNull()) {
+			nulls[column].set(row);
+		}
+	}
+
+	private void ensureCapacity(int size) {
+		for (int i = 0; i < columns.length; i++) {
+			Object column = columns[i];
+			int length = kinds[i] == INT ? ((int[]) column).length
+					: kinds[i] == STRING ? ((String[]) column).length : ((long[]) column).length;
+			if (size > length) {
+				int newLength = Math.max(size, length * 2);
+				if (kinds[i] == INT) {
+					columns[i] = Arrays.copyOf((int[]) column, newLength);
+				} else if (kinds[i] == STRING) {
+					columns[i] = Arrays.copyOf((String[]) column, newLength);
+				} else {
+					columns[i] = Arrays.copyOf((long[]) column, newLength);
+				}
+			}
+		}
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= rowCount) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+		}
+	}
+
+	private static Object newColumn(int kind, int capacity) {
+		switch (kind) {
+			case INT:
+				return new int[capacity];
+			case STRING:
+				return new String[capacity];
+			default:
+				return new long[capacity];
+		}
+	}
+
+	private static int kindOf(int sqlType, int scale, boolean signed) {
+		switch (sqlType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+				return INT;
+			case Types.INTEGER:
+				return signed ? INT : LONG;
+			case Types.BIGINT:
+				return LONG;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				// whole numbers such as SUM() results; anything with a fraction stays text
+				return scale == 0 ? LONG : STRING;
+			case Types.DATE:
+				return DATE;
+			case Types.TIMESTAMP:
+				return TIMESTAMP;
+			default:
+				return STRING;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.hms.hms_test_2;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Callback that receives the rows of a streamed query one at a time.
+ *
+ * @see DatabaseOperator#stream(String, java.util.List, RowHandler)
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+	/**
+	 * Called once before the first row, also when the result has no rows, e.g.
+	 * to write a header.
+	 *
+	 * @param columns the columns of the result
+	 */
+	default void start(ResultSetMetaData columns) throws SQLException {
+	}
+
+	/**
+	 * Called once for every row. The result set is already positioned on the row
+	 * and must not be advanced or kept after the call returns.
+	 *
+	 * @param row the result set positioned on the current row
+	 */
+	void handleRow(ResultSet row) throws SQLException;
+}
@@ -0,0 +1,292 @@
+package com.hms.hms_test_2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the schema of a database made from database/hms_db.sql up to date.
+ *
+ * The changes are SQL scripts in src/main/resources/db/migrations, named
+ * V&lt;version&gt;__&lt;description&gt;.sql and listed in {@link #MIGRATIONS} in
+ * the order they are run. Each one is run once per database and recorded in the
+ * schema_version table with a checksum of the script. A script that was changed
+ * after it was run is reported, but not run again; add a new version instead.
+ *
+ * Clients starting at the same time take turns through a named lock of the
+ * server, so every script runs once. An index or trigger that already exists,
+ * e.g. because an earlier run stopped halfway through a script, is skipped,
+ * since MySQL has no CREATE INDEX IF NOT EXISTS.
+ *
+ * A script that needs data computed once its triggers exist has a step that
+ * runs after it, see {@link #afterScript}; the script is recorded once that
+ * step succeeded.
+ *
+ * The migrations are run with {@link #main} when the application is deployed.
+ * DatabaseOperator runs them the first time a database is used only if
+ * migrateSchema is true, as they need privileges the users of the application
+ * should not have.
+ */
+public final class SchemaMigrator {
+
+	/** the scripts, oldest first */
+	static final String[] MIGRATIONS = { "V1__hot_filter_indexes", "V2__daily_rollups",
+			"V3__lab_result_date_indexes" };
+
+	private static final String LOCATION = "/db/migrations/";
+	private static final int LOCK_TIMEOUT_SECONDS = 60;
+	// ER_DUP_KEYNAME
+	private static final int DUPLICATE_KEY_NAME = 1061;
+	// ER_TRG_ALREADY_EXISTS
+	private static final int TRIGGER_EXISTS = 1359;
+	// ER_NO_SUCH_TABLE
+	private static final int NO_SUCH_TABLE = 1146;
+
+	private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS schema_version "
+			+ "(version int NOT NULL, description varchar(100) NOT NULL, checksum bigint NOT NULL, "
+			+ "installed_on datetime NOT NULL, execution_ms bigint NOT NULL, PRIMARY KEY (version))";
+
+	private SchemaMigrator() {
+	}
+
+	/**
+	 * Runs the scripts that have not been run on the database of the connection
+	 * yet.
+	 *
+	 * @param connection a connection in auto-commit mode to the database to
+	 *                   migrate
+	 * @return the names of the scripts that were run, in order
+	 * @throws SQLException if a script fails; the scripts before it stay
+	 *                      recorded
+	 */
+	public static List<String> migrate(Connection connection) throws SQLException {
+		List<String> applied = new ArrayList<String>();
+		lock(connection);
+		try {
+			execute(connection, CREATE_TABLE);
+			Map<Integer, Long> checksums = appliedChecksums(connection);
+			for (String migration : MIGRATIONS) {
+				String script = load(migration);
+				long checksum = checksum(script);
+				Long recorded = checksums.get(version(migration));
+				if (recorded == null) {
+					run(connection, migration, script, checksum);
+					applied.add(migration);
+				} else if (recorded != checksum) {
+					System.out.println("Schema migration " + migration + " was changed after it was run");
+				}
+			}
+		} finally {
+			unlock(connection);
+		}
+		return applied;
+	}
+
+	/**
+	 * Reads the version without changing the database, so it works for users
+	 * that may not create tables.
+	 * 
+	 * @return the highest version recorded in the database of the connection, 0
+	 *         if none was
+	 */
+	public static int currentVersion(Connection connection) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+			rs.next();
+			int version = rs.getInt(1);
+			rs.close();
+			return version;
+		} catch (SQLException e) {
+			if (e.getErrorCode() == NO_SUCH_TABLE) {
+				return 0;
+			}
+			throw e;
+		} finally {
+			stmt.close();
+		}
+	}
+
+	private static void run(Connection connection, String migration, String script, long checksum)
+			throws SQLException {
+		long start = System.nanoTime();
+		Statement stmt = connection.createStatement();
+		try {
+			for (String sql : statements(script)) {
+				try {
+					stmt.executeUpdate(sql);
+				} catch (SQLException e) {
+					if (e.getErrorCode() != DUPLICATE_KEY_NAME && e.getErrorCode() != TRIGGER_EXISTS) {
+						throw new SQLException("Schema migration " + migration + " failed at: " + sql, e);
+					}
+				}
+			}
+		} finally {
+			stmt.close();
+		}
+		afterScript(connection, migration);
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		PreparedStatement insert = connection.prepareStatement("INSERT INTO schema_version "
+				+ "(version, description, checksum, installed_on, execution_ms) VALUES (?, ?, ?, NOW(), ?)");
+		try {
+			insert.setInt(1, version(migration));
+			insert.setString(2, description(migration));
+			insert.setLong(3, checksum);
+			insert.setLong(4, millis);
+			insert.executeUpdate();
+		} finally {
+			insert.close();
+		}
+		System.out.println("Schema migration " + migration + " run in " + millis + " ms");
+	}
+
+	// DDL commits on its own, so the totals of the existing rows are computed
+	// after the triggers were created, in one transaction: a row written
+	// meanwhile is counted either by it or by its trigger
+	private static void afterScript(Connection connection, String migration) throws SQLException {
+		if (migration.equals("V2__daily_rollups")) {
+			try {
+				DailyRollups.rebuild(connection);
+			} catch (SQLException e) {
+				throw new SQLException("Schema migration " + migration + " failed computing the daily totals", e);
+			}
+		}
+	}
+
+	private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+		Map<Integer, Long> checksums = new HashMap<Integer, Long>();
+		Statement stmt = connection.createStatement();
+		try {
+			ResultSet rs = stmt.executeQuery("SELECT version, checksum FROM schema_version");
+			while (rs.next()) {
+				checksums.put(rs.getInt(1), rs.getLong(2));
+			}
+			rs.close();
+		} finally {
+			stmt.close();
+		}
+		return checksums;
+	}
+
+	// one lock per database, so migrating one does not hold up another
+	private static void lock(Connection connection) throws SQLException {
+		PreparedStatement stmt = connection
+				.prepareStatement("SELECT GET_LOCK(CONCAT('hms_schema_migration.', DATABASE()), ?)");
+		try {
+			stmt.setInt(1, LOCK_TIMEOUT_SECONDS);
+			ResultSet rs = stmt.executeQuery();
+			boolean locked = rs.next() && rs.getInt(1) == 1;
+			rs.close();
+			if (!locked) {
+				throw new SQLException("Another client is still migrating the schema");
+			}
+		} finally {
+			stmt.close();
+		}
+	}
+
+	private static void unlock(Connection connection) {
+		try {
+			execute(connection, "DO RELEASE_LOCK(CONCAT('hms_schema_migration.', DATABASE()))");
+		} catch (SQLException e) {
+			// released anyway when the connection is closed
+			e.printStackTrace();
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		Statement stmt = connection.createStatement();
+		try {
+			stmt.execute(sql);
+		} finally {
+			stmt.close();
+		}
+	}
+
+	/**
+	 * Splits a script into its statements. Lines starting with -- are comments;
+	 * a statement ends with a semicolon, so none may appear inside a string.
+	 */
+	static List<String> statements(String script) {
+		StringBuilder text = new StringBuilder();
+		for (String line : script.split("\n")) {
+			if (!line.trim().startsWith("--")) {
+				text.append(line).append('\n');
+			}
+		}
+		List<String> statements = new ArrayList<String>();
+		for (String sql : text.toString().split(";")) {
+			if (!sql.trim().isEmpty()) {
+				statements.add(sql.trim());
+			}
+		}
+		return statements;
+	}
+
+	static int version(String migration) {
+		return Integer.parseInt(migration.substring(1, migration.indexOf("__")));
+	}
+
+	static String description(String migration) {
+		return migration.substring(migration.indexOf("__") + 2).replace('_', ' ');
+	}
+
+	// line endings are left out, so a checkout with CRLF has the same checksum
+	static long checksum(String script) {
+		CRC32 crc = new CRC32();
+		crc.update(script.replace("\r", "").getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	private static String load(String migration) throws SQLException {
+		InputStream in = SchemaMigrator.class.getResourceAsStream(LOCATION + migration + ".sql");
+		if (in == null) {
+			throw new SQLException("Schema migration " + migration + " not found");
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8).replace("\r", "");
+		} catch (IOException e) {
+			throw new SQLException("Schema migration " + migration + " could not be read", e);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Migrates the database of config.properties and prints its version.
+	 */
+	public static void main(String[] args) throws Exception {
+		DatabaseOperator dbOperator = new DatabaseOperator();
+		dbOperator.connectAndUseDatabase();
+		Connection connection = DatabaseOperator.pinConnection();
+		try {
+			List<String> applied = migrate(connection);
+			System.out.println(applied.isEmpty() ? "Nothing to migrate" : "Ran " + applied);
+			System.out.println("Schema version " + currentVersion(connection));
+		} finally {
+			DatabaseOperator.unpinConnection();
+			DatabaseOperator.shutdownPool();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of prepared statements for one pooled connection,
+ * keyed by the SQL template. A pooled connection is only used by one thread at
+ * a time, so the cache itself needs no locking; the hit and miss counters are
+ * shared by every connection.
+ *
+ * Statements handed out by the cache stay open and must not be closed by the
+ * caller. They are closed when they fall out of the cache or when the cache is
+ * cleared.
+ */
+final class StatementCache {
+	private static final AtomicLong hits = new AtomicLong();
+	private static final AtomicLong misses = new AtomicLong();
+
+	private final int capacity;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+
+	StatementCache(int capacity) {
+		this.capacity = capacity;
+		this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() > StatementCache.this.capacity) {
+					closeQuietly(eldest.getValue());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached statement for the template, preparing it on the given
+	 * connection on a miss.
+	 */
+	PreparedStatement prepare(Connection connection, String sqlTemplate) throws SQLException {
+		if (capacity <= 0) {
+			misses.incrementAndGet();
+			return connection.prepareStatement(sqlTemplate);
+		}
+
+		PreparedStatement stmt = statements.get(sqlTemplate);
+		if (stmt != null && !stmt.isClosed()) {
+			hits.incrementAndGet();
+			stmt.clearParameters();
+			return stmt;
+		}
+
+		misses.incrementAndGet();
+		stmt = connection.prepareStatement(sqlTemplate);
+		statements.put(sqlTemplate, stmt);
+		return stmt;
+	}
+
+	/**
+	 * @return true if statements handed out are owned by the cache
+	 */
+	boolean isEnabled() {
+		return capacity > 0;
+	}
+
+	/**
+	 * Closes and forgets every cached statement.
+	 */
+	void clear() {
+		for (PreparedStatement stmt : statements.values()) {
+			closeQuietly(stmt);
+		}
+		statements.clear();
+	}
+
+	static long hits() {
+		return hits.get();
+	}
+
+	static long misses() {
+		return misses.get();
+	}
+
+	private static void closeQuietly(PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+		}
+	}
+}
@@ -3,44 +3,281 @@ package com.hms.hms_test_2;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * The settings of config.properties.
+ *
+ * The settings are held as an immutable {@link Snapshot} behind a volatile
+ * reference, so reading them takes no lock. Changing a setting or reloading the
+ * file builds a new snapshot and swaps it in as a whole; subscribers are then
+ * told which of their keys changed. {@link #startWatching()} reloads the file
+ * whenever it is saved, so most settings can be changed without a restart.
+ */
 public class SystemConfiguration {
 
-    private static SystemConfiguration instance;
-    private Properties properties;
+    /**
+     * Told about the keys whose value changed when a new snapshot was swapped
+     * in.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param changedKeys the subscribed keys that were changed, added or
+         *                    removed
+         * @param settings    the snapshot that was swapped in
+         */
+        void configChanged(Set<String> changedKeys, Snapshot settings);
+    }
+
+    /**
+     * An unchanging copy of the settings. Values are trimmed by the typed
+     * accessors; a missing, empty or invalid value gives the default.
+     */
+    public static final class Snapshot {
+        private final Map<String, String> values;
+
+        Snapshot(Map<String, String> values) {
+            this.values = Collections.unmodifiableMap(new HashMap<String, String>(values));
+        }
+
+        /**
+         * @return the value as written in the file, or null
+         */
+        public String get(String key) {
+            return values.get(key);
+        }
+
+        public String get(String key, String defaultValue) {
+            String value = values.get(key);
+            if (value == null || value.trim().isEmpty()) {
+                return defaultValue;
+            }
+            return value.trim();
+        }
+
+        public int getInt(String key, int defaultValue) {
+            String value = get(key, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                invalid(key, value);
+                return defaultValue;
+            }
+        }
+
+        public long getLong(String key, long defaultValue) {
+            String value = get(key, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                invalid(key, value);
+                return defaultValue;
+            }
+        }
+
+        /**
+         * Accepts true/false, yes/no, on/off and 1/0.
+         */
+        public boolean getBoolean(String key, boolean defaultValue) {
+            String value = get(key, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            switch (value.toLowerCase(Locale.ROOT)) {
+                case "true":
+                case "yes":
+                case "on":
+                case "1":
+                    return true;
+                case "false":
+                case "no":
+                case "off":
+                case "0":
+                    return false;
+                default:
+                    invalid(key, value);
+                    return defaultValue;
+            }
+        }
+
+        /**
+         * Accepts a number with one of the units ms, s, m, h and d, e.g. "30s",
+         * or an ISO-8601 duration such as "PT30S".
+         *
+         * @param key          the setting
+         * @param plainUnit    unit of a number written without one, so older
+         *                     settings keep their meaning
+         * @param defaultValue returned if the setting is missing or invalid
+         */
+        public Duration getDuration(String key, ChronoUnit plainUnit, Duration defaultValue) {
+            String value = get(key, null);
+            if (value == null) {
+                return defaultValue;
+            }
+            try {
+                String text = value.toLowerCase(Locale.ROOT);
+                if (text.startsWith("p")) {
+                    return Duration.parse(value.toUpperCase(Locale.ROOT));
+                }
+                int digits = 0;
+                while (digits < text.length() && Character.isDigit(text.charAt(digits))) {
+                    digits++;
+                }
+                long amount = Long.parseLong(text.substring(0, digits));
+                switch (text.substring(digits).trim()) {
+                    case "":
+                        return Duration.of(amount, plainUnit);
+                    case "ms":
+                        return Duration.ofMillis(amount);
+                    case "s":
+                        return Duration.ofSeconds(amount);
+                    case "m":
+                    case "min":
+                        return Duration.ofMinutes(amount);
+                    case "h":
+                        return Duration.ofHours(amount);
+                    case "d":
+                        return Duration.ofDays(amount);
+                    default:
+                        throw new IllegalArgumentException(value);
+                }
+            } catch (RuntimeException e) {
+                invalid(key, value);
+                return defaultValue;
+            }
+        }
+
+        public Set<String> keys() {
+            return values.keySet();
+        }
+
+        private static void invalid(String key, String value) {
+            System.out.println("Invalid value for " + key + ": " + value);
+        }
+    }
+
+    // how long the watcher waits for an editor to finish writing the file
+    private static final long SETTLE_MILLIS = 200;
+
+    private static volatile SystemConfiguration instance;
+    private volatile Snapshot snapshot;
     private final String configFilePath = "config.properties";
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<Subscription>();
+
+    private WatchService watchService;
+    private Thread watcher;
 
     private SystemConfiguration() {
-        properties = new Properties();
-        loadConfig();
+        snapshot = new Snapshot(loadConfig());
     }
 
-    public static synchronized SystemConfiguration getInstance() {
-        if (instance == null) {
-            instance = new SystemConfiguration();
+    public static SystemConfiguration getInstance() {
+        SystemConfiguration config = instance;
+        if (config == null) {
+            synchronized (SystemConfiguration.class) {
+                config = instance;
+                if (config == null) {
+                    config = new SystemConfiguration();
+                    instance = config;
+                }
+            }
         }
-        return instance;
+        return config;
     }
 
-    private void loadConfig() {
+    private Map<String, String> loadConfig() {
+        Properties properties = new Properties();
         try (FileInputStream fis = new FileInputStream(configFilePath)) {
             properties.load(fis);
         } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException("Failed to load configuration file.");
         }
+        Map<String, String> values = new HashMap<String, String>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, properties.getProperty(key));
+        }
+        return values;
+    }
+
+    /**
+     * @return the current settings, which do not change while they are used
+     */
+    public Snapshot snapshot() {
+        return snapshot;
     }
 
-    public synchronized String getConfig(String key) {
-        return properties.getProperty(key);
+    public String getConfig(String key) {
+        return snapshot.get(key);
     }
 
-    public synchronized void updateConfig(String key, String value) {
-        properties.setProperty(key, value);
+    public int getInt(String key, int defaultValue) {
+        return snapshot.getInt(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        return snapshot.getLong(key, defaultValue);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return snapshot.getBoolean(key, defaultValue);
+    }
+
+    public Duration getDuration(String key, ChronoUnit plainUnit, Duration defaultValue) {
+        return snapshot.getDuration(key, plainUnit, defaultValue);
+    }
+
+    /**
+     * Changes a setting in memory; {@link #saveConfig()} writes it to the file.
+     *
+     * @param value the new value, null to remove the setting
+     */
+    public void updateConfig(String key, String value) {
+        Snapshot old;
+        Snapshot now;
+        synchronized (this) {
+            old = snapshot;
+            Map<String, String> values = new HashMap<String, String>(old.values);
+            if (value == null) {
+                values.remove(key);
+            } else {
+                values.put(key, value);
+            }
+            now = new Snapshot(values);
+            snapshot = now;
+        }
+        notifySubscribers(old, now);
     }
 
     public synchronized void saveConfig() {
+        Properties properties = new Properties();
+        properties.putAll(snapshot.values);
         try (FileOutputStream fos = new FileOutputStream(configFilePath)) {
             properties.store(fos, "Updated configuration");
         } catch (IOException e) {
@@ -49,7 +286,157 @@ public class SystemConfiguration {
         }
     }
 
-    public synchronized void reloadConfig() {
-        loadConfig();
+    /**
+     * Reads the file again and swaps in its settings.
+     */
+    public void reloadConfig() {
+        swap(loadConfig());
+    }
+
+    private void swap(Map<String, String> values) {
+        Snapshot old;
+        Snapshot now;
+        synchronized (this) {
+            old = snapshot;
+            now = new Snapshot(values);
+            snapshot = now;
+        }
+        notifySubscribers(old, now);
+    }
+
+    /**
+     * Calls the listener whenever one of the keys changes, on the thread that
+     * changed it.
+     *
+     * @param listener told about the changed keys
+     * @param keys     the settings of interest, none for every setting
+     */
+    public void subscribe(Listener listener, String... keys) {
+        subscriptions.add(new Subscription(listener, keys));
+    }
+
+    public void unsubscribe(Listener listener) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    private void notifySubscribers(Snapshot old, Snapshot now) {
+        Set<String> changed = new HashSet<String>(old.keys());
+        changed.addAll(now.keys());
+        changed.removeIf(key -> Objects.equals(old.get(key), now.get(key)));
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            Set<String> keys = subscription.matching(changed);
+            if (!keys.isEmpty()) {
+                try {
+                    subscription.listener.configChanged(keys, now);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts reloading the file whenever it is saved. A file that cannot be read,
+     * or is empty because an editor is still writing it, leaves the settings as
+     * they are.
+     */
+    public synchronized void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        Path file = Paths.get(configFilePath).toAbsolutePath();
+        try {
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(service, file.getFileName()), "hms-config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public synchronized void stopWatching() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        watcher.interrupt();
+        watcher = null;
+        watchService = null;
+    }
+
+    private void watch(WatchService service, Path fileName) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean saved = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        saved = true;
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+                if (saved) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    // the events of the same save
+                    while ((key = service.poll()) != null) {
+                        key.pollEvents();
+                        key.reset();
+                    }
+                    reloadFromWatcher();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+
+    private void reloadFromWatcher() {
+        Map<String, String> values;
+        try {
+            values = loadConfig();
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (values.isEmpty() && !snapshot.keys().isEmpty()) {
+            return;
+        }
+        swap(values);
+    }
+
+    private static final class Subscription {
+        final Listener listener;
+        final Set<String> keys;
+
+        Subscription(Listener listener, String[] keys) {
+            this.listener = listener;
+            this.keys = new HashSet<String>(Arrays.asList(keys));
+        }
+
+        Set<String> matching(Set<String> changed) {
+            if (keys.isEmpty()) {
+                return changed;
+            }
+            Set<String> matching = new HashSet<String>(changed);
+            matching.retainAll(keys);
+            return matching;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.hms.hms_test_2;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columns and keys of one table, read once and cached by DatabaseOperator
+ * until the table is created or dropped again or another database is used.
+ *
+ * The columns come from a "SELECT * ... LIMIT 0" probe, which the server
+ * answers from the table definition without reading any row, and the keys from
+ * DatabaseMetaData.
+ */
+final class TableSchema {
+	private final List<String> columnNames;
+	private final int[] columnTypes;
+	private final boolean[] nullable;
+	private final List<String> keys;
+
+	private TableSchema(List<String> columnNames, int[] columnTypes, boolean[] nullable, List<String> keys) {
+		this.columnNames = columnNames;
+		this.columnTypes = columnTypes;
+		this.nullable = nullable;
+		this.keys = keys;
+	}
+
+	static TableSchema load(Connection connection, String tableName) throws SQLException {
+		List<String> names = new ArrayList<String>();
+		int[] types;
+		boolean[] nullable;
+
+		PreparedStatement stmt = connection.prepareStatement("SELECT * FROM " + tableName + " LIMIT 0;");
+		try {
+			ResultSet rs = stmt.executeQuery();
+			try {
+				ResultSetMetaData rsmd = rs.getMetaData();
+				int noOfColumns = rsmd.getColumnCount();
+				types = new int[noOfColumns];
+				nullable = new boolean[noOfColumns];
+				for (int i = 0; i < noOfColumns; i++) {
+					names.add(rsmd.getColumnName(i + 1));
+					types[i] = rsmd.getColumnType(i + 1);
+					nullable[i] = rsmd.isNullable(i + 1) == ResultSetMetaData.columnNullable;
+				}
+			} finally {
+				rs.close();
+			}
+		} finally {
+			stmt.close();
+		}
+
+		List<String> keys = new ArrayList<String>();
+		DatabaseMetaData meta = connection.getMetaData();
+		try {
+			ResultSet rss = meta.getPrimaryKeys(null, null, tableName);
+			while (rss.next()) {
+				keys.add(rss.getString(4));
+			}
+			rss.close();
+
+			rss = meta.getExportedKeys(null, null, tableName);
+			while (rss.next()) {
+				keys.add(rss.getString(4));
+			}
+			rss.close();
+		} catch (Exception e) {
+		}
+
+		return new TableSchema(Collections.unmodifiableList(names), types, nullable,
+				Collections.unmodifiableList(keys));
+	}
+
+	int getColumnCount() {
+		return columnNames.size();
+	}
+
+	List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @return the java.sql.Types code of the column
+	 */
+	int getColumnType(int column) {
+		return columnTypes[column];
+	}
+
+	boolean isNullable(int column) {
+		return nullable[column];
+	}
+
+	/**
+	 * @return the primary key columns followed by the columns referenced by
+	 *         other tables
+	 */
+	List<String> getKeys() {
+		return keys;
+	}
+}
@@ -0,0 +1,25 @@
+package com.hms.hms_test_2;
+
+import java.sql.SQLException;
+
+/**
+ * Statements that have to be committed together, run by
+ * {@link DatabaseOperator#inTransaction(UnitOfWork)}.
+ *
+ * The work may be run more than once if the database picks its transaction as
+ * a deadlock victim, so it should not change anything outside the database
+ * before it returns.
+ *
+ * @param <T> the result of the work
+ */
+@FunctionalInterface
+public interface UnitOfWork<T> {
+
+	/**
+	 * Runs the statements through the usual DatabaseOperator methods, which use
+	 * the connection of the transaction.
+	 *
+	 * @return the result handed back by inTransaction
+	 */
+	T run() throws ClassNotFoundException, SQLException;
+}
@@ -105,30 +105,13 @@ public class User {
 
         public boolean sendMessage(String sender, String receiver, String subject, String message) {
 
-                String messID = "msg00001";
-
                 /////////////////// Generating the Message ID ///////////////////
+                String messID;
                 try {
-                        String sql2 = "SELECT message_id FROM user_message WHERE message_id = (SELECT MAX(message_id) FROM user_message);";
-                        String messageID = dbOperator.customSelection(sql2).get(1).get(0);
-
-                        char[] tmpID = messageID.toCharArray();
-                        int i = 3;
-                        for (i = 3; i < messageID.length(); i++) {
-                                if (tmpID[i] != '0')
-                                        break;
-                        }
-
-                        String tmpID2 = Integer
-                                        .toString(Integer.parseInt(messageID.substring(i, messageID.length())) + 1);
-                        while (tmpID2.length() < 5) {
-                                tmpID2 = "0" + tmpID2;
-                        }
-                        messID = "msg" + tmpID2;
-
-                } catch (Exception e) {
+                        messID = dbOperator.nextId(IdSequence.MESSAGE);
+                } catch (SQLException e) {
                         e.printStackTrace();
-                        messID = "msg00001";
+                        return false;
                 }
                 /////////////////////////////////////////////////////////////////////
 
@@ -298,6 +281,28 @@ public class User {
                 return data;
         }
 
+        /**
+         * Suggests patients for a name typed so far, from the shared in-memory
+         * {@link PatientNameIndex}.
+         * 
+         * @param text  the beginning of a patient's first name, last name or both
+         * @param limit maximum number of patients returned
+         * @return ArrayList<ArrayList<String>> {patient_id, first_name, last_name,
+         *         date_of_birth} of the matching patients
+         */
+        public ArrayList<ArrayList<String>> getPatientSuggestions(String text, int limit) {
+                ArrayList<ArrayList<String>> data = null;
+
+                try {
+
+                        data = PatientNameIndex.getInstance().suggest(dbOperator, text, limit);
+
+                } catch (ClassNotFoundException | SQLException e) {
+                        e.printStackTrace();
+                }
+                return data;
+        }
+
         public boolean setMessageRead(String msgID) {
                 String sql = "UPDATE user_message " +
                                 "SET rd = '" + 1 + "'" +
@@ -0,0 +1,28 @@
+-- Indexes for the columns the dashboards and reports filter on.
+-- database/hms_db.sql only indexes the primary and foreign keys.
+
+-- a doctor's appointments, today's count and the attendance chart of one doctor
+CREATE INDEX idx_appointment_doctor_date ON appointment (slmc_reg_no, date, cancelled);
+
+-- appointments of a period, e.g. the attendance and cancellation charts
+CREATE INDEX idx_appointment_date ON appointment (date, cancelled);
+
+-- payment history and bills of a period
+CREATE INDEX idx_bill_date_refund ON bill (bill_date, refund);
+
+-- income reports: the bills of a period that were not refunded, with the fees
+-- they sum up, so they are read from the index alone
+CREATE INDEX idx_bill_income ON bill (refund, bill_date, total, pharmacy_fee, laboratory_fee, appointment_fee);
+
+-- patient search by name and by NIC
+CREATE INDEX idx_person_name ON person (first_name, last_name);
+CREATE INDEX idx_person_nic ON person (nic);
+
+-- remaining quantity of a brand
+CREATE INDEX idx_pharmacy_stock_brand ON pharmacy_stock (brand_id, remaining_quantity);
+
+-- lab appointments of a period
+CREATE INDEX idx_lab_appointment_date ON lab_appointment (date, cancelled);
+
+-- login and every lookup of the signed in user
+CREATE INDEX idx_sys_user_name ON sys_user (user_name);
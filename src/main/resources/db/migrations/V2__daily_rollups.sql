@@ -0,0 +1,135 @@
+-- Daily totals for the admin reports, so a chart of a year reads a row per day
+-- instead of every appointment and bill. The triggers keep them up to date in
+-- the transaction that writes the appointment or bill. Once they exist,
+-- SchemaMigrator computes the totals of the rows already there with
+-- DailyRollups in one transaction, so a row written meanwhile is counted once.
+--
+-- A missing date is counted on 1000-01-01 and a missing doctor or test as '',
+-- a missing cancelled flag as 0 and a missing refund flag as -1, as the keys
+-- cannot be NULL. The reports filter on the day, cancelled = 1 and refund <> 1,
+-- so they see the same rows as before.
+
+CREATE TABLE IF NOT EXISTS appointment_daily (
+  day date NOT NULL,
+  slmc_reg_no varchar(20) NOT NULL,
+  cancelled tinyint(1) NOT NULL,
+  appointments int NOT NULL,
+  PRIMARY KEY (day, slmc_reg_no, cancelled),
+  KEY idx_appointment_daily_doctor (slmc_reg_no, day)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS lab_appointment_daily (
+  day date NOT NULL,
+  test_id varchar(10) NOT NULL,
+  cancelled tinyint(1) NOT NULL,
+  appointments int NOT NULL,
+  PRIMARY KEY (day, test_id, cancelled)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+CREATE TABLE IF NOT EXISTS income_daily (
+  day date NOT NULL,
+  refund int NOT NULL,
+  bills int NOT NULL,
+  total bigint NOT NULL,
+  doctor_fee bigint NOT NULL,
+  hospital_fee bigint NOT NULL,
+  pharmacy_fee bigint NOT NULL,
+  laboratory_fee bigint NOT NULL,
+  appointment_fee bigint NOT NULL,
+  PRIMARY KEY (refund, day)
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+-- appointments: booked, moved, cancelled and deleted
+
+CREATE TRIGGER appointment_daily_insert AFTER INSERT ON appointment FOR EACH ROW
+INSERT INTO appointment_daily (day, slmc_reg_no, cancelled, appointments)
+VALUES (COALESCE(DATE(NEW.date), '1000-01-01'), COALESCE(NEW.slmc_reg_no, ''), COALESCE(NEW.cancelled, 0), 1)
+ON DUPLICATE KEY UPDATE appointments = appointments + 1;
+
+-- the old day is counted down and the new one up; MySQL cannot refer to the
+-- columns of a UNION in ON DUPLICATE KEY UPDATE, hence the derived table
+CREATE TRIGGER appointment_daily_update AFTER UPDATE ON appointment FOR EACH ROW
+INSERT INTO appointment_daily (day, slmc_reg_no, cancelled, appointments)
+SELECT moved.day, moved.slmc_reg_no, moved.cancelled, moved.n FROM (
+  SELECT COALESCE(DATE(OLD.date), '1000-01-01') AS day, COALESCE(OLD.slmc_reg_no, '') AS slmc_reg_no,
+    COALESCE(OLD.cancelled, 0) AS cancelled, -1 AS n
+  UNION ALL
+  SELECT COALESCE(DATE(NEW.date), '1000-01-01'), COALESCE(NEW.slmc_reg_no, ''), COALESCE(NEW.cancelled, 0), 1
+) AS moved
+WHERE NOT (DATE(OLD.date) <=> DATE(NEW.date) AND OLD.slmc_reg_no <=> NEW.slmc_reg_no
+  AND COALESCE(OLD.cancelled, 0) = COALESCE(NEW.cancelled, 0))
+ON DUPLICATE KEY UPDATE appointments = appointment_daily.appointments + moved.n;
+
+CREATE TRIGGER appointment_daily_delete AFTER DELETE ON appointment FOR EACH ROW
+INSERT INTO appointment_daily (day, slmc_reg_no, cancelled, appointments)
+VALUES (COALESCE(DATE(OLD.date), '1000-01-01'), COALESCE(OLD.slmc_reg_no, ''), COALESCE(OLD.cancelled, 0), -1)
+ON DUPLICATE KEY UPDATE appointments = appointments - 1;
+
+-- lab appointments
+
+CREATE TRIGGER lab_appointment_daily_insert AFTER INSERT ON lab_appointment FOR EACH ROW
+INSERT INTO lab_appointment_daily (day, test_id, cancelled, appointments)
+VALUES (COALESCE(DATE(NEW.date), '1000-01-01'), COALESCE(NEW.test_id, ''), COALESCE(NEW.cancelled, 0), 1)
+ON DUPLICATE KEY UPDATE appointments = appointments + 1;
+
+CREATE TRIGGER lab_appointment_daily_update AFTER UPDATE ON lab_appointment FOR EACH ROW
+INSERT INTO lab_appointment_daily (day, test_id, cancelled, appointments)
+SELECT moved.day, moved.test_id, moved.cancelled, moved.n FROM (
+  SELECT COALESCE(DATE(OLD.date), '1000-01-01') AS day, COALESCE(OLD.test_id, '') AS test_id,
+    COALESCE(OLD.cancelled, 0) AS cancelled, -1 AS n
+  UNION ALL
+  SELECT COALESCE(DATE(NEW.date), '1000-01-01'), COALESCE(NEW.test_id, ''), COALESCE(NEW.cancelled, 0), 1
+) AS moved
+WHERE NOT (DATE(OLD.date) <=> DATE(NEW.date) AND OLD.test_id <=> NEW.test_id
+  AND COALESCE(OLD.cancelled, 0) = COALESCE(NEW.cancelled, 0))
+ON DUPLICATE KEY UPDATE appointments = lab_appointment_daily.appointments + moved.n;
+
+CREATE TRIGGER lab_appointment_daily_delete AFTER DELETE ON lab_appointment FOR EACH ROW
+INSERT INTO lab_appointment_daily (day, test_id, cancelled, appointments)
+VALUES (COALESCE(DATE(OLD.date), '1000-01-01'), COALESCE(OLD.test_id, ''), COALESCE(OLD.cancelled, 0), -1)
+ON DUPLICATE KEY UPDATE appointments = appointments - 1;
+
+-- bills: paid, refunded and deleted
+
+CREATE TRIGGER income_daily_insert AFTER INSERT ON bill FOR EACH ROW
+INSERT INTO income_daily (day, refund, bills, total, doctor_fee, hospital_fee, pharmacy_fee, laboratory_fee, appointment_fee)
+VALUES (COALESCE(DATE(NEW.bill_date), '1000-01-01'), COALESCE(NEW.refund, -1), 1, COALESCE(NEW.total, 0),
+  COALESCE(NEW.doctor_fee, 0), COALESCE(NEW.hospital_fee, 0), COALESCE(NEW.pharmacy_fee, 0),
+  COALESCE(NEW.laboratory_fee, 0), COALESCE(NEW.appointment_fee, 0))
+ON DUPLICATE KEY UPDATE bills = bills + 1, total = total + VALUES(total),
+  doctor_fee = doctor_fee + VALUES(doctor_fee), hospital_fee = hospital_fee + VALUES(hospital_fee),
+  pharmacy_fee = pharmacy_fee + VALUES(pharmacy_fee), laboratory_fee = laboratory_fee + VALUES(laboratory_fee),
+  appointment_fee = appointment_fee + VALUES(appointment_fee);
+
+CREATE TRIGGER income_daily_update AFTER UPDATE ON bill FOR EACH ROW
+INSERT INTO income_daily (day, refund, bills, total, doctor_fee, hospital_fee, pharmacy_fee, laboratory_fee, appointment_fee)
+SELECT moved.day, moved.refund, moved.n, moved.total, moved.doctor_fee, moved.hospital_fee, moved.pharmacy_fee,
+  moved.laboratory_fee, moved.appointment_fee FROM (
+  SELECT COALESCE(DATE(OLD.bill_date), '1000-01-01') AS day, COALESCE(OLD.refund, -1) AS refund, -1 AS n,
+    -COALESCE(OLD.total, 0) AS total, -COALESCE(OLD.doctor_fee, 0) AS doctor_fee,
+    -COALESCE(OLD.hospital_fee, 0) AS hospital_fee, -COALESCE(OLD.pharmacy_fee, 0) AS pharmacy_fee,
+    -COALESCE(OLD.laboratory_fee, 0) AS laboratory_fee, -COALESCE(OLD.appointment_fee, 0) AS appointment_fee
+  UNION ALL
+  SELECT COALESCE(DATE(NEW.bill_date), '1000-01-01'), COALESCE(NEW.refund, -1), 1, COALESCE(NEW.total, 0),
+    COALESCE(NEW.doctor_fee, 0), COALESCE(NEW.hospital_fee, 0), COALESCE(NEW.pharmacy_fee, 0),
+    COALESCE(NEW.laboratory_fee, 0), COALESCE(NEW.appointment_fee, 0)
+) AS moved
+WHERE NOT (DATE(OLD.bill_date) <=> DATE(NEW.bill_date) AND OLD.refund <=> NEW.refund
+  AND OLD.total <=> NEW.total AND OLD.doctor_fee <=> NEW.doctor_fee AND OLD.hospital_fee <=> NEW.hospital_fee
+  AND OLD.pharmacy_fee <=> NEW.pharmacy_fee AND OLD.laboratory_fee <=> NEW.laboratory_fee
+  AND OLD.appointment_fee <=> NEW.appointment_fee)
+ON DUPLICATE KEY UPDATE bills = income_daily.bills + moved.n, total = income_daily.total + moved.total,
+  doctor_fee = income_daily.doctor_fee + moved.doctor_fee, hospital_fee = income_daily.hospital_fee + moved.hospital_fee,
+  pharmacy_fee = income_daily.pharmacy_fee + moved.pharmacy_fee,
+  laboratory_fee = income_daily.laboratory_fee + moved.laboratory_fee,
+  appointment_fee = income_daily.appointment_fee + moved.appointment_fee;
+
+CREATE TRIGGER income_daily_delete AFTER DELETE ON bill FOR EACH ROW
+INSERT INTO income_daily (day, refund, bills, total, doctor_fee, hospital_fee, pharmacy_fee, laboratory_fee, appointment_fee)
+VALUES (COALESCE(DATE(OLD.bill_date), '1000-01-01'), COALESCE(OLD.refund, -1), -1, -COALESCE(OLD.total, 0),
+  -COALESCE(OLD.doctor_fee, 0), -COALESCE(OLD.hospital_fee, 0), -COALESCE(OLD.pharmacy_fee, 0),
+  -COALESCE(OLD.laboratory_fee, 0), -COALESCE(OLD.appointment_fee, 0))
+ON DUPLICATE KEY UPDATE bills = bills - 1, total = total + VALUES(total),
+  doctor_fee = doctor_fee + VALUES(doctor_fee), hospital_fee = hospital_fee + VALUES(hospital_fee),
+  pharmacy_fee = pharmacy_fee + VALUES(pharmacy_fee), laboratory_fee = laboratory_fee + VALUES(laboratory_fee),
+  appointment_fee = appointment_fee + VALUES(appointment_fee)
@@ -0,0 +1,12 @@
+-- The lab report pie charts count the results of each test table entered in a
+-- period; with an index on the date each count reads only the period's
+-- entries of the index.
+
+CREATE INDEX idx_blood_grouping_date ON BloodGroupingRh (date);
+CREATE INDEX idx_lipid_test_date ON LipidTest (date);
+CREATE INDEX idx_liver_function_date ON LiverFunctionTest (date);
+CREATE INDEX idx_renal_function_date ON RenalFunctionTest (date);
+CREATE INDEX idx_scp_date ON SeriumCreatinePhosphokinase (date);
+CREATE INDEX idx_scp_total_date ON SeriumCreatinePhosphokinaseTotal (date);
+CREATE INDEX idx_urine_full_report_date ON UrineFullReport (date);
+CREATE INDEX idx_complete_blood_count_date ON completeBloodCount (date);
@@ -0,0 +1,186 @@
+package Admin;
+
+import com.hms.hms_test_2.DailyRollups;
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the daily rollups of the admin reports.
+ *
+ * Business Rules:
+ * 1. Booking an appointment counts it on its day, doctor and cancelled flag in
+ *    the same transaction; cancelling it moves it to the cancelled count
+ * 2. Paying a bill adds its fees to its day; refunding it moves them to the
+ *    refunded totals, so the income reports leave it out. A bill without a
+ *    refund flag counts as kept
+ * 3. The totals kept by the triggers are the ones a rebuild computes from the
+ *    raw tables, and the reports add up to the raw rows
+ * 4. The reports read the totals only once the migration that adds them was
+ *    run
+ *
+ * Each test runs in a transaction on the pinned connection, which the reports
+ * use as well, and is rolled back afterwards.
+ */
+public class DailyRollupsIntegrationTest {
+
+    private static final String DOCTOR_ID = "22387";
+
+    private Connection connection;
+    private Statement stmt;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        new DatabaseOperator().connectAndUseDatabase();
+        connection = DatabaseOperator.pinConnection();
+        SchemaMigrator.migrate(connection);
+        connection.setAutoCommit(false);
+        stmt = connection.createStatement();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            stmt.close();
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        DatabaseOperator.unpinConnection();
+    }
+
+    /* RU_01
+    Objective: Verify that booking and cancelling an appointment update the daily count of the doctor.
+    Input: An appointment of doctor 22387 today, then cancelled
+    Expected output: One more booked appointment today, then one less booked and one more cancelled.
+     */
+    @Test
+    public void testAppointment_BookedThenCancelled() throws Exception {
+        long booked = appointments(0);
+        long cancelled = appointments(1);
+
+        stmt.executeUpdate("INSERT INTO appointment (appointment_id, date, slmc_reg_no, cancelled) "
+                + "VALUES ('rollup_test_1', NOW(), '" + DOCTOR_ID + "', 0)");
+        assertEquals(booked + 1, appointments(0));
+
+        stmt.executeUpdate("UPDATE appointment SET cancelled = 1 WHERE appointment_id = 'rollup_test_1'");
+        assertEquals(booked, appointments(0));
+        assertEquals(cancelled + 1, appointments(1));
+    }
+
+    /* RU_02
+    Objective: Verify that a paid bill is added to the income of its day and moved out of it by a refund.
+    Input: A bill of 1210 with a pharmacy fee of 300 today, then refunded
+    Expected output: The income of today grows by 1210 and 300, and is back where it was after the refund.
+     */
+    @Test
+    public void testBill_PaidThenRefunded() throws Exception {
+        String today = "SELECT COALESCE(SUM(%s), 0) FROM income_daily WHERE day = CURRENT_DATE AND refund = 0";
+        long total = count(String.format(today, "total"));
+        long pharmacy = count(String.format(today, "pharmacy_fee"));
+
+        stmt.executeUpdate("INSERT INTO bill (bill_id, bill_date, pharmacy_fee, total, refund) "
+                + "VALUES ('rolltest1', NOW(), 300, 1210, 0)");
+        assertEquals(total + 1210, count(String.format(today, "total")));
+        assertEquals(pharmacy + 300, count(String.format(today, "pharmacy_fee")));
+
+        stmt.executeUpdate("UPDATE bill SET refund = 1 WHERE bill_id = 'rolltest1'");
+        assertEquals(total, count(String.format(today, "total")));
+        assertEquals(pharmacy, count(String.format(today, "pharmacy_fee")));
+    }
+
+    /* RU_03
+    Objective: Verify that a rebuild keeps the totals of the triggers and that the report adds up to the raw rows.
+    Input: A new appointment, a rebuild and the doctor appointment report of the last 12 months
+    Expected output: The same totals before and after the rebuild, and the report's counts add up to the appointments.
+     */
+    @Test
+    public void testRebuild_MatchesRawTables() throws Exception {
+        stmt.executeUpdate("INSERT INTO appointment (appointment_id, date, slmc_reg_no, cancelled) "
+                + "VALUES ('rollup_test_2', NOW(), '" + DOCTOR_ID + "', 0)");
+        long appointments = count("SELECT COALESCE(SUM(appointments), 0) FROM appointment_daily");
+        long income = count("SELECT COALESCE(SUM(total), 0) FROM income_daily");
+
+        DailyRollups.rebuild();
+
+        assertEquals(appointments, count("SELECT COALESCE(SUM(appointments), 0) FROM appointment_daily"));
+        assertEquals(count("SELECT COUNT(*) FROM appointment"), appointments);
+        assertEquals(income, count("SELECT COALESCE(SUM(total), 0) FROM income_daily"));
+
+        ArrayList<ArrayList<String>> report = new Admin("user021").getDocAppointments();
+        long reported = 0;
+        for (int i = 1; i < report.size(); i++) {
+            reported += Long.parseLong(report.get(i).get(1));
+        }
+        assertEquals(count("SELECT COUNT(*) FROM appointment WHERE date >= (CURRENT_DATE - INTERVAL 12 MONTH)"),
+                reported);
+    }
+
+    /* RU_04
+    Objective: Verify that the check of the reports passes on the migrated database only.
+    Input: The migrated test database, checked for the rollups and for a version above the latest
+    Expected output: The rollups pass; the later version throws an SQLException naming SchemaMigrator.
+     */
+    @Test
+    public void testRequireMigrated_SchemaVersion() throws Exception {
+        assertTrue(SchemaMigrator.currentVersion(connection) >= DailyRollups.VERSION);
+        DailyRollups.requireMigrated();
+
+        int later = SchemaMigrator.currentVersion(connection) + 1;
+        SQLException error = assertThrows(SQLException.class, () -> DatabaseOperator.requireSchemaVersion(later));
+        assertTrue(error.getMessage().contains("SchemaMigrator"), error.getMessage());
+    }
+
+    /* RU_05
+    Objective: Verify that the daily income report counts a bill without a refund flag as kept.
+    Input: A bill of 700 today with a NULL refund flag, then refunded; the total income report of today
+    Expected output: The report of today grows by 700, and is back where it was after the refund.
+     */
+    @Test
+    public void testIncomeReport_MissingRefundFlagKept() throws Exception {
+        long income = todaysIncome();
+
+        stmt.executeUpdate("INSERT INTO bill (bill_id, bill_date, total, refund) VALUES ('rolltest2', NOW(), 700, NULL)");
+        assertEquals(income + 700, todaysIncome());
+
+        stmt.executeUpdate("UPDATE bill SET refund = 1 WHERE bill_id = 'rolltest2'");
+        assertEquals(income, todaysIncome());
+    }
+
+    // the total of today in the income report of the admin
+    private long todaysIncome() {
+        LocalDate today = LocalDate.now();
+        ArrayList<ArrayList<String>> report = new Admin("user021").lastTotalIncome(today.toString(),
+                today.plusDays(1).toString());
+        long total = 0;
+        for (int i = 1; i < report.size(); i++) {
+            total += Long.parseLong(report.get(i).get(1));
+        }
+        return total;
+    }
+
+    private long appointments(int cancelled) throws SQLException {
+        return count("SELECT COALESCE(SUM(appointments), 0) FROM appointment_daily "
+                + "WHERE day = CURRENT_DATE AND slmc_reg_no = '" + DOCTOR_ID + "' AND cancelled = " + cancelled);
+    }
+
+    private long count(String sql) throws SQLException {
+        ResultSet rs = stmt.executeQuery(sql);
+        try {
+            rs.next();
+            return rs.getLong(1);
+        } finally {
+            rs.close();
+        }
+    }
+}
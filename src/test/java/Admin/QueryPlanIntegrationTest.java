@@ -0,0 +1,237 @@
+package Admin;
+
+import Doctor.Doctor;
+import Pharmacist.Pharmacist;
+import Receptionist.Receptionist;
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.LabWorkload;
+import com.hms.hms_test_2.ResultTable;
+import com.hms.hms_test_2.RowHandler;
+import com.hms.hms_test_2.SchemaMigrator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the query plans of the dashboard and report queries.
+ *
+ * Business Rules:
+ * 1. The schema migrations are run once per database
+ * 2. The queries of Doctor, Receptionist, Admin and Pharmacist on the filtered
+ *    columns do not read a whole table of more than the threshold rows
+ *
+ * Every SELECT the role classes send is recorded and run again with EXPLAIN. A
+ * table read with type ALL fails the test if the optimizer expects more than
+ * -Dhms.test.maxScanRows rows (1000 by default). A small table may still be
+ * scanned, as that is cheaper than using the index, so run the test against a
+ * database of realistic size, e.g. the synthetic data of the benchmarks.
+ */
+public class QueryPlanIntegrationTest {
+
+    private static final long MAX_SCAN_ROWS = Long.getLong("hms.test.maxScanRows", 1000L);
+    private static final String DOCTOR_ID = "22387";
+
+    private RecordingOperator recorder;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        recorder = new RecordingOperator();
+        recorder.connectAndUseDatabase();
+        Connection connection = DatabaseOperator.pinConnection();
+        try {
+            SchemaMigrator.migrate(connection);
+        } finally {
+            DatabaseOperator.unpinConnection();
+        }
+        recorder.queries.clear();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        DatabaseOperator.unpinConnection();
+    }
+
+    /* QP_01
+    Objective: Verify that the migrations are recorded and not run a second time.
+    Input: The test database after setUp has migrated it
+    Expected output: A schema version of at least 1, nothing run by a second migration.
+     */
+    @Test
+    public void testMigrate_RunsOnce() throws Exception {
+        Connection connection = DatabaseOperator.pinConnection();
+
+        List<String> applied = SchemaMigrator.migrate(connection);
+
+        assertTrue(applied.isEmpty());
+        assertTrue(SchemaMigrator.currentVersion(connection) >= 1);
+    }
+
+    /* QP_02
+    Objective: Verify that the doctor's appointment, attendance and patient queries use an index.
+    Input: Doctor user001, the attendance chart, today's appointments and a patient looked up by NIC
+    Expected output: No table read whole with more than the threshold rows.
+     */
+    @Test
+    public void testDoctorQueries_UseIndexes() throws Exception {
+        Doctor doctor = new Doctor("user001");
+        doctor.dbOperator = recorder;
+
+        doctor.getAppointments();
+        doctor.getPatientAttendance(DOCTOR_ID);
+        doctor.getTodayAppointments();
+        doctor.getPatientInfo("nic", "652489712V");
+
+        assertNoFullScans();
+    }
+
+    /* QP_03
+    Objective: Verify that the receptionist's appointment queries use an index.
+    Input: Receptionist user018, the appointments of one doctor, the appointment charts and the available days
+    Expected output: No table read whole with more than the threshold rows.
+     */
+    @Test
+    public void testReceptionistQueries_UseIndexes() throws Exception {
+        Receptionist receptionist = new Receptionist("user018");
+        receptionist.dbOperator = recorder;
+
+        receptionist.getAppointmentDetails("d", DOCTOR_ID);
+        receptionist.getDocAppointments();
+        receptionist.getLabAppointments();
+        receptionist.getAvailableDays(DOCTOR_ID);
+
+        assertNoFullScans();
+    }
+
+    /* QP_04
+    Objective: Verify that the admin's income and attendance reports use an index.
+    Input: Admin user021, the four income reports of a year, the attendance and cancellation charts, a brand's stock and the lab workload
+    Expected output: No table read whole with more than the threshold rows.
+     */
+    @Test
+    public void testAdminReports_UseIndexes() throws Exception {
+        Admin admin = new Admin("user021");
+        admin.dbOperator = recorder;
+
+        admin.lastTotalIncome("2017-01-01", "2018-01-01");
+        admin.pharmacyIncome("2017-01-01", "2018-01-01");
+        admin.laboratoryIncome("2017-01-01", "2018-01-01");
+        admin.appointmentIncome("2017-01-01", "2018-01-01");
+        admin.getPatientAttendance(DOCTOR_ID);
+        admin.getDocAppointments();
+        admin.getCancelledDocAppointments();
+        admin.getCancelledLabAppointments();
+        admin.getDrugAmounts("br0001");
+        LabWorkload.getInstance().invalidate();
+        admin.lastMonthsReports(12);
+
+        assertNoFullScans();
+    }
+
+    /* QP_05
+    Objective: Verify that the pharmacist's login, profile and stock queries use an index.
+    Input: Pharmacist user016 created with the recording operator, its profile and a brand's stock
+    Expected output: No table read whole with more than the threshold rows.
+     */
+    @Test
+    public void testPharmacistQueries_UseIndexes() throws Exception {
+        Pharmacist pharmacist = new Pharmacist("user016", recorder);
+
+        pharmacist.getProfileInfo();
+        pharmacist.getDrugAmounts("br0001");
+
+        assertNoFullScans();
+    }
+
+    // runs every recorded query with EXPLAIN and lists the tables read whole
+    private void assertNoFullScans() throws SQLException {
+        assertFalse(recorder.queries.isEmpty());
+        List<String> scans = new ArrayList<String>();
+        Connection connection = DatabaseOperator.pinConnection();
+        for (Query query : recorder.queries) {
+            PreparedStatement stmt = connection.prepareStatement("EXPLAIN " + query.sql);
+            try {
+                for (int i = 0; i < query.params.size(); i++) {
+                    stmt.setObject(i + 1, query.params.get(i));
+                }
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    long rows = rs.getLong("rows");
+                    if ("ALL".equalsIgnoreCase(rs.getString("type")) && rows > MAX_SCAN_ROWS) {
+                        scans.add(rs.getString("table") + " (" + rows + " rows) in " + query.sql);
+                    }
+                }
+                rs.close();
+            } finally {
+                stmt.close();
+            }
+        }
+        assertTrue(scans.isEmpty(), "Full table scans:\n" + String.join("\n", scans));
+    }
+
+    private static final class Query {
+        final String sql;
+        final List<?> params;
+
+        Query(String sql, List<?> params) {
+            this.sql = sql;
+            this.params = params;
+        }
+    }
+
+    // records the SELECTs it is given and runs them as usual
+    private static final class RecordingOperator extends DatabaseOperator {
+        final List<Query> queries = new ArrayList<Query>();
+
+        private void record(String sql, List<?> params) {
+            if (sql.trim().toUpperCase().startsWith("SELECT")) {
+                queries.add(new Query(sql, params));
+            }
+        }
+
+        @Override
+        public ArrayList<ArrayList<String>> customSelection(String sql) throws ClassNotFoundException, SQLException {
+            record(sql, Collections.emptyList());
+            return super.customSelection(sql);
+        }
+
+        @Override
+        public ArrayList<ArrayList<String>> select(String sqlTemplate, Object... params)
+                throws ClassNotFoundException, SQLException {
+            record(sqlTemplate, Arrays.asList(params));
+            return super.select(sqlTemplate, params);
+        }
+
+        @Override
+        public ResultTable customSelection(String sqlTemplate, List<?> params)
+                throws ClassNotFoundException, SQLException {
+            record(sqlTemplate, params);
+            return super.customSelection(sqlTemplate, params);
+        }
+
+        @Override
+        public long stream(String sqlTemplate, List<?> params, RowHandler handler)
+                throws ClassNotFoundException, SQLException {
+            record(sqlTemplate, params);
+            return super.stream(sqlTemplate, params, handler);
+        }
+
+        @Override
+        public ArrayList<ArrayList<String>> showTableData(String tableName, String columNames, String rowsAttributes)
+                throws ClassNotFoundException, SQLException {
+            record("SELECT " + columNames + " FROM " + tableName + " WHERE " + rowsAttributes + ";",
+                    Collections.emptyList());
+            return super.showTableData(tableName, columNames, rowsAttributes);
+        }
+    }
+}
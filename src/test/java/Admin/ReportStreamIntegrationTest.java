@@ -0,0 +1,140 @@
+package Admin;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.RowHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the streamed report queries and the CSV export.
+ *
+ * Business Rules:
+ * 1. stream hands every row of the result to the handler, in the order of the
+ *    query, and returns the number of rows
+ * 2. exportCsv writes the column names and then one line per row, quoting
+ *    values with commas, quotes or line breaks; an empty result gives the
+ *    header only, and the export stops at the first write that fails
+ * 3. A streamed query that fails throws; the admin reports return -1 for it
+ */
+public class ReportStreamIntegrationTest {
+
+    private static final String PATIENTS = "SELECT patient_id FROM patient WHERE patient_id LIKE ? ORDER BY patient_id";
+
+    private DatabaseOperator dbOperator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbOperator = new DatabaseOperator();
+        dbOperator.connectAndUseDatabase();
+    }
+
+    /* ST_01
+    Objective: Verify that stream hands every row to the handler in the order of the query.
+    Input: The patient IDs in ascending order, streamed and read with customSelection
+    Expected output: The same IDs in the same order, and their number returned by stream.
+     */
+    @Test
+    public void testStream_RowCountAndOrder() throws Exception {
+        List<String> streamed = new ArrayList<String>();
+        long rows = dbOperator.stream(PATIENTS, Collections.singletonList("hms%"),
+                row -> streamed.add(row.getString(1)));
+
+        ArrayList<ArrayList<String>> selected = dbOperator.select(PATIENTS, "hms%");
+        List<String> expected = new ArrayList<String>();
+        for (int i = 1; i < selected.size(); i++) {
+            expected.add(selected.get(i).get(0));
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), rows);
+        assertEquals(expected, streamed);
+    }
+
+    /* ST_02
+    Objective: Verify the CSV written by exportCsv.
+    Input: One row with a value holding a comma, one holding quotes and a NULL
+    Expected output: The header line, then the row with the first two values quoted and the NULL empty.
+     */
+    @Test
+    public void testExportCsv_HeaderAndQuoting() throws Exception {
+        StringWriter out = new StringWriter();
+        long rows = dbOperator.exportCsv("SELECT ? AS name, ? AS note, NULL AS refund",
+                Arrays.asList("Perera, Saman", "said \"no\""), out);
+
+        assertEquals(1, rows);
+        assertEquals("name,note,refund\r\n\"Perera, Saman\",\"said \"\"no\"\"\",\r\n", out.toString());
+    }
+
+    /* ST_03
+    Objective: Verify that a streamed query that fails is reported and no row is handled.
+    Input: A query of a table that does not exist, directly and through an admin report
+    Expected output: stream throws an SQLException, the report returns -1, the handler is never called.
+     */
+    @Test
+    public void testStream_FailingQuery() throws Exception {
+        List<String> handled = new ArrayList<String>();
+        RowHandler handler = row -> handled.add(row.getString(1));
+
+        assertThrows(SQLException.class,
+                () -> dbOperator.stream("SELECT day FROM no_such_table", Collections.emptyList(), handler));
+
+        Admin admin = new Admin("user021");
+        admin.dbOperator = new DatabaseOperator() {
+            @Override
+            public long stream(String sqlTemplate, List<?> params, RowHandler rowHandler)
+                    throws ClassNotFoundException, SQLException {
+                return super.stream("SELECT day FROM no_such_table", params, rowHandler);
+            }
+        };
+        assertEquals(-1, admin.getPatientAttendance("All", handler));
+        assertTrue(handled.isEmpty());
+    }
+
+    /* ST_04
+    Objective: Verify the CSV of an empty result and the end of an export whose writer fails.
+    Input: A query without rows; the patient IDs written to a writer failing at its second write
+    Expected output: The header line only and 0 rows; the IOException, and no write after the failed one.
+     */
+    @Test
+    public void testExportCsv_EmptyResultAndWriteFailure() throws Exception {
+        StringWriter out = new StringWriter();
+        long rows = dbOperator.exportCsv("SELECT patient_id, person_id FROM patient WHERE patient_id = ?",
+                Collections.singletonList("no such patient"), out);
+
+        assertEquals(0, rows);
+        assertEquals("patient_id,person_id\r\n", out.toString());
+
+        AtomicInteger writes = new AtomicInteger();
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                if (writes.incrementAndGet() == 2) {
+                    throw new IOException("disk full");
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        IOException error = assertThrows(IOException.class,
+                () -> dbOperator.exportCsv(PATIENTS, Collections.singletonList("hms%"), failing));
+        assertEquals("disk full", error.getMessage());
+        assertEquals(2, writes.get());
+    }
+}
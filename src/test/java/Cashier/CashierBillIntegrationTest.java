@@ -1,6 +1,7 @@
 package Cashier;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -79,6 +80,12 @@ public class CashierBillIntegrationTest {
                 return result;
             }
 
+            @Override
+            public String nextId(IdSequence sequence) {
+                // the next bill after the fixture's hms0007b
+                return sequence.format(8);
+            }
+
             @Override
             public ArrayList<ArrayList<String>> showTableData(String table, String columns, String condition)
                     throws SQLException, ClassNotFoundException {
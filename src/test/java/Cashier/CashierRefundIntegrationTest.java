@@ -1,6 +1,7 @@
 package Cashier;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -55,16 +56,8 @@ public class CashierRefundIntegrationTest {
             }
 
             @Override
-            public ArrayList<ArrayList<String>> customSelection(String query) throws SQLException, ClassNotFoundException {
-                ArrayList<ArrayList<String>> result = new ArrayList<>();
-                ArrayList<String> columns = new ArrayList<>(Arrays.asList("refund_id"));
-                result.add(columns);
-                if (query.contains("SELECT refund_id FROM refund")) {
-                    ArrayList<String> dataRow = new ArrayList<>();
-                    dataRow.add("r0001");
-                    result.add(dataRow);
-                }
-                return result;
+            public String nextId(IdSequence sequence) {
+                return sequence.format(2);
             }
 
             @Override
@@ -1,6 +1,7 @@
 package Doctor;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -128,12 +129,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat002';"))
                 .thenThrow(new SQLException("Database error"));
 
-        // Mock truy vấn tmp_bill_id lớn nhất
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0010tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0011tb");
 
         // Mock lệnh insert thành công
         String expectedSql = "INSERT INTO tmp_bill (patient_id,appointment_fee,tmp_bill_id) " +
@@ -149,8 +146,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat002';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -175,12 +171,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'hms0001pa';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0000tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0000tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0001tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0001tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,doctor_fee,tmp_bill_id) " +
@@ -196,8 +188,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'hms0001pa';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -222,12 +213,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat005';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0010tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0010tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0011tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0011tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,doctor_fee,tmp_bill_id) " +
@@ -243,8 +230,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat005';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -269,12 +255,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat001';"))
                 .thenThrow(new SQLException("No record found"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0001tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0001tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0002tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0002tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,appointment_fee,doctor_fee,tmp_bill_id) " +
@@ -290,8 +272,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat001';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -316,12 +297,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat006';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0005tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0005tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0006tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0006tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,appointment_fee,tmp_bill_id) " +
@@ -337,8 +314,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat006';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -363,12 +339,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat012';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0004tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0004tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0005tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0005tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,tmp_bill_id) VALUES ('pat012','hms0005tb');";
@@ -383,8 +355,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat012';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -409,12 +380,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat013';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0005tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0005tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0006tb");
 
         // Mock: Lệnh insert ném SQLException
         String expectedSql = "INSERT INTO tmp_bill (patient_id,doctor_fee,tmp_bill_id) VALUES ('pat013','3000','hms0006tb');";
@@ -429,8 +396,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat013';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -439,8 +405,8 @@ public class BillTest {
      * Test case: BILL_11
      * Mục tiêu: Kiểm tra xử lý lỗi SQLException ở cấp độ chính (main block)
      * Input: billInfo = "patient_id pat003", patientID = "pat003", labFee = "3000"
-     * Expected Output: Trả về true, không tạo hóa đơn mới
-     * Ghi chú: Phủ nhánh lỗi SQLException ở cấp độ chính, trả về true theo logic mã nguồn
+     * Expected Output: Trả về false, không tạo hóa đơn mới
+     * Ghi chú: Phủ nhánh lỗi SQLException ở cấp độ chính, lỗi được báo bằng false
      * @throws SQLException if a database access error occurs
      * @throws ClassNotFoundException if the JDBC driver is not found
      */
@@ -453,16 +419,18 @@ public class BillTest {
 
         // Mock: Ném SQLException ở cấp độ cao nhất
         when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Critical database error"));
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenThrow(new SQLException("Critical database error"));
 
         // Act: Gọi phương thức bill
         boolean result = doctorInstance.bill(billInfo, patientID, labFee);
 
         // Assert: Kiểm tra kết quả
-        assertTrue(result, "Phương thức bill phải trả về true nếu có ngoại lệ ở cấp độ cao nhất theo logic mã nguồn");
+        assertFalse(result, "Phương thức bill phải trả về false nếu có ngoại lệ ở cấp độ cao nhất");
 
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat003';");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verifyNoMoreInteractions(dbOperator);
     }
 
@@ -527,12 +495,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat008';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0003tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0003tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0004tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0004tb"
         String expectedSql = "INSERT INTO tmp_bill (tmp_bill_id) VALUES ('hms0004tb');";
@@ -547,8 +511,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat008';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -573,12 +536,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat009';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0004tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0004tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0005tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0005tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,tmp_bill_id) VALUES ('pat009','hms0005tb');";
@@ -593,8 +552,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat009';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -619,12 +577,8 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat010';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id lớn nhất là "hms0005tb"
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms0005tb")));
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // Mock: sinh tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenReturn("hms0006tb");
 
         // Mock lệnh insert thành công với tmpID2 = "hms0006tb"
         String expectedSql = "INSERT INTO tmp_bill (patient_id,appointment_fee,doctor_fee,extra_fee,tmp_bill_id) " +
@@ -640,8 +594,7 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat010';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verify(dbOperator, times(1)).customInsertion(expectedSql);
         verifyNoMoreInteractions(dbOperator);
     }
@@ -664,6 +617,7 @@ public class BillTest {
 
         // Mock: Ném ClassNotFoundException khi truy vấn
         when(dbOperator.customSelection(anyString())).thenThrow(new ClassNotFoundException("Driver not found"));
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenThrow(new SQLException("Not connected to the database"));
 
         // Act: Gọi phương thức bill
         boolean result = doctorInstance.bill(billInfo, patientID, labFee);
@@ -674,20 +628,21 @@ public class BillTest {
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat014';");
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verifyNoMoreInteractions(dbOperator);
     }
 
     /**
      * Test case: BILL_17
-     * Mục tiêu: Kiểm tra khả năng tạo hóa đơn mới khi tmp_bill_id không hợp lệ (độ dài nhỏ hơn 4)
+     * Mục tiêu: Kiểm tra xử lý khi không sinh được tmp_bill_id mới
      * Input: billInfo = "patient_id pat014, doctor_fee 3500", patientID = "pat014", labFee = "2800"
-     * Expected Output: Trả về true, lệnh INSERT được gọi với tmp_bill_id mặc định "hms0001tb"
-     * Ghi chú: Phủ nhánh xử lý khi tmp_bill_id không hợp lệ, sử dụng giá trị mặc định
+     * Expected Output: Trả về true, không gọi lệnh INSERT
+     * Ghi chú: Phủ nhánh lỗi khi sinh tmp_bill_id, không tạo hóa đơn với ID trùng
      * @throws SQLException if a database access error occurs
      * @throws ClassNotFoundException if the JDBC driver is not found
      */
     @Test
-    public void testBillInvalidBillIDLength() throws SQLException, ClassNotFoundException {
+    public void testBillIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Arrange: Chuẩn bị dữ liệu đầu vào và mock
         String billInfo = "patient_id pat014, doctor_fee 3500";
         String patientID = "pat014";
@@ -697,29 +652,19 @@ public class BillTest {
         when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat014';"))
                 .thenThrow(new SQLException("No record"));
 
-        // Mock: tmp_bill_id không hợp lệ (độ dài nhỏ hơn 4)
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        maxBillResult.add(new ArrayList<>(Arrays.asList("tmp_bill_id")));
-        maxBillResult.add(new ArrayList<>(Arrays.asList("hms"))); // tmp_bill_id không hợp lệ
-        when(dbOperator.customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
-
-        // Mock lệnh insert thành công với tmpID2 = "hms0001tb"
-        String expectedSql = "INSERT INTO tmp_bill (patient_id,doctor_fee,tmp_bill_id) VALUES ('pat014','3500','hms0001tb');";
-        when(dbOperator.customInsertion(expectedSql)).thenReturn(true);
+        // Mock: không sinh được tmp_bill_id mới
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Act: Gọi phương thức bill
         boolean result = doctorInstance.bill(billInfo, patientID, labFee);
 
         // Assert: Kiểm tra kết quả
-        assertTrue(result, "Phương thức bill phải trả về true khi tạo hóa đơn mới thành công với tmp_bill_id không hợp lệ");
+        assertTrue(result, "Phương thức bill phải trả về true khi không sinh được tmp_bill_id theo logic mã nguồn");
 
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
                 .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'pat014';");
-        verify(dbOperator, times(1))
-                .customSelection("SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);");
-        verify(dbOperator, times(1)).customInsertion(expectedSql);
+        verify(dbOperator, times(1)).nextId(IdSequence.TMP_BILL);
         verifyNoMoreInteractions(dbOperator);
     }
 }
\ No newline at end of file
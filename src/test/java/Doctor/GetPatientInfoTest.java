@@ -15,6 +15,7 @@ import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -138,25 +139,25 @@ public class GetPatientInfoTest {
         String searchType = "id";
         String searchWord = "pat001";
 
-        // Mock kết quả trả về từ customSelection cho personalData
+        // Mock kết quả trả về từ select cho personalData
         ArrayList<ArrayList<String>> personalDataMock = new ArrayList<>();
         personalDataMock.add(new ArrayList<>(Arrays.asList("person_id", "first_name", "last_name", "date_of_birth", "gender", "nic")));
         personalDataMock.add(new ArrayList<>(Arrays.asList("per001", "John", "Doe", "1990-01-01", "Male", "123456789V")));
-        when(dbOperator.customSelection("SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = '" + searchWord + "')"))
+        when(dbOperator.select(eq("SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = ?)"), eq(searchWord)))
                 .thenReturn(personalDataMock);
 
-        // Mock kết quả trả về từ customSelection cho medicalData
+        // Mock kết quả trả về từ select cho medicalData
         ArrayList<ArrayList<String>> medicalDataMock = new ArrayList<>();
         medicalDataMock.add(new ArrayList<>(Arrays.asList("drug_allergies_and_reactions")));
         medicalDataMock.add(new ArrayList<>(Arrays.asList("Penicillin")));
-        when(dbOperator.customSelection("SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = '" + searchWord + "'"))
+        when(dbOperator.select(eq("SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = ?"), eq(searchWord)))
                 .thenReturn(medicalDataMock);
 
-        // Mock kết quả trả về từ customSelection cho historyData
+        // Mock kết quả trả về từ select cho historyData
         ArrayList<ArrayList<String>> historyDataMock = new ArrayList<>();
         historyDataMock.add(new ArrayList<>(Arrays.asList("date", "history")));
         historyDataMock.add(new ArrayList<>(Arrays.asList("2023-01-01", "Flu")));
-        when(dbOperator.customSelection("SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = '" + searchWord + "' ORDER BY date DESC"))
+        when(dbOperator.select(eq("SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = ? ORDER BY date DESC"), eq(searchWord)))
                 .thenReturn(historyDataMock);
 
         // Act: Gọi phương thức getPatientInfo
@@ -171,11 +172,11 @@ public class GetPatientInfoTest {
 
         // Verify: Đảm bảo các lệnh SQL được gọi đúng
         verify(dbOperator, times(1))
-                .customSelection("SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = '" + searchWord + "')");
+                .select(eq("SELECT * FROM person WHERE person_id = (SELECT patient.person_id FROM patient WHERE patient_id = ?)"), eq(searchWord));
         verify(dbOperator, times(1))
-                .customSelection("SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = '" + searchWord + "'");
+                .select(eq("SELECT patient.drug_allergies_and_reactions FROM patient WHERE patient_id = ?"), eq(searchWord));
         verify(dbOperator, times(1))
-                .customSelection("SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = '" + searchWord + "' ORDER BY date DESC");
+                .select(eq("SELECT medical_history.date,medical_history.history FROM medical_history WHERE patient_id = ? ORDER BY date DESC"), eq(searchWord));
         verifyNoMoreInteractions(dbOperator);
     }
 
@@ -1,6 +1,7 @@
 package Doctor;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.PatientNameIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,6 +51,9 @@ public class NameSuggestorTest {
         doctorInstance = new Doctor("user001");
         doctorInstance.dbOperator = dbOperator;
         doctorInstance.userID = "user001"; // Ensure userID is set for the Doctor instance
+
+        // Chỉ mục tên bệnh nhân dùng chung, nạp lại từ mock trong mỗi test
+        PatientNameIndex.getInstance().reset();
     }
 
     /**
@@ -162,10 +166,10 @@ public class NameSuggestorTest {
 
     /**
      * Test case: NS_05
-     * Mục tiêu: Kiểm tra khả năng gợi ý tên bệnh nhân với tên có hơn hai từ
-     * Input: word = "John Doe Extra", dữ liệu mock trả về với các cột "patient_id", "first_name", "last_name", "date_of_birth"
-     * Expected Output: Trả về danh sách gợi ý tên với dữ liệu hợp lệ, ví dụ "pat001", "John", "Doe", "1990-01-01"
-     * Ghi chú: Phủ nhánh thành công khi gợi ý với hơn hai từ, kiểm tra SQL chính xác
+     * Mục tiêu: Kiểm tra khả năng gợi ý tên bệnh nhân với tên có hơn hai từ, dùng chỉ mục tên trong bộ nhớ
+     * Input: word = "John Doe Extra", dữ liệu mock trả về hai bệnh nhân "John Doe" và "John Smith"
+     * Expected Output: Chỉ trả về "pat001", "John", "Doe", "1990-01-01"; gọi lần hai không truy vấn lại database
+     * Ghi chú: Phủ nhánh hơn hai từ (từ thứ ba bị bỏ qua), danh sách bệnh nhân chỉ được nạp một lần
      * @throws SQLException if a database access error occurs
      * @throws ClassNotFoundException if the JDBC driver is not found
      */
@@ -176,14 +180,12 @@ public class NameSuggestorTest {
         ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
         mockResult.add(new ArrayList<>(Arrays.asList("patient_id", "first_name", "last_name", "date_of_birth")));
         mockResult.add(new ArrayList<>(Arrays.asList("pat001", "John", "Doe", "1990-01-01")));
-        when(dbOperator.customSelection("SELECT patient.patient_id, person.first_name, person.last_name, person.date_of_birth " +
-                "FROM person INNER JOIN patient ON person.person_id = patient.person_id " +
-                "WHERE person.first_name LIKE 'John%' AND person.last_name LIKE 'Doe%' " +
-                "LIMIT 10;"))
-                .thenReturn(mockResult);
+        mockResult.add(new ArrayList<>(Arrays.asList("pat002", "John", "Smith", "1985-05-05")));
+        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
 
-        // Act: Gọi phương thức nameSuggestor
+        // Act: Gọi phương thức nameSuggestor hai lần
         ArrayList<ArrayList<String>> result = doctorInstance.nameSuggestor(word);
+        ArrayList<ArrayList<String>> second = doctorInstance.nameSuggestor(word);
 
         // Assert: Kiểm tra kết quả
         assertNotNull(result, "Kết quả không được null");
@@ -192,13 +194,10 @@ public class NameSuggestorTest {
         assertEquals("John", result.get(1).get(1), "First_name phải là 'John'");
         assertEquals("Doe", result.get(1).get(2), "Last_name phải là 'Doe'");
         assertEquals("1990-01-01", result.get(1).get(3), "Date_of_birth phải là '1990-01-01'");
+        assertEquals(result, second, "Lần gọi thứ hai phải trả về cùng kết quả");
 
-        // Verify: Đảm bảo customSelection được gọi đúng
-        verify(dbOperator, times(1))
-                .customSelection("SELECT patient.patient_id, person.first_name, person.last_name, person.date_of_birth " +
-                        "FROM person INNER JOIN patient ON person.person_id = patient.person_id " +
-                        "WHERE person.first_name LIKE 'John%' AND person.last_name LIKE 'Doe%' " +
-                        "LIMIT 10;");
+        // Verify: Danh sách bệnh nhân chỉ được truy vấn một lần
+        verify(dbOperator, times(1)).customSelection(anyString());
         verifyNoMoreInteractions(dbOperator);
     }
 
@@ -249,4 +248,39 @@ public class NameSuggestorTest {
         // Verify: Đảm bảo không có tương tác với database
         verifyNoInteractions(dbOperator);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test case: NS_08
+     * Mục tiêu: Kiểm tra bệnh nhân mới đăng ký được gợi ý ngay mà không nạp lại danh sách
+     * Input: chỉ mục đã nạp "John Doe", sau đó thêm "Jane Roe" qua PatientNameIndex.add; word = "ro" rồi "j"
+     * Expected Output: "ro" trả về "pat003" (khớp họ); "j" trả về cả hai bệnh nhân theo thứ tự tên
+     * Ghi chú: Phủ nhánh thêm tăng dần vào chỉ mục và tìm theo last_name
+     * @throws SQLException if a database access error occurs
+     * @throws ClassNotFoundException if the JDBC driver is not found
+     */
+    @Test
+    public void testNameSuggestorNewPatient() throws SQLException, ClassNotFoundException {
+        // Arrange: Nạp chỉ mục với một bệnh nhân rồi thêm bệnh nhân mới
+        ArrayList<ArrayList<String>> nameData = new ArrayList<>();
+        nameData.add(new ArrayList<>(Arrays.asList("patient_id", "first_name", "last_name", "date_of_birth")));
+        nameData.add(new ArrayList<>(Arrays.asList("pat001", "John", "Doe", "1990-01-01")));
+        when(dbOperator.customSelection(anyString())).thenReturn(nameData);
+        doctorInstance.nameSuggestor("John");
+
+        PatientNameIndex.getInstance().add("pat003", "Jane", "Roe", "2000-01-01");
+
+        // Act: Gọi phương thức nameSuggestor
+        ArrayList<ArrayList<String>> byLastName = doctorInstance.nameSuggestor("ro");
+        ArrayList<ArrayList<String>> byFirstName = doctorInstance.nameSuggestor("j");
+
+        // Assert: Kiểm tra kết quả
+        assertEquals(2, byLastName.size(), "Phải tìm thấy đúng một bệnh nhân theo họ");
+        assertEquals("pat003", byLastName.get(1).get(0), "Bệnh nhân mới phải được gợi ý");
+        assertEquals(3, byFirstName.size(), "Phải tìm thấy cả hai bệnh nhân");
+        assertEquals("pat003", byFirstName.get(1).get(0), "'Jane' phải đứng trước 'John'");
+        assertEquals("pat001", byFirstName.get(2).get(0));
+
+        // Verify: Danh sách bệnh nhân chỉ được truy vấn một lần
+        verify(dbOperator, times(1)).customSelection(anyString());
+    }
+}
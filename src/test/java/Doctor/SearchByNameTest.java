@@ -1,6 +1,7 @@
 package Doctor;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.PatientNameIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -51,6 +52,9 @@ public class SearchByNameTest {
         doctorInstance = new Doctor("user001");
         doctorInstance.dbOperator = dbOperator;
         doctorInstance.userID = "user001"; // Ensure userID is set for the Doctor instance
+
+        // Chỉ mục tên bệnh nhân dùng chung, nạp lại từ mock trong mỗi test
+        PatientNameIndex.getInstance().reset();
     }
 
     /**
@@ -187,10 +191,10 @@ public class SearchByNameTest {
 
     /**
      * Test case: SBN_06
-     * Mục tiêu: Kiểm tra khả năng tìm kiếm bệnh nhân với tên có hơn hai từ
-     * Input: namePart = "John Doe Extra", dữ liệu mock trả về với các cột "patient_id", "first_name", "last_name", "date_of_birth"
-     * Expected Output: Trả về danh sách bệnh nhân với dữ liệu hợp lệ, ví dụ "pat001", "John", "Doe", "1990-01-01"
-     * Ghi chú: Phủ nhánh thành công khi tìm kiếm với hơn hai từ, kiểm tra SQL chính xác
+     * Mục tiêu: Kiểm tra khả năng tìm kiếm bệnh nhân với tên có hơn hai từ, dùng chỉ mục tên trong bộ nhớ
+     * Input: namePart = "John Doe Extra", dữ liệu mock trả về hai bệnh nhân "John Doe" và "John Smith"
+     * Expected Output: Chỉ trả về "pat001", "John", "Doe", "1990-01-01"; gọi lần hai không truy vấn lại database
+     * Ghi chú: Phủ nhánh hơn hai từ (từ thứ ba bị bỏ qua), danh sách bệnh nhân chỉ được nạp một lần
      * @throws SQLException if a database access error occurs
      * @throws ClassNotFoundException if the JDBC driver is not found
      */
@@ -201,14 +205,12 @@ public class SearchByNameTest {
         ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
         mockResult.add(new ArrayList<>(Arrays.asList("patient_id", "first_name", "last_name", "date_of_birth")));
         mockResult.add(new ArrayList<>(Arrays.asList("pat001", "John", "Doe", "1990-01-01")));
-        when(dbOperator.customSelection("SELECT patient.patient_id, person.first_name, person.last_name, person.date_of_birth " +
-                "FROM person INNER JOIN patient ON person.person_id = patient.person_id " +
-                "WHERE person.first_name LIKE 'John%' AND person.last_name LIKE 'Doe%' " +
-                "LIMIT 10;"))
-                .thenReturn(mockResult);
+        mockResult.add(new ArrayList<>(Arrays.asList("pat002", "John", "Smith", "1985-05-05")));
+        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
 
-        // Act: Gọi phương thức searchByName
+        // Act: Gọi phương thức searchByName hai lần
         ArrayList<ArrayList<String>> result = doctorInstance.searchByName(namePart);
+        ArrayList<ArrayList<String>> second = doctorInstance.searchByName(namePart);
 
         // Assert: Kiểm tra kết quả
         assertNotNull(result, "Kết quả không được null");
@@ -217,13 +219,10 @@ public class SearchByNameTest {
         assertEquals("John", result.get(1).get(1), "First_name phải là 'John'");
         assertEquals("Doe", result.get(1).get(2), "Last_name phải là 'Doe'");
         assertEquals("1990-01-01", result.get(1).get(3), "Date_of_birth phải là '1990-01-01'");
+        assertEquals(result, second, "Lần gọi thứ hai phải trả về cùng kết quả");
 
-        // Verify: Đảm bảo customSelection được gọi đúng
-        verify(dbOperator, times(1))
-                .customSelection("SELECT patient.patient_id, person.first_name, person.last_name, person.date_of_birth " +
-                        "FROM person INNER JOIN patient ON person.person_id = patient.person_id " +
-                        "WHERE person.first_name LIKE 'John%' AND person.last_name LIKE 'Doe%' " +
-                        "LIMIT 10;");
+        // Verify: Danh sách bệnh nhân chỉ được truy vấn một lần
+        verify(dbOperator, times(1)).customSelection(anyString());
         verifyNoMoreInteractions(dbOperator);
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package LabAssistant;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for LabResultBatch.
+ *
+ * Business Rules:
+ * 1. Every result gets its ID from the sequence of its test when it is added
+ * 2. write() sends one batch per test table, each row being ID, appointment and values
+ * 3. A table that fails stays in the batch, tables written before it do not
+ */
+public class LabResultBatchTest {
+
+    @Mock
+    private DatabaseOperator dbOperator;
+
+    private AutoCloseable closeable;
+    private LabResultBatch batch;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(dbOperator.nextId(IdSequence.LIVER_FUNCTION_TEST)).thenReturn("lv0010", "lv0011");
+        when(dbOperator.nextId(IdSequence.BLOOD_GROUPING_RH)).thenReturn("bg0010");
+        batch = new LabResultBatch(dbOperator);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* LRB_01
+    Objective: Verify that results of two tables are written with one batch per table.
+    Input: Two liver function tests and one blood grouping
+    Expected output: 3 results written, LiverFunctionTest batch with 2 rows and BloodGroupingRh batch with 1 row.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testWrite_OneBatchPerTable() throws Exception {
+        assertEquals("lv0010", batch.add(LabResultBatch.Test.LIVER_FUNCTION_TEST, "lapp001",
+                "1", "2", "3", "4", "5", "6", "7", "8"));
+        assertEquals("bg0010", batch.add(LabResultBatch.Test.BLOOD_GROUPING_RH, "lapp002", "A", "positive"));
+        assertEquals("lv0011", batch.add(LabResultBatch.Test.LIVER_FUNCTION_TEST, "lapp003",
+                "8", "7", "6", "5", "4", "3", "2", "1"));
+        assertEquals(3, batch.size());
+
+        assertEquals(3, batch.write());
+        assertEquals(0, batch.size());
+
+        ArgumentCaptor<List<List<String>>> liverRows = ArgumentCaptor.forClass(List.class);
+        verify(dbOperator).batchUpdate(startsWith("INSERT INTO LiverFunctionTest (tst_liver_id, appointment_id, "),
+                liverRows.capture());
+        assertEquals(2, liverRows.getValue().size());
+        assertEquals(Arrays.asList("lv0010", "lapp001", "1", "2", "3", "4", "5", "6", "7", "8"),
+                liverRows.getValue().get(0));
+
+        ArgumentCaptor<List<List<String>>> bloodRows = ArgumentCaptor.forClass(List.class);
+        verify(dbOperator).batchUpdate(startsWith("INSERT INTO BloodGroupingRh "), bloodRows.capture());
+        assertEquals(Arrays.asList(Arrays.asList("bg0010", "lapp002", "A", "positive")), bloodRows.getValue());
+    }
+
+    /* LRB_02
+    Objective: Verify that a failing table stays in the batch while the tables written before it are removed.
+    Input: One liver function test and one blood grouping, the BloodGroupingRh batch fails once
+    Expected output: The first write throws, the second writes only the blood grouping.
+     */
+    @Test
+    public void testWrite_FailedTableStaysInBatch() throws Exception {
+        batch.add(LabResultBatch.Test.LIVER_FUNCTION_TEST, "lapp001", "1", "2", "3", "4", "5", "6", "7", "8");
+        batch.add(LabResultBatch.Test.BLOOD_GROUPING_RH, "lapp002", "A", "positive");
+        when(dbOperator.batchUpdate(startsWith("INSERT INTO BloodGroupingRh "), anyList()))
+                .thenThrow(new SQLException("deadlock"))
+                .thenReturn(new int[] { 1 });
+
+        assertThrows(SQLException.class, () -> batch.write());
+        assertEquals(1, batch.size(), "The blood grouping should still be pending");
+
+        assertEquals(1, batch.write());
+        verify(dbOperator, times(1)).batchUpdate(startsWith("INSERT INTO LiverFunctionTest "), anyList());
+        verify(dbOperator, times(2)).batchUpdate(startsWith("INSERT INTO BloodGroupingRh "), anyList());
+    }
+
+    /* LRB_03
+    Objective: Verify that a result with the wrong number of values is rejected before an ID is used.
+    Input: A blood grouping with one value
+    Expected output: IllegalArgumentException, nothing pending.
+     */
+    @Test
+    public void testAdd_WrongNumberOfValues() throws Exception {
+        assertThrows(IllegalArgumentException.class,
+                () -> batch.add(LabResultBatch.Test.BLOOD_GROUPING_RH, "lapp002", "A"));
+        assertEquals(0, batch.size());
+        verify(dbOperator, never()).nextId(any(IdSequence.class));
+    }
+}
@@ -1,6 +1,7 @@
 package Pharmacist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -58,6 +59,12 @@ public class PharmacistBillIntegrationTest {
                 return result;
             }
 
+            @Override
+            public String nextId(IdSequence sequence) {
+                // the next bill after the test's hms0001tb
+                return sequence.format(2);
+            }
+
             @Override
             public ArrayList<ArrayList<String>> showTableData(String table, String columns, String condition)
                     throws SQLException, ClassNotFoundException {
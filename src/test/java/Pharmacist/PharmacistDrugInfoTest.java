@@ -95,6 +95,9 @@ public class PharmacistDrugInfoTest {
         mockDrugData.add(data);
 
         ArrayList<ArrayList<String>> mockStockData = new ArrayList<>();
+        ArrayList<String> stockColumns = new ArrayList<>();
+        stockColumns.add("remaining_quantity");
+        mockStockData.add(stockColumns);
         ArrayList<String> stockData1 = new ArrayList<>();
         stockData1.add("100");
         mockStockData.add(stockData1);
@@ -102,8 +105,8 @@ public class PharmacistDrugInfoTest {
         stockData2.add("50");
         mockStockData.add(stockData2);
 
-        when(dbOperator.customSelection(anyString())).thenReturn(mockDrugData);
-        when(dbOperator.showTableData(eq("pharmacy_stock"), eq("remaining_quantity"), anyString()))
+        when(dbOperator.select(startsWith("SELECT drug.drug_name"), eq("DRUG001"))).thenReturn(mockDrugData);
+        when(dbOperator.select(startsWith("SELECT remaining_quantity"), eq("DRUG001")))
                 .thenReturn(mockStockData);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getDrugInfo("DRUG001");
@@ -120,13 +123,13 @@ public class PharmacistDrugInfoTest {
                and returns null.
     Input: drugID = "DRUG001"
            Pre-test state: Mocked SQLException.
-           Mock behavior: dbOperator.customSelection throws an SQLException.
+           Mock behavior: dbOperator.select throws an SQLException.
     Expected output: null
     Expected change: No database interaction.
      */
     @Test
     public void testGetDrugInfo_ThrowsSQLException() throws SQLException, ClassNotFoundException {
-        when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Database error"));
+        when(dbOperator.select(anyString(), eq("DRUG001"))).thenThrow(new SQLException("Database error"));
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getDrugInfo("DRUG001");
 
@@ -157,9 +160,12 @@ public class PharmacistDrugInfoTest {
         mockResult.add(columns);
 
         ArrayList<ArrayList<String>> mockStockData = new ArrayList<>();
+        ArrayList<String> stockColumns = new ArrayList<>();
+        stockColumns.add("remaining_quantity");
+        mockStockData.add(stockColumns);
 
-        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
-        when(dbOperator.showTableData(eq("pharmacy_stock"), eq("remaining_quantity"), anyString()))
+        when(dbOperator.select(startsWith("SELECT drug.drug_name"), eq("DRUG001"))).thenReturn(mockResult);
+        when(dbOperator.select(startsWith("SELECT remaining_quantity"), eq("DRUG001")))
                 .thenReturn(mockStockData);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getDrugInfo("DRUG001");
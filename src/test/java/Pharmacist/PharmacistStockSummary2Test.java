@@ -63,7 +63,7 @@ public class PharmacistStockSummary2Test {
     /* PH_STOCK_SUMMARY2_01
     Objective: Verify that the getStockSummary2 method correctly retrieves brand summary with total amount and suppliers.
     Input: None
-           Pre-test state: Mocked DatabaseOperator returns predefined brand and stock data.
+           Pre-test state: Mocked DatabaseOperator returns the grouped brand and stock totals.
     Expected output: An ArrayList containing column names, brand data, total amount, and supplier count.
     Expected change: No database interaction.
      */
@@ -76,6 +76,8 @@ public class PharmacistStockSummary2Test {
         brandColumns.add("drug_type");
         brandColumns.add("drug_unit");
         brandColumns.add("unit_price");
+        brandColumns.add("amount");
+        brandColumns.add("suppliers");
         mockBrandData.add(brandColumns);
         ArrayList<String> brandData = new ArrayList<>();
         brandData.add("br0001");
@@ -83,24 +85,11 @@ public class PharmacistStockSummary2Test {
         brandData.add("Analgesic");
         brandData.add("Tablet");
         brandData.add("0.50");
+        brandData.add("150");
+        brandData.add("2");
         mockBrandData.add(brandData);
 
-        ArrayList<ArrayList<String>> mockStockData = new ArrayList<>();
-        ArrayList<String> stockColumns = new ArrayList<>();
-        stockColumns.add("remaining_quantity");
-        stockColumns.add("supplier_id");
-        mockStockData.add(stockColumns);
-        ArrayList<String> stockData1 = new ArrayList<>();
-        stockData1.add("100");
-        stockData1.add("sup0001");
-        mockStockData.add(stockData1);
-        ArrayList<String> stockData2 = new ArrayList<>();
-        stockData2.add("50");
-        stockData2.add("sup0002");
-        mockStockData.add(stockData2);
-
-        when(dbOperator.customSelection("SELECT brand_id, brand_name, drug_type,drug_unit, unit_price FROM drug_brand_names;")).thenReturn(mockBrandData);
-        when(dbOperator.customSelection(contains("WHERE brand_id = 'br0001'"))).thenReturn(mockStockData);
+        when(dbOperator.customSelection(contains("GROUP BY drug_brand_names.brand_id"))).thenReturn(mockBrandData);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getStockSummary2();
 
@@ -145,9 +134,11 @@ public class PharmacistStockSummary2Test {
         columns.add("drug_type");
         columns.add("drug_unit");
         columns.add("unit_price");
+        columns.add("amount");
+        columns.add("suppliers");
         mockResult.add(columns);
 
-        when(dbOperator.customSelection("SELECT brand_id, brand_name, drug_type,drug_unit, unit_price FROM drug_brand_names;")).thenReturn(mockResult);
+        when(dbOperator.customSelection(contains("GROUP BY drug_brand_names.brand_id"))).thenReturn(mockResult);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getStockSummary2();
 
@@ -0,0 +1,151 @@
+package Pharmacist;
+
+import com.hms.hms_test_2.DatabaseOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PharmacistStockSummaryIntegrationTest {
+
+    private Pharmacist pharmacistInstance;
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                "jdbc:mysql://127.0.0.1:3306/test_HMS2?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC",
+                "root", "hieu");
+        connection.setAutoCommit(false);
+
+        pharmacistInstance = new Pharmacist("user016");
+        pharmacistInstance.dbOperator = new DatabaseOperator() {
+            @Override
+            public boolean customInsertion(String query) throws SQLException, ClassNotFoundException {
+                Statement stmt = connection.createStatement();
+                int rowsAffected = stmt.executeUpdate(query);
+                stmt.close();
+                return rowsAffected > 0;
+            }
+
+            @Override
+            public ArrayList<ArrayList<String>> customSelection(String query) throws SQLException, ClassNotFoundException {
+                ArrayList<ArrayList<String>> result = new ArrayList<>();
+                Statement stmt = connection.createStatement();
+                ResultSet rs = stmt.executeQuery(query);
+                ArrayList<String> columns = new ArrayList<>();
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    columns.add(rs.getMetaData().getColumnLabel(i));
+                }
+                result.add(columns);
+                while (rs.next()) {
+                    ArrayList<String> dataRow = new ArrayList<>();
+                    for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                        dataRow.add(rs.getString(i));
+                    }
+                    result.add(dataRow);
+                }
+                rs.close();
+                stmt.close();
+                return result;
+            }
+        };
+
+        Statement stmt = connection.createStatement();
+        stmt.executeUpdate("INSERT INTO drug (drug_id, drug_name, dangerous_drug) VALUES ('dsum01', 'sumtestdrug', 0)");
+        stmt.executeUpdate("INSERT INTO drug_brand_names (brand_id, brand_name, generic_name, drug_type, drug_unit, unit_price) " +
+                "VALUES ('brsum01', 'sumtestbrand', 'sumtestdrug', 'tablet', 'mg', 3)");
+        stmt.executeUpdate("INSERT INTO pharmacy_stock (stock_id, drug_id, brand_id, stock, remaining_quantity, manufac_date, exp_date, supplier_id, date) " +
+                "VALUES ('stk9901', 'dsum01', 'brsum01', 500, 450, '2016-08-10', '2017-09-01', 'sup0001', '2016-08-20')");
+        stmt.executeUpdate("INSERT INTO pharmacy_stock (stock_id, drug_id, brand_id, stock, remaining_quantity, manufac_date, exp_date, supplier_id, date) " +
+                "VALUES ('stk9902', 'dsum01', 'brsum01', 100, 100, '2016-08-10', '2017-09-01', 'sup0001', '2016-08-21')");
+        stmt.close();
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        if (connection != null) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+            connection.close();
+        }
+    }
+
+    /* PH_STOCK_SUMMARY_INT_01
+    Objective: Verify that getStockSummary and getStockSummary2 sum the remaining quantity and count each supplier once.
+    Input: None
+           Pre-test state: Drug "dsum01" with brand "brsum01" has two stocks from sup0001 (450 and 100 remaining).
+    Expected output: 550 remaining from 1 supplier for both the drug and the brand.
+    Expected change: Database is rolled back after test.
+     */
+    @Test
+    public void testStockSummary_SumsStocksPerDrugAndBrand() {
+        ArrayList<String> drugRow = findRow(pharmacistInstance.getStockSummary(), "dsum01");
+        assertNotNull(drugRow, "The drug should be in the summary");
+        assertEquals("550", drugRow.get(3), "The remaining quantities should be summed");
+        assertEquals("1", drugRow.get(4), "The supplier should be counted once");
+
+        ArrayList<String> brandRow = findRow(pharmacistInstance.getStockSummary2(), "brsum01");
+        assertNotNull(brandRow, "The brand should be in the summary");
+        assertEquals("550", brandRow.get(5), "The remaining quantities should be summed");
+        assertEquals("1", brandRow.get(6), "The supplier should be counted once");
+    }
+
+    /* PH_STOCK_SUMMARY_INT_02
+    Objective: Verify that the summaries reflect updateStock and reduceStock immediately.
+    Input: updateStock adds 300 from sup0002, reduceStock takes 50 from "stk9901"
+    Expected output: 800 remaining from 2 suppliers for both the drug and the brand.
+    Expected change: Database is rolled back after test.
+     */
+    @Test
+    public void testStockSummary_ReflectsStockChanges() {
+        assertTrue(pharmacistInstance.updateStock("dsum01", "brsum01", "300", "2016-09-01", "2018-09-01",
+                "sup0002", "2016-09-10"), "The stock should be added");
+        assertTrue(pharmacistInstance.reduceStock(50, "stk9901"), "The stock should be reduced");
+
+        ArrayList<String> drugRow = findRow(pharmacistInstance.getStockSummary(), "dsum01");
+        assertEquals("800", drugRow.get(3), "The summary should include the new and reduced stock");
+        assertEquals("2", drugRow.get(4), "The new supplier should be counted");
+
+        ArrayList<String> brandRow = findRow(pharmacistInstance.getStockSummary2(), "brsum01");
+        assertEquals("800", brandRow.get(5), "The summary should include the new and reduced stock");
+        assertEquals("2", brandRow.get(6), "The new supplier should be counted");
+    }
+
+    /* PH_STOCK_SUMMARY_INT_03
+    Objective: Verify that a drug without stock is listed with an amount of 0 and no suppliers.
+    Input: None
+           Pre-test state: Drug "dsum02" has no stock.
+    Expected output: 0 remaining from 0 suppliers.
+    Expected change: Database is rolled back after test.
+     */
+    @Test
+    public void testStockSummary_DrugWithoutStock() throws SQLException {
+        Statement stmt = connection.createStatement();
+        stmt.executeUpdate("INSERT INTO drug (drug_id, drug_name, dangerous_drug) VALUES ('dsum02', 'nostockdrug', 0)");
+        stmt.close();
+
+        ArrayList<String> drugRow = findRow(pharmacistInstance.getStockSummary(), "dsum02");
+        assertNotNull(drugRow, "A drug without stock should still be listed");
+        assertEquals("0", drugRow.get(3), "The amount should be 0");
+        assertEquals("0", drugRow.get(4), "There should be no suppliers");
+    }
+
+    private static ArrayList<String> findRow(ArrayList<ArrayList<String>> summary, String id) {
+        assertNotNull(summary, "The summary should not be null");
+        for (int i = 1; i < summary.size(); i++) {
+            if (id.equals(summary.get(i).get(0))) {
+                return summary.get(i);
+            }
+        }
+        return null;
+    }
+}
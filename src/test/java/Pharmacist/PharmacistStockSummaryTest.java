@@ -63,7 +63,7 @@ public class PharmacistStockSummaryTest {
     /* PH_STOCK_SUMMARY_01
     Objective: Verify that the getStockSummary method correctly retrieves drug summary with total amount and suppliers.
     Input: None
-           Pre-test state: Mocked DatabaseOperator returns predefined drug and stock data.
+           Pre-test state: Mocked DatabaseOperator returns the grouped drug and stock totals.
     Expected output: An ArrayList containing column names, drug data, total amount, and supplier count.
     Expected change: No database interaction.
      */
@@ -74,29 +74,18 @@ public class PharmacistStockSummaryTest {
         drugColumns.add("drug_id");
         drugColumns.add("drug_name");
         drugColumns.add("dangerous_drug");
+        drugColumns.add("amount");
+        drugColumns.add("suppliers");
         mockDrugData.add(drugColumns);
         ArrayList<String> drugData = new ArrayList<>();
         drugData.add("DRUG001");
         drugData.add("Paracetamol");
         drugData.add("1");
+        drugData.add("150");
+        drugData.add("2");
         mockDrugData.add(drugData);
 
-        ArrayList<ArrayList<String>> mockStockData = new ArrayList<>();
-        ArrayList<String> stockColumns = new ArrayList<>();
-        stockColumns.add("remaining_quantity");
-        stockColumns.add("supplier_id");
-        mockStockData.add(stockColumns);
-        ArrayList<String> stockData1 = new ArrayList<>();
-        stockData1.add("100");
-        stockData1.add("sup0001");
-        mockStockData.add(stockData1);
-        ArrayList<String> stockData2 = new ArrayList<>();
-        stockData2.add("50");
-        stockData2.add("sup0002");
-        mockStockData.add(stockData2);
-
-        when(dbOperator.customSelection("SELECT * FROM drug;")).thenReturn(mockDrugData);
-        when(dbOperator.customSelection(contains("WHERE drug_id = 'DRUG001'"))).thenReturn(mockStockData);
+        when(dbOperator.customSelection(contains("GROUP BY drug.drug_id"))).thenReturn(mockDrugData);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getStockSummary();
 
@@ -139,9 +128,11 @@ public class PharmacistStockSummaryTest {
         columns.add("drug_id");
         columns.add("drug_name");
         columns.add("dangerous_drug");
+        columns.add("amount");
+        columns.add("suppliers");
         mockResult.add(columns);
 
-        when(dbOperator.customSelection("SELECT * FROM drug;")).thenReturn(mockResult);
+        when(dbOperator.customSelection(contains("GROUP BY drug.drug_id"))).thenReturn(mockResult);
 
         ArrayList<ArrayList<String>> result = pharmacistInstance.getStockSummary();
 
@@ -1,6 +1,7 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,7 +62,7 @@ public class CancelAppointmentTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the MariaDB database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -72,7 +73,7 @@ public class CancelAppointmentTest {
         // Rollback database changes
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -417,12 +418,8 @@ public class CancelAppointmentTest {
        when(dbOperator.customSelection("SELECT appointment.bill_id, bill.total FROM appointment INNER JOIN bill ON appointment.bill_id = bill.bill_id WHERE appointment_id = 'app040'"))
            .thenReturn(mockBillData);
 
-       // Mock specific SQL statement for refund ID generation
-       ArrayList<ArrayList<String>> mockRefundIdData = new ArrayList<>();
-       mockRefundIdData.add(new ArrayList<>(Arrays.asList("refund_id")));
-       mockRefundIdData.add(new ArrayList<>(Arrays.asList("r0001")));
-       when(dbOperator.customSelection("SELECT refund_id FROM refund WHERE refund_id = (SELECT MAX(refund_id) FROM bill);"))
-           .thenReturn(mockRefundIdData);
+       // Mock the refund ID generation
+       when(dbOperator.nextId(IdSequence.REFUND)).thenReturn("r0002");
 
        // Call the method under test
        boolean result = receptionistInstance.cancelAppointment("app040");
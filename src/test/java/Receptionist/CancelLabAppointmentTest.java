@@ -1,6 +1,7 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -62,7 +63,7 @@ public class CancelLabAppointmentTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the MariaDB database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -73,7 +74,7 @@ public class CancelLabAppointmentTest {
         // Rollback database changes
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -355,11 +356,7 @@ public class CancelLabAppointmentTest {
             .thenReturn(mockBillData);
 
         // Mock specific SQL statement for refund ID generation
-        ArrayList<ArrayList<String>> mockRefundIdData = new ArrayList<>();
-        mockRefundIdData.add(new ArrayList<>(Arrays.asList("refund_id")));
-        mockRefundIdData.add(new ArrayList<>(Arrays.asList("r0001")));
-        when(dbOperator.customSelection("SELECT refund_id FROM refund WHERE refund_id = (SELECT MAX(refund_id) FROM bill);"))
-            .thenReturn(mockRefundIdData);
+        when(dbOperator.nextId(IdSequence.REFUND)).thenReturn("r0002");
 
         // Call the method under test
         boolean result = receptionistInstance.cancelLabAppointment("lapp040");
@@ -418,11 +415,7 @@ public class CancelLabAppointmentTest {
             .thenReturn(mockBillData);
 
         // Mock specific SQL statement for refund ID generation
-        ArrayList<ArrayList<String>> mockRefundIdData = new ArrayList<>();
-        mockRefundIdData.add(new ArrayList<>(Arrays.asList("refund_id")));
-        mockRefundIdData.add(new ArrayList<>(Arrays.asList("r0002")));
-        when(dbOperator.customSelection("SELECT refund_id FROM refund WHERE refund_id = (SELECT MAX(refund_id) FROM bill);"))
-            .thenReturn(mockRefundIdData);
+        when(dbOperator.nextId(IdSequence.REFUND)).thenReturn("r0003");
 
         // Call the method under test
         boolean result = receptionistInstance.cancelLabAppointment("lapp041");
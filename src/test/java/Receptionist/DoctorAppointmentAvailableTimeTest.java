@@ -16,6 +16,7 @@ import java.util.Calendar;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 /**
@@ -61,7 +62,7 @@ public class DoctorAppointmentAvailableTimeTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -72,7 +73,7 @@ public class DoctorAppointmentAvailableTimeTest {
         // Rollback database changes
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -170,7 +171,7 @@ public class DoctorAppointmentAvailableTimeTest {
     public void testDoctorAppointmentAvailableTime_ThrowsSQLException() throws SQLException, ClassNotFoundException {
         // Set up mock behavior
         receptionistInstance.dbOperator = dbOperator;
-        when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Database error"));
+        when(dbOperator.select(anyString(), eq("19993"))).thenThrow(new SQLException("Database error"));
 
         // Call the method
         ArrayList<ArrayList<String>> result = receptionistInstance.doctorAppointmentAvailableTime("19993");
@@ -208,7 +209,7 @@ public class DoctorAppointmentAvailableTimeTest {
     public void testDoctorAppointmentAvailableTime_NullData() throws SQLException, ClassNotFoundException {
         // Set up mock behavior
         receptionistInstance.dbOperator = dbOperator;
-        when(dbOperator.customSelection(anyString())).thenReturn(null);
+        when(dbOperator.select(anyString(), eq("19993"))).thenReturn(null);
 
         // Call the method
         ArrayList<ArrayList<String>> result = receptionistInstance.doctorAppointmentAvailableTime("19993");
@@ -11,6 +11,10 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -51,7 +55,7 @@ public class GetDoctorSummaryTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -62,7 +66,7 @@ public class GetDoctorSummaryTest {
         // Rollback database changes
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -135,7 +139,7 @@ public class GetDoctorSummaryTest {
      * 3. No duplicate days should appear in the result
      * 
      * Tests Specific Logic:
-     * - if (!tmpData2.contains(tmp)) condition in the method
+     * - COUNT(DISTINCT day) and GROUP_CONCAT(DISTINCT day) in the query
      * - Duplicate day filtering functionality
      */
     @Test
@@ -216,4 +220,93 @@ public class GetDoctorSummaryTest {
         // Verify results
         assertNull(result, "Result should be null when database exception occurs");
     }
-} 
\ No newline at end of file
+
+    /*
+     * RE_GDS_04
+     * Purpose: Verify that the grouped query reports the same days as the old
+     * query per doctor
+     *
+     * Test Data Setup:
+     * - Three added doctors, each with a user and a person row:
+     *   - 'gds01' on day 1 twice and day 3
+     *   - 'gds02' on days 2, 5 and 7
+     *   - 'gds03' with no time slots
+     *
+     * Expected Results:
+     * 1. Both paths return the same doctors
+     * 2. Both report the same day count and days for every doctor
+     * 3. The added doctors have the expected counts
+     */
+    @Test
+    public void testGetDoctorSummary_SameAsQueryPerDoctor() throws Exception {
+        Statement stmt = connection.createStatement();
+        for (int i = 1; i <= 3; i++) {
+            stmt.executeUpdate("INSERT INTO sys_user (user_id, user_name, user_type) VALUES " +
+                "('gdsu0" + i + "', 'gdsdoctor" + i + "', 'doctor')");
+            stmt.executeUpdate("INSERT INTO person (person_id, user_id, first_name, last_name) VALUES " +
+                "('gdsp0" + i + "', 'gdsu0" + i + "', 'First" + i + "', 'Last" + i + "')");
+            stmt.executeUpdate("INSERT INTO doctor (slmc_reg_no, user_id, experienced_areas) VALUES " +
+                "('gds0" + i + "', 'gdsu0" + i + "', 'area" + i + "')");
+        }
+        stmt.executeUpdate(
+            "INSERT INTO doctor_availability (time_slot_id, slmc_reg_no, day, time_slot, current_week_appointments) VALUES " +
+            "('gdst01', 'gds01', 1, '09:00-12:00', 0), " +
+            "('gdst02', 'gds01', 1, '14:00-17:00', 0), " +
+            "('gdst03', 'gds01', 3, '09:00-12:00', 0), " +
+            "('gdst04', 'gds02', 7, '09:00-12:00', 0), " +
+            "('gdst05', 'gds02', 2, '09:00-12:00', 0), " +
+            "('gdst06', 'gds02', 5, '14:00-17:00', 0)"
+        );
+
+        ArrayList<ArrayList<String>> grouped = receptionistInstance.getDoctorSummary();
+        ArrayList<ArrayList<String>> perDoctor = summaryPerDoctor(receptionistInstance.dbOperator);
+
+        assertEquals(perDoctor.size(), grouped.size(), "Both paths should return every doctor");
+        Map<String, String> days = daysByDoctor(grouped);
+        assertEquals(daysByDoctor(perDoctor), days, "Both paths should report the same days for every doctor");
+        assertEquals("2:[1, 3]", days.get("gds01"));
+        assertEquals("3:[2, 5, 7]", days.get("gds02"));
+        assertEquals("0:[]", days.get("gds03"));
+    }
+
+    /**
+     * The summary as it was built before the grouped query: one availability
+     * query per doctor, de-duplicating the days in Java.
+     */
+    private static ArrayList<ArrayList<String>> summaryPerDoctor(DatabaseOperator dbOperator) throws Exception {
+        ArrayList<ArrayList<String>> data = dbOperator.customSelection("SELECT " +
+                "doctor.slmc_reg_no, doctor.experienced_areas, " +
+                "person.first_name, person.last_name " +
+                "FROM doctor INNER JOIN person ON doctor.user_id = person.user_id;");
+        for (int i = 1; i < data.size(); i++) {
+            ArrayList<String> row = data.get(i);
+            ArrayList<ArrayList<String>> days = dbOperator.customSelection(
+                    "SELECT day FROM doctor_availability WHERE slmc_reg_no = '" + row.get(0) + "';");
+            ArrayList<String> seen = new ArrayList<>();
+            String dayList = "";
+            for (int j = 1; j < days.size(); j++) {
+                String day = days.get(j).get(0);
+                if (!seen.contains(day)) {
+                    dayList += day + " ";
+                    seen.add(day);
+                }
+            }
+            row.add(Integer.toString(seen.size()));
+            row.add(dayList);
+        }
+        return data;
+    }
+
+    // registration number -> "count:[days]", the days sorted as the two paths order them differently
+    private static Map<String, String> daysByDoctor(ArrayList<ArrayList<String>> summary) {
+        Map<String, String> days = new HashMap<>();
+        for (int i = 1; i < summary.size(); i++) {
+            ArrayList<String> row = summary.get(i);
+            String dayList = row.get(5) == null ? "" : row.get(5).trim();
+            TreeSet<String> sorted = new TreeSet<>(dayList.isEmpty()
+                    ? new ArrayList<String>() : Arrays.asList(dayList.split(" ")));
+            days.put(row.get(0), row.get(4) + ":" + sorted);
+        }
+        return days;
+    }
+}
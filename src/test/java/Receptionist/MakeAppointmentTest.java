@@ -1,6 +1,7 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,11 +13,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -66,7 +67,7 @@ public class MakeAppointmentTest {
         receptionistInstance = new Receptionist("user018");
 
         // Get connection from DatabaseOperator
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -77,6 +78,7 @@ public class MakeAppointmentTest {
         // Rollback database changes to restore the original state
         connection.rollback();
         connection.setAutoCommit(true);
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -124,7 +126,7 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the result is a valid appointment_id
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Query the database to check the new appointment record
         ResultSet appointmentRs = stmt
@@ -177,7 +179,8 @@ public class MakeAppointmentTest {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Mock the customSelection method to throw SQLException
+        // Mock the ID generator and the customSelection method to throw SQLException
+        when(dbOperator.nextId(any(IdSequence.class))).thenThrow(new SQLException("Database error"));
         when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Database error"));
 
         // Call the method under test
@@ -233,7 +236,7 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0036pa", "22387", "9", "09:00-12:00");
 
         // Verify the result is a valid appointment_id
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Verify next_week_appointments was incremented instead of
         // current_week_appointments
@@ -249,14 +252,14 @@ public class MakeAppointmentTest {
 
     /*
      * RE_MA_04
-     * Purpose: Verify handling of invalid appointment ID format
+     * Purpose: Verify handling of a failure to generate the appointment ID
      * 
      * Test Data Setup:
      * - Patient ID: "hms0001pa"
      * - Doctor ID: "22387"
      * - Day: "2" (Tuesday)
      * - Time Slot: "09:00-12:00"
-     * - Mock DatabaseOperator to return invalid appointment ID "app"
+     * - Mock DatabaseOperator to fail generating the appointment ID
      * 
      * Expected Results:
      * 1. Returns "false" to indicate failure
@@ -265,32 +268,22 @@ public class MakeAppointmentTest {
      * 4. No tmp_bill created/updated
      * 
      * Tests Business Rules:
-     * - Appointment ID format validation (must be longer than 3 characters)
-     * - No database changes on validation failure
-     * - Proper error handling for invalid ID format
+     * - No database changes when no appointment ID can be generated
+     * - Proper error handling for ID generation failures
      */
     @Test
-    public void testMakeAppointment_ShortAppointmentID() throws SQLException, ClassNotFoundException {
+    public void testMakeAppointment_AppointmentIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Create mock data with short appointmentID
-        ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
-        ArrayList<String> headers = new ArrayList<>();
-        headers.add("appointment_id");
-        ArrayList<String> data = new ArrayList<>();
-        data.add("app"); // appointmentID with length <= 3
-        mockResult.add(headers);
-        mockResult.add(data);
-
-        // Mock the customSelection method to return the short appointmentID
-        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
+        // Mock the ID generator to fail
+        when(dbOperator.nextId(IdSequence.APPOINTMENT)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Call the method under test
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the result indicates failure
-        assertEquals("false", result, "Method should return 'false' when appointmentID length is <= 3");
+        assertEquals("false", result, "Method should return 'false' when no appointment ID can be generated");
 
         // Verify no records were added to the database
         Statement stmt = connection.createStatement();
@@ -353,7 +346,7 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", appointmentDay, "09:00-12:00");
 
         // Verify the result is a valid appointment_id
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Query the database to check the appointment date
         ResultSet appointmentRs = stmt
@@ -398,7 +391,7 @@ public class MakeAppointmentTest {
      * - Last tmp_bill_id in database is "hms0005tb"
      * Expected output: Returns a new appointment_id
      * Expected database state:
-     * - New tmp_bill with ID "hms0006tb"
+     * - New tmp_bill with a new ID after "hms0005tb"
      * - Appointment fee set to 500
      */
     @Test
@@ -418,14 +411,15 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the appointment was created
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Verify new tmp_bill was created with correct ID format and appointment fee
         ResultSet billRs = stmt.executeQuery(
                 "SELECT tmp_bill_id, appointment_fee FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         assertTrue(billRs.next(), "Temporary bill record should exist");
-        assertEquals("hms0006tb", billRs.getString("tmp_bill_id"),
-                "New tmp_bill_id should be generated as next number");
+        String tmpBillId = billRs.getString("tmp_bill_id");
+        assertTrue(tmpBillId.matches("hms\\d{4,}tb"), "New tmp_bill_id should follow the hmsXXXXtb format");
+        assertNotEquals("hms0005tb", tmpBillId, "New tmp_bill_id should not reuse an existing ID");
         assertEquals("500", billRs.getString("appointment_fee").trim(),
                 "Appointment fee should be set to 500");
 
@@ -450,7 +444,7 @@ public class MakeAppointmentTest {
      * - Empty tmp_bill table
      * Expected output: Returns a new appointment_id
      * Expected database state:
-     * - New tmp_bill with ID "hms0001tb"
+     * - New tmp_bill with an ID in the hmsXXXXtb format
      * - Appointment fee set to 500
      */
     @Test
@@ -469,69 +463,48 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the appointment was created
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Verify new tmp_bill was created with first ID
         ResultSet billRs = stmt.executeQuery(
                 "SELECT tmp_bill_id, appointment_fee FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         assertTrue(billRs.next(), "Temporary bill record should exist");
-        assertEquals("hms0001tb", billRs.getString("tmp_bill_id"),
-                "First tmp_bill_id should be hms0001tb");
+        assertTrue(billRs.getString("tmp_bill_id").matches("hms\\d{4,}tb"),
+                "First tmp_bill_id should follow the hmsXXXXtb format");
         assertEquals("500", billRs.getString("appointment_fee").trim(),
                 "Appointment fee should be set to 500");
     }
 
     /*
      * RE_MA_08
-     * Objective: Verify that makeAppointment handles the edge case where the
-     * retrieved billID length is <= 3
+     * Objective: Verify that makeAppointment fails cleanly when no tmp_bill_id
+     * can be generated for a new bill
      * Input:
      * patientID: "hms0001pa"
      * doctorID: "22387"
      * day: "2"
      * timeSlot: "09:00-12:00"
-     * Mock behavior: DatabaseOperator returns a short billID "hms"
-     * Expected output: Returns "false" due to invalid bill ID format
+     * Mock behavior: DatabaseOperator returns appointment ID "app010" but fails
+     * to generate a tmp_bill_id
+     * Expected output: Returns "false"
      * Expected database state: No changes to database
      */
     @Test
-    public void testMakeAppointment_ShortBillID() throws SQLException, ClassNotFoundException {
+    public void testMakeAppointment_TmpBillIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Mock data for appointment ID query
-        ArrayList<ArrayList<String>> appointmentIdResult = new ArrayList<>();
-        ArrayList<String> appointmentHeaders = new ArrayList<>();
-        appointmentHeaders.add("appointment_id");
-        ArrayList<String> appointmentData = new ArrayList<>();
-        appointmentData.add("app010");
-        appointmentIdResult.add(appointmentHeaders);
-        appointmentIdResult.add(appointmentData);
-
-        // Mock data for max bill ID query
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        ArrayList<String> maxBillHeaders = new ArrayList<>();
-        maxBillHeaders.add("tmp_bill_id");
-        ArrayList<String> maxBillData = new ArrayList<>();
-        maxBillData.add("hm"); // Short bill ID that will cause exception
-        maxBillResult.add(maxBillHeaders);
-        maxBillResult.add(maxBillData);
-
-        // Setup mock behavior for specific SQL queries
-        // 1. Mock for max appointment_id query
-        when(dbOperator.customSelection(
-                "SELECT appointment_id FROM appointment WHERE appointment_id = (SELECT MAX(appointment_id) FROM appointment);"))
-                .thenReturn(appointmentIdResult);
+        // Setup mock behavior
+        // 1. Mock for the appointment ID
+        when(dbOperator.nextId(IdSequence.APPOINTMENT)).thenReturn("app010");
 
         // 2. Mock for existing tmp_bill query to throw exception
         when(dbOperator.customSelection(
                 "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'hms0001pa';"))
-                .thenThrow(new SQLException("Error processing short billID"));
+                .thenThrow(new SQLException("No tmp_bill for the patient"));
 
-        // 3. Mock for max tmp_bill_id query
-        when(dbOperator.customSelection(
-                "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // 3. Mock for the tmp_bill ID to fail
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Mock all database operations to return true
         when(dbOperator.customInsertion(anyString())).thenReturn(true);
@@ -540,24 +513,24 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the result indicates failure
-        assertEquals("false", result, "Method should return 'false' when billID length is <= 3");
+        assertEquals("false", result, "Method should return 'false' when no tmp_bill_id can be generated");
 
         Statement stmt = connection.createStatement();
         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as count FROM appointment WHERE patient_id = 'hms0001pa'");
         rs.next();
-        assertEquals(0, rs.getInt("count"), "No appointment record should be added when billID is invalid");
+        assertEquals(0, rs.getInt("count"), "No appointment record should be added when tmp_bill_id generation fails");
 
         ResultSet availabilityRs = stmt.executeQuery(
                 "SELECT current_week_appointments FROM doctor_availability " +
                         "WHERE slmc_reg_no = '22387' AND day = '2' AND time_slot = '09:00-12:00'");
         if (availabilityRs.next()) {
             assertEquals(0, availabilityRs.getInt("current_week_appointments"),
-                    "Doctor availability should not be updated when billID is invalid");
+                    "Doctor availability should not be updated when tmp_bill_id generation fails");
         }
 
         ResultSet billRs = stmt.executeQuery("SELECT COUNT(*) as count FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         billRs.next();
-        assertEquals(0, billRs.getInt("count"), "No temporary bill should be created when billID is invalid");
+        assertEquals(0, billRs.getInt("count"), "No temporary bill should be created when tmp_bill_id generation fails");
     }
     
         /*
@@ -609,7 +582,7 @@ public class MakeAppointmentTest {
         String result = receptionistInstance.makeAppointment("hms0001pa", "22387", "2", "09:00-12:00");
 
         // Verify the result is a valid appointment_id
-        assertTrue(result.matches("app\\d{3}"), "Result should be a valid appointment_id");
+        assertTrue(result.matches("app\\d{3,}"), "Result should be a valid appointment_id");
 
         // Verify the tmp_bill was updated with the correct appointment fee
         ResultSet billRs = stmt.executeQuery(
@@ -1,6 +1,7 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
@@ -40,7 +42,7 @@ public class MakeLabAppointmentTest {
         receptionistInstance = new Receptionist("user018");
 
         // Get connection from DatabaseOperator
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -51,6 +53,7 @@ public class MakeLabAppointmentTest {
         // Rollback database changes to restore the original state
         connection.rollback();
         connection.setAutoCommit(true);
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -97,7 +100,7 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Query the database to check the new appointment record
         ResultSet appointmentRs = stmt
@@ -137,7 +140,8 @@ public class MakeLabAppointmentTest {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Mock the customSelection method to throw SQLException
+        // Mock the ID generator and the customSelection method to throw SQLException
+        when(dbOperator.nextId(any(IdSequence.class))).thenThrow(new SQLException("Database error"));
         when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Database error"));
         when(dbOperator.customInsertion(anyString())).thenThrow(new SQLException("Database error"));
 
@@ -186,7 +190,7 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "9", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Verify next_week_appointments was incremented instead of
         // current_week_appointments
@@ -202,35 +206,26 @@ public class MakeLabAppointmentTest {
 
     /*
      * RE_MLA_04
-     * Objective: Verify that makeLabAppointment handles the edge case where the
-     * retrieved lab_appointment_id length is <= 4 (e.g., "lapp")
+     * Objective: Verify that makeLabAppointment fails cleanly when no
+     * lab_appointment_id can be generated
      * Input: Same valid input as successful case
-     * Mock behavior: DatabaseOperator returns a short lab_appointment_id
+     * Mock behavior: DatabaseOperator fails to generate the lab_appointment_id
      * Expected output: Returns "false"
      * Expected database state: No changes to database
      */
     @Test
-    public void testMakeLabAppointment_ShortAppointmentID() throws SQLException, ClassNotFoundException {
+    public void testMakeLabAppointment_AppointmentIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Create mock data with short lab_appointment_id
-        ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
-        ArrayList<String> headers = new ArrayList<>();
-        headers.add("lab_appointment_id");
-        ArrayList<String> data = new ArrayList<>();
-        data.add("lapp"); // lab_appointment_id with length <= 4
-        mockResult.add(headers);
-        mockResult.add(data);
-
-        // Mock the customSelection method to return the short lab_appointment_id
-        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
+        // Mock the ID generator to fail
+        when(dbOperator.nextId(IdSequence.LAB_APPOINTMENT)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Call the method under test
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result indicates failure
-        assertEquals("false", result, "Method should return 'false' when lab_appointment_id length is <= 4");
+        assertEquals("false", result, "Method should return 'false' when no lab_appointment_id can be generated");
 
         // Verify no records were added to the database
         Statement stmt = connection.createStatement();
@@ -267,7 +262,7 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "5", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Query the database to check the appointment date
         ResultSet appointmentRs = stmt
@@ -314,14 +309,14 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Verify new tmp_bill was created
         ResultSet billRs = stmt.executeQuery(
                 "SELECT * FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         assertTrue(billRs.next(), "New temporary bill should be created");
         assertEquals("1000", billRs.getString("laboratory_fee").trim());
-        assertTrue(billRs.getString("tmp_bill_id").matches("hms\\d{4}tb"),
+        assertTrue(billRs.getString("tmp_bill_id").matches("hms\\d{4,}tb"),
                 "tmp_bill_id should have correct format");
     }
 
@@ -332,7 +327,8 @@ public class MakeLabAppointmentTest {
      * creation when no tmp_bills exist in the system
      * Input: Same as successful case but with empty tmp_bill table
      * Expected output: Returns a new lab_appointment_id
-     * Expected database state: First tmp_bill created with ID hms0001tb
+     * Expected database state: First tmp_bill created with an ID in the
+     * hmsXXXXtb format
      */
     @Test
     public void testMakeLabAppointment_FirstTmpBill() throws SQLException {
@@ -354,53 +350,34 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Verify first tmp_bill was created with correct ID
         ResultSet billRs = stmt.executeQuery(
                 "SELECT * FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         assertTrue(billRs.next(), "First temporary bill should be created");
-        assertEquals("hms0001tb", billRs.getString("tmp_bill_id").trim(),
-                "First tmp_bill should have ID hms0001tb");
+        assertTrue(billRs.getString("tmp_bill_id").trim().matches("hms\\d{4,}tb"),
+                "First tmp_bill should follow the hmsXXXXtb format");
         assertEquals("1000", billRs.getString("laboratory_fee").trim());
     }
 
     /*
      * RE_MLA_08
-     * Objective: Verify that makeLabAppointment handles the case where the
-     * retrieved
-     * tmp_bill_id length is <= 3 (e.g., "hm")
+     * Objective: Verify that makeLabAppointment fails cleanly when no
+     * tmp_bill_id can be generated for a new bill
      * Input: Same as successful case
      * Mock behavior:
      * - DatabaseOperator returns valid lab_appointment_id
      * - Throws exception for existing tmp_bill query
-     * - Returns short tmp_bill_id for max tmp_bill query
+     * - Fails to generate a tmp_bill_id
      * Expected output: Returns "false"
      * Expected database state: No changes to database
      */
     @Test
-    public void testMakeLabAppointment_ShortBillID() throws SQLException, ClassNotFoundException {
+    public void testMakeLabAppointment_TmpBillIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Mock data for lab appointment ID query
-        ArrayList<ArrayList<String>> appointmentIdResult = new ArrayList<>();
-        ArrayList<String> appointmentHeaders = new ArrayList<>();
-        appointmentHeaders.add("lab_appointment_id");
-        ArrayList<String> appointmentData = new ArrayList<>();
-        appointmentData.add("lapp010");
-        appointmentIdResult.add(appointmentHeaders);
-        appointmentIdResult.add(appointmentData);
-
-        // Mock data for max bill ID query
-        ArrayList<ArrayList<String>> maxBillResult = new ArrayList<>();
-        ArrayList<String> maxBillHeaders = new ArrayList<>();
-        maxBillHeaders.add("tmp_bill_id");
-        ArrayList<String> maxBillData = new ArrayList<>();
-        maxBillData.add("hm"); // Short bill ID that will cause exception
-        maxBillResult.add(maxBillHeaders);
-        maxBillResult.add(maxBillData);
-
         // Mock data for lab test fee query
         ArrayList<ArrayList<String>> testFeeResult = new ArrayList<>();
         ArrayList<String> testFeeHeaders = new ArrayList<>();
@@ -410,21 +387,17 @@ public class MakeLabAppointmentTest {
         testFeeResult.add(testFeeHeaders);
         testFeeResult.add(testFeeData);
 
-        // Setup mock behavior for specific SQL queries
-        // 1. Mock for max lab_appointment_id query
-        when(dbOperator.customSelection(
-                "SELECT lab_appointment_id FROM lab_appointment WHERE lab_appointment_id = (SELECT MAX(lab_appointment_id) FROM lab_appointment);"))
-                .thenReturn(appointmentIdResult);
+        // Setup mock behavior
+        // 1. Mock for the lab appointment ID
+        when(dbOperator.nextId(IdSequence.LAB_APPOINTMENT)).thenReturn("lapp010");
 
         // 2. Mock for existing tmp_bill query to throw exception
         when(dbOperator.customSelection(
                 "SELECT tmp_bill_id FROM tmp_bill WHERE patient_id = 'hms0001pa';"))
-                .thenThrow(new SQLException("Error processing short billID"));
+                .thenThrow(new SQLException("No tmp_bill for the patient"));
 
-        // 3. Mock for max tmp_bill_id query
-        when(dbOperator.customSelection(
-                "SELECT tmp_bill_id FROM tmp_bill WHERE tmp_bill_id = (SELECT MAX(tmp_bill_id) FROM tmp_bill);"))
-                .thenReturn(maxBillResult);
+        // 3. Mock for the tmp_bill ID to fail
+        when(dbOperator.nextId(IdSequence.TMP_BILL)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // 4. Mock for lab test fee query
         when(dbOperator.customSelection(
@@ -438,7 +411,7 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result indicates failure
-        assertEquals("false", result, "Method should return 'false' when billID length is <= 3");
+        assertEquals("false", result, "Method should return 'false' when no tmp_bill_id can be generated");
 
         // Verify no records were added to the database
         Statement stmt = connection.createStatement();
@@ -447,7 +420,7 @@ public class MakeLabAppointmentTest {
         ResultSet rs = stmt
                 .executeQuery("SELECT COUNT(*) as count FROM lab_appointment WHERE patient_id = 'hms0001pa'");
         rs.next();
-        assertEquals(0, rs.getInt("count"), "No lab appointment record should be added when billID is invalid");
+        assertEquals(0, rs.getInt("count"), "No lab appointment record should be added when tmp_bill_id generation fails");
 
         // Check lab_appointment_timetable was not updated
         ResultSet availabilityRs = stmt.executeQuery(
@@ -455,13 +428,13 @@ public class MakeLabAppointmentTest {
                         "WHERE app_test_id = 'test001' AND app_day = '2' AND time_slot = '09:00-12:00'");
         if (availabilityRs.next()) {
             assertEquals(0, availabilityRs.getInt("current_week_appointments"),
-                    "Lab appointment timetable should not be updated when billID is invalid");
+                    "Lab appointment timetable should not be updated when tmp_bill_id generation fails");
         }
 
         // Check no tmp_bill was created
         ResultSet billRs = stmt.executeQuery("SELECT COUNT(*) as count FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         billRs.next();
-        assertEquals(0, billRs.getInt("count"), "No temporary bill should be created when billID is invalid");
+        assertEquals(0, billRs.getInt("count"), "No temporary bill should be created when tmp_bill_id generation fails");
     }
     
         /*
@@ -489,10 +462,10 @@ public class MakeLabAppointmentTest {
      * Expected Results:
      * 1. Returns new lab_appointment_id in format "lappXXX"
      * 2. The tmp_bill ID generation block executes without throwing an exception
-     * 3. Creates new tmp_bill with tmp_bill_id "hms0006tb" and laboratory fee 1000
+     * 3. Creates new tmp_bill with a new tmp_bill_id and laboratory fee 1000
      * 
      * Tests Business Rules:
-     * - Correct generation of new tmp_bill_id based on max existing ID
+     * - Generation of a new tmp_bill_id that does not reuse an existing ID
      * - Successful database operations within the tmp_bill ID generation block
      */
     @Test
@@ -525,14 +498,15 @@ public class MakeLabAppointmentTest {
         String result = receptionistInstance.makeLabAppointment("hms0001pa", "22387", "test001", "2", "09:00-12:00");
 
         // Verify the result is a valid lab_appointment_id
-        assertTrue(result.matches("lapp\\d{3}"), "Result should be a valid lab_appointment_id");
+        assertTrue(result.matches("lapp\\d{3,}"), "Result should be a valid lab_appointment_id");
 
         // Verify the new tmp_bill was created with the correct tmp_bill_id and laboratory fee
         ResultSet billRs = stmt.executeQuery(
                 "SELECT tmp_bill_id, laboratory_fee FROM tmp_bill WHERE patient_id = 'hms0001pa'");
         assertTrue(billRs.next(), "New temporary bill record should exist");
-        assertEquals("hms0006tb", billRs.getString("tmp_bill_id"),
-                "New tmp_bill_id should be generated as hms0006tb");
+        String tmpBillId = billRs.getString("tmp_bill_id");
+        assertTrue(tmpBillId.matches("hms\\d{4,}tb"), "New tmp_bill_id should follow the hmsXXXXtb format");
+        assertNotEquals("hms0005tb", tmpBillId, "New tmp_bill_id should not reuse an existing ID");
         assertEquals("1000", billRs.getString("laboratory_fee"), "Laboratory fee should be updated to '1000'");
 
         // Verify the lab_appointment was created
@@ -1,6 +1,7 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,12 +13,13 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -65,7 +67,7 @@ public class RefundTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the MariaDB database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -76,7 +78,7 @@ public class RefundTest {
         // Rollback database changes to restore the original state
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -98,7 +100,7 @@ public class RefundTest {
      * Expected Results:
      * 1. Returns true indicating successful operation
      * 2. Creates new refund record in database with:
-     *    - Generated refund_id: "r0007"
+     *    - Newly generated refund_id in the rXXXX format
      *    - Correct bill_id, payment_type, reason, and amount
      *    - Current timestamp as refund date
      * 3. Only one new record is added
@@ -127,17 +129,18 @@ public class RefundTest {
         assertTrue(result, "The refund method should return true when the record is successfully inserted");
 
         // Query the database to check the new record
-        ResultSet rs = stmt.executeQuery("SELECT * FROM refund WHERE refund_id = 'r0007'");
+        ResultSet rs = stmt.executeQuery("SELECT * FROM refund WHERE bill_id = 'B001' AND reason = 'Lost'");
 
         // Verify that the new record exists
-        assertTrue(rs.next(), "A new record with refund_id = 'r0007' should exist in the database");
+        assertTrue(rs.next(), "A new refund record for bill B001 should exist in the database");
 
         // Verify the values in the new record
         assertEquals("B001", rs.getString("bill_id"), "bill_id should be B001");
         assertEquals("Cash", rs.getString("payment_type"), "payment_type should be Cash");
         assertEquals("Lost", rs.getString("reason"), "reason should be Lost");
         assertEquals(100, rs.getInt("amount"), "amount should be 100");
-        assertEquals("r0007", rs.getString("refund_id"), "refund_id should be r0007");
+        assertTrue(rs.getString("refund_id").matches("r\\d{4,}"), "refund_id should follow the rXXXX format");
+        assertNotEquals("r0006", rs.getString("refund_id"), "refund_id should not reuse an existing ID");
 
         // Verify the date (compare approximately since the exact time may vary)
         String expectedDate = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
@@ -183,7 +186,9 @@ public class RefundTest {
         // Input for the refund method
         String refundInfo = "bill_id B001,payment_type Cash,reason Lost,amount 100";
 
-        // Mock the customSelection method to throw an SQLException
+        // Mock the ID generator and the customSelection method to throw an SQLException
+        when(dbOperator.nextId(any(IdSequence.class)))
+                .thenThrow(new SQLException("Database error: Unable to execute query"));
         when(dbOperator.customSelection(anyString()))
                 .thenThrow(new SQLException("Database error: Unable to execute query"));
 
@@ -202,15 +207,12 @@ public class RefundTest {
 
     /*
      * RE_RF_03
-     * Purpose: Verify handling of invalid refund ID format
+     * Purpose: Verify handling of a failure to generate the refund ID
      * 
      * Test Data Setup:
      * - Refund Info: "bill_id B001,payment_type Cash,reason Lost,amount 100"
      * - Empty refund table (cleared before test)
-     * - Mock DatabaseOperator to return invalid refund ID "r"
-     * - Mock data structure:
-     *   * Empty header row
-     *   * Data row with single value "r"
+     * - Mock DatabaseOperator to fail generating the refund ID
      * 
      * Expected Results:
      * 1. Returns false to indicate failure
@@ -218,13 +220,12 @@ public class RefundTest {
      * 3. Database remains empty
      * 
      * Tests Business Rules:
-     * - Refund ID format validation (must be longer than 1 character)
-     * - No database changes on validation failure
-     * - Proper error handling for invalid ID format
+     * - No database changes when no refund ID can be generated
+     * - Proper error handling for ID generation failures
      * - Data integrity preservation
      */
     @Test
-    public void testRefund_ShortRefundID() throws SQLException, ClassNotFoundException {
+    public void testRefund_RefundIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Set up for test case RE_RF_03
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
@@ -236,26 +237,20 @@ public class RefundTest {
         // Input for the refund method
         String refundInfo = "bill_id B001,payment_type Cash,reason Lost,amount 100";
 
-        // Mock the customSelection method to return a short refundID ("r")
-        ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
-        ArrayList<String> innerList = new ArrayList<>();
-        innerList.add("r"); // refundID with length 1
-        mockResult.add(new ArrayList<>()); // First element (header or empty)
-        mockResult.add(innerList); // Second element (data)
-        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
+        // Mock the ID generator to fail
+        when(dbOperator.nextId(IdSequence.REFUND)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Call the method under test
         boolean result = receptionistInstance.refund(refundInfo);
 
-        // Verify the method returns false due to an exception (e.g.,
-        // StringIndexOutOfBoundsException)
-        assertFalse(result, "The refund method should return false when refundID length is 1 or less");
+        // Verify the method returns false
+        assertFalse(result, "The refund method should return false when no refund ID can be generated");
 
         // Verify the database state (no records should be inserted)
         ResultSet rs = stmt.executeQuery("SELECT * FROM refund");
 
         // Ensure the refund table is still empty
-        assertFalse(rs.next(), "No records should be inserted into the refund table when refundID is too short");
+        assertFalse(rs.next(), "No records should be inserted into the refund table when no refund ID can be generated");
     }
 }
 
@@ -5,6 +5,8 @@
 package Receptionist;
 
 import com.hms.hms_test_2.DatabaseOperator;
+import com.hms.hms_test_2.IdSequence;
+import com.hms.hms_test_2.PatientNameIndex;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,12 +17,15 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
 
 /**
  * Test class for setPatientInfo method in Receptionist class.
@@ -68,7 +73,7 @@ public class SetPatientInfoTest {
         receptionistInstance = new Receptionist("user018");
 
         // Establish connection to the MariaDB database
-        connection = DatabaseOperator.c;
+        connection = DatabaseOperator.pinConnection();
 
         // Start a transaction to allow rollback after the test
         connection.setAutoCommit(false);
@@ -79,7 +84,7 @@ public class SetPatientInfoTest {
         // Rollback database changes to restore the original state
         connection.rollback();
         connection.setAutoCommit(true);
-        connection.close();
+        DatabaseOperator.unpinConnection();
 
         // Close Mockito resources
         closeable.close();
@@ -139,7 +144,7 @@ public class SetPatientInfoTest {
         String result = receptionistInstance.setPatientInfo(patientInfo);
 
         // Verify the result is a valid person_id
-        assertTrue(result.matches("hms\\d{5}"), "Result should be a valid person_id");
+        assertTrue(result.matches("hms\\d{5,}"), "Result should be a valid person_id");
 
         // Query the database to check the new records
         ResultSet personRs = stmt.executeQuery("SELECT * FROM person WHERE person_id = '" + result + "'");
@@ -158,7 +163,7 @@ public class SetPatientInfoTest {
         // Verify patient record was created and linked correctly
         ResultSet patientRs = stmt.executeQuery("SELECT * FROM patient WHERE person_id = '" + result + "'");
         assertTrue(patientRs.next(), "Patient record should exist");
-        assertTrue(patientRs.getString("patient_id").matches("hms\\d{4}pa"), "Patient ID should match expected format");
+        assertTrue(patientRs.getString("patient_id").matches("hms\\d{4,}pa"), "Patient ID should match expected format");
     }
 
     /*
@@ -194,7 +199,8 @@ public class SetPatientInfoTest {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Mock the customSelection method to throw SQLException
+        // Mock the ID generator and the customSelection method to throw SQLException
+        when(dbOperator.nextId(any(IdSequence.class))).thenThrow(new SQLException("Database error"));
         when(dbOperator.customSelection(anyString())).thenThrow(new SQLException("Database error"));
 
         // Input for setPatientInfo method
@@ -259,7 +265,7 @@ public class SetPatientInfoTest {
 
     /*
      * RE_SP_04
-     * Purpose: Verify handling of invalid patient ID format
+     * Purpose: Verify handling of a failure to generate the patient ID
      * 
      * Test Data Setup:
      * - Patient Info:
@@ -271,9 +277,7 @@ public class SetPatientInfoTest {
      *   * First Name: "heshan"
      *   * Last Name: "eranga"
      *   * Email: "erangamx@gmail.com"
-     * - Mock DatabaseOperator to return invalid patient ID:
-     *   * Headers: ["patient_id"]
-     *   * Data: ["hms"] (length <= 3)
+     * - Mock DatabaseOperator to fail generating the patient ID
      * 
      * Expected Results:
      * 1. Returns "false" to indicate failure
@@ -282,27 +286,17 @@ public class SetPatientInfoTest {
      * 4. Database remains unchanged
      * 
      * Tests Business Rules:
-     * - Patient ID format validation (must be longer than 3 characters)
-     * - No database changes on validation failure
-     * - Proper error handling for invalid ID format
+     * - No database changes when no patient ID can be generated
+     * - Proper error handling for ID generation failures
      * - Data integrity preservation
      */
     @Test
-    public void testSetPatientInfo_ShortPatientID() throws SQLException, ClassNotFoundException {
+    public void testSetPatientInfo_PatientIdGenerationFails() throws SQLException, ClassNotFoundException {
         // Manually set the dbOperator field in Receptionist to use mock
         receptionistInstance.dbOperator = dbOperator;
 
-        // Create mock data with short patientID
-        ArrayList<ArrayList<String>> mockResult = new ArrayList<>();
-        ArrayList<String> headers = new ArrayList<>();
-        headers.add("patient_id");
-        ArrayList<String> data = new ArrayList<>();
-        data.add("hms"); // patientID with length <= 3
-        mockResult.add(headers);
-        mockResult.add(data);
-
-        // Mock the customSelection method to return the short patientID
-        when(dbOperator.customSelection(anyString())).thenReturn(mockResult);
+        // Mock the ID generator to fail
+        when(dbOperator.nextId(IdSequence.PATIENT)).thenThrow(new SQLException("Could not reserve IDs"));
 
         // Input for setPatientInfo method
         String patientInfo = "nic 199532648675,gender f,date_of_birth 19950203,address 145|town1|Street1," +
@@ -312,12 +306,64 @@ public class SetPatientInfoTest {
         String result = receptionistInstance.setPatientInfo(patientInfo);
 
         // Verify the result indicates failure
-        assertEquals("false", result, "Method should return 'false' when patientID length is <= 3");
+        assertEquals("false", result, "Method should return 'false' when no patient ID can be generated");
 
         // Verify no records were added to the database
         Statement stmt = connection.createStatement();
         ResultSet rs = stmt.executeQuery("SELECT COUNT(*) as count FROM person WHERE nic = '199532648675'");
         rs.next();
-        assertEquals(0, rs.getInt("count"), "No person record should be added when patientID is invalid");
+        assertEquals(0, rs.getInt("count"), "No person record should be added when no patient ID can be generated");
+    }
+
+    /*
+     * RE_SP_05
+     * Purpose: Verify that a patient whose rows could not be inserted is not
+     * made searchable by name
+     *
+     * Test Data Setup:
+     * - Mock DatabaseOperator:
+     *   * Loads an empty name index
+     *   * Generates the person and patient IDs
+     *   * Fails to insert the person row
+     * - Patient Info with first name "zedfail"
+     *
+     * Expected Results:
+     * 1. Returns "false" to indicate failure
+     * 2. The name index suggests no patient for "zedfail"
+     *
+     * Tests Business Rules:
+     * - Only registered patients are suggested
+     */
+    @Test
+    public void testSetPatientInfo_FailedInsertNotIndexed() throws SQLException, ClassNotFoundException {
+        // Manually set the dbOperator field in Receptionist to use mock
+        receptionistInstance.dbOperator = dbOperator;
+
+        // Load the name index from the mock, without any patient
+        ArrayList<ArrayList<String>> names = new ArrayList<>();
+        names.add(new ArrayList<>(Arrays.asList("patient_id", "first_name", "last_name", "date_of_birth")));
+        when(dbOperator.customSelection(contains("FROM person INNER JOIN patient"))).thenReturn(names);
+        PatientNameIndex.getInstance().reset();
+        assertEquals(1, PatientNameIndex.getInstance().suggest(dbOperator, "zedfail", 10).size());
+
+        // IDs are generated, the person row is not inserted
+        when(dbOperator.nextId(IdSequence.PATIENT)).thenReturn("hms9990pa");
+        when(dbOperator.nextId(IdSequence.PERSON)).thenReturn("hms99990");
+        when(dbOperator.customInsertion(anyString())).thenReturn(false);
+
+        String patientInfo = "nic 199532648675,gender f,date_of_birth 19950203,address 145|town1|Street1," +
+                "mobile 0775123465,first_name zedfail,last_name eranga,email erangamx@gmail.com";
+
+        try {
+            String result = receptionistInstance.setPatientInfo(patientInfo);
+
+            // Verify the failure is reported and the patient is not suggested
+            assertEquals("false", result, "Method should return 'false' when the rows are not inserted");
+            assertEquals(1, PatientNameIndex.getInstance().suggest(dbOperator, "zedfail", 10).size(),
+                    "A patient that was not inserted should not be suggested");
+        } finally {
+            // the index was loaded from the mock
+            PatientNameIndex.getInstance().reset();
+        }
     }
 }
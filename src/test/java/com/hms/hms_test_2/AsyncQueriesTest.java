@@ -0,0 +1,150 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for AsyncQueries.
+ *
+ * Business Rules:
+ * 1. Queries run on the shared pool, their results are delivered through the
+ *    callback executor
+ * 2. cancelAll cancels the queries still waiting for a result; their handlers
+ *    never run and running queries are interrupted
+ * 3. Exceptions of a query or a handler are printed, cancellations are not
+ */
+public class AsyncQueriesTest {
+
+    private ExecutorService callbacks;
+
+    @BeforeEach
+    public void setUp() {
+        callbacks = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "callbacks"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        callbacks.shutdownNow();
+        AsyncQueries.shutdown();
+    }
+
+    /* AQ_01
+    Objective: Verify that a query runs on the shared pool and its result is delivered on the callback executor.
+    Input: A query that waits until a stage is added to its future, the stage recording its thread
+    Expected output: The query ran on a hms-query thread, the stage on the callback thread, with the result.
+     */
+    @Test
+    public void testSubmit_CompletesOnCallbackExecutor() throws Exception {
+        AsyncQueries queries = new AsyncQueries(callbacks);
+        CountDownLatch stageAdded = new CountDownLatch(1);
+
+        CompletableFuture<String> result = queries.submit(() -> {
+            stageAdded.await(5, TimeUnit.SECONDS);
+            return Thread.currentThread().getName();
+        });
+        CompletableFuture<String> delivered = result.thenApply(
+                queryThread -> queryThread + " -> " + Thread.currentThread().getName());
+        stageAdded.countDown();
+
+        String threads = delivered.get(5, TimeUnit.SECONDS);
+        assertTrue(threads.startsWith("hms-query-"), threads);
+        assertTrue(threads.endsWith(" -> callbacks"), threads);
+        // the query is forgotten on the callback thread once it completed
+        callbacks.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertEquals(0, queries.pendingCount());
+    }
+
+    /* AQ_02
+    Objective: Verify that cancelAll cancels the pending queries of the instance.
+    Input: A running query blocked on a latch and loaded with a handler, then cancelAll
+    Expected output: The future is cancelled, nothing is pending, the query is interrupted, the handler never runs.
+     */
+    @Test
+    public void testCancelAll_CancelsPendingQueries() throws Exception {
+        AsyncQueries queries = new AsyncQueries(callbacks);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean handled = new AtomicBoolean();
+
+        CompletableFuture<String> result = queries.submit(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "late";
+        });
+        CompletableFuture<Void> loaded = queries.load(() -> {
+            started.await(5, TimeUnit.SECONDS);
+            new CountDownLatch(1).await(5, TimeUnit.SECONDS);
+            return "late";
+        }, value -> handled.set(true));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, queries.pendingCount());
+
+        queries.cancelAll();
+
+        assertTrue(result.isCancelled());
+        ExecutionException handler = assertThrows(ExecutionException.class, () -> loaded.get(5, TimeUnit.SECONDS));
+        assertTrue(handler.getCause() instanceof CancellationException);
+        assertEquals(0, queries.pendingCount());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "The running query should be interrupted");
+        callbacks.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        assertFalse(handled.get());
+    }
+
+    /* AQ_03
+    Objective: Verify that errors of a query and of a handler reach printErrors and cancellations do not.
+    Input: A query that throws, a handler that throws, and a cancelled future passed to printErrors
+    Expected output: Both futures fail with their exception, both messages are printed, the cancellation is not.
+     */
+    @Test
+    public void testPrintErrors_PrintsFailures() throws Exception {
+        AsyncQueries queries = new AsyncQueries(callbacks);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(printed, true, "UTF-8"));
+        try {
+            CompletableFuture<Void> failedQuery = queries.load(() -> {
+                throw new IllegalStateException("no connection");
+            }, value -> fail("The handler should not run"));
+            CompletableFuture<Void> failedHandler = queries.load(() -> "12", value -> {
+                throw new IllegalArgumentException("bad count " + value);
+            });
+            CompletableFuture<String> cancelled = new CompletableFuture<String>();
+            AsyncQueries.printErrors(cancelled).cancel(false);
+
+            ExecutionException query = assertThrows(ExecutionException.class,
+                    () -> failedQuery.get(5, TimeUnit.SECONDS));
+            assertTrue(query.getCause() instanceof IllegalStateException);
+            ExecutionException handler = assertThrows(ExecutionException.class,
+                    () -> failedHandler.get(5, TimeUnit.SECONDS));
+            assertTrue(handler.getCause() instanceof IllegalArgumentException);
+            // the errors are printed on the callback thread when the futures complete
+            callbacks.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } finally {
+            System.setErr(err);
+        }
+
+        String output = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(output.contains("IllegalStateException: no connection"), output);
+        assertTrue(output.contains("IllegalArgumentException: bad count 12"), output);
+        assertFalse(output.contains("CancellationException"), output);
+    }
+}
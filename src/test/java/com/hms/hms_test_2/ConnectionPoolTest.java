@@ -0,0 +1,218 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ConnectionPool.
+ *
+ * Business Rules:
+ * 1. minSize connections are opened up front, never more than maxSize are open
+ * 2. A borrower waits up to the acquire timeout for a free connection
+ * 3. An idle connection that fails validation is closed and replaced on borrow
+ * 4. Connections idle longer than the idle timeout are closed down to minSize
+ *
+ * The connections come from a test driver registered for the jdbc:hmspooltest
+ * URLs, so no database is needed.
+ */
+public class ConnectionPoolTest {
+
+    private final List<Connection> opened = new CopyOnWriteArrayList<Connection>();
+    private final Set<Connection> closed = ConcurrentHashMap.newKeySet();
+    private final Set<Connection> broken = ConcurrentHashMap.newKeySet();
+
+    private TestDriver driver;
+    private String url;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        url = "jdbc:hmspooltest:" + System.nanoTime();
+        driver = new TestDriver(url, this);
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        DriverManager.deregisterDriver(driver);
+    }
+
+    /* CP_01
+    Objective: Verify that the pool opens minSize connections up front and is bounded by maxSize.
+    Input: A pool of 2 to 3 connections borrowed 3 times, and a pool whose minSize is above its maxSize
+    Expected output: 2 connections at first, 3 after the borrows, and a minSize lowered to the maxSize.
+     */
+    @Test
+    public void testSizing_MinOpenedUpFrontMaxBounded() throws Exception {
+        pool = new ConnectionPool(url, "user", "secret", 2, 3, 100, 60000, 1, 0);
+        assertEquals(2, pool.getOpenConnections());
+        assertEquals(2, pool.getIdleConnections());
+
+        PooledConnection first = pool.acquire();
+        PooledConnection second = pool.acquire();
+        PooledConnection third = pool.acquire();
+        assertEquals(3, pool.getOpenConnections());
+        assertEquals(0, pool.getIdleConnections());
+        assertThrows(SQLTimeoutException.class, () -> pool.acquire());
+        assertEquals(3, opened.size());
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(3, pool.getIdleConnections());
+        pool.shutdown();
+        assertEquals(0, pool.getOpenConnections());
+        assertEquals(3, closed.size());
+
+        pool = new ConnectionPool(url, "user", "secret", 5, 2, 100, 60000, 1, 0);
+        assertEquals(2, pool.getOpenConnections());
+    }
+
+    /* CP_02
+    Objective: Verify that a borrower waits for the acquire timeout and then gets an SQLTimeoutException.
+    Input: A pool of 1 connection that is borrowed, a second borrow with a 200 ms timeout, then a release
+    Expected output: The second borrow fails after about 200 ms; after the release the connection is reused.
+     */
+    @Test
+    public void testAcquire_TimesOutWhenExhausted() throws Exception {
+        pool = new ConnectionPool(url, "user", "secret", 1, 1, 200, 60000, 1, 0);
+        PooledConnection borrowed = pool.acquire();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTimeoutException.class, () -> pool.acquire());
+        long waitedMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue(waitedMillis >= 150, "waited " + waitedMillis + " ms");
+
+        pool.release(borrowed);
+        PooledConnection again = pool.acquire();
+        assertSame(borrowed.connection(), again.connection());
+        assertEquals(1, opened.size());
+        pool.release(again);
+    }
+
+    /* CP_03
+    Objective: Verify that idle connections are validated before they are handed out again.
+    Input: A connection that stops answering isValid while it is idle, then a borrow
+    Expected output: The broken connection is closed and a new one is opened; the open count stays 1.
+     */
+    @Test
+    public void testAcquire_ReplacesInvalidConnection() throws Exception {
+        pool = new ConnectionPool(url, "user", "secret", 1, 2, 100, 60000, 1, 0);
+        PooledConnection first = pool.acquire();
+        Connection stale = first.connection();
+        pool.release(first);
+        broken.add(stale);
+
+        PooledConnection second = pool.acquire();
+
+        assertNotSame(stale, second.connection());
+        assertTrue(closed.contains(stale));
+        assertEquals(2, opened.size());
+        assertEquals(1, pool.getOpenConnections());
+        verify(stale, times(2)).isValid(1);
+        pool.release(second);
+    }
+
+    /* CP_04
+    Objective: Verify that connections idle for longer than the idle timeout are closed down to minSize.
+    Input: A pool of 1 to 3 connections with a 50 ms idle timeout, 3 connections released 100 ms ago
+    Expected output: 2 connections closed, 1 left open and idle.
+     */
+    @Test
+    public void testEvictIdle_ClosesDownToMinSize() throws Exception {
+        pool = new ConnectionPool(url, "user", "secret", 1, 3, 100, 50, 1, 0);
+        PooledConnection first = pool.acquire();
+        PooledConnection second = pool.acquire();
+        PooledConnection third = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(3, pool.getOpenConnections());
+
+        Thread.sleep(100);
+        pool.evictIdle();
+
+        assertEquals(1, pool.getOpenConnections());
+        assertEquals(1, pool.getIdleConnections());
+        assertEquals(2, closed.size());
+    }
+
+    private Connection newConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.isValid(anyInt())).thenAnswer(invocation -> !broken.contains(connection));
+        when(connection.isClosed()).thenAnswer(invocation -> closed.contains(connection));
+        doAnswer(invocation -> closed.add(connection)).when(connection).close();
+        opened.add(connection);
+        return connection;
+    }
+
+    /**
+     * Hands out the mocked connections of one test for its URL.
+     */
+    public static final class TestDriver implements Driver {
+        private final String url;
+        private final ConnectionPoolTest test;
+
+        TestDriver(String url, ConnectionPoolTest test) {
+            this.url = url;
+            this.test = test;
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            return acceptsURL(url) ? test.newConnection() : null;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return this.url.equals(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for DashboardWarmUp.
+ *
+ * Business Rules:
+ * 1. The queries of all panels run at the same time
+ * 2. A panel whose query fails does not hold up the others
+ * 3. A query shared by several panels runs once
+ * 4. The time until each filled panel was filled is recorded
+ */
+public class DashboardWarmUpTest {
+
+    /* DW_01
+    Objective: Verify that the panel queries run side by side and a failing panel does not block the rest.
+    Input: Two panels whose queries wait for each other, and a third whose query throws
+    Expected output: Both waiting panels are filled, the warm-up completes, only the filled panels are timed.
+     */
+    @Test
+    public void testPanels_RunInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<String> filled = new ArrayList<String>();
+        DashboardWarmUp warmUp = new DashboardWarmUp("test", new AsyncQueries(Runnable::run));
+
+        warmUp.panel("profile", () -> meet(bothStarted, "Jane"), value -> addFilled(filled, value));
+        warmUp.panel("history", () -> meet(bothStarted, "3 bills"), value -> addFilled(filled, value));
+        warmUp.panel("refunds", () -> {
+            throw new IllegalStateException("no connection");
+        }, value -> addFilled(filled, "refunds"));
+        warmUp.whenFilled().get(5, TimeUnit.SECONDS);
+
+        assertTrue(filled.containsAll(Arrays.asList("Jane", "3 bills")));
+        assertEquals(2, filled.size());
+        assertEquals(2, warmUp.getTimings().size());
+        assertTrue(warmUp.getTimings().containsKey("profile"));
+        assertFalse(warmUp.getTimings().containsKey("refunds"));
+        assertTrue(DashboardWarmUp.getSummary().contains("test/history"));
+    }
+
+    /* DW_02
+    Objective: Verify that a query shared by two panels runs once and fills both.
+    Input: The user counts used by the user chart and the account counts
+    Expected output: One query, both panels filled with its result.
+     */
+    @Test
+    public void testQuery_SharedByPanels() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        List<String> filled = new ArrayList<String>();
+        DashboardWarmUp warmUp = new DashboardWarmUp("shared", new AsyncQueries(Runnable::run));
+
+        CompletableFuture<String> counts = warmUp.query(() -> {
+            runs.incrementAndGet();
+            return "12";
+        });
+        warmUp.panel("user chart", counts, value -> addFilled(filled, "chart " + value));
+        warmUp.panel("account counts", counts, value -> addFilled(filled, "counts " + value));
+        warmUp.whenFilled().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, runs.get());
+        assertTrue(filled.containsAll(Arrays.asList("chart 12", "counts 12")));
+        assertEquals(2, warmUp.getTimings().size());
+    }
+
+    // returns the value once the other query has started as well
+    private static String meet(CountDownLatch bothStarted, String value) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("the panel queries ran one after the other");
+        }
+        return value;
+    }
+
+    private static void addFilled(List<String> filled, String value) {
+        synchronized (filled) {
+            filled.add(value);
+        }
+    }
+}
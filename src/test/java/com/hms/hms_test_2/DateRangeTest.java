@@ -0,0 +1,54 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for DateRange.
+ *
+ * Business Rules:
+ * 1. A range includes its start and excludes its end
+ * 2. A day, a month or the last months end at midnight after their last day,
+ *    also across the end of a year
+ * 3. The condition compares the raw column with the bounds, so an index on the
+ *    column can be used
+ */
+public class DateRangeTest {
+
+    /* DR_01
+    Objective: Verify that a day ends at the next midnight, at the end of a month and a year as well.
+    Input: 31 December 2018
+    Expected output: From 2018-12-31 00:00 up to, not including, 2019-01-01 00:00.
+     */
+    @Test
+    public void testDay_EndsAtNextMidnight() {
+        DateRange range = DateRange.day(LocalDate.of(2018, 12, 31));
+
+        assertEquals(LocalDateTime.of(2018, 12, 31, 0, 0), range.getStart());
+        assertEquals(LocalDateTime.of(2019, 1, 1, 0, 0), range.getEnd());
+        assertTrue(range.contains(LocalDateTime.of(2018, 12, 31, 23, 59, 59)));
+        assertFalse(range.contains(LocalDateTime.of(2019, 1, 1, 0, 0)));
+        assertFalse(range.contains(LocalDateTime.of(2018, 11, 30, 12, 0)));
+    }
+
+    /* DR_02
+    Objective: Verify that the last months are whole months reaching back into the previous year.
+    Input: The last 3 months with February 2019 as the current month
+    Expected output: From 2018-12-01 up to, not including, 2019-03-01, written as a condition on the column.
+     */
+    @Test
+    public void testLastMonths_WholeMonths() {
+        DateRange range = DateRange.lastMonths(3, YearMonth.of(2019, 2));
+
+        assertEquals(DateRange.months(YearMonth.of(2018, 12), YearMonth.of(2019, 2)), range);
+        assertEquals("(date >= '2018-12-01 00:00:00' AND date < '2019-03-01 00:00:00')", range.where("date"));
+        assertEquals("(date >= ? AND date < ?)", range.whereParams("date"));
+        assertEquals(2, range.params().size());
+        assertThrows(IllegalArgumentException.class, () -> DateRange.lastMonths(0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ExpiringCache, the cache of LabWorkload and IncomeAnalytics.
+ *
+ * Business Rules:
+ * 1. A value is loaded once and answered from memory until its ttl is over
+ * 2. A value loaded while the cache was invalidated is returned but not kept
+ * 3. Beyond its size the value loaded first is dropped, the others are kept
+ * 4. A ttl of 0 keeps nothing, and a failed load keeps nothing
+ */
+public class ExpiringCacheTest {
+
+    // not in config.properties, so the default ttl of each test applies
+    private static final String TTL = "expiringCacheTestTtl";
+
+    private final long[] now = { 1000 };
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /* EC_01
+    Objective: Verify that a value is answered from memory until its ttl is over.
+    Input: A ttl of 30 s; a lookup, one 29 s later and one 30 s later
+    Expected output: Loaded twice, the second lookup a hit, hits and misses counted.
+     */
+    @Test
+    public void testGet_CachedUntilExpired() throws Exception {
+        ExpiringCache<String, String> cache = cache(Duration.ofSeconds(30), 4);
+
+        assertEquals("july 1", cache.get("july", () -> load("july")));
+        now[0] += 29000;
+        assertEquals("july 1", cache.get("july", () -> load("july")));
+        now[0] += 1000;
+        assertEquals("july 2", cache.get("july", () -> load("july")));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    /* EC_02
+    Objective: Verify that a value loaded while the cache is invalidated is not kept.
+    Input: A load that invalidates the cache, as a write during the query does, then the same lookup and invalidate
+    Expected output: The first value is returned but loaded again; after invalidate the value is loaded a third time.
+     */
+    @Test
+    public void testGet_InvalidatedDuringLoad() throws Exception {
+        ExpiringCache<String, String> cache = cache(Duration.ofSeconds(30), 4);
+
+        assertEquals("july 1", cache.get("july", () -> {
+            cache.invalidate();
+            return load("july");
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("july 2", cache.get("july", () -> load("july")));
+        assertEquals("july 2", cache.get("july", () -> load("july")));
+        cache.invalidate();
+        assertEquals("july 3", cache.get("july", () -> load("july")));
+    }
+
+    /* EC_03
+    Objective: Verify that beyond its size the value loaded first is dropped.
+    Input: A cache of 2: June, July, June again, then August
+    Expected output: 2 values kept; June was loaded first and is loaded again, July is still cached.
+     */
+    @Test
+    public void testGet_EvictsLoadedFirst() throws Exception {
+        ExpiringCache<String, String> cache = cache(Duration.ofSeconds(30), 2);
+        cache.get("june", () -> load("june"));
+        now[0] += 10;
+        cache.get("july", () -> load("july"));
+        now[0] += 10;
+        cache.get("june", () -> load("june"));
+        cache.get("august", () -> load("august"));
+
+        assertEquals(2, cache.size());
+        assertEquals(3, loads.get());
+        assertEquals("july 2", cache.get("july", () -> load("july")));
+        assertEquals("june 4", cache.get("june", () -> load("june")));
+    }
+
+    /* EC_04
+    Objective: Verify that nothing is kept with a ttl of 0 or after a failed load.
+    Input: Two lookups with a ttl of 0; a load that throws with a ttl of 30 s
+    Expected output: Loaded on every lookup; the exception is thrown and the next lookup loads again.
+     */
+    @Test
+    public void testGet_NothingKept() throws Exception {
+        ExpiringCache<String, String> off = cache(Duration.ZERO, 4);
+        off.get("july", () -> load("july"));
+        off.get("july", () -> load("july"));
+        assertEquals(2, loads.get());
+        assertEquals(0, off.size());
+
+        ExpiringCache<String, String> cache = cache(Duration.ofSeconds(30), 4);
+        assertThrows(SQLException.class, () -> cache.get("july", () -> {
+            throw new SQLException("Lock wait timeout exceeded");
+        }));
+        assertEquals("july 3", cache.get("july", () -> load("july")));
+    }
+
+    private ExpiringCache<String, String> cache(Duration ttl, int maxEntries) {
+        return new ExpiringCache<String, String>(TTL, ttl, maxEntries, () -> now[0]);
+    }
+
+    // the key and the number of the load, so a reload can be told apart
+    private String load(String key) {
+        return key + " " + loads.incrementAndGet();
+    }
+}
@@ -0,0 +1,121 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for IdGenerator and the ID format of IdSequence.
+ *
+ * Business Rules:
+ * 1. Numbers are reserved from id_sequence a block of idBlockSize at a time
+ *    and handed out from memory until the block is used up
+ * 2. Concurrent callers never get the same ID, also after the reserved blocks
+ *    are dropped
+ * 3. An ID is the prefix, the number padded with zeros and the suffix
+ */
+public class IdGeneratorIntegrationTest {
+
+    private DatabaseOperator dbOperator;
+    private IdGenerator generator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbOperator = new DatabaseOperator();
+        dbOperator.connectAndUseDatabase();
+        generator = IdGenerator.getInstance();
+        generator.reset();
+    }
+
+    /* ID_01
+    Objective: Verify that numbers are reserved a block at a time.
+    Input: A block of numbers of the message sequence taken one by one, then one more
+    Expected output: Consecutive numbers; id_sequence moves one block ahead at the first and the last call only.
+     */
+    @Test
+    public void testNextNumber_ReservesBlocks() throws Exception {
+        int blockSize = Math.max(1, DatabaseOperator.intSetting("idBlockSize", 20));
+
+        long first = generator.nextNumber(IdSequence.MESSAGE);
+        long reserved = nextValue(IdSequence.MESSAGE);
+        assertEquals(first + blockSize, reserved);
+
+        for (int i = 1; i < blockSize; i++) {
+            assertEquals(first + i, generator.nextNumber(IdSequence.MESSAGE));
+        }
+        assertEquals(reserved, nextValue(IdSequence.MESSAGE));
+
+        assertEquals(reserved, generator.nextNumber(IdSequence.MESSAGE));
+        assertEquals(reserved + blockSize, nextValue(IdSequence.MESSAGE));
+    }
+
+    /* ID_02
+    Objective: Verify that concurrent callers never get the same ID.
+    Input: 8 threads taking 50 message IDs each at the same time, the blocks dropped halfway as after a restart
+    Expected output: 400 different IDs.
+     */
+    @Test
+    public void testNext_NoDuplicatesUnderConcurrency() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> done = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                done.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        if (thread == 0 && i == perThread / 2) {
+                            generator.reset();
+                        }
+                        assertTrue(ids.add(generator.next(IdSequence.MESSAGE)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    /* ID_03
+    Objective: Verify the format of the IDs.
+    Input: Numbers of the patient, appointment and refund sequences, one too long for the padding, and a new patient ID
+    Expected output: Prefix, zero padded number and suffix; a longer number is not cut.
+     */
+    @Test
+    public void testFormat_PrefixPaddingSuffix() throws Exception {
+        assertEquals("hms0042pa", IdSequence.PATIENT.format(42));
+        assertEquals("hms00007", IdSequence.PERSON.format(7));
+        assertEquals("app042", IdSequence.APPOINTMENT.format(42));
+        assertEquals("app1000", IdSequence.APPOINTMENT.format(1000));
+        assertEquals("r0001", IdSequence.REFUND.format(1));
+        assertTrue(Pattern.matches("hms\\d{4,}pa", generator.next(IdSequence.PATIENT)));
+    }
+
+    private long nextValue(IdSequence sequence) throws Exception {
+        return Long.parseLong(dbOperator.select("SELECT next_value FROM id_sequence WHERE seq_name = ?",
+                sequence.name()).get(1).get(0));
+    }
+}
@@ -0,0 +1,149 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for DatabaseOperator.inTransaction.
+ *
+ * Business Rules:
+ * 1. The statements of a unit are committed together with one commit
+ * 2. A statement that only reports its error rolls the whole unit back, and
+ *    the error is thrown once the work returns
+ * 3. A deadlock victim is run again up to transactionRetries times, then the
+ *    deadlock is thrown
+ * 4. A unit started inside another one joins it and is committed or rolled
+ *    back by the outer unit
+ */
+public class InTransactionIntegrationTest {
+
+    private static final String INSERT = "INSERT INTO sys_user (user_id, user_name, user_type) VALUES ('%s', '%s', 'test')";
+    private static final String COUNT = "SELECT COUNT(*) FROM sys_user WHERE user_id IN ('txtest01', 'txtest02')";
+
+    private DatabaseOperator dbOperator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbOperator = new DatabaseOperator();
+        dbOperator.connectAndUseDatabase();
+        cleanUp();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        cleanUp();
+    }
+
+    /* TX_I_01
+    Objective: Verify that the statements of a unit are committed together.
+    Input: A unit inserting two users and returning a value
+    Expected output: The value is returned, both users are stored, one more commit and no rollback.
+     */
+    @Test
+    public void testInTransaction_Commits() throws Exception {
+        long commits = DatabaseOperator.getTransactionCommits();
+        long rollbacks = DatabaseOperator.getTransactionRollbacks();
+
+        String result = DatabaseOperator.inTransaction(() -> {
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest01", "txtest one")));
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest02", "txtest two")));
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(2, count());
+        assertEquals(commits + 1, DatabaseOperator.getTransactionCommits());
+        assertEquals(rollbacks, DatabaseOperator.getTransactionRollbacks());
+    }
+
+    /* TX_I_02
+    Objective: Verify that an error a statement only reported rolls the unit back.
+    Input: A unit inserting a user, then selecting from a table that does not exist, which returns null
+    Expected output: The select's SQLException is thrown, the user is not stored, one more rollback and no commit.
+     */
+    @Test
+    public void testInTransaction_RollsBackReportedError() throws Exception {
+        long commits = DatabaseOperator.getTransactionCommits();
+        long rollbacks = DatabaseOperator.getTransactionRollbacks();
+
+        SQLException error = assertThrows(SQLException.class, () -> DatabaseOperator.inTransaction(() -> {
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest01", "txtest one")));
+            assertNull(dbOperator.select("SELECT user_id FROM no_such_table WHERE user_id = ?", "txtest01"));
+            return "not committed";
+        }));
+
+        assertTrue(error.getMessage().contains("no_such_table"), error.getMessage());
+        assertEquals(0, count());
+        assertEquals(commits, DatabaseOperator.getTransactionCommits());
+        assertEquals(rollbacks + 1, DatabaseOperator.getTransactionRollbacks());
+    }
+
+    /* TX_I_03
+    Objective: Verify that a deadlock victim is retried transactionRetries times.
+    Input: A unit inserting a user and then failing with a deadlock on every run
+    Expected output: The unit runs transactionRetries + 1 times, as many retries are counted as the setting,
+                     every run is rolled back and the deadlock is thrown in the end.
+     */
+    @Test
+    public void testInTransaction_RetriesDeadlock() throws Exception {
+        int retries = Math.max(0, DatabaseOperator.intSetting("transactionRetries", 3));
+        long retried = DatabaseOperator.getTransactionRetries();
+        long rollbacks = DatabaseOperator.getTransactionRollbacks();
+        AtomicInteger runs = new AtomicInteger();
+
+        SQLException error = assertThrows(SQLException.class, () -> DatabaseOperator.inTransaction(() -> {
+            runs.incrementAndGet();
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest01", "txtest one")));
+            throw new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+        }));
+
+        assertEquals(1213, error.getErrorCode());
+        assertEquals(retries + 1, runs.get());
+        assertEquals(retried + retries, DatabaseOperator.getTransactionRetries());
+        assertEquals(rollbacks + retries + 1, DatabaseOperator.getTransactionRollbacks());
+        assertEquals(0, count());
+    }
+
+    /* TX_I_04
+    Objective: Verify that a unit started inside another joins it.
+    Input: An outer unit running an inner unit that inserts a user, once failing after the inner unit and once not
+    Expected output: The failing outer unit removes the inner user too; the other commits both users with one commit.
+     */
+    @Test
+    public void testInTransaction_NestedUnitJoinsOuter() throws Exception {
+        long commits = DatabaseOperator.getTransactionCommits();
+
+        assertThrows(IllegalStateException.class, () -> DatabaseOperator.inTransaction(() -> {
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest01", "txtest one")));
+            DatabaseOperator.inTransaction(
+                    () -> dbOperator.customInsertion(String.format(INSERT, "txtest02", "txtest two")));
+            throw new IllegalStateException("the outer unit failed");
+        }));
+
+        assertEquals(0, count());
+        assertEquals(commits, DatabaseOperator.getTransactionCommits());
+
+        DatabaseOperator.inTransaction(() -> {
+            assertTrue(dbOperator.customInsertion(String.format(INSERT, "txtest01", "txtest one")));
+            return DatabaseOperator.inTransaction(
+                    () -> dbOperator.customInsertion(String.format(INSERT, "txtest02", "txtest two")));
+        });
+
+        assertEquals(2, count());
+        assertEquals(commits + 1, DatabaseOperator.getTransactionCommits());
+    }
+
+    private int count() throws Exception {
+        return Integer.parseInt(dbOperator.select(COUNT).get(1).get(0));
+    }
+
+    private void cleanUp() throws Exception {
+        dbOperator.customDeletion("DELETE FROM sys_user WHERE user_id IN ('txtest01', 'txtest02')");
+    }
+}
@@ -0,0 +1,45 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the retry rule of DatabaseOperator.inTransaction.
+ *
+ * Business Rules:
+ * 1. Deadlocks and lock wait timeouts are retried, also when wrapped
+ * 2. Other errors roll the unit back without a retry
+ */
+public class InTransactionTest {
+
+    /* TX_01
+    Objective: Verify that deadlocks and lock wait timeouts are recognised.
+    Input: SQLState 40001, error codes 1213 and 1205, a rollback exception and a wrapped deadlock
+    Expected output: All of them are retried.
+     */
+    @Test
+    public void testIsDeadlock_Retried() {
+        assertTrue(DatabaseOperator.isDeadlock(new SQLException("Deadlock found", "40001", 1213)));
+        assertTrue(DatabaseOperator.isDeadlock(new SQLException("Deadlock found", "HY000", 1213)));
+        assertTrue(DatabaseOperator.isDeadlock(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertTrue(DatabaseOperator.isDeadlock(new SQLTransactionRollbackException("rolled back")));
+        assertTrue(DatabaseOperator.isDeadlock(
+                new SQLException("Error in inserting", new SQLException("Deadlock found", "40001", 1213))));
+    }
+
+    /* TX_02
+    Objective: Verify that other errors are not retried.
+    Input: A duplicate key, a syntax error and an error without a state
+    Expected output: None of them is retried.
+     */
+    @Test
+    public void testIsDeadlock_OtherErrors() {
+        assertFalse(DatabaseOperator.isDeadlock(new SQLException("Duplicate entry", "23000", 1062)));
+        assertFalse(DatabaseOperator.isDeadlock(new SQLException("You have an error", "42000", 1064)));
+        assertFalse(DatabaseOperator.isDeadlock(new SQLException("Not connected to the database")));
+    }
+}
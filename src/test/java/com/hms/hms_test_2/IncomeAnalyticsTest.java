@@ -0,0 +1,94 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for IncomeAnalytics.
+ *
+ * Business Rules:
+ * 1. The total and the fees of every month are read with one query
+ * 2. Refunded bills are kept apart from the income, bills without a refund
+ *    flag count as income
+ * 3. The summary of a period is kept in the cache until a bill is issued or
+ *    refunded; the expiry and eviction of the cache are tested in
+ *    ExpiringCacheTest
+ */
+public class IncomeAnalyticsTest {
+
+    private static final DateRange SUMMER = DateRange.months(YearMonth.of(2018, 6), YearMonth.of(2018, 8));
+
+    @Mock
+    private DatabaseOperator dbOperator;
+
+    private AutoCloseable closeable;
+    private IncomeAnalytics analytics;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        closeable = MockitoAnnotations.openMocks(this);
+        analytics = new IncomeAnalytics();
+        ArrayList<ArrayList<String>> rows = new ArrayList<ArrayList<String>>();
+        rows.add(new ArrayList<String>(Arrays.asList("year", "month", "refunded", "bills", "total", "doctor_fee",
+                "hospital_fee", "pharmacy_fee", "laboratory_fee", "appointment_fee")));
+        rows.add(new ArrayList<String>(Arrays.asList("2018", "8", "0", "3", "2100", "400", "300", "600", "0", "800")));
+        rows.add(new ArrayList<String>(Arrays.asList("2018", "6", "0", "2", "1000", "0", "100", "200", "700", "0")));
+        rows.add(new ArrayList<String>(Arrays.asList("2018", "6", "1", "1", "500", "0", "0", "0", "0", "500")));
+        when(dbOperator.customSelection(anyString())).thenReturn(rows);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* IA_01
+    Objective: Verify that all measures of every month come from one grouped query, with the refunds apart.
+    Input: June to August 2018, with income in June and August and a refunded bill in June
+    Expected output: One query over income_daily, 3 months, July zero, the refund kept out of the June income.
+     */
+    @Test
+    public void testSummary_OneQueryPerWindow() throws Exception {
+        IncomeAnalytics.Summary summary = analytics.summary(dbOperator, SUMMER);
+
+        verify(dbOperator, times(1)).customSelection(IncomeAnalytics.sql(SUMMER));
+        assertTrue(IncomeAnalytics.sql(SUMMER).contains("FROM income_daily WHERE (day >= '2018-06-01 00:00:00' AND day < '2018-09-01 00:00:00')"));
+        assertEquals(3, summary.size());
+        assertEquals(YearMonth.of(2018, 8), summary.month(2));
+        assertEquals(1000, summary.net(IncomeAnalytics.Measure.TOTAL, 0));
+        assertEquals(500, summary.refunded(IncomeAnalytics.Measure.TOTAL, 0));
+        assertEquals(1500, summary.gross(IncomeAnalytics.Measure.TOTAL, 0));
+        assertEquals(0, summary.net(IncomeAnalytics.Measure.TOTAL, 1));
+        assertEquals(800, summary.net(IncomeAnalytics.Measure.APPOINTMENT_FEE, 2));
+        assertEquals(5, summary.totalNet(IncomeAnalytics.Measure.BILLS));
+        assertArrayEquals(new long[] { 200, 0, 600 }, summary.net(IncomeAnalytics.Measure.PHARMACY_FEE).values());
+    }
+
+    /* IA_02
+    Objective: Verify that a summary is cached per window and dropped when a bill is written.
+    Input: The summer read twice, then once after invalidate
+    Expected output: The same summary from memory once, then a second query.
+     */
+    @Test
+    public void testSummary_CachedUntilInvalidated() throws Exception {
+        IncomeAnalytics.Summary first = analytics.summary(dbOperator, SUMMER);
+        IncomeAnalytics.Summary second = analytics.summary(dbOperator, SUMMER);
+        analytics.invalidate();
+        analytics.summary(dbOperator, SUMMER);
+
+        assertTrue(first == second);
+        verify(dbOperator, times(2)).customSelection(IncomeAnalytics.sql(SUMMER));
+        assertEquals(1, analytics.getHits());
+        assertEquals(2, analytics.getMisses());
+    }
+}
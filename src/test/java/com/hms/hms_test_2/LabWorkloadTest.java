@@ -0,0 +1,92 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for LabWorkload.
+ *
+ * Business Rules:
+ * 1. The counts of all eight result tables are read with one query
+ * 2. The counts of a period are kept in the cache until results are written;
+ *    the expiry and eviction of the cache are tested in ExpiringCacheTest
+ */
+public class LabWorkloadTest {
+
+    private static final DateRange JULY = DateRange.month(YearMonth.of(2018, 7));
+    private static final DateRange AUGUST = DateRange.month(YearMonth.of(2018, 8));
+
+    @Mock
+    private DatabaseOperator dbOperator;
+
+    private AutoCloseable closeable;
+    private LabWorkload workload;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        closeable = MockitoAnnotations.openMocks(this);
+        workload = new LabWorkload();
+        // the rows of a UNION ALL may come in any order
+        ArrayList<ArrayList<String>> rows = new ArrayList<ArrayList<String>>();
+        rows.add(new ArrayList<String>(Arrays.asList("test", "count")));
+        for (int i = LabWorkload.TESTS.size() - 1; i >= 0; i--) {
+            rows.add(new ArrayList<String>(Arrays.asList(LabWorkload.TESTS.get(i).getTable(), Integer.toString(i * 10))));
+        }
+        when(dbOperator.customSelection(anyString())).thenReturn(rows);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* LW_01
+    Objective: Verify that the counts of all tests are read with one query and cached.
+    Input: The counts of July 2018 read twice
+    Expected output: One UNION ALL query over the eight tables filtered on July, the counts in the order of TESTS, 1 miss and 1 hit.
+     */
+    @Test
+    public void testCounts_OneQueryThenCached() throws Exception {
+        long[] first = workload.counts(dbOperator, JULY);
+        long[] second = workload.counts(dbOperator, JULY);
+
+        assertArrayEquals(new long[] { 0, 10, 20, 30, 40, 50, 60, 70 }, first);
+        assertArrayEquals(first, second);
+        verify(dbOperator, times(1)).customSelection(LabWorkload.sql(JULY));
+        assertEquals(7, LabWorkload.sql(JULY).split("UNION ALL").length - 1);
+        assertTrue(LabWorkload.sql(JULY).contains("(date >= '2018-07-01 00:00:00' AND date < '2018-08-01 00:00:00')"));
+        assertEquals(1, workload.getMisses());
+        assertEquals(1, workload.getHits());
+    }
+
+    /* LW_02
+    Objective: Verify that another period is read on its own and that written results drop the cached counts.
+    Input: The counts of July, of August, then of July after invalidate
+    Expected output: Three queries, and the report of the shape the pie charts read.
+     */
+    @Test
+    public void testInvalidate_ReadsAgain() throws Exception {
+        workload.counts(dbOperator, JULY);
+        workload.counts(dbOperator, AUGUST);
+        workload.invalidate();
+        workload.counts(dbOperator, JULY);
+
+        verify(dbOperator, times(2)).customSelection(LabWorkload.sql(JULY));
+        verify(dbOperator, times(1)).customSelection(LabWorkload.sql(AUGUST));
+        assertEquals(0, workload.getHits());
+
+        ArrayList<ArrayList<String>> report = LabWorkload.report(dbOperator, JULY);
+        assertEquals("BloodGroupingRh", report.get(0).get(0));
+        assertEquals("70", report.get(1).get(7));
+    }
+}
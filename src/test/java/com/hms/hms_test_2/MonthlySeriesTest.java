@@ -0,0 +1,69 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for MonthlySeries.
+ *
+ * Business Rules:
+ * 1. Every month of the window has a value, also a month without rows, and the
+ *    same month of two years has two
+ * 2. Rows outside the window are left out
+ * 3. A month is the sum, the number or the number of different values of its
+ *    rows
+ */
+public class MonthlySeriesTest {
+
+    /* MS_01
+    Objective: Verify that the same month of two years is not merged and that empty months are kept.
+    Input: The 13 months from October 2017 to October 2018, with rows in both Octobers and one after the window
+    Expected output: 13 months labelled with the year, the Octobers apart, zero in between, the late row left out.
+     */
+    @Test
+    public void testSum_KeepsYearsApart() {
+        MonthlySeries series = MonthlySeries.sum(DateRange.months(YearMonth.of(2017, 10), YearMonth.of(2018, 10)));
+
+        assertTrue(series.add("2017-10-05 09:30:00", 100));
+        assertTrue(series.add("2018-10-31 23:59:59", 40));
+        assertTrue(series.add(LocalDate.of(2018, 10, 1), 2));
+        assertFalse(series.add("2018-11-01 00:00:00", 1000));
+
+        assertEquals(13, series.size());
+        assertEquals(100, series.get(0));
+        assertEquals(0, series.get(6));
+        assertEquals(42, series.get(12));
+        assertEquals("Oct 17", series.label(0));
+        assertEquals(YearMonth.of(2018, 10), series.month(12));
+        assertEquals(142, series.total());
+        assertEquals(100, series.max());
+    }
+
+    /* MS_02
+    Objective: Verify the count and distinct count of the rows of a month.
+    Input: Patients 1, 2, 1 and 3 in January 2019 and patient 1 in February 2019
+    Expected output: 4 and 1 rows, 3 and 1 different patients, labelled with the month name only.
+     */
+    @Test
+    public void testCount_AndDistinctCount() {
+        DateRange window = DateRange.months(YearMonth.of(2019, 1), YearMonth.of(2019, 2));
+        MonthlySeries rows = MonthlySeries.count(window);
+        MonthlySeries patients = MonthlySeries.distinctCount(window);
+        long[] ids = { 1, 2, 1, 3 };
+        for (int i = 0; i < ids.length; i++) {
+            rows.add(LocalDate.of(2019, 1, i + 1), ids[i]);
+            patients.add(LocalDate.of(2019, 1, i + 1), ids[i]);
+        }
+        rows.add(LocalDate.of(2019, 2, 28), 1);
+        patients.add(LocalDate.of(2019, 2, 28), 1);
+
+        assertArrayEquals(new long[] { 4, 1 }, rows.values());
+        assertArrayEquals(new long[] { 3, 1 }, patients.values());
+        assertEquals("Jan", patients.label(0));
+        assertEquals(LocalDate.of(2019, 2, 28).toEpochDay(), MonthlySeries.epochDay("2019-02-28"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for QueryStats.
+ *
+ * Business Rules:
+ * 1. Statements that only differ in their literals are recorded as one shape
+ * 2. top(n) lists the shapes with the largest total time first
+ * 3. Percentiles are reported within 1/16 of the recorded value
+ * 4. A failed statement is reported by its shape, without its literals
+ */
+public class QueryStatsTest {
+
+    /* QS_01
+    Objective: Verify that string and number literals are replaced and white space is collapsed.
+    Input: A concatenated selection with a patient ID, a number, a quoted quote and an IN list
+    Expected output: The shape with ? for every literal, (?+) for the list and names like t001 kept.
+     */
+    @Test
+    public void testShapeOf_ReplacesLiterals() {
+        assertEquals("SELECT * FROM person WHERE patient_id = ? AND age > ?",
+                QueryStats.shapeOf("SELECT * FROM person WHERE patient_id = 'hms0001pa'  AND age > 12;"));
+        assertEquals("SELECT t001 FROM lab_test WHERE name IN (?+) LIMIT ?",
+                QueryStats.shapeOf("SELECT t001 FROM lab_test\n WHERE name IN ('O''Neil', 'b', ?) LIMIT 10"));
+    }
+
+    /* QS_02
+    Objective: Verify that runs of the same shape are added up and sorted by total time.
+    Input: Two lookups of different patients and one slower report
+    Expected output: Two shapes, the report first, the lookup with 2 calls and 3 rows.
+     */
+    @Test
+    public void testTop_GroupsAndSortsByTotalTime() {
+        QueryStats stats = new QueryStats();
+        stats.configure(true, 0, null, 0, 1);
+        stats.record("SELECT name FROM person WHERE patient_id = 'hms0001pa'", 2000000, 1000000, 1, 10, false);
+        stats.record("SELECT name FROM person WHERE patient_id = 'hms0002pa'", 2000000, 0, 2, 20, false);
+        stats.record("SELECT SUM(total) FROM bill WHERE bill_date > '2024-01-01'", 9000000, 0, 1, 5, false);
+
+        List<QueryStats.Entry> top = stats.top(10);
+        assertEquals(2, top.size());
+        assertEquals("SELECT SUM(total) FROM bill WHERE bill_date > ?", top.get(0).getShape());
+        QueryStats.Entry lookup = top.get(1);
+        assertEquals(2, lookup.getCalls());
+        assertEquals(3, lookup.getRows());
+        assertEquals(30, lookup.getChars());
+        assertEquals(5000, lookup.getTotalMicros());
+        assertEquals(1, stats.top(1).size());
+    }
+
+    /* QS_03
+    Objective: Verify the precision of the latency histogram.
+    Input: The values 1 to 1000 microseconds
+    Expected output: Percentiles within 1/16 of the exact value, the maximum exact.
+     */
+    @Test
+    public void testHistogram_Percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getTotal());
+        assertEquals(500, histogram.getPercentile(50), 500 / 16.0);
+        assertEquals(990, histogram.getPercentile(99), 990 / 16.0);
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    /* QS_04
+    Objective: Verify that a failed statement is printed by its shape only.
+    Input: A patient lookup by name that threw an SQLException
+    Expected output: The shape and the exception are printed, the patient's name is not.
+     */
+    @Test
+    public void testLogError_PrintsShapeOnly() throws Exception {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        PrintStream capture = new PrintStream(printed, true, "UTF-8");
+        System.setOut(capture);
+        System.setErr(capture);
+        try {
+            new QueryStats().logError("SELECT patient_id FROM person WHERE first_name = 'Saman' AND nic = '652489765V'",
+                    new SQLException("Lock wait timeout exceeded"));
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+
+        String output = new String(printed.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(output.contains("Error: SELECT patient_id FROM person WHERE first_name = ? AND nic = ?"), output);
+        assertTrue(output.contains("SQLException: Lock wait timeout exceeded"), output);
+        assertFalse(output.contains("Saman"), output);
+        assertFalse(output.contains("652489765V"), output);
+    }
+}
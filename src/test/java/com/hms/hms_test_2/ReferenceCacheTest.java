@@ -0,0 +1,132 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ReferenceCache.
+ *
+ * Business Rules:
+ * 1. A catalogue query runs once, later lookups are answered from memory
+ * 2. Cached rows cannot be changed; role classes get copies they may change
+ * 3. Invalidating a catalogue drops its queries only
+ */
+public class ReferenceCacheTest {
+
+    private static final String LAB_TESTS = "SELECT test_id, test_name FROM lab_test;";
+    private static final String SUPPLIERS = "SELECT suppliers.supplier_id, suppliers.supplier_name FROM suppliers;";
+
+    @Mock
+    private DatabaseOperator dbOperator;
+
+    private AutoCloseable closeable;
+    private ReferenceCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        closeable = MockitoAnnotations.openMocks(this);
+        cache = new ReferenceCache();
+        when(dbOperator.referenceCache()).thenReturn(cache);
+        when(dbOperator.customSelection(LAB_TESTS)).thenReturn(rows("test_id", "test_name", "t001", "Urine"));
+        when(dbOperator.customSelection(SUPPLIERS)).thenReturn(rows("supplier_id", "supplier_name", "sup001", "Acme"));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* RC_01
+    Objective: Verify that a catalogue query is answered from memory after the first lookup.
+    Input: The lab test query looked up three times
+    Expected output: One query, 1 miss and 2 hits, the same rows every time.
+     */
+    @Test
+    public void testGet_ReadThrough() throws Exception {
+        List<List<String>> first = cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS);
+        assertSame(first, cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS));
+        assertSame(first, cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS));
+
+        assertEquals(Arrays.asList("t001", "Urine"), first.get(1));
+        verify(dbOperator, times(1)).customSelection(LAB_TESTS);
+        assertEquals(1, cache.getMisses(ReferenceCache.Catalogue.LAB_TESTS));
+        assertEquals(2, cache.getHits(ReferenceCache.Catalogue.LAB_TESTS));
+        assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+    }
+
+    /* RC_02
+    Objective: Verify that snapshots are immutable while select hands out copies.
+    Input: Lab test rows changed through a snapshot and through a copy from select
+    Expected output: The snapshot throws, the change to the copy is not seen by the next lookup.
+     */
+    @Test
+    public void testSelect_ReturnsCopies() throws Exception {
+        List<List<String>> snapshot = cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.get(1).set(1, "Blood"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(1));
+
+        ArrayList<ArrayList<String>> copy = ReferenceCache.select(dbOperator, ReferenceCache.Catalogue.LAB_TESTS,
+                LAB_TESTS);
+        copy.get(1).set(1, "Blood");
+        copy.remove(0);
+
+        ArrayList<ArrayList<String>> again = ReferenceCache.select(dbOperator, ReferenceCache.Catalogue.LAB_TESTS,
+                LAB_TESTS);
+        assertEquals(Arrays.asList("t001", "Urine"), again.get(1));
+        verify(dbOperator, times(1)).customSelection(LAB_TESTS);
+    }
+
+    /* RC_03
+    Objective: Verify that invalidating a catalogue reloads it and leaves the others cached.
+    Input: Lab tests and suppliers cached, then a new supplier is written
+    Expected output: The suppliers are queried again, the lab tests are not.
+     */
+    @Test
+    public void testInvalidate_OnlyThatCatalogue() throws Exception {
+        cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS);
+        cache.get(ReferenceCache.Catalogue.SUPPLIERS, dbOperator, SUPPLIERS);
+
+        when(dbOperator.customSelection(SUPPLIERS)).thenReturn(
+                rows("supplier_id", "supplier_name", "sup001", "Acme", "sup002", "Globex"));
+        cache.invalidate(ReferenceCache.Catalogue.SUPPLIERS);
+
+        assertEquals(3, cache.get(ReferenceCache.Catalogue.SUPPLIERS, dbOperator, SUPPLIERS).size());
+        cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS);
+        verify(dbOperator, times(2)).customSelection(SUPPLIERS);
+        verify(dbOperator, times(1)).customSelection(LAB_TESTS);
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    /* RC_04
+    Objective: Verify that a failed query is not cached.
+    Input: customSelection returns null once, then the rows
+    Expected output: null, then the rows from a second query.
+     */
+    @Test
+    public void testGet_FailedQueryNotCached() throws Exception {
+        when(dbOperator.customSelection(LAB_TESTS)).thenReturn(null)
+                .thenReturn(rows("test_id", "test_name", "t001", "Urine"));
+
+        assertNull(cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS));
+        assertEquals(2, cache.get(ReferenceCache.Catalogue.LAB_TESTS, dbOperator, LAB_TESTS).size());
+        verify(dbOperator, times(2)).customSelection(LAB_TESTS);
+    }
+
+    private static ArrayList<ArrayList<String>> rows(String... values) {
+        ArrayList<ArrayList<String>> data = new ArrayList<ArrayList<String>>();
+        for (int i = 0; i < values.length; i += 2) {
+            data.add(new ArrayList<String>(Arrays.asList(values[i], values[i + 1])));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,78 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Integration test for the routing of report queries to the replica.
+ *
+ * Business Rules:
+ * 1. Queries run in onReplica use the server configured with readConnection
+ * 2. If that server cannot be reached they run on the primary
+ *
+ * The second server is given with -Dhms.test.replica=jdbc:mysql://127.0.0.1:3307/test_HMS2,
+ * e.g. a second local instance loaded with the same dump.
+ */
+public class ReplicaRoutingIntegrationTest {
+
+    private DatabaseOperator dbOperator;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dbOperator = new DatabaseOperator();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        SystemConfiguration.getInstance().updateConfig("readConnection", "");
+        dbOperator.connectAndUseDatabase();
+    }
+
+    /* RR_01
+    Objective: Verify that report queries fall back to the primary when the replica is down.
+    Input: readConnection pointing at a port nothing listens on
+    Expected output: The rows from the primary, one more fallback and no query on the replica.
+     */
+    @Test
+    public void testOnReplica_FallsBackToPrimary() throws Exception {
+        SystemConfiguration.getInstance().updateConfig("readConnection", "jdbc:mysql://127.0.0.1:1/test_HMS2");
+        dbOperator.connectAndUseDatabase();
+        long fallbacks = DatabaseOperator.getReplicaFallbacks();
+        long onReplica = DatabaseOperator.getRouteQueries(DatabaseOperator.Route.REPLICA);
+
+        ArrayList<ArrayList<String>> data = DatabaseOperator.onReplica(
+                () -> dbOperator.customSelection("SELECT COUNT(*) AS patients FROM patient;"));
+
+        assertNotNull(data);
+        assertEquals("patients", data.get(0).get(0));
+        assertEquals(fallbacks + 1, DatabaseOperator.getReplicaFallbacks());
+        assertEquals(onReplica, DatabaseOperator.getRouteQueries(DatabaseOperator.Route.REPLICA));
+    }
+
+    /* RR_02
+    Objective: Verify that report queries run on the second instance and other queries on the primary.
+    Input: readConnection set to the second local instance, the server port selected both ways
+    Expected output: Two different ports, one more query on the replica route.
+     */
+    @Test
+    public void testOnReplica_UsesSecondInstance() throws Exception {
+        String replica = System.getProperty("hms.test.replica");
+        assumeTrue(replica != null, "no second instance given with -Dhms.test.replica");
+        SystemConfiguration.getInstance().updateConfig("readConnection", replica);
+        dbOperator.connectAndUseDatabase();
+        long onReplica = DatabaseOperator.getRouteQueries(DatabaseOperator.Route.REPLICA);
+
+        String primaryPort = dbOperator.customSelection("SELECT @@port AS port;").get(1).get(0);
+        String replicaPort = DatabaseOperator.onReplica(
+                () -> dbOperator.customSelection("SELECT @@port AS port;")).get(1).get(0);
+
+        assertNotEquals(primaryPort, replicaPort);
+        assertEquals(onReplica + 1, DatabaseOperator.getRouteQueries(DatabaseOperator.Route.REPLICA));
+    }
+}
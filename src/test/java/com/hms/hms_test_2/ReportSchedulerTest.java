@@ -0,0 +1,180 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for ReportScheduler and ReportSnapshot.
+ *
+ * Business Rules:
+ * 1. Every refresh gives a snapshot with a version one above the last, kept in
+ *    memory and on disk, so it survives a restart
+ * 2. A refresh that fails keeps the last snapshot
+ * 3. Refreshes asked for while one is running wait for it instead of reading
+ *    the datasets again
+ * 4. A snapshot of another database than the one in use is ignored, in memory
+ *    and on disk
+ */
+public class ReportSchedulerTest {
+
+    private Path dir;
+    private Path file;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("reports");
+        file = dir.resolve("report-snapshot.bin");
+        runs = new AtomicInteger();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    private Map<String, ArrayList<ArrayList<String>>> datasets() {
+        Map<String, ArrayList<ArrayList<String>>> datasets = new LinkedHashMap<String, ArrayList<ArrayList<String>>>();
+        ArrayList<ArrayList<String>> income = new ArrayList<ArrayList<String>>();
+        income.add(new ArrayList<String>(Arrays.asList("month", "total")));
+        income.add(new ArrayList<String>(Arrays.asList("2018-07-01", Integer.toString(runs.incrementAndGet()))));
+        income.add(new ArrayList<String>(Arrays.asList("2018-08-01", null)));
+        datasets.put("income", income);
+        return datasets;
+    }
+
+    /* RS_01
+    Objective: Verify that refreshes are versioned and that the snapshot is read back after a restart.
+    Input: Two refreshes, then a new scheduler on the same file
+    Expected output: Versions 1 and 2, the second snapshot read from the file with its tables, also the missing value.
+     */
+    @Test
+    public void testRefresh_VersionedAndWrittenToDisk() throws Exception {
+        ReportScheduler scheduler = new ReportScheduler(file, this::datasets);
+        assertNull(scheduler.latest());
+
+        assertEquals(1, scheduler.refresh().getVersion());
+        ReportSnapshot second = scheduler.refresh();
+        assertEquals(2, second.getVersion());
+        assertTrue(second == scheduler.latest());
+
+        ReportSnapshot restored = new ReportScheduler(file, null).latest();
+        assertEquals(2, restored.getVersion());
+        assertEquals(second.getComputedAt(), restored.getComputedAt());
+        assertEquals("2", restored.get("income").get(1).get(1));
+        assertNull(restored.get("income").get(2).get(1));
+        assertNull(restored.get("stock"));
+    }
+
+    /* RS_02
+    Objective: Verify that a failed refresh keeps the last snapshot.
+    Input: A refresh, then one whose queries fail
+    Expected output: The SQLException is passed on, the first snapshot stays the latest and one failure is counted.
+     */
+    @Test
+    public void testRefresh_FailureKeepsSnapshot() throws Exception {
+        ReportScheduler scheduler = new ReportScheduler(file, () -> {
+            if (runs.get() > 0) {
+                throw new SQLException("Report dataset stock could not be read");
+            }
+            return datasets();
+        });
+        ReportSnapshot first = scheduler.refresh();
+
+        assertThrows(SQLException.class, () -> scheduler.refresh());
+        assertTrue(first == scheduler.latest());
+        assertEquals(1, scheduler.getRefreshes());
+        assertEquals(1, scheduler.getFailures());
+        assertThrows(IllegalStateException.class, () -> new ReportScheduler(file, null).refresh());
+    }
+
+    /* RS_03
+    Objective: Verify that a refresh asked for during another one waits for it.
+    Input: Two refreshes at the same time while the datasets are being read
+    Expected output: The datasets are read once and both get the same snapshot.
+     */
+    @Test
+    public void testRefresh_ConcurrentRefreshesShareOne() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReportScheduler scheduler = new ReportScheduler(file, () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new SQLException(e);
+            }
+            return datasets();
+        });
+
+        ExecutorService threads = Executors.newFixedThreadPool(1);
+        try {
+            Future<ReportSnapshot> first = threads.submit(() -> scheduler.refresh());
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            AtomicReference<ReportSnapshot> second = new AtomicReference<ReportSnapshot>();
+            Thread waiting = new Thread(() -> {
+                try {
+                    second.set(scheduler.refresh());
+                } catch (ClassNotFoundException | SQLException e) {
+                    e.printStackTrace();
+                }
+            });
+            waiting.start();
+            // the second refresh parks on the one running
+            while (waiting.getState() != Thread.State.WAITING) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            waiting.join(10000);
+
+            assertTrue(first.get(10, TimeUnit.SECONDS) == second.get());
+            assertEquals(1, runs.get());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    /* RS_04
+    Objective: Verify that a snapshot of another database is not served.
+    Input: A refresh on test_HMS2, the file read on test_HMS2 and on hms_db, then the scheduler switched to hms_db
+    Expected output: The file is read back on test_HMS2 only; after the switch there is no snapshot until a
+                     refresh, which starts again at version 1.
+     */
+    @Test
+    public void testLatest_OtherDatabaseIgnored() throws Exception {
+        String test = "jdbc:mysql://localhost:3306/ test_HMS2";
+        String production = "jdbc:mysql://localhost:3306/ hms_db";
+        AtomicReference<String> database = new AtomicReference<String>(test);
+        ReportScheduler scheduler = new ReportScheduler(file, this::datasets, database::get);
+        ReportSnapshot snapshot = scheduler.refresh();
+        assertEquals(test, snapshot.getDatabase());
+
+        assertEquals(1, new ReportScheduler(file, null, () -> test).latest().getVersion());
+        assertNull(new ReportScheduler(file, null, () -> production).latest());
+
+        database.set(production);
+        assertNull(scheduler.latest());
+        ReportSnapshot other = scheduler.refresh();
+        assertEquals(1, other.getVersion());
+        assertEquals(production, other.getDatabase());
+    }
+}
@@ -0,0 +1,166 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for ResultTable.
+ *
+ * Business Rules:
+ * 1. Numbers, dates and timestamps are read with their type and can be read
+ *    back as numbers, dates or text
+ * 2. SQL NULL is kept apart from 0: isNull is true, numbers read as 0 and
+ *    text, dates and timestamps as null
+ * 3. toRows gives the customSelection layout, the column names in row 0 and
+ *    the values as customSelection formats them
+ */
+public class ResultTableTest {
+
+    private static final String[] NAMES = { "appointments", "total", "fee", "day", "bill_date", "patient_id" };
+    private static final int[] TYPES = { Types.INTEGER, Types.DECIMAL, Types.DECIMAL, Types.DATE, Types.TIMESTAMP,
+            Types.VARCHAR };
+    private static final int[] SCALES = { 0, 0, 2, 0, 0, 0 };
+
+    private ResultTable table;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Object[][] rows = {
+                { 12, 3000000000L, "12.50", Date.valueOf("2018-06-01"), Timestamp.valueOf("2018-06-01 10:30:00"),
+                        "hms0001pa" },
+                { null, null, null, null, null, null } };
+        table = ResultTable.from(resultSet(rows));
+    }
+
+    /* RT_01
+    Objective: Verify that the columns are read with their type and can be read in other types.
+    Input: An int, a whole DECIMAL above the int range, a DECIMAL with a fraction, a date, a timestamp and a text
+    Expected output: The same values from the typed getters, dates as epoch days, names found ignoring case.
+     */
+    @Test
+    public void testFrom_TypedColumns() {
+        assertEquals(2, table.getRowCount());
+        assertEquals(6, table.getColumnCount());
+        assertEquals("bill_date", table.getColumnName(4));
+        assertEquals(1, table.getColumnIndex("TOTAL"));
+        assertEquals(-1, table.getColumnIndex("discount"));
+
+        assertEquals(12, table.getInt(0, 0));
+        assertEquals(12L, table.getLong(0, 0));
+        assertEquals(3000000000L, table.getLong(0, 1));
+        assertEquals(12.5, table.getDouble(0, 2), 0.0001);
+        assertEquals(LocalDate.of(2018, 6, 1), table.getDate(0, 3));
+        assertEquals(LocalDate.of(2018, 6, 1).toEpochDay(), table.getEpochDay(0, 3));
+        assertEquals(LocalDateTime.of(2018, 6, 1, 10, 30), table.getTimestamp(0, 4));
+        assertEquals(LocalDate.of(2018, 6, 1), table.getDate(0, 4));
+        assertEquals(LocalDate.of(2018, 6, 1).atStartOfDay(), table.getTimestamp(0, 3));
+        assertEquals("hms0001pa", table.getString(0, 5));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getInt(2, 0));
+    }
+
+    /* RT_02
+    Objective: Verify that SQL NULL is told apart from 0 in every kind of column.
+    Input: A row of NULLs in the same six columns
+    Expected output: isNull true everywhere, 0 from the number getters, null from text, dates and timestamps.
+     */
+    @Test
+    public void testFrom_NullValues() {
+        for (int column = 0; column < NAMES.length; column++) {
+            assertTrue(table.isNull(1, column), NAMES[column]);
+            assertFalse(table.isNull(0, column), NAMES[column]);
+            assertNull(table.getString(1, column), NAMES[column]);
+        }
+        assertEquals(0, table.getInt(1, 0));
+        assertEquals(0, table.getLong(1, 1));
+        assertEquals(0, table.getDouble(1, 2), 0.0001);
+        assertNull(table.getDate(1, 3));
+        assertNull(table.getTimestamp(1, 4));
+    }
+
+    /* RT_03
+    Objective: Verify the conversion to and from the customSelection layout.
+    Input: The table converted with toRows, and the text rows read back with fromRows
+    Expected output: The column names in row 0, values formatted as customSelection does, NULL as null,
+                     and the typed getters working on the text columns.
+     */
+    @Test
+    public void testToRows_CustomSelectionLayout() {
+        ArrayList<ArrayList<String>> rows = table.toRows();
+
+        assertEquals(3, rows.size());
+        assertEquals(Arrays.asList(NAMES), rows.get(0));
+        assertEquals(Arrays.asList("12", "3000000000", "12.50", "2018-06-01", "2018-06-01 10:30:00", "hms0001pa"),
+                rows.get(1));
+        assertEquals(Arrays.asList(null, null, null, null, null, null), rows.get(2));
+
+        ResultTable text = ResultTable.fromRows(rows);
+        assertEquals(2, text.getRowCount());
+        assertEquals(12, text.getInt(0, 0));
+        assertEquals(3000000000L, text.getLong(0, 1));
+        assertEquals(LocalDate.of(2018, 6, 1), text.getDate(0, 4));
+        assertEquals(LocalDateTime.of(2018, 6, 1, 10, 30), text.getTimestamp(0, 4));
+        assertTrue(text.isNull(1, 5));
+        assertEquals(0, text.getInt(1, 0));
+        assertEquals(rows, text.toRows());
+    }
+
+    // a result set over the rows, with the columns of NAMES
+    private static ResultSet resultSet(Object[][] rows) throws SQLException {
+        ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+        when(rsmd.getColumnCount()).thenReturn(NAMES.length);
+        for (int i = 0; i < NAMES.length; i++) {
+            when(rsmd.getColumnLabel(i + 1)).thenReturn(NAMES[i]);
+            when(rsmd.getColumnType(i + 1)).thenReturn(TYPES[i]);
+            when(rsmd.getScale(i + 1)).thenReturn(SCALES[i]);
+            when(rsmd.isSigned(i + 1)).thenReturn(true);
+        }
+
+        // the current row and whether the last value read was NULL
+        int[] cursor = { -1 };
+        boolean[] wasNull = { false };
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(rsmd);
+        when(rs.next()).thenAnswer(invocation -> ++cursor[0] < rows.length);
+        when(rs.wasNull()).thenAnswer(invocation -> wasNull[0]);
+        when(rs.getInt(anyInt())).thenAnswer(invocation -> {
+            Object value = rows[cursor[0]][(Integer) invocation.getArgument(0) - 1];
+            wasNull[0] = value == null;
+            return value == null ? 0 : ((Number) value).intValue();
+        });
+        when(rs.getLong(anyInt())).thenAnswer(invocation -> {
+            Object value = rows[cursor[0]][(Integer) invocation.getArgument(0) - 1];
+            wasNull[0] = value == null;
+            return value == null ? 0L : ((Number) value).longValue();
+        });
+        when(rs.getDate(anyInt())).thenAnswer(invocation -> {
+            Object value = rows[cursor[0]][(Integer) invocation.getArgument(0) - 1];
+            wasNull[0] = value == null;
+            return value;
+        });
+        when(rs.getTimestamp(anyInt())).thenAnswer(invocation -> {
+            Object value = rows[cursor[0]][(Integer) invocation.getArgument(0) - 1];
+            wasNull[0] = value == null;
+            return value;
+        });
+        when(rs.getString(anyInt())).thenAnswer(invocation -> {
+            Object value = rows[cursor[0]][(Integer) invocation.getArgument(0) - 1];
+            wasNull[0] = value == null;
+            return value == null ? null : value.toString();
+        });
+        return rs;
+    }
+}
@@ -0,0 +1,144 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for StatementCache.
+ *
+ * Business Rules:
+ * 1. A template is prepared once and reused from the cache afterwards
+ * 2. Beyond its capacity the least recently used statement is dropped and
+ *    closed
+ * 3. Clearing the cache closes every cached statement
+ * 4. A capacity of 0 prepares every statement again and caches none
+ */
+public class StatementCacheTest {
+
+    private static final String PATIENT = "SELECT * FROM patient WHERE patient_id = ?";
+    private static final String DOCTOR = "SELECT * FROM doctor WHERE slmc_reg_no = ?";
+    private static final String BILL = "SELECT * FROM bill WHERE bill_id = ?";
+
+    @Mock
+    private Connection connection;
+
+    private AutoCloseable closeable;
+    private final Map<String, Integer> prepared = new HashMap<String, Integer>();
+    private final Set<PreparedStatement> closed = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            prepared.merge(invocation.getArgument(0), 1, Integer::sum);
+            PreparedStatement stmt = mock(PreparedStatement.class);
+            when(stmt.isClosed()).thenAnswer(closedInvocation -> closed.contains(stmt));
+            doAnswer(closeInvocation -> closed.add(stmt)).when(stmt).close();
+            return stmt;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* SC_01
+    Objective: Verify that a template is prepared once and then served from the cache.
+    Input: The patient lookup prepared three times on one connection
+    Expected output: One prepare, the same statement every time, 1 miss and 2 hits, parameters cleared on reuse.
+     */
+    @Test
+    public void testPrepare_HitsAfterFirstMiss() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        long hits = StatementCache.hits();
+        long misses = StatementCache.misses();
+
+        PreparedStatement first = cache.prepare(connection, PATIENT);
+        PreparedStatement second = cache.prepare(connection, PATIENT);
+        PreparedStatement third = cache.prepare(connection, PATIENT);
+
+        assertSame(first, second);
+        assertSame(first, third);
+        assertEquals(1, prepared.get(PATIENT).intValue());
+        assertEquals(misses + 1, StatementCache.misses());
+        assertEquals(hits + 2, StatementCache.hits());
+        verify(first, times(2)).clearParameters();
+        assertFalse(closed.contains(first));
+    }
+
+    /* SC_02
+    Objective: Verify that the least recently used statement is evicted and closed.
+    Input: A cache of 2: the patient and doctor lookups, the patient lookup again, then the bill lookup
+    Expected output: The doctor lookup is closed and prepared again when asked for; the patient lookup stays cached.
+     */
+    @Test
+    public void testPrepare_EvictsLeastRecentlyUsed() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        PreparedStatement patient = cache.prepare(connection, PATIENT);
+        PreparedStatement doctor = cache.prepare(connection, DOCTOR);
+        cache.prepare(connection, PATIENT);
+
+        PreparedStatement bill = cache.prepare(connection, BILL);
+
+        assertTrue(closed.contains(doctor));
+        assertFalse(closed.contains(patient));
+        assertFalse(closed.contains(bill));
+        assertSame(patient, cache.prepare(connection, PATIENT));
+        assertNotSame(doctor, cache.prepare(connection, DOCTOR));
+        assertEquals(2, prepared.get(DOCTOR).intValue());
+        assertEquals(1, prepared.get(PATIENT).intValue());
+    }
+
+    /* SC_03
+    Objective: Verify that clearing the cache closes every cached statement.
+    Input: Two cached lookups, then clear and the patient lookup again
+    Expected output: Both statements closed, the patient lookup prepared again.
+     */
+    @Test
+    public void testClear_ClosesCachedStatements() throws Exception {
+        StatementCache cache = new StatementCache(2);
+        PreparedStatement patient = cache.prepare(connection, PATIENT);
+        PreparedStatement doctor = cache.prepare(connection, DOCTOR);
+
+        cache.clear();
+
+        assertTrue(closed.contains(patient));
+        assertTrue(closed.contains(doctor));
+        assertNotSame(patient, cache.prepare(connection, PATIENT));
+        assertEquals(2, prepared.get(PATIENT).intValue());
+    }
+
+    /* SC_04
+    Objective: Verify that a capacity of 0 turns the cache off.
+    Input: A cache of 0 asked twice for the patient lookup
+    Expected output: Two different statements, both counted as misses, the cache reports itself disabled.
+     */
+    @Test
+    public void testPrepare_DisabledCache() throws Exception {
+        StatementCache cache = new StatementCache(0);
+        long misses = StatementCache.misses();
+
+        PreparedStatement first = cache.prepare(connection, PATIENT);
+        PreparedStatement second = cache.prepare(connection, PATIENT);
+
+        assertFalse(cache.isEnabled());
+        assertNotSame(first, second);
+        assertEquals(misses + 2, StatementCache.misses());
+        cache.clear();
+        assertFalse(closed.contains(first));
+    }
+}
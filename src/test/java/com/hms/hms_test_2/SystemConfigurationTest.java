@@ -0,0 +1,68 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for SystemConfiguration.Snapshot.
+ *
+ * Business Rules:
+ * 1. A duration may carry a unit or be an ISO-8601 duration; a plain number keeps the unit of the setting
+ * 2. A missing, empty or invalid value gives the default
+ * 3. The settings of a snapshot cannot be changed
+ */
+public class SystemConfigurationTest {
+
+    private static SystemConfiguration.Snapshot snapshot(String... keysAndValues) {
+        Map<String, String> values = new HashMap<String, String>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            values.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return new SystemConfiguration.Snapshot(values);
+    }
+
+    /* SC_01
+    Objective: Verify that durations are read with and without a unit.
+    Input: "600", "10m", " 500ms ", "PT1H" and "2d"
+    Expected output: 600 seconds, 10 minutes, 500 milliseconds, 1 hour and 2 days.
+     */
+    @Test
+    public void testGetDuration_Units() {
+        SystemConfiguration.Snapshot settings = snapshot("plain", "600", "minutes", "10m", "millis", " 500ms ",
+                "iso", "PT1H", "days", "2d");
+        Duration none = Duration.ZERO;
+
+        assertEquals(Duration.ofSeconds(600), settings.getDuration("plain", ChronoUnit.SECONDS, none));
+        assertEquals(Duration.ofMinutes(10), settings.getDuration("minutes", ChronoUnit.SECONDS, none));
+        assertEquals(Duration.ofMillis(500), settings.getDuration("millis", ChronoUnit.SECONDS, none));
+        assertEquals(Duration.ofHours(1), settings.getDuration("iso", ChronoUnit.SECONDS, none));
+        assertEquals(Duration.ofDays(2), settings.getDuration("days", ChronoUnit.SECONDS, none));
+    }
+
+    /* SC_02
+    Objective: Verify that missing, empty and invalid values give the default.
+    Input: A missing key, an empty value, "ten", "10 weeks" and "maybe"
+    Expected output: The defaults; yes/off are read as booleans.
+     */
+    @Test
+    public void testTypedAccessors_Defaults() {
+        SystemConfiguration.Snapshot settings = snapshot("empty", " ", "count", "ten", "ttl", "10 weeks",
+                "flag", "maybe", "on", "yes", "off", "off");
+
+        assertEquals(5, settings.getInt("missing", 5));
+        assertEquals("x", settings.get("empty", "x"));
+        assertEquals(7, settings.getInt("count", 7));
+        assertEquals(42L, settings.getLong("count", 42L));
+        assertEquals(Duration.ofSeconds(1), settings.getDuration("ttl", ChronoUnit.SECONDS, Duration.ofSeconds(1)));
+        assertTrue(settings.getBoolean("flag", true));
+        assertTrue(settings.getBoolean("on", false));
+        assertFalse(settings.getBoolean("off", true));
+        assertThrows(UnsupportedOperationException.class, () -> settings.keys().clear());
+    }
+}
@@ -0,0 +1,112 @@
+package com.hms.hms_test_2;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for TableSchema.
+ *
+ * Business Rules:
+ * 1. The columns are read with a probe that returns no rows
+ * 2. The primary keys come before the exported keys
+ * 3. A failed key lookup leaves the columns usable
+ */
+public class TableSchemaTest {
+
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement stmt;
+    @Mock
+    private ResultSet rs;
+    @Mock
+    private ResultSetMetaData rsmd;
+    @Mock
+    private DatabaseMetaData meta;
+    @Mock
+    private ResultSet primaryKeys;
+    @Mock
+    private ResultSet exportedKeys;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(connection.prepareStatement("SELECT * FROM appointment LIMIT 0;")).thenReturn(stmt);
+        when(stmt.executeQuery()).thenReturn(rs);
+        when(rs.getMetaData()).thenReturn(rsmd);
+        when(rsmd.getColumnCount()).thenReturn(3);
+        when(rsmd.getColumnName(1)).thenReturn("appointment_id");
+        when(rsmd.getColumnName(2)).thenReturn("patient_id");
+        when(rsmd.getColumnName(3)).thenReturn("date");
+        when(rsmd.getColumnType(1)).thenReturn(Types.VARCHAR);
+        when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(rsmd.getColumnType(3)).thenReturn(Types.TIMESTAMP);
+        when(rsmd.isNullable(1)).thenReturn(ResultSetMetaData.columnNoNulls);
+        when(rsmd.isNullable(2)).thenReturn(ResultSetMetaData.columnNullable);
+        when(rsmd.isNullable(3)).thenReturn(ResultSetMetaData.columnNullable);
+
+        when(connection.getMetaData()).thenReturn(meta);
+        when(meta.getPrimaryKeys(null, null, "appointment")).thenReturn(primaryKeys);
+        when(primaryKeys.next()).thenReturn(true, false);
+        when(primaryKeys.getString(4)).thenReturn("appointment_id");
+        when(meta.getExportedKeys(null, null, "appointment")).thenReturn(exportedKeys);
+        when(exportedKeys.next()).thenReturn(true, false);
+        when(exportedKeys.getString(4)).thenReturn("patient_id");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    /* TS_01
+    Objective: Verify that the columns and keys of a table are read and the statement is closed.
+    Input: The appointment table with 3 columns, one primary and one exported key
+    Expected output: The names, types, nullability and keys in table order.
+     */
+    @Test
+    public void testLoad_ReadsColumnsAndKeys() throws Exception {
+        TableSchema schema = TableSchema.load(connection, "appointment");
+
+        assertEquals(3, schema.getColumnCount());
+        assertEquals(Arrays.asList("appointment_id", "patient_id", "date"), schema.getColumnNames());
+        assertEquals(Types.TIMESTAMP, schema.getColumnType(2));
+        assertFalse(schema.isNullable(0));
+        assertTrue(schema.isNullable(1));
+        assertEquals(Arrays.asList("appointment_id", "patient_id"), schema.getKeys());
+        verify(stmt).close();
+        verify(rs).close();
+    }
+
+    /* TS_02
+    Objective: Verify that a failing key lookup does not fail the whole load.
+    Input: getPrimaryKeys throws an SQLException
+    Expected output: The 3 columns and no keys.
+     */
+    @Test
+    public void testLoad_KeyLookupFails() throws Exception {
+        when(meta.getPrimaryKeys(null, null, "appointment")).thenThrow(new SQLException("no access"));
+
+        TableSchema schema = TableSchema.load(connection, "appointment");
+
+        assertEquals(3, schema.getColumnCount());
+        assertTrue(schema.getKeys().isEmpty());
+    }
+}